@@ -65,6 +65,10 @@ buildFeatures {
     viewBinding = true
     buildConfig = true
 }
+    testOptions {
+        // Local tests run code that logs and posts to the main thread; those calls do nothing
+        unitTests.isReturnDefaultValues = true
+    }
     packaging {
         resources {
             excludes += "/META-INF/{AL2.0,LGPL2.1}"
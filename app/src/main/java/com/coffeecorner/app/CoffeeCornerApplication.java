@@ -3,6 +3,10 @@ package com.coffeecorner.app;
 import android.app.Application;
 import android.util.Log;
 
+import com.coffeecorner.app.utils.CartPricing;
+import com.coffeecorner.app.utils.CartStore;
+import com.coffeecorner.app.utils.LocalCartStore;
+import com.coffeecorner.app.utils.PreferencesHelper;
 import com.coffeecorner.app.utils.SupabaseClientManager;
 
 /**
@@ -21,6 +25,12 @@ public class CoffeeCornerApplication extends Application {
         // Initialize Supabase client
         initializeSupabase();
 
+        // Start loading the guest cart in the background so the first read doesn't wait on disk
+        LocalCartStore.getInstance(this);
+
+        // Price the cart with the saved promo code and loyalty points
+        CartStore.getInstance().setAdjustments(CartPricing.Adjustments.from(new PreferencesHelper(this)));
+
         Log.d(TAG, "Coffee Corner Application initialized successfully");
     }
 
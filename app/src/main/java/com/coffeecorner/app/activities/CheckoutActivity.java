@@ -2,6 +2,7 @@ package com.coffeecorner.app.activities;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ImageButton;
@@ -16,15 +17,27 @@ import com.coffeecorner.app.R;
 import com.coffeecorner.app.adapters.CheckoutItemAdapter;
 import com.coffeecorner.app.models.CartItem;
 import com.coffeecorner.app.models.Order;
+import com.coffeecorner.app.models.OrderItemRow;
+import com.coffeecorner.app.models.OrderRow;
+import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.repositories.CartRepository;
+import com.coffeecorner.app.utils.CartPricing;
+import com.coffeecorner.app.utils.CartStore;
 import com.coffeecorner.app.utils.SupabaseClientManager;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 public class CheckoutActivity extends AppCompatActivity {
 
+    private static final String TAG = "CheckoutActivity";
+
     private RecyclerView rvCheckoutItems;
     private TextView tvSubtotal, tvDeliveryFee, tvTotalAmount;
     private TextView tvDeliveryAddress;
@@ -32,7 +45,10 @@ public class CheckoutActivity extends AppCompatActivity {
     private ProgressBar progressBar;
     private CheckoutItemAdapter adapter;
     private List<CartItem> cartItems;
-    private double deliveryFee = 2.0; // Default delivery fee
+    private CartPricing.Quote quote = CartPricing.Quote.EMPTY;
+    // ID of the order being placed; kept for retries until the cart changes, so
+    // a retry after a lost response rewrites the same rows
+    private String pendingOrderId;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -69,28 +85,27 @@ public class CheckoutActivity extends AppCompatActivity {
     }
 
     private void setupRecyclerView() {
-        cartItems = new ArrayList<>();
+        cartItems = CartStore.getInstance().getSnapshot().getItems();
         adapter = new CheckoutItemAdapter(this, cartItems);
         rvCheckoutItems.setLayoutManager(new LinearLayoutManager(this));
         rvCheckoutItems.setAdapter(adapter);
     }
 
     private void loadCartItems() {
-        // In a real app, load cart items from local storage or Supabase
-        // For demo, we'll use sample data
-        calculateTotals();
+        // Follow the shared cart store rather than fetching the cart again
+        CartStore.getInstance().getSnapshots().observe(this, snapshot -> {
+            cartItems = snapshot.getItems();
+            pendingOrderId = null;
+            adapter.updateItems(cartItems);
+            showTotals(snapshot.getQuote());
+        });
     }
 
-    private void calculateTotals() {
-        double subtotal = 0;
-        for (CartItem item : cartItems) {
-            subtotal += item.getTotalPrice();
-        }
-
-        tvSubtotal.setText(String.format("$%.2f", subtotal));
-        tvDeliveryFee.setText(String.format("$%.2f", deliveryFee));
-        double total = subtotal + deliveryFee;
-        tvTotalAmount.setText(String.format("$%.2f", total));
+    private void showTotals(CartPricing.Quote priced) {
+        quote = priced;
+        tvSubtotal.setText(String.format("$%.2f", CartPricing.toAmount(priced.getSubtotalCents())));
+        tvDeliveryFee.setText(String.format("$%.2f", CartPricing.toAmount(priced.getDeliveryFeeCents())));
+        tvTotalAmount.setText(String.format("$%.2f", CartPricing.toAmount(priced.getTotalCents())));
     }
 
     private void setupListeners() {
@@ -103,48 +118,107 @@ public class CheckoutActivity extends AppCompatActivity {
             return;
         }
 
-        String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
-        String orderId = UUID.randomUUID().toString();
-        String deliveryAddress = tvDeliveryAddress.getText().toString();
         progressBar.setVisibility(View.VISIBLE);
-        btnPlaceOrder.setEnabled(false); // Create a new Order with all required parameters
+        btnPlaceOrder.setEnabled(false);
+
+        Set<String> productIds = new LinkedHashSet<>();
+        for (CartItem item : cartItems) {
+            if (item.getProductId() != null) {
+                productIds.add(item.getProductId());
+            }
+        }
+        if (productIds.isEmpty()) {
+            submitOrder();
+            return;
+        }
+
+        // Check the whole cart in one request, fetching only the columns needed
+        SupabaseClientManager.getInstance()
+                .from("products")
+                .select("id,is_available")
+                .in("id", productIds)
+                .executeAsync(response -> runOnUiThread(() -> {
+                    if (response.getError() != null) {
+                        orderFailed("Failed to place order: " + response.getError().getMessage());
+                        return;
+                    }
+                    List<String> unavailable = new ArrayList<>(productIds);
+                    for (Product product : response.getDataList(Product.class)) {
+                        if (product.isAvailable()) {
+                            unavailable.remove(product.getId());
+                        }
+                    }
+                    if (unavailable.isEmpty()) {
+                        submitOrder();
+                    } else {
+                        orderFailed("Some items in your cart are no longer available");
+                    }
+                }));
+    }
+
+    private void submitOrder() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            orderFailed("Please sign in to place your order");
+            return;
+        }
+        if (pendingOrderId == null) {
+            pendingOrderId = UUID.randomUUID().toString();
+        }
+        String orderId = pendingOrderId;
+        String deliveryAddress = tvDeliveryAddress.getText().toString();
+        // Create a new Order with all required parameters
         Order newOrder = new Order(
                 orderId,
                 new Date(),
                 cartItems,
                 deliveryAddress,
                 "Cash on Delivery",
-                deliveryFee,
-                0.0, // tax
-                0.0, // discount
+                CartPricing.toAmount(quote.getDeliveryFeeCents()),
+                CartPricing.toAmount(quote.getTaxCents()),
+                CartPricing.toAmount(quote.getDiscountCents()),
                 Order.STATUS_CONFIRMED,
                 30 // estimated delivery time in minutes
         );
+        List<OrderItemRow> itemRows = OrderItemRow.from(newOrder);
 
         try {
-            // Use our simplified SupabaseClientManager
-            SupabaseClientManager.getInstance()
-                    .from("orders")
-                    .insert(newOrder)
-                    .executeAsync(response -> runOnUiThread(() -> {
-                        progressBar.setVisibility(View.GONE);
-                        btnPlaceOrder.setEnabled(true);
-
-                        if (response.getError() == null) {
-                            showToast("Order placed successfully!");
-                            clearCart();
-                            navigateToOrderTracking(orderId);
-                        } else {
-                            showToast("Failed to place order: " + response.getError().getMessage());
+            // The order row first, then all of its lines in one request. Both are
+            // upserts on the row ID, so retrying either step does not duplicate rows.
+            SupabaseClientManager.DatabaseClient database = SupabaseClientManager.getInstance().from("orders");
+            database.upsert(Collections.singletonList(OrderRow.from(newOrder, user.getUid())), "id")
+                    .executeAsync(orderResponse -> {
+                        if (orderResponse.getError() != null) {
+                            runOnUiThread(() -> orderFailed(
+                                    "Failed to place order: " + orderResponse.getError().getMessage()));
+                            return;
                         }
-                    }));
+                        database.from("order_items")
+                                .upsert(itemRows, "id")
+                                .executeAsync(itemsResponse -> runOnUiThread(() -> {
+                                    if (itemsResponse.getError() == null) {
+                                        progressBar.setVisibility(View.GONE);
+                                        btnPlaceOrder.setEnabled(true);
+                                        showToast("Order placed successfully!");
+                                        clearCart();
+                                        navigateToOrderTracking(orderId);
+                                    } else {
+                                        orderFailed("Failed to place order: "
+                                                + itemsResponse.getError().getMessage());
+                                    }
+                                }));
+                    });
         } catch (Exception e) {
-            progressBar.setVisibility(View.GONE);
-            btnPlaceOrder.setEnabled(true);
-            showToast("Error: " + e.getMessage());
+            orderFailed("Error: " + e.getMessage());
         }
     }
 
+    private void orderFailed(String message) {
+        progressBar.setVisibility(View.GONE);
+        btnPlaceOrder.setEnabled(true);
+        showToast(message);
+    }
+
     private void navigateToOrderTracking(String orderId) {
         Intent intent = new Intent(this, OrderTrackingActivity.class);
         intent.putExtra("orderId", orderId);
@@ -153,10 +227,18 @@ public class CheckoutActivity extends AppCompatActivity {
     }
 
     private void clearCart() {
-        // Clear cart items from local storage or Supabase
-        cartItems.clear();
-        adapter.notifyDataSetChanged();
-        calculateTotals();
+        // The emptied cart reaches this screen and the badge through the cart store
+        CartRepository.getInstance(this).clearCart(new CartRepository.CartOperationCallback() {
+            @Override
+            public void onSuccess(String successMsg) {
+                Log.d(TAG, "Cart cleared after placing order");
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                Log.e(TAG, "Failed to clear cart after placing order: " + errorMessage);
+            }
+        });
     }
 
     private void showToast(String message) {
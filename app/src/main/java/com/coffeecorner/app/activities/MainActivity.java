@@ -14,6 +14,7 @@ import androidx.navigation.ui.NavigationUI;
 
 import com.coffeecorner.app.R;
 import com.coffeecorner.app.utils.AuthDiagnostic;
+import com.coffeecorner.app.utils.CartStore;
 import com.coffeecorner.app.utils.PreferencesHelper;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
@@ -38,6 +39,10 @@ public class MainActivity extends BaseActivity {
         // Set up navigation
         setupNavigation();
 
+        // Keep the cart badge in step with every published cart
+        CartStore.getInstance().getSnapshots().observe(this,
+                snapshot -> updateCartBadge(snapshot.getItemCount()));
+
         // Initialize debug utilities
         authDiagnostic = new AuthDiagnostic(this);
         preferencesHelper = new PreferencesHelper(this);
@@ -16,6 +16,7 @@ import com.coffeecorner.app.R;
 import com.coffeecorner.app.models.Order;
 import com.coffeecorner.app.models.CartItem;
 import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.utils.CartPricing;
 import com.google.android.material.button.MaterialButton;
 
 import java.text.SimpleDateFormat;
@@ -183,13 +184,7 @@ public class OrderTrackingActivity extends AppCompatActivity {
         tvPaymentMethod.setText(currentOrder.getPaymentMethod());
 
         // Calculate and set order total
-        double itemsTotal = 0;
-        for (CartItem item : currentOrder.getItems()) {
-            double itemPrice = item.getProduct().getPrice() + item.getExtraCharge();
-            itemsTotal += (itemPrice * item.getQuantity());
-        }
-
-        double total = itemsTotal + currentOrder.getDeliveryFee() + currentOrder.getTax() - currentOrder.getDiscount();
+        double total = CartPricing.toAmount(CartPricing.orderTotalCents(currentOrder));
         tvOrderTotal.setText("$" + String.format(Locale.US, "%.2f", total));
     }
 
@@ -125,7 +125,8 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder
         holder.btnIncreaseQuantity.setOnClickListener(v -> {
             int newQuantity = cartItem.getQuantity() + 1;
             if (newQuantity <= 10 && product != null) { // Set a reasonable maximum and check product
-                cartItem.setQuantity(newQuantity);
+                // The item is shared with the cart store, so it is not changed here;
+                // the new quantity arrives with the next list update
                 holder.tvQuantity.setText(String.valueOf(newQuantity));
 
                 // Update price
@@ -141,7 +142,6 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.CartViewHolder
         holder.btnDecreaseQuantity.setOnClickListener(v -> {
             int newQuantity = cartItem.getQuantity() - 1;
             if (newQuantity >= 1 && product != null) {
-                cartItem.setQuantity(newQuantity);
                 holder.tvQuantity.setText(String.valueOf(newQuantity));
 
                 // Update price
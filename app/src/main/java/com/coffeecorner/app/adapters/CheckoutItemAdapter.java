@@ -47,6 +47,11 @@ public class CheckoutItemAdapter extends RecyclerView.Adapter<CheckoutItemAdapte
         return items.size();
     }
 
+    public void updateItems(List<CartItem> newItems) {
+        this.items = newItems;
+        notifyDataSetChanged();
+    }
+
     static class ViewHolder extends RecyclerView.ViewHolder {
         TextView tvItemName, tvQuantity, tvSize, tvMilkOption, tvPrice;
 
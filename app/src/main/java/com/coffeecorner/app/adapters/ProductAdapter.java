@@ -50,8 +50,28 @@ public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ProductV
     }
 
     public void updateProducts(List<Product> newProducts) {
+        List<Product> oldProducts = this.productList;
         this.productList = newProducts;
-        notifyDataSetChanged();
+        if (isAppendOf(oldProducts, newProducts)) {
+            // Streamed chunks only add items at the end; keep the bound cards as they are
+            notifyItemRangeInserted(oldProducts.size(), newProducts.size() - oldProducts.size());
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    private static boolean isAppendOf(List<Product> oldProducts, List<Product> newProducts) {
+        if (oldProducts == null || newProducts == null || oldProducts.isEmpty()
+                || newProducts.size() <= oldProducts.size()) {
+            return false;
+        }
+        // Every bound item must still be the same object at the same position
+        for (int i = 0; i < oldProducts.size(); i++) {
+            if (oldProducts.get(i) != newProducts.get(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @NonNull
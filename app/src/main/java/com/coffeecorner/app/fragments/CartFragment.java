@@ -24,10 +24,9 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.coffeecorner.app.R;
 import com.coffeecorner.app.activities.CheckoutActivity;
-import com.coffeecorner.app.activities.MainActivity;
 import com.coffeecorner.app.adapters.CartAdapter;
 import com.coffeecorner.app.models.CartItem;
-import com.coffeecorner.app.utils.PreferencesHelper;
+import com.coffeecorner.app.utils.CartPricing;
 import com.coffeecorner.app.utils.AuthDiagnosticHelper;
 import com.coffeecorner.app.viewmodels.CartViewModel;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
@@ -49,9 +48,6 @@ public class CartFragment extends Fragment implements CartAdapter.CartItemListen
     private CartViewModel cartViewModel;
     private AuthDiagnosticHelper authDiagnosticHelper;
 
-    private static final double TAX_RATE = 0.09; // 9%
-    private static final double DELIVERY_FEE = 2.00;
-
     public CartFragment() {
         // Required empty public constructor
     }
@@ -111,11 +107,14 @@ public class CartFragment extends Fragment implements CartAdapter.CartItemListen
 
             // Navigate to checkout activity
             Intent intent = new Intent(requireContext(), CheckoutActivity.class);
-            intent.putExtra("subtotal", calculateSubtotal());
-            intent.putExtra("tax", calculateTax());
-            intent.putExtra("deliveryFee", DELIVERY_FEE);
-            intent.putExtra("discount", calculateDiscount());
-            intent.putExtra("total", calculateTotal());
+            CartPricing.Quote quote = cartViewModel.getQuote().getValue();
+            if (quote != null) {
+                intent.putExtra("subtotal", CartPricing.toAmount(quote.getSubtotalCents()));
+                intent.putExtra("tax", CartPricing.toAmount(quote.getTaxCents()));
+                intent.putExtra("deliveryFee", CartPricing.toAmount(quote.getDeliveryFeeCents()));
+                intent.putExtra("discount", CartPricing.toAmount(quote.getDiscountCents()));
+                intent.putExtra("total", CartPricing.toAmount(quote.getTotalCents()));
+            }
             startActivity(intent);
         });
         btnBrowseMenu.setOnClickListener(v -> {
@@ -199,70 +198,22 @@ public class CartFragment extends Fragment implements CartAdapter.CartItemListen
             } else {
                 cartAdapter.updateCartItems(cartItems);
             }
-
-            // Update price summary
-            updatePriceSummary();
-        });
-    }
-
-    private void updatePriceSummary() {
-        cartViewModel.getCartTotal().observe(getViewLifecycleOwner(), subtotal -> { // Use getCartTotal since
-                                                                                    // getCartSubtotal doesn't exist
-                                                                                    // getCartSubtotal
-            double tax = subtotal * TAX_RATE;
-            double discount = calculateDiscount();
-            double total = subtotal + tax + DELIVERY_FEE - discount;
-
-            tvSubtotal.setText(currencyFormatter.format(subtotal));
-            tvTax.setText(currencyFormatter.format(tax));
-            tvDeliveryFee.setText(currencyFormatter.format(DELIVERY_FEE));
-            tvDiscount.setText(discount > 0 ? "-" + currencyFormatter.format(discount) : currencyFormatter.format(0));
-            tvTotal.setText(currencyFormatter.format(total));
         });
     }
 
-    private double calculateSubtotal() {
-        Double subtotal = cartViewModel.getCartTotal().getValue(); // Use getCartTotal since getCartSubtotal doesn't
-                                                                   // exist
-        return subtotal != null ? subtotal : 0.0;
-    }
-
-    private double calculateTax() {
-        return calculateSubtotal() * TAX_RATE;
-    }
-
-    private double calculateDiscount() {
-        double discount = 0;
-
-        // Apply loyalty points discount if available
-        PreferencesHelper preferencesHelper = new PreferencesHelper(requireContext());
-        int loyaltyPoints = preferencesHelper.getLoyaltyPoints();
-        if (loyaltyPoints >= 100) {
-            // 100 points = $5 discount
-            discount += (loyaltyPoints / 100) * 5.0;
-        }
-
-        // Apply promo code discount if available
-        String promoCode = preferencesHelper.getPromoCode();
-        if (promoCode != null && !promoCode.isEmpty()) {
-            switch (promoCode.toUpperCase()) {
-                case "WELCOME10":
-                    discount += calculateSubtotal() * 0.10; // 10% discount
-                    break;
-                case "SAVE5":
-                    discount += 5.0; // $5 off
-                    break;
-                case "FIRST20":
-                    discount += calculateSubtotal() * 0.20; // 20% discount for first-time users
-                    break;
-            }
-        }
-
-        return Math.min(discount, calculateSubtotal()); // Don't exceed subtotal
-    }
-
-    private double calculateTotal() {
-        return calculateSubtotal() + calculateTax() + DELIVERY_FEE - calculateDiscount();
+    /**
+     * Show the priced cart. Tax, delivery fee and discounts come from
+     * CartPricing, so this screen and checkout always agree.
+     *
+     * @param quote Price breakdown from the ViewModel
+     */
+    private void updatePriceSummary(CartPricing.Quote quote) {
+        double discount = CartPricing.toAmount(quote.getDiscountCents());
+        tvSubtotal.setText(currencyFormatter.format(CartPricing.toAmount(quote.getSubtotalCents())));
+        tvTax.setText(currencyFormatter.format(CartPricing.toAmount(quote.getTaxCents())));
+        tvDeliveryFee.setText(currencyFormatter.format(CartPricing.toAmount(quote.getDeliveryFeeCents())));
+        tvDiscount.setText(discount > 0 ? "-" + currencyFormatter.format(discount) : currencyFormatter.format(0));
+        tvTotal.setText(currencyFormatter.format(CartPricing.toAmount(quote.getTotalCents())));
     }
 
     private void showEmptyCartView() {
@@ -346,6 +297,9 @@ public class CartFragment extends Fragment implements CartAdapter.CartItemListen
       // implemented by the fragment and are already properly implemented above
 
     private void observeViewModel() {
+        // Observe the priced cart for the summary
+        cartViewModel.getQuote().observe(getViewLifecycleOwner(), this::updatePriceSummary);
+
         // Observe loading state
         cartViewModel.getIsLoading().observe(getViewLifecycleOwner(), isLoading -> {
             // Check if fragment is still attached before handling loading state
@@ -381,27 +335,7 @@ public class CartFragment extends Fragment implements CartAdapter.CartItemListen
                 Toast.makeText(getContext(), successMessage, Toast.LENGTH_SHORT).show();
             }
         });
-
-        // Observe cart item count for badge updates
-        cartViewModel.getCartItemCount().observe(getViewLifecycleOwner(), itemCount -> {
-            // Check if fragment is still attached before updating badge
-            if (!isAdded() || getContext() == null) {
-                Log.w("CartFragment", "Fragment not attached, skipping cart badge update");
-                return;
-            }
-
-            if (itemCount != null) {
-                // Update cart badge in bottom navigation if needed
-                updateCartBadge(itemCount);
-            }
-        });
-    }
-
-    private void updateCartBadge(int itemCount) {
-        // Update cart badge in MainActivity
-        if (getActivity() instanceof MainActivity) {
-            ((MainActivity) getActivity()).updateCartBadge(itemCount);
-        }
+        // The cart badge follows the cart store in MainActivity
     }
 
     @Override
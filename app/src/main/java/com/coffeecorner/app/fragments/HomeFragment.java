@@ -2,6 +2,8 @@ package com.coffeecorner.app.fragments;
 
 import android.app.ProgressDialog;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,9 +11,11 @@ import android.view.ViewGroup;
 import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.ImageView;
+import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
@@ -28,7 +32,10 @@ import java.util.List;
 
 import com.coffeecorner.app.R;
 import com.coffeecorner.app.adapters.ProductAdapter;
+import com.coffeecorner.app.utils.CatalogFacets;
+import com.coffeecorner.app.utils.Constants;
 import com.coffeecorner.app.utils.GridSpacingItemDecoration;
+import com.coffeecorner.app.utils.PrefetchScrollListener;
 import com.coffeecorner.app.utils.PreferencesHelper;
 import com.coffeecorner.app.viewmodels.CartViewModel;
 import com.coffeecorner.app.viewmodels.ProductViewModel;
@@ -47,6 +54,8 @@ public class HomeFragment extends Fragment {
     private ProductAdapter productAdapter;
     private ProductViewModel productViewModel;
     private CartViewModel cartViewModel; // Add CartViewModel field
+    // Filter button tapped before the catalog was indexed
+    private boolean filterDialogPending;
 
     public HomeFragment() {
         // Required empty public constructor
@@ -110,7 +119,23 @@ public class HomeFragment extends Fragment {
             }
         });
 
-        // Set up search functionality
+        // Set up search functionality: results update as the user types
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                // Not needed
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                productViewModel.onSearchQueryChanged(s.toString());
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // Not needed
+            }
+        });
         etSearch.setOnEditorActionListener((v, actionId, event) -> {
             String query = etSearch.getText().toString().trim();
             if (!query.isEmpty()) {
@@ -144,6 +169,10 @@ public class HomeFragment extends Fragment {
 
         rvProducts.setAdapter(productAdapter);
 
+        // Load the next page of the category before the user reaches the last card
+        rvProducts.addOnScrollListener(new PrefetchScrollListener(Constants.PRODUCT_PREFETCH_DISTANCE,
+                productViewModel::loadNextPage));
+
         // Add item decoration for spacing if needed
         int spacing = getResources().getDimensionPixelSize(R.dimen.grid_spacing);
         rvProducts.addItemDecoration(new GridSpacingItemDecoration(2, spacing, true));
@@ -174,6 +203,14 @@ public class HomeFragment extends Fragment {
                 Toast.makeText(requireContext(), errorMessage, Toast.LENGTH_LONG).show();
             }
         });
+
+        // Open the filters the user asked for once the catalog is indexed
+        productViewModel.getFacetIndex().observe(getViewLifecycleOwner(), facets -> {
+            if (facets != null && filterDialogPending) {
+                filterDialogPending = false;
+                showFilterDialog();
+            }
+        });
     }
 
     private void filterProductsByCategory(String category) {
@@ -205,18 +242,77 @@ public class HomeFragment extends Fragment {
                 .show();
     }
 
+    /**
+     * Facet filters apply as each box is ticked, answered from the on-device
+     * index. Rating choices exclude each other; sorting is a separate list.
+     * The first time, the catalog is indexed and the dialog opens once it is.
+     */
     private void showFilterDialog() {
+        CatalogFacets facets = productViewModel.getFacets();
+        if (facets == null) {
+            filterDialogPending = true;
+            productViewModel.loadFacets();
+            return;
+        }
+
+        int bandCount = facets.getPriceBandCount();
+        int ratingStart = 2 + bandCount;
+        String[] options = new String[ratingStart + CatalogFacets.RATING_THRESHOLDS.length];
+        boolean[] checked = new boolean[options.length];
+        CatalogFacets.Filter current = productViewModel.getActiveFilter();
+
+        options[0] = "Available Only";
+        checked[0] = current.isAvailableOnly();
+        options[1] = "Featured Only";
+        checked[1] = current.isFeaturedOnly();
+        for (int b = 0; b < bandCount; b++) {
+            options[2 + b] = String.format("$%.2f - $%.2f", facets.getPriceBandMin(b), facets.getPriceBandMax(b));
+            checked[2 + b] = current.isPriceBandSelected(b);
+        }
+        for (int r = 0; r < CatalogFacets.RATING_THRESHOLDS.length; r++) {
+            options[ratingStart + r] = String.format("Rated %.1f+", CatalogFacets.RATING_THRESHOLDS[r]);
+            checked[ratingStart + r] = current.getMinRating() == r;
+        }
+
+        new MaterialAlertDialogBuilder(requireContext())
+                .setTitle("Filter Products")
+                .setMultiChoiceItems(options, checked, (dialog, which, isChecked) -> {
+                    CatalogFacets.Filter filter = productViewModel.getActiveFilter();
+                    if (which == 0) {
+                        filter = filter.withAvailableOnly(isChecked);
+                    } else if (which == 1) {
+                        filter = filter.withFeaturedOnly(isChecked);
+                    } else if (which < ratingStart) {
+                        filter = filter.withPriceBand(which - 2, isChecked);
+                    } else {
+                        int rating = which - ratingStart;
+                        ListView list = ((AlertDialog) dialog).getListView();
+                        for (int r = 0; r < CatalogFacets.RATING_THRESHOLDS.length; r++) {
+                            if (r != rating) {
+                                list.setItemChecked(ratingStart + r, false);
+                                checked[ratingStart + r] = false;
+                            }
+                        }
+                        filter = filter.withMinRating(isChecked ? rating : -1);
+                    }
+                    productViewModel.applyFilter(filter);
+                })
+                .setNeutralButton("Sort", (dialog, which) -> showSortDialog())
+                .setPositiveButton("Done", null)
+                .show();
+    }
+
+    private void showSortDialog() {
         String[] filterOptions = {
                 "Price: Low to High",
                 "Price: High to Low",
                 "Most Popular",
                 "Newest First",
-                "Highest Rated",
-                "Available Only"
+                "Highest Rated"
         };
 
         new MaterialAlertDialogBuilder(requireContext())
-                .setTitle("Filter Products")
+                .setTitle("Sort Products")
                 .setItems(filterOptions, (dialog, which) -> {
                     String selectedFilter = filterOptions[which];
                     applyFilter(selectedFilter);
@@ -243,9 +339,6 @@ public class HomeFragment extends Fragment {
             case "Highest Rated":
                 productViewModel.sortByRating();
                 break;
-            case "Available Only":
-                productViewModel.filterAvailableOnly();
-                break;
         }
     }
 }
@@ -14,6 +14,8 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.coffeecorner.app.R;
 import com.coffeecorner.app.adapters.MenuItemAdapter;
 import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.utils.Constants;
+import com.coffeecorner.app.utils.PrefetchScrollListener;
 import com.coffeecorner.app.viewmodels.CartViewModel;
 import com.coffeecorner.app.viewmodels.ProductViewModel;
 import com.google.android.material.tabs.TabLayout;
@@ -89,6 +91,8 @@ public class MenuFragment extends Fragment implements MenuItemAdapter.OnItemClic
         adapter = new MenuItemAdapter();
         adapter.setOnItemClickListener(this);
         rvMenuItems.setAdapter(adapter);
+        rvMenuItems.addOnScrollListener(new PrefetchScrollListener(Constants.PRODUCT_PREFETCH_DISTANCE,
+                productViewModel::loadNextPage));
     }
 
     private void setupObservers() {
@@ -28,6 +28,7 @@ import com.coffeecorner.app.R;
 import com.coffeecorner.app.activities.LoginActivity;
 import com.coffeecorner.app.models.User;
 import com.coffeecorner.app.utils.PreferencesHelper;
+import com.coffeecorner.app.utils.SupabaseClientManager;
 import com.coffeecorner.app.viewmodel.UserViewModel;
 import com.coffeecorner.app.viewmodel.UserViewModelFactory;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
@@ -67,6 +68,8 @@ public class ProfileFragment extends Fragment {    private ImageView ivProfilePi
 
         // Setup click listeners
         setupClickListeners(view);
+
+        loadOrderCount();
     }    private void initializeViews(View view) {
         ivProfilePic = view.findViewById(R.id.imgProfile);
         tvUsername = view.findViewById(R.id.tvName);
@@ -133,6 +136,34 @@ public class ProfileFragment extends Fragment {    private ImageView ivProfilePi
         });
     }
 
+    /**
+     * Show the number of orders placed. Asks for an exact count over a single
+     * ID column instead of fetching the order rows.
+     */
+    private void loadOrderCount() {
+        String userId = preferencesHelper.getUserId();
+        if (userId == null || userId.isEmpty()) {
+            return;
+        }
+        SupabaseClientManager.getInstance()
+                .from("orders")
+                .select("id")
+                .eq("user_id", userId)
+                .range(0, 0)
+                .countExact()
+                .executeAsync(response -> {
+                    int count = response.getTotalCount();
+                    if (response.getError() != null || count < 0) {
+                        return;
+                    }
+                    new Handler(Looper.getMainLooper()).post(() -> {
+                        if (isAdded() && tvTotalOrders != null) {
+                            tvTotalOrders.setText(String.valueOf(count));
+                        }
+                    });
+                });
+    }
+
     private void updateUI(User user) {
         tvUsername.setText(user.getName());
         tvEmail.setText(user.getEmail());
@@ -0,0 +1,89 @@
+package com.coffeecorner.app.models;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * CartDelta - Response model for cart mutations
+ * Carries only the changed line, with the cart version before and after the
+ * change and the new totals. Matches the backend CartDelta schema
+ */
+public class CartDelta {
+    @SerializedName("base_version")
+    private String baseVersion;
+
+    @SerializedName("version")
+    private String version;
+
+    @SerializedName("line")
+    private Line line;
+
+    @SerializedName("removed_id")
+    private String removedId;
+
+    @SerializedName("item_count")
+    private int itemCount;
+
+    @SerializedName("subtotal")
+    private double subtotal;
+
+    // Default constructor
+    public CartDelta() {
+    }
+
+    // Getters
+    public String getBaseVersion() {
+        return baseVersion;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The added or updated line, or null for a removal
+     */
+    public Line getLine() {
+        return line;
+    }
+
+    /**
+     * @return ID of the removed line, or null if nothing was removed
+     */
+    public String getRemovedId() {
+        return removedId;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public double getSubtotal() {
+        return subtotal;
+    }
+
+    /**
+     * A cart line without its product details
+     */
+    public static class Line {
+        @SerializedName("id")
+        private String id;
+
+        @SerializedName("product_id")
+        private String productId;
+
+        @SerializedName("quantity")
+        private int quantity;
+
+        public String getId() {
+            return id;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.coffeecorner.app.models;
 
+import com.coffeecorner.app.utils.CartPricing;
 import com.google.gson.annotations.SerializedName;
 
 public class CartItem {
@@ -158,12 +159,25 @@ public class CartItem {
         this.customizations = customizations;
     }
 
+    /**
+     * Copy this item with a different quantity, leaving this one unchanged
+     *
+     * @param quantity Quantity of the copy
+     * @return New cart item with the same line ID, product and options
+     */
+    public CartItem withQuantity(int quantity) {
+        CartItem copy = new CartItem(product, quantity, size, milkOption, temperature, customizations);
+        copy.id = id;
+        copy.extraCharge = extraCharge;
+        return copy;
+    }
+
     public double getTotalPrice() {
         if (product == null) {
             android.util.Log.w("CartItem", "getTotalPrice: Product is null, returning 0");
             return 0.0;
         }
-        return (product.getPrice() + extraCharge) * quantity;
+        return CartPricing.toAmount(CartPricing.lineCents(this));
     }
 
     private double calculateExtraCharge(String size, String milkOption) {
@@ -0,0 +1,34 @@
+package com.coffeecorner.app.models;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CartMergeRequest - Request model for merging a guest cart into the user's cart
+ * Matches the backend CartMergeRequest schema
+ */
+public class CartMergeRequest {
+    @SerializedName("items")
+    private List<CartAddRequest> items;
+
+    // Default constructor
+    public CartMergeRequest() {
+        this.items = new ArrayList<>();
+    }
+
+    // Constructor
+    public CartMergeRequest(List<CartAddRequest> items) {
+        this.items = items;
+    }
+
+    // Getters and Setters
+    public List<CartAddRequest> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CartAddRequest> items) {
+        this.items = items;
+    }
+}
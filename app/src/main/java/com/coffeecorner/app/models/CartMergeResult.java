@@ -0,0 +1,70 @@
+package com.coffeecorner.app.models;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CartMergeResult - Response model for a guest cart merge
+ * Matches the backend CartMergeResponse schema
+ */
+public class CartMergeResult {
+    @SerializedName("version")
+    private String version;
+
+    @SerializedName("items")
+    private List<CartItem> items;
+
+    @SerializedName("merged")
+    private List<String> merged;
+
+    @SerializedName("failed")
+    private List<Failure> failed;
+
+    // Default constructor
+    public CartMergeResult() {
+    }
+
+    // Getters
+    public String getVersion() {
+        return version;
+    }
+
+    public List<CartItem> getItems() {
+        return items != null ? items : new ArrayList<>();
+    }
+
+    /**
+     * @return Product IDs the server added to the cart
+     */
+    public List<String> getMerged() {
+        return merged != null ? merged : new ArrayList<>();
+    }
+
+    /**
+     * @return Items the server rejected, with the reason
+     */
+    public List<Failure> getFailed() {
+        return failed != null ? failed : new ArrayList<>();
+    }
+
+    /**
+     * A guest cart item the server could not merge
+     */
+    public static class Failure {
+        @SerializedName("product_id")
+        private String productId;
+
+        @SerializedName("reason")
+        private String reason;
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.coffeecorner.app.models;
 
+import com.coffeecorner.app.utils.CartPricing;
+
 import java.util.Date;
 import java.util.List;
 
@@ -82,13 +84,20 @@ public class Order {
     } // Additional getters and setters
 
     private void calculateTotals() {
-        subtotal = 0;
+        long subtotalCents = 0;
+        if (items == null) {
+            // Not set yet, e.g. while an order row is being read
+            subtotal = 0;
+            total = CartPricing.toAmount(CartPricing.orderTotalCents(this));
+            return;
+        }
         for (CartItem item : items) {
-            // Use CartItem total price including extra charges
-            subtotal += item.getTotalPrice();
+            // Line price including extra charges
+            subtotalCents += CartPricing.lineCents(item);
         }
 
-        total = subtotal + deliveryFee + tax;
+        subtotal = CartPricing.toAmount(subtotalCents);
+        total = CartPricing.toAmount(CartPricing.orderTotalCents(this));
     }
 
     // Getters and setters
@@ -163,6 +172,10 @@ public class Order {
         return subtotal;
     }
 
+    public void setSubtotal(double subtotal) {
+        this.subtotal = subtotal;
+    }
+
     public double getDeliveryFee() {
         return deliveryFee;
     }
@@ -0,0 +1,93 @@
+package com.coffeecorner.app.models;
+
+import com.coffeecorner.app.utils.CartPricing;
+import com.google.gson.annotations.SerializedName;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * OrderItemRow - One row of the Supabase order_items table
+ * Matches the order_items columns
+ */
+public class OrderItemRow {
+    @SerializedName("id")
+    private String id;
+
+    @SerializedName("order_id")
+    private String orderId;
+
+    @SerializedName("product_id")
+    private String productId;
+
+    @SerializedName("quantity")
+    private int quantity;
+
+    // Unit price including option surcharges
+    @SerializedName("price")
+    private double price;
+
+    // Default constructor
+    public OrderItemRow() {
+    }
+
+    // Constructor
+    public OrderItemRow(String id, String orderId, String productId, int quantity, double price) {
+        this.id = id;
+        this.orderId = orderId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    /**
+     * Rows for every line of an order. Each row's ID is derived from the order
+     * ID and the line's position, so writing the same order again produces the
+     * same rows.
+     *
+     * @param order The order
+     * @return One row per line with a product
+     */
+    public static List<OrderItemRow> from(Order order) {
+        List<OrderItemRow> rows = new ArrayList<>();
+        List<CartItem> items = order.getItems();
+        if (items == null) {
+            return rows;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            CartItem item = items.get(i);
+            if (item == null || item.getProductId() == null) {
+                continue;
+            }
+            String id = UUID.nameUUIDFromBytes((order.getOrderId() + "/" + i).getBytes(StandardCharsets.UTF_8))
+                    .toString();
+            long unitCents = CartPricing.toCents(item.getPrice()) + CartPricing.toCents(item.getExtraCharge());
+            rows.add(new OrderItemRow(id, order.getOrderId(), item.getProductId(), item.getQuantity(),
+                    CartPricing.toAmount(unitCents)));
+        }
+        return rows;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+}
@@ -0,0 +1,70 @@
+package com.coffeecorner.app.models;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * OrderRow - One row of the Supabase orders table
+ * Matches the orders columns; the order's lines are written as OrderItemRows
+ */
+public class OrderRow {
+    @SerializedName("id")
+    private String id;
+
+    @SerializedName("user_id")
+    private String userId;
+
+    @SerializedName("total_amount")
+    private double totalAmount;
+
+    @SerializedName("status")
+    private String status;
+
+    @SerializedName("delivery_address")
+    private String deliveryAddress;
+
+    // Default constructor
+    public OrderRow() {
+    }
+
+    // Constructor
+    public OrderRow(String id, String userId, double totalAmount, String status, String deliveryAddress) {
+        this.id = id;
+        this.userId = userId;
+        this.totalAmount = totalAmount;
+        this.status = status;
+        this.deliveryAddress = deliveryAddress;
+    }
+
+    /**
+     * Row for an order placed by the given user
+     *
+     * @param order  The order
+     * @param userId ID of the user placing it
+     * @return The orders row
+     */
+    public static OrderRow from(Order order, String userId) {
+        return new OrderRow(order.getOrderId(), userId, order.getTotal(), order.getStatus(),
+                order.getDeliveryAddress());
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getDeliveryAddress() {
+        return deliveryAddress;
+    }
+}
@@ -266,6 +266,100 @@ public class Product implements Cloneable {
         return availableAddons != null && availableAddons.size() > 0;
     }
 
+    /**
+     * Copy another sighting of this product into this one, field by field.
+     * A complete record (catalog, detail or search) overwrites every field it
+     * has. A partial one, such as a product embedded in a cart line, only
+     * overwrites fields it actually carries: non-null text and lists, and
+     * non-zero numbers. Its flags are left alone, as a missing flag decodes
+     * as false.
+     *
+     * Only for objects nothing else holds yet; see {@link #mergedWith}.
+     *
+     * @param source   Newer sighting of the same product
+     * @param complete Whether source is a full product record
+     * @return true if any field changed
+     */
+    public boolean mergeFrom(Product source, boolean complete) {
+        if (!differsFrom(source, complete)) {
+            return false;
+        }
+        copyFrom(source, complete);
+        return true;
+    }
+
+    /**
+     * This product with another sighting merged in as by {@link #mergeFrom},
+     * as a new object. This one is left unchanged, so it is safe to call on a
+     * product other threads may be reading.
+     *
+     * @param source   Newer sighting of the same product
+     * @param complete Whether source is a full product record
+     * @return The merged copy, or this product if nothing would change
+     */
+    public Product mergedWith(Product source, boolean complete) {
+        if (!differsFrom(source, complete)) {
+            return this;
+        }
+        Product merged = clone();
+        merged.copyFrom(source, complete);
+        return merged;
+    }
+
+    /**
+     * Whether merging source in would change any field, by the rules of
+     * {@link #mergeFrom}
+     */
+    private boolean differsFrom(Product source, boolean complete) {
+        return (source.name != null && !source.name.equals(name))
+                || (source.description != null && !source.description.equals(description))
+                || (source.category != null && !source.category.equals(category))
+                || (source.imageUrl != null && !source.imageUrl.equals(imageUrl))
+                || (source.availableSizes != null && !source.availableSizes.equals(availableSizes))
+                || (source.availableAddons != null && !source.availableAddons.equals(availableAddons))
+                || ((complete || source.price != 0) && source.price != price)
+                || ((complete || source.rating != 0) && source.rating != rating)
+                || ((complete || source.calories != 0) && source.calories != calories)
+                || (complete && (source.isFeatured != isFeatured || source.isAvailable != isAvailable));
+    }
+
+    /**
+     * Overwrite every field source carries, by the rules of {@link #mergeFrom}
+     */
+    private void copyFrom(Product source, boolean complete) {
+        if (source.name != null) {
+            name = source.name;
+        }
+        if (source.description != null) {
+            description = source.description;
+        }
+        if (source.category != null) {
+            category = source.category;
+        }
+        if (source.imageUrl != null) {
+            imageUrl = source.imageUrl;
+        }
+        if (source.availableSizes != null) {
+            availableSizes = source.availableSizes;
+        }
+        if (source.availableAddons != null) {
+            availableAddons = source.availableAddons;
+        }
+        if (complete || source.price != 0) {
+            price = source.price;
+        }
+        if (complete || source.rating != 0) {
+            rating = source.rating;
+        }
+        if (complete || source.calories != 0) {
+            calories = source.calories;
+        }
+        if (complete) {
+            isFeatured = source.isFeatured;
+            isAvailable = source.isAvailable;
+        }
+    }
+
     @Override
     public Product clone() {
         try {
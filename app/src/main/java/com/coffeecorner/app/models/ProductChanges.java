@@ -0,0 +1,57 @@
+package com.coffeecorner.app.models;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProductChanges - Response model for GET products?updated_since=
+ * One page of catalog changes after a cursor: changed products, including
+ * ones made unavailable, and the IDs of deleted products. Matches the backend
+ * ProductChanges schema
+ */
+public class ProductChanges {
+    @SerializedName("products")
+    private List<Product> products;
+
+    @SerializedName("deleted")
+    private List<String> deleted;
+
+    @SerializedName("cursor")
+    private String cursor;
+
+    @SerializedName("has_more")
+    private boolean hasMore;
+
+    // Default constructor
+    public ProductChanges() {
+    }
+
+    // Getters
+    public List<Product> getProducts() {
+        return products != null ? products : new ArrayList<>();
+    }
+
+    /**
+     * @return IDs of deleted products, to drop from the local catalog.
+     *         Unavailable products come in {@link #getProducts()} instead.
+     */
+    public List<String> getDeleted() {
+        return deleted != null ? deleted : new ArrayList<>();
+    }
+
+    /**
+     * @return Cursor to request the next page with, or null if the server has none
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * @return true if more changes follow this page
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
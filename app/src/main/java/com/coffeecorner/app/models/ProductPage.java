@@ -0,0 +1,44 @@
+package com.coffeecorner.app.models;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProductPage - One page of the catalog
+ * Returned by GET products/page, or read from the on-device catalog. Matches
+ * the backend ProductPage schema
+ */
+public class ProductPage {
+    @SerializedName("products")
+    private List<Product> products;
+
+    @SerializedName("next_cursor")
+    private String nextCursor;
+
+    // Default constructor
+    public ProductPage() {
+    }
+
+    public ProductPage(List<Product> products, String nextCursor) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<Product> getProducts() {
+        return products != null ? products : new ArrayList<>();
+    }
+
+    /**
+     * @return Cursor to request the following page with, or null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
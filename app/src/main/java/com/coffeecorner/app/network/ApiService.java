@@ -2,15 +2,21 @@ package com.coffeecorner.app.network;
 
 import com.coffeecorner.app.models.CartItem;
 import com.coffeecorner.app.models.CartAddRequest;
+import com.coffeecorner.app.models.CartDelta;
+import com.coffeecorner.app.models.CartMergeRequest;
+import com.coffeecorner.app.models.CartMergeResult;
 import com.coffeecorner.app.models.FirebaseAuthRequest;
 import com.coffeecorner.app.models.Order;
 import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.models.ProductChanges;
+import com.coffeecorner.app.models.ProductPage;
 import com.coffeecorner.app.models.User;
 import com.coffeecorner.app.models.ProductResponse;
 
 import java.util.List;
 import java.util.Map;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
@@ -21,6 +27,7 @@ import retrofit2.http.POST;
 import retrofit2.http.PUT;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 public interface ApiService {
 
@@ -34,6 +41,16 @@ public interface ApiService {
     @GET("products")
     Call<ApiResponse<List<Product>>> getProducts();
 
+    // Catalog changes after a cursor from X-Catalog-Cursor or a previous page
+    @GET("products")
+    Call<ApiResponse<ProductChanges>> getProductChanges(@Query("updated_since") String cursor,
+            @Query("limit") int limit);
+
+    // One page of the catalog; a null category or cursor is left out of the query
+    @GET("products/page")
+    Call<ApiResponse<ProductPage>> getProductPage(@Query("category") String category,
+            @Query("cursor") String cursor, @Query("limit") int limit);
+
     @GET("products/categories")
     Call<ApiResponse<List<String>>> getCategories();
 
@@ -99,9 +116,13 @@ public interface ApiService {
     @GET("cart/{userId}")
     Call<ApiResponse<List<CartItem>>> getCart(@Path("userId") String userId);
 
-    // JWT-authenticated endpoint that expects JSON body
+    // JWT-authenticated endpoint that expects JSON body; returns the changed line only
     @POST("cart/add")
-    Call<ApiResponse<List<CartItem>>> addToCart(@Body CartAddRequest cartAddRequest);
+    Call<ApiResponse<CartDelta>> addToCart(@Body CartAddRequest cartAddRequest);
+
+    // Merge a guest cart into the user's cart in one request
+    @POST("cart/merge")
+    Call<ApiResponse<CartMergeResult>> mergeCart(@Body CartMergeRequest cartMergeRequest);
 
     // Legacy form-encoded endpoint (keep for compatibility)
     @FormUrlEncoded
@@ -117,8 +138,10 @@ public interface ApiService {
             @Field("product_id") String productId,
             @Field("quantity") int quantity);
 
-    @PUT("cart/update")
-    Call<ApiResponse<List<CartItem>>> updateCartItem(@Body CartItem cartItem);
+    // Body is {"quantity": n}; returns the changed line only
+    @PUT("cart/update/{itemId}")
+    Call<ApiResponse<CartDelta>> updateCartItem(@Path("itemId") String itemId,
+            @Body Map<String, Integer> quantityUpdate);
 
     @FormUrlEncoded
     @PUT("cart/{userId}/update/{itemId}")
@@ -135,7 +158,7 @@ public interface ApiService {
             @Field("quantity") int quantity);
 
     @DELETE("cart/{itemId}")
-    Call<ApiResponse<List<CartItem>>> removeFromCart(@Path("itemId") String itemId);
+    Call<ApiResponse<CartDelta>> removeFromCart(@Path("itemId") String itemId);
 
     @DELETE("cart/{userId}/remove/{itemId}")
     Call<ApiResponse<List<CartItem>>> removeFromCart(
@@ -154,6 +177,11 @@ public interface ApiService {
     @GET("orders")
     Call<ApiResponse<List<Order>>> getUserOrders();
 
+    // Raw body of GET orders, decoded incrementally by StreamingListReader
+    @Streaming
+    @GET("orders")
+    Call<ResponseBody> streamUserOrders();
+
     @GET("orders/{userId}")
     Call<ApiResponse<List<Order>>> getUserOrders(@Path("userId") String userId);
 
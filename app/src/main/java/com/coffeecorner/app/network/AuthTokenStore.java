@@ -0,0 +1,146 @@
+package com.coffeecorner.app.network;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.coffeecorner.app.utils.PreferencesHelper;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * AuthTokenStore - Process-wide, in-memory holder of the backend JWT.
+ *
+ * PreferencesHelper writes through to it on login, refresh and logout, so the
+ * auth interceptor can read the token (and a prebuilt Authorization header)
+ * without touching SharedPreferences on every request.
+ */
+public class AuthTokenStore {
+
+    private static volatile AuthTokenStore instance;
+
+    private final CopyOnWriteArrayList<TokenListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Nullable
+    private volatile String token;
+    @Nullable
+    private volatile String authorizationHeader;
+    private volatile boolean loaded = false;
+
+    AuthTokenStore() {
+        // Use getInstance(); package-private for tests
+    }
+
+    /**
+     * Get singleton instance of AuthTokenStore
+     *
+     * @return AuthTokenStore instance
+     */
+    public static AuthTokenStore getInstance() {
+        if (instance == null) {
+            synchronized (AuthTokenStore.class) {
+                if (instance == null) {
+                    instance = new AuthTokenStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Load the persisted token once, if nothing has been set yet
+     *
+     * @param context Any context
+     */
+    public void initialize(@NonNull Context context) {
+        if (loaded) {
+            return;
+        }
+        String persisted = new PreferencesHelper(context.getApplicationContext()).getAuthToken();
+        update(persisted, true, false);
+    }
+
+    /**
+     * Replace the current token and notify listeners if it changed. The token
+     * is taken to have just been issued by the backend (login or refresh).
+     *
+     * @param newToken New token, or null on logout
+     */
+    public void setToken(@Nullable String newToken) {
+        update(newToken, false, true);
+    }
+
+    private void update(@Nullable String newToken, boolean onlyIfNotLoaded, boolean issued) {
+        if (newToken != null && newToken.isEmpty()) {
+            newToken = null;
+        }
+        synchronized (this) {
+            if (onlyIfNotLoaded && loaded) {
+                return;
+            }
+            boolean changed = newToken == null ? token != null : !newToken.equals(token);
+            loaded = true;
+            if (!changed) {
+                return;
+            }
+            token = newToken;
+            authorizationHeader = newToken != null ? "Bearer " + newToken : null;
+        }
+        for (TokenListener listener : listeners) {
+            listener.onTokenChanged(newToken, issued && newToken != null);
+        }
+    }
+
+    /**
+     * Get the current token
+     *
+     * @return Token, or null if signed out
+     */
+    @Nullable
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Get the Authorization header value for the current token
+     *
+     * @return "Bearer &lt;token&gt;", or null if signed out
+     */
+    @Nullable
+    public String getAuthorizationHeader() {
+        return authorizationHeader;
+    }
+
+    /**
+     * Register a listener for token changes. It is called immediately with the
+     * current token.
+     *
+     * @param listener Listener to add
+     */
+    public void addListener(@NonNull TokenListener listener) {
+        listeners.addIfAbsent(listener);
+        listener.onTokenChanged(token, false);
+    }
+
+    /**
+     * Unregister a token listener
+     *
+     * @param listener Listener to remove
+     */
+    public void removeListener(@NonNull TokenListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Listener for token changes
+     */
+    public interface TokenListener {
+        /**
+         * @param token  New token, or null when it was cleared
+         * @param issued true if the token was just issued by the backend, false
+         *               if it was read back from storage
+         */
+        void onTokenChanged(@Nullable String token, boolean issued);
+    }
+}
@@ -0,0 +1,162 @@
+package com.coffeecorner.app.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.coffeecorner.app.utils.Constants;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * CatalogCacheInterceptor - Applies the response cache policy for catalog
+ * (products/*) routes.
+ *
+ * Installed twice on the OkHttpClient:
+ * - as a network interceptor it stamps a per-route freshness lifetime on
+ * successful catalog responses so the disk cache can store them. Once that
+ * lifetime passes, OkHttp revalidates with If-None-Match / If-Modified-Since
+ * using the ETag / Last-Modified saved with the entry.
+ * - as an application interceptor it serves the cached copy when the network
+ * fails (stale-if-error), up to {@link Constants#HTTP_CACHE_STALE_IF_ERROR_SECONDS}.
+ */
+public class CatalogCacheInterceptor implements Interceptor {
+
+    private static final String TAG = "CatalogCacheInterceptor";
+    private static final String CATALOG_PREFIX = Constants.API_PRODUCTS;
+    private static final String BASE_PATH = HttpUrl.get(Constants.API_BASE_URL).encodedPath();
+    // Error bodies are short JSON messages; more than this is dropped
+    private static final long MAX_ERROR_BODY_BYTES = 64 * 1024;
+
+    private final boolean networkStage;
+
+    private CatalogCacheInterceptor(boolean networkStage) {
+        this.networkStage = networkStage;
+    }
+
+    /**
+     * Interceptor to register with {@code addNetworkInterceptor}
+     *
+     * @return Interceptor rewriting catalog response freshness
+     */
+    public static CatalogCacheInterceptor forNetwork() {
+        return new CatalogCacheInterceptor(true);
+    }
+
+    /**
+     * Interceptor to register with {@code addInterceptor}
+     *
+     * @return Interceptor falling back to the cache on network errors
+     */
+    public static CatalogCacheInterceptor forApplication() {
+        return new CatalogCacheInterceptor(false);
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method()) || maxAgeFor(request) < 0) {
+            return chain.proceed(request);
+        }
+        return networkStage ? applyFreshness(chain, request) : proceedWithStaleFallback(chain, request);
+    }
+
+    private Response applyFreshness(Chain chain, Request request) throws IOException {
+        Response response = chain.proceed(request);
+        // 304s are merged into the stored entry by OkHttp, so they need the
+        // same lifetime or the entry goes stale again right after revalidating
+        if (!response.isSuccessful() && response.code() != 304) {
+            return response;
+        }
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "public, max-age=" + maxAgeFor(request))
+                .build();
+    }
+
+    private Response proceedWithStaleFallback(Chain chain, Request request) throws IOException {
+        try {
+            Response response = chain.proceed(request);
+            if (response.code() < 500) {
+                return response;
+            }
+            // The chain refuses another request while this response is open, so
+            // keep a detached copy of the error to return if nothing is cached
+            Response error = response.newBuilder()
+                    .body(response.peekBody(MAX_ERROR_BODY_BYTES))
+                    .build();
+            response.close();
+            Response cached = readStale(chain, request);
+            if (cached == null) {
+                return error;
+            }
+            Log.w(TAG, "Server error " + response.code() + ", serving cached " + request.url().encodedPath());
+            return cached;
+        } catch (IOException e) {
+            Response cached = readStale(chain, request);
+            if (cached == null) {
+                throw e;
+            }
+            Log.w(TAG, "Network error, serving cached " + request.url().encodedPath() + ": " + e.getMessage());
+            return cached;
+        }
+    }
+
+    @Nullable
+    private Response readStale(Chain chain, Request request) throws IOException {
+        Request cacheOnly = request.newBuilder()
+                .cacheControl(new CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(Constants.HTTP_CACHE_STALE_IF_ERROR_SECONDS, TimeUnit.SECONDS)
+                        .build())
+                .build();
+        Response cached = chain.proceed(cacheOnly);
+        if (cached.code() == 504) {
+            // OkHttp answers 504 when only-if-cached cannot be satisfied
+            cached.close();
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Freshness lifetime for a catalog route
+     *
+     * @param request Outgoing request
+     * @return max-age in seconds, or -1 if the route is not cached
+     */
+    static int maxAgeFor(@NonNull Request request) {
+        String path = request.url().encodedPath();
+        if (!path.startsWith(BASE_PATH + CATALOG_PREFIX)) {
+            return -1;
+        }
+        if (request.url().queryParameter(Constants.QUERY_UPDATED_SINCE) != null) {
+            // Delta pages are read once per cursor and stored in CatalogStore
+            return -1;
+        }
+        String route = path.substring(BASE_PATH.length());
+        if (route.equals(CATALOG_PREFIX + "/categories")) {
+            return Constants.HTTP_CACHE_MAX_AGE_CATEGORIES;
+        }
+        if (route.startsWith(CATALOG_PREFIX + "/search")) {
+            return Constants.HTTP_CACHE_MAX_AGE_SEARCH;
+        }
+        if (route.equals(CATALOG_PREFIX) || route.equals(CATALOG_PREFIX + "/page")
+                || route.startsWith(CATALOG_PREFIX + "/category/")) {
+            return Constants.HTTP_CACHE_MAX_AGE_PRODUCTS;
+        }
+        if (route.startsWith(CATALOG_PREFIX + "/")) {
+            return Constants.HTTP_CACHE_MAX_AGE_PRODUCT_DETAIL;
+        }
+        return -1;
+    }
+}
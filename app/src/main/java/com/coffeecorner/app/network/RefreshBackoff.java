@@ -0,0 +1,69 @@
+package com.coffeecorner.app.network;
+
+/**
+ * RefreshBackoff - Spaces out token refresh attempts after failures.
+ *
+ * After a failed refresh, the next attempt is allowed once the initial delay
+ * has passed; each further failure doubles the delay, up to the maximum. A
+ * successful refresh starts over. The count survives across requests, so a
+ * refresh that keeps failing is tried a few times a minute at most, not once
+ * per request.
+ *
+ * Not thread-safe; {@link TokenAuthenticator} uses it under its refresh lock.
+ */
+final class RefreshBackoff {
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+
+    private int failureCount;
+    // Device time (epoch ms) before which no attempt is made
+    private long nextAttemptAtMs;
+
+    /**
+     * @param initialDelayMs Wait after the first failure
+     * @param maxDelayMs     Longest wait however many attempts failed
+     */
+    RefreshBackoff(long initialDelayMs, long maxDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * @param nowMs Current device time in epoch milliseconds
+     * @return true if a refresh may be attempted now
+     */
+    boolean canAttempt(long nowMs) {
+        return nowMs >= nextAttemptAtMs;
+    }
+
+    /**
+     * Record a failed attempt
+     *
+     * @param nowMs Current device time in epoch milliseconds
+     * @return Delay before the next attempt is allowed, in milliseconds
+     */
+    long onFailure(long nowMs) {
+        // Past about 30 doublings the shift would overflow; the cap applies long before
+        int doublings = Math.min(failureCount, 30);
+        long delayMs = Math.min(maxDelayMs, initialDelayMs << doublings);
+        failureCount++;
+        nextAttemptAtMs = nowMs + delayMs;
+        return delayMs;
+    }
+
+    /**
+     * Record a successful attempt, allowing the next one at once
+     */
+    void onSuccess() {
+        failureCount = 0;
+        nextAttemptAtMs = 0;
+    }
+
+    /**
+     * @return Failed attempts since the last success
+     */
+    int getFailureCount() {
+        return failureCount;
+    }
+}
@@ -1,15 +1,17 @@
 package com.coffeecorner.app.network;
 
 import android.content.Context;
+import com.coffeecorner.app.BuildConfig;
 import com.coffeecorner.app.utils.Constants;
-import com.coffeecorner.app.utils.PreferencesHelper;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import okhttp3.Cache;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import java.io.File;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -19,6 +21,14 @@ import java.util.concurrent.TimeUnit;
 public class RetrofitClient {
     private static volatile RetrofitClient instance;
     private static Retrofit retrofit;
+    private static volatile ApiService apiService;
+
+    // Custom Gson with proper field naming strategy
+    // We'll use LOWER_CASE_WITH_UNDERSCORES directly instead of our custom strategy
+    // since we now have SerializedName annotations in model classes
+    private static final Gson GSON = new GsonBuilder()
+            .setFieldNamingPolicy(com.google.gson.FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
 
     private RetrofitClient() {
         // Private constructor to prevent instantiation
@@ -58,9 +68,7 @@ public class RetrofitClient {
             return createBasicRetrofit();
         }
 
-        // Create logging interceptor for debugging
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+        HttpLoggingInterceptor loggingInterceptor = createLoggingInterceptor();
 
         // Create TokenAuthenticator for automatic JWT refresh
         TokenAuthenticator tokenAuthenticator = null;
@@ -70,10 +78,23 @@ public class RetrofitClient {
             android.util.Log.e("RetrofitClient", "Failed to create TokenAuthenticator: " + e.getMessage());
             // Continue without authenticator if creation fails
         } // Create OkHttpClient with timeout settings, logging, and authentication
+
+        // Keep the stored token in memory and refresh it ahead of expiry
+        final AuthTokenStore tokenStore = AuthTokenStore.getInstance();
+        tokenStore.initialize(appContext);
+        final TokenRefreshScheduler tokenScheduler = TokenRefreshScheduler.getInstance();
+        tokenStore.addListener(tokenScheduler);
+        if (tokenAuthenticator != null) {
+            tokenScheduler.attach(tokenAuthenticator::refreshToken);
+        }
         OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
                 .connectTimeout(60, TimeUnit.SECONDS)
                 .readTimeout(60, TimeUnit.SECONDS)
                 .writeTimeout(60, TimeUnit.SECONDS)
+                .cache(new Cache(new File(appContext.getCacheDir(), Constants.HTTP_CACHE_DIR),
+                        Constants.HTTP_CACHE_SIZE_BYTES))
+                .addInterceptor(CatalogCacheInterceptor.forApplication())
+                .addNetworkInterceptor(CatalogCacheInterceptor.forNetwork())
                 .addInterceptor(loggingInterceptor);
 
         // Add authenticator only if it was created successfully
@@ -92,15 +113,13 @@ public class RetrofitClient {
                     // Add Accept header for JSON
                     builder.header("Accept", "application/json");
 
-                    // Get auth token from preferences if available
-                    PreferencesHelper preferencesHelper = new PreferencesHelper(appContext);
-                    String token = preferencesHelper.getAuthToken();
+                    // Get auth header from memory; an expired token starts a background refresh
+                    tokenScheduler.refreshIfExpiring();
+                    String authorization = tokenStore.getAuthorizationHeader();
 
                     // Add Authorization header if token exists
-                    if (token != null && !token.isEmpty()) {
-                        builder.header("Authorization", "Bearer " + token);
-                        android.util.Log.d("RetrofitClient", "Adding Authorization header with token: " +
-                                (token.length() > 10 ? token.substring(0, 10) + "..." : token));
+                    if (authorization != null) {
+                        builder.header("Authorization", authorization);
                     } else {
                         android.util.Log.w("RetrofitClient",
                                 "No auth token found - request will be made without authentication");
@@ -108,30 +127,44 @@ public class RetrofitClient {
 
                     return chain.proceed(builder.build());
                 })
-                .build(); // Create a custom Gson instance with proper field naming strategy
-        // We'll use LOWER_CASE_WITH_UNDERSCORES directly instead of our custom strategy
-        // since we now have SerializedName annotations in model classes
-        Gson gson = new GsonBuilder()
-                .setFieldNamingPolicy(com.google.gson.FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-                .create();
+                .build();
+
+        // Let token refreshes reuse this client's connection pool
+        if (tokenAuthenticator != null) {
+            tokenAuthenticator.attachHttpClient(client);
+        }
 
         // Create Retrofit instance with custom Gson
         return new Retrofit.Builder()
                 .baseUrl(Constants.API_BASE_URL)
                 .client(client)
-                .addConverterFactory(GsonConverterFactory.create(gson))
+                .addConverterFactory(GsonConverterFactory.create(GSON))
                 .build();
     }
 
+    /**
+     * Create the logging interceptor. Bodies are never logged: logging one
+     * buffers it whole, which defeats the streamed order list.
+     * Release builds log nothing.
+     *
+     * @return Logging interceptor
+     */
+    private static HttpLoggingInterceptor createLoggingInterceptor() {
+        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
+        loggingInterceptor.setLevel(BuildConfig.DEBUG
+                ? HttpLoggingInterceptor.Level.HEADERS
+                : HttpLoggingInterceptor.Level.NONE);
+        loggingInterceptor.redactHeader("Authorization");
+        return loggingInterceptor;
+    }
+
     /**
      * Create a basic Retrofit instance without TokenAuthenticator as fallback
      * 
      * @return Basic Retrofit instance
      */
     private Retrofit createBasicRetrofit() {
-        // Create logging interceptor for debugging
-        HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-        loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+        HttpLoggingInterceptor loggingInterceptor = createLoggingInterceptor();
 
         // Create OkHttpClient with basic configuration
         OkHttpClient client = new OkHttpClient.Builder()
@@ -148,16 +181,11 @@ public class RetrofitClient {
                 })
                 .build();
 
-        // Create Gson instance
-        Gson gson = new GsonBuilder()
-                .setFieldNamingPolicy(com.google.gson.FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
-                .create();
-
         // Create basic Retrofit instance
         return new Retrofit.Builder()
                 .baseUrl(Constants.API_BASE_URL)
                 .client(client)
-                .addConverterFactory(GsonConverterFactory.create(gson))
+                .addConverterFactory(GsonConverterFactory.create(GSON))
                 .build();
     }
 
@@ -167,10 +195,25 @@ public class RetrofitClient {
      * @return ApiService instance
      */
     public static ApiService getApiService() {
-        if (retrofit == null) {
-            getInstance(); // Initialize if needed
+        if (apiService == null) {
+            synchronized (RetrofitClient.class) {
+                if (apiService == null) {
+                    getInstance(); // Initialize if needed
+                    // Retrofit proxies are stateless, so one instance serves every repository
+                    apiService = retrofit.create(ApiService.class);
+                }
+            }
         }
-        return retrofit.create(ApiService.class);
+        return apiService;
+    }
+
+    /**
+     * Get the Gson instance used to decode API responses
+     * 
+     * @return Shared Gson instance
+     */
+    public static Gson getGson() {
+        return GSON;
     }
 
     /**
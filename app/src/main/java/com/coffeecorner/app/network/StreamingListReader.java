@@ -0,0 +1,182 @@
+package com.coffeecorner.app.network;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * StreamingListReader - Decodes an {@link ApiResponse} whose data is a list
+ * straight off the wire with a JsonReader, delivering items to the UI in chunks
+ * while the rest of the body is still downloading.
+ *
+ * Use with {@code @Streaming} ApiService methods returning {@code Call<ResponseBody>}.
+ */
+public final class StreamingListReader {
+
+    private static final String TAG = "StreamingListReader";
+
+    // Roughly one screenful of the two-column grid, so the first cards show early
+    public static final int FIRST_CHUNK_SIZE = 6;
+    public static final int CHUNK_SIZE = 24;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final Executor mainThread = mainHandler::post;
+    private static final ExecutorService executor = createExecutor();
+
+    private StreamingListReader() {
+        // Private constructor to prevent instantiation
+    }
+
+    private static ExecutorService createExecutor() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, TAG));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Callback for streamed lists. All methods are called on the main thread.
+     *
+     * @param <T> Type of list item
+     */
+    public interface ChunkCallback<T> {
+        /**
+         * Called for each decoded chunk, in order
+         *
+         * @param chunk Items decoded since the previous chunk
+         */
+        void onChunk(List<T> chunk);
+
+        /**
+         * Called once the whole list has been decoded
+         *
+         * @param all Every item, in order
+         */
+        void onComplete(List<T> all);
+
+        void onError(String errorMessage);
+    }
+
+    /**
+     * Execute a streaming call in the background and decode its list incrementally
+     *
+     * @param call      Call returning the raw ApiResponse body
+     * @param gson      Gson configured like the API's converter
+     * @param itemClass Type of list item
+     * @param callback  Callback for chunks and completion
+     * @param <T>       Type of list item
+     */
+    public static <T> void enqueue(@NonNull Call<ResponseBody> call, @NonNull Gson gson,
+            @NonNull Class<T> itemClass, @NonNull ChunkCallback<T> callback) {
+        executor.execute(() -> {
+            try {
+                Response<ResponseBody> response = call.execute();
+                if (!response.isSuccessful() || response.body() == null) {
+                    postError(mainThread, callback, "Request failed: " + response.code());
+                    return;
+                }
+                try (ResponseBody body = response.body()) {
+                    read(body.charStream(), gson.getAdapter(itemClass), callback, mainThread);
+                }
+            } catch (IOException e) {
+                if (call.isCanceled()) {
+                    return;
+                }
+                Log.e(TAG, "Streaming call failed", e);
+                postError(mainThread, callback, "Network error. Please try again. " + e.getMessage());
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Malformed streaming response", e);
+                postError(mainThread, callback, "Unexpected response from server.");
+            }
+        });
+    }
+
+    /**
+     * Decode an {"success", "message", "data": [...]} envelope, emitting data items in chunks
+     *
+     * @param delivery Runs the callbacks; the main thread outside tests
+     */
+    static <T> void read(Reader reader, TypeAdapter<T> adapter, ChunkCallback<T> callback, Executor delivery)
+            throws IOException {
+        JsonReader json = new JsonReader(reader);
+        boolean success = true;
+        String message = null;
+        List<T> all = new ArrayList<>();
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if ("success".equals(name) && json.peek() == JsonToken.BOOLEAN) {
+                success = json.nextBoolean();
+            } else if ("message".equals(name) && json.peek() == JsonToken.STRING) {
+                message = json.nextString();
+            } else if ("data".equals(name) && json.peek() == JsonToken.BEGIN_ARRAY) {
+                readItems(json, adapter, all, callback, delivery);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+
+        if (!success) {
+            postError(delivery, callback, message != null ? message : "Request failed.");
+            return;
+        }
+        List<T> result = Collections.unmodifiableList(all);
+        delivery.execute(() -> callback.onComplete(result));
+    }
+
+    private static <T> void readItems(JsonReader json, TypeAdapter<T> adapter, List<T> all,
+            ChunkCallback<T> callback, Executor delivery) throws IOException {
+        int chunkLimit = FIRST_CHUNK_SIZE;
+        List<T> chunk = new ArrayList<>(chunkLimit);
+        json.beginArray();
+        while (json.hasNext()) {
+            T item = adapter.read(json);
+            if (item == null) {
+                continue;
+            }
+            all.add(item);
+            chunk.add(item);
+            if (chunk.size() >= chunkLimit) {
+                postChunk(delivery, callback, chunk);
+                chunkLimit = CHUNK_SIZE;
+                chunk = new ArrayList<>(chunkLimit);
+            }
+        }
+        json.endArray();
+        if (!chunk.isEmpty()) {
+            postChunk(delivery, callback, chunk);
+        }
+    }
+
+    private static <T> void postChunk(Executor delivery, ChunkCallback<T> callback, List<T> chunk) {
+        delivery.execute(() -> callback.onChunk(chunk));
+    }
+
+    private static <T> void postError(Executor delivery, ChunkCallback<T> callback, String errorMessage) {
+        delivery.execute(() -> callback.onError(errorMessage));
+    }
+}
@@ -6,6 +6,7 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.coffeecorner.app.utils.Constants;
 import com.coffeecorner.app.utils.PreferencesHelper;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -15,6 +16,7 @@ import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.Authenticator;
+import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.Route;
@@ -26,26 +28,44 @@ import retrofit2.converter.gson.GsonConverterFactory;
  * TokenAuthenticator handles automatic JWT token refresh when receiving 401 responses.
  * Implements OkHttp Authenticator interface to automatically refresh expired tokens
  * using Firebase authentication and backend re-authentication flow.
+ *
+ * Refreshes are single-flight: when several requests fail with 401 at once, only
+ * the first one runs the Firebase + backend exchange, and the others wait for it
+ * and retry with the token it produced. After a failed refresh, further
+ * attempts are refused until a backoff delay has passed, so a refresh that
+ * keeps failing (offline, or the backend is down) doesn't hold up every
+ * request with another Firebase and backend round-trip.
  */
 public class TokenAuthenticator implements Authenticator {
-    
+
     private static final String TAG = "TokenAuthenticator";
     private static final int MAX_RETRY_COUNT = 3;
     private static final long TIMEOUT_SECONDS = 30;
-    
+
     private final Context context;
     private final PreferencesHelper preferencesHelper;
     private final FirebaseAuth firebaseAuth;
     private final String baseUrl;
-    
-    // Track retry attempts to prevent infinite loops
-    private int retryCount = 0;
-    
+
+    // Guards the refresh so concurrent 401s share one Firebase/backend round-trip
+    private final Object refreshLock = new Object();
+
+    // Guarded by refreshLock
+    private final RefreshBackoff backoff = new RefreshBackoff(
+            TimeUnit.SECONDS.toMillis(Constants.TOKEN_REFRESH_BACKOFF_SECONDS),
+            TimeUnit.SECONDS.toMillis(Constants.TOKEN_REFRESH_MAX_BACKOFF_SECONDS));
+
+    // Reused for every refresh; built on first use
+    @Nullable
+    private volatile OkHttpClient sharedHttpClient;
+    @Nullable
+    private ApiService refreshApiService;
+
     /**
      * Constructor for TokenAuthenticator
-     * 
+     *
      * @param context Application context for PreferencesHelper
-     * @param baseUrl Base URL for creating temporary Retrofit instance
+     * @param baseUrl Base URL for the refresh Retrofit instance
      */
     public TokenAuthenticator(@NonNull Context context, @NonNull String baseUrl) {
         this.context = context;
@@ -53,11 +73,21 @@ public class TokenAuthenticator implements Authenticator {
         this.preferencesHelper = new PreferencesHelper(context);
         this.firebaseAuth = FirebaseAuth.getInstance();
     }
-    
+
+    /**
+     * Share the connection pool and dispatcher of the main API client with the
+     * refresh calls, so a refresh reuses warm connections instead of opening new ones.
+     *
+     * @param client The client this authenticator is installed on
+     */
+    public void attachHttpClient(@NonNull OkHttpClient client) {
+        this.sharedHttpClient = client;
+    }
+
     /**
      * Called when a request receives a 401 Unauthorized response.
      * Attempts to refresh the JWT token using Firebase authentication.
-     * 
+     *
      * @param route The route that failed
      * @param response The response that indicated authentication failure
      * @return A new Request with updated authentication, or null if refresh failed
@@ -66,63 +96,102 @@ public class TokenAuthenticator implements Authenticator {
     @Override
     public Request authenticate(@Nullable Route route, @NonNull Response response) throws IOException {
         Log.d(TAG, "Authentication required - attempting token refresh");
-        
-        // Prevent infinite retry loops
-        if (retryCount >= MAX_RETRY_COUNT) {
-            Log.e(TAG, "Max retry attempts reached. Authentication failed.");
-            retryCount = 0;
+
+        // Prevent infinite retry loops for this request chain
+        if (responseCount(response) >= MAX_RETRY_COUNT) {
+            Log.e(TAG, "Max retry attempts reached for " + response.request().url().encodedPath());
+            return null;
+        }
+
+        String newJwtToken = refreshToken(bearerToken(response.request()));
+        if (newJwtToken == null) {
             return null;
         }
-        
-        retryCount++;
-        
+
+        // Return the original request with new Authorization header
+        return response.request().newBuilder()
+                .header("Authorization", "Bearer " + newJwtToken)
+                .build();
+    }
+
+    /**
+     * Refresh the JWT token, coalescing concurrent callers into one refresh.
+     * If another caller already replaced {@code staleToken} while this one was
+     * waiting, the newer token is returned without another round-trip. While
+     * backing off after a failed refresh, null is returned at once.
+     *
+     * @param staleToken The token the caller used, or null if it had none
+     * @return A fresh JWT token, or null if refresh failed
+     */
+    @Nullable
+    public String refreshToken(@Nullable String staleToken) {
+        synchronized (refreshLock) {
+            String currentToken = AuthTokenStore.getInstance().getToken();
+            if (currentToken != null && !currentToken.isEmpty() && !currentToken.equals(staleToken)) {
+                Log.d(TAG, "Token already refreshed by a concurrent request");
+                return currentToken;
+            }
+
+            if (!backoff.canAttempt(System.currentTimeMillis())) {
+                Log.w(TAG, "Skipping token refresh, backing off after " + backoff.getFailureCount()
+                        + " failed attempt(s)");
+                return null;
+            }
+
+            String newJwtToken = fetchNewToken();
+            if (newJwtToken == null) {
+                long delayMs = backoff.onFailure(System.currentTimeMillis());
+                Log.w(TAG, "Token refresh failed, next attempt allowed in " + delayMs + "ms");
+                return null;
+            }
+            backoff.onSuccess();
+            return newJwtToken;
+        }
+    }
+
+    /**
+     * Exchange a fresh Firebase ID token for a new JWT and save it
+     *
+     * @return The new JWT token, or null if any step failed
+     */
+    @Nullable
+    private String fetchNewToken() {
         // Check if we have a Firebase user
         FirebaseUser currentUser = firebaseAuth.getCurrentUser();
         if (currentUser == null) {
             Log.e(TAG, "No Firebase user found. Cannot refresh token.");
-            retryCount = 0;
             return null;
         }
-        
+
         try {
             // Get fresh Firebase ID token
             String freshFirebaseToken = getFreshFirebaseToken(currentUser);
             if (freshFirebaseToken == null) {
                 Log.e(TAG, "Failed to get fresh Firebase token");
-                retryCount = 0;
                 return null;
             }
-            
+
             // Re-authenticate with backend using fresh Firebase token
             String newJwtToken = authenticateWithBackend(freshFirebaseToken);
             if (newJwtToken == null) {
                 Log.e(TAG, "Failed to get new JWT token from backend");
-                retryCount = 0;
                 return null;
             }
-            
+
             // Save new token
             preferencesHelper.saveAuthToken(newJwtToken);
             Log.d(TAG, "Successfully refreshed JWT token");
-            
-            // Reset retry count on success
-            retryCount = 0;
-            
-            // Return the original request with new Authorization header
-            return response.request().newBuilder()
-                    .header("Authorization", "Bearer " + newJwtToken)
-                    .build();
-                    
+            return newJwtToken;
+
         } catch (Exception e) {
             Log.e(TAG, "Error during token refresh: " + e.getMessage(), e);
-            retryCount = 0;
             return null;
         }
     }
-    
+
     /**
      * Gets a fresh Firebase ID token from the current user
-     * 
+     *
      * @param user Current Firebase user
      * @return Fresh Firebase ID token, or null if failed
      */
@@ -130,20 +199,20 @@ public class TokenAuthenticator implements Authenticator {
     private String getFreshFirebaseToken(@NonNull FirebaseUser user) {
         try {
             Log.d(TAG, "Requesting fresh Firebase token");
-            
+
             // Force token refresh to get a fresh one
             return Tasks.await(user.getIdToken(true), TIMEOUT_SECONDS, TimeUnit.SECONDS)
                     .getToken();
-                    
+
         } catch (Exception e) {
             Log.e(TAG, "Failed to get fresh Firebase token: " + e.getMessage(), e);
             return null;
         }
     }
-    
+
     /**
      * Authenticates with backend using Firebase token to get new JWT
-     * 
+     *
      * @param firebaseToken Fresh Firebase ID token
      * @return New JWT access token, or null if failed
      */
@@ -151,23 +220,15 @@ public class TokenAuthenticator implements Authenticator {
     private String authenticateWithBackend(@NonNull String firebaseToken) {
         try {
             Log.d(TAG, "Authenticating with backend using Firebase token");
-            
-            // Create temporary Retrofit instance without authentication
-            // to avoid circular dependency during token refresh
-            Retrofit tempRetrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .build();
-              ApiService tempApiService = tempRetrofit.create(ApiService.class);
-            
+
             // Call backend authentication endpoint using form-encoded method
-            Call<AuthResponse> call = tempApiService.authenticateWithFirebase(firebaseToken);
+            Call<AuthResponse> call = getRefreshApiService().authenticateWithFirebase(firebaseToken);
             retrofit2.Response<AuthResponse> response = call.execute();
-            
+
             if (response.isSuccessful() && response.body() != null) {
                 AuthResponse authResponse = response.body();
                 String accessToken = authResponse.getAccessToken();
-                
+
                 if (accessToken != null && !accessToken.isEmpty()) {
                     Log.d(TAG, "Successfully obtained new JWT token from backend");
                     return accessToken;
@@ -182,37 +243,100 @@ public class TokenAuthenticator implements Authenticator {
                 }
                 return null;
             }
-            
+
         } catch (Exception e) {
             Log.e(TAG, "Error authenticating with backend: " + e.getMessage(), e);
             return null;
         }
     }
-    
+
+    /**
+     * Get the ApiService used for refresh calls, creating it once.
+     * It runs without this authenticator and without the app interceptors
+     * to avoid a circular dependency during token refresh. Only called
+     * while holding {@link #refreshLock}.
+     *
+     * @return ApiService for the refresh endpoint
+     */
+    @NonNull
+    private ApiService getRefreshApiService() {
+        if (refreshApiService == null) {
+            OkHttpClient base = sharedHttpClient;
+            OkHttpClient.Builder builder = base != null ? base.newBuilder() : new OkHttpClient.Builder();
+            builder.interceptors().clear();
+            builder.networkInterceptors().clear();
+            OkHttpClient refreshClient = builder
+                    .cache(null)
+                    .authenticator(Authenticator.NONE)
+                    .connectTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .readTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .build();
+
+            refreshApiService = new Retrofit.Builder()
+                    .baseUrl(baseUrl)
+                    .client(refreshClient)
+                    .addConverterFactory(GsonConverterFactory.create())
+                    .build()
+                    .create(ApiService.class);
+        }
+        return refreshApiService;
+    }
+
+    /**
+     * Extract the bearer token a request was sent with
+     *
+     * @param request The request to inspect
+     * @return Token without the "Bearer " prefix, or null if absent
+     */
+    @Nullable
+    private static String bearerToken(@NonNull Request request) {
+        String header = request.header("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        return header.substring("Bearer ".length());
+    }
+
+    /**
+     * Count how many responses led to this one, including itself
+     *
+     * @param response The latest response
+     * @return Number of attempts made for the request
+     */
+    private static int responseCount(@NonNull Response response) {
+        int count = 1;
+        Response prior = response.priorResponse();
+        while (prior != null) {
+            count++;
+            prior = prior.priorResponse();
+        }
+        return count;
+    }
+
     /**
      * Checks if the response indicates an authentication failure
-     * 
+     *
      * @param response HTTP response to check
      * @return true if response indicates authentication failure
      */
     public static boolean isAuthenticationFailure(@NonNull Response response) {
         return response.code() == 401;
     }
-    
+
     /**
      * Checks if a request already has been retried for authentication
      * This helps prevent infinite retry loops
-     * 
+     *
      * @param request The request to check
      * @return true if request has been retried
      */
     public static boolean isRequestRetried(@NonNull Request request) {
         return request.header("X-Auth-Retry") != null;
     }
-    
+
     /**
      * Marks a request as being retried for authentication
-     * 
+     *
      * @param originalRequest The original request
      * @return Request with retry marker
      */
@@ -221,21 +345,4 @@ public class TokenAuthenticator implements Authenticator {
                 .header("X-Auth-Retry", "true")
                 .build();
     }
-    
-    /**
-     * Resets the retry counter
-     * Call this when starting a new authentication session
-     */
-    public void resetRetryCount() {
-        retryCount = 0;
-    }
-    
-    /**
-     * Gets the current retry count
-     * 
-     * @return Current retry count
-     */
-    public int getRetryCount() {
-        return retryCount;
-    }
-}
\ No newline at end of file
+}
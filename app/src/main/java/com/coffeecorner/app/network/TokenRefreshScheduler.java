@@ -0,0 +1,240 @@
+package com.coffeecorner.app.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.coffeecorner.app.utils.Constants;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenRefreshScheduler - Refreshes the backend JWT shortly before it expires.
+ *
+ * Decodes the {@code exp} claim of each token saved through PreferencesHelper
+ * and schedules a background refresh {@link Constants#TOKEN_REFRESH_LEAD_SECONDS}
+ * ahead of it, so requests don't have to fail with 401 before the token is renewed.
+ * {@code exp} is an absolute server time. The offset between server and device
+ * clocks is measured once, from the {@code iat} claim of a token the backend
+ * has just issued, and applied to every token after it, including ones read
+ * back from storage; {@link Constants#TOKEN_CLOCK_SKEW_SECONDS} of tolerance
+ * covers what the measurement misses.
+ *
+ * Requests never wait for a refresh. One that finds the token already expired
+ * starts a refresh in the background and goes out as it is; if it fails with
+ * 401, {@link TokenAuthenticator} joins the refresh. After a failed refresh no
+ * new one is started for {@code RETRY_DELAY_SECONDS}.
+ *
+ * Listens to {@link AuthTokenStore} for token changes.
+ */
+public class TokenRefreshScheduler implements AuthTokenStore.TokenListener {
+
+    private static final String TAG = "TokenRefreshScheduler";
+    private static final long RETRY_DELAY_SECONDS = 30;
+    private static final Gson GSON = new Gson();
+
+    private static volatile TokenRefreshScheduler instance;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, TAG);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Nullable
+    private volatile Refresher refresher;
+    @Nullable
+    private String currentToken;
+    // Expiry of currentToken in device time (epoch seconds), or -1 if unknown
+    private volatile long expiresAtSeconds = -1;
+    // Server clock minus device clock in seconds, measured from a freshly issued token
+    private volatile long clockOffsetSeconds = 0;
+    @Nullable
+    private ScheduledFuture<?> pendingRefresh;
+    // Guarded by this; true from when an immediate refresh is queued until a refresh finishes
+    private boolean refreshInFlight;
+    // Device time (epoch ms) of the last failed refresh, or 0
+    private volatile long lastFailedRefreshMs;
+
+    TokenRefreshScheduler() {
+        // Use getInstance(); package-private for tests
+    }
+
+    /**
+     * Get singleton instance of TokenRefreshScheduler
+     *
+     * @return TokenRefreshScheduler instance
+     */
+    public static TokenRefreshScheduler getInstance() {
+        if (instance == null) {
+            synchronized (TokenRefreshScheduler.class) {
+                if (instance == null) {
+                    instance = new TokenRefreshScheduler();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Set what performs refreshes, normally {@link TokenAuthenticator#refreshToken}
+     *
+     * @param refresher Refresh of the authenticator installed on the API client
+     */
+    public void attach(@NonNull Refresher refresher) {
+        this.refresher = refresher;
+        reschedule();
+    }
+
+    /**
+     * Called whenever the stored token changes (login, refresh or logout)
+     *
+     * @param token  New token, or null when it was cleared
+     * @param issued true if the backend has just issued the token
+     */
+    @Override
+    public void onTokenChanged(@Nullable String token, boolean issued) {
+        long expiry = -1;
+        if (token != null && !token.isEmpty()) {
+            JsonObject claims = decodeClaims(token);
+            if (claims != null && issued && claims.has("iat")) {
+                // Only a token issued just now tells how far the server clock is ahead
+                clockOffsetSeconds = claims.get("iat").getAsLong() - System.currentTimeMillis() / 1000;
+            }
+            if (claims != null && claims.has("exp")) {
+                expiry = claims.get("exp").getAsLong() - clockOffsetSeconds;
+            }
+        }
+        synchronized (this) {
+            currentToken = token;
+            expiresAtSeconds = expiry;
+        }
+        reschedule();
+    }
+
+    /**
+     * Start a refresh in the background if the current token is already inside
+     * the skew window, for example when the scheduled refresh couldn't run
+     * while the app was in the background. Returns at once: the caller's
+     * request goes out with the current token, and a 401 is handled by
+     * {@link TokenAuthenticator}. Nothing is started while a refresh is in
+     * flight, or for {@code RETRY_DELAY_SECONDS} after one failed.
+     */
+    public void refreshIfExpiring() {
+        if (!isExpiring(Constants.TOKEN_CLOCK_SKEW_SECONDS)) {
+            return;
+        }
+        if (System.currentTimeMillis() - lastFailedRefreshMs < TimeUnit.SECONDS.toMillis(RETRY_DELAY_SECONDS)) {
+            return;
+        }
+        synchronized (this) {
+            if (refreshInFlight || currentToken == null || refresher == null) {
+                return;
+            }
+            refreshInFlight = true;
+        }
+        Log.d(TAG, "Token expired or about to expire - refreshing in the background");
+        executor.execute(this::refreshNow);
+    }
+
+    private boolean isExpiring(long withinSeconds) {
+        long expiry = expiresAtSeconds;
+        return expiry > 0 && System.currentTimeMillis() / 1000 + withinSeconds >= expiry;
+    }
+
+    private synchronized void reschedule() {
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(false);
+            pendingRefresh = null;
+        }
+        if (currentToken == null || expiresAtSeconds <= 0 || refresher == null) {
+            return;
+        }
+        long delay = expiresAtSeconds - System.currentTimeMillis() / 1000
+                - Constants.TOKEN_REFRESH_LEAD_SECONDS - Constants.TOKEN_CLOCK_SKEW_SECONDS;
+        scheduleRefresh(Math.max(0, delay));
+    }
+
+    private synchronized void scheduleRefresh(long delaySeconds) {
+        Log.d(TAG, "Next token refresh in " + delaySeconds + "s");
+        pendingRefresh = executor.schedule(this::refreshNow, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    private void refreshNow() {
+        String token;
+        synchronized (this) {
+            token = currentToken;
+            refreshInFlight = true;
+        }
+        try {
+            refresh(token);
+        } finally {
+            synchronized (this) {
+                refreshInFlight = false;
+            }
+        }
+    }
+
+    private void refresh(@Nullable String token) {
+        Refresher refresher = this.refresher;
+        if (token == null || refresher == null) {
+            return;
+        }
+        // A successful refresh saves the token, which reschedules through onTokenChanged
+        if (refresher.refreshToken(token) == null) {
+            lastFailedRefreshMs = System.currentTimeMillis();
+            if (isExpiring(0)) {
+                Log.w(TAG, "Proactive refresh failed and token expired - leaving it to TokenAuthenticator");
+                return;
+            }
+            Log.w(TAG, "Proactive refresh failed, retrying in " + RETRY_DELAY_SECONDS + "s");
+            synchronized (this) {
+                if (token.equals(currentToken)) {
+                    scheduleRefresh(RETRY_DELAY_SECONDS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode the payload of a JWT without verifying it
+     *
+     * @param jwt Token in header.payload.signature form
+     * @return Claims, or null if the token is not a JWT
+     */
+    @Nullable
+    static JsonObject decodeClaims(@NonNull String jwt) {
+        String[] parts = jwt.split("\\.");
+        if (parts.length < 2) {
+            return null;
+        }
+        try {
+            // The URL-safe decoder accepts the payload without padding
+            byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+            return GSON.fromJson(new String(payload, StandardCharsets.UTF_8), JsonObject.class);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not decode token claims: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Performs a token refresh
+     */
+    public interface Refresher {
+        /**
+         * @param staleToken Token to replace
+         * @return The new token, or null if the refresh failed
+         */
+        @Nullable
+        String refreshToken(@Nullable String staleToken);
+    }
+}
@@ -0,0 +1,16 @@
+package com.coffeecorner.app.repositories;
+
+/**
+ * Cancellable - A request whose caller may stop waiting for it.
+ *
+ * Once cancelled, the request's callback is not called again. Cancelling a
+ * request that has already answered does nothing.
+ */
+public interface Cancellable {
+
+    /**
+     * Stop waiting for the request, stopping the network call itself if
+     * nothing else is waiting on it
+     */
+    void cancel();
+}
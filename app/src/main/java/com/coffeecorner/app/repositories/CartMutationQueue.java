@@ -0,0 +1,164 @@
+package com.coffeecorner.app.repositories;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.coffeecorner.app.models.CartItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CartMutationQueue - Coalesces rapid cart quantity changes per item.
+ *
+ * Each change replaces the target quantity for its item and restarts a short
+ * debounce. When the item has been quiet for the debounce period, only the
+ * final quantity is sent. At most one request per item is in flight; changes
+ * made while it runs are sent once it completes. All methods must be called on
+ * the main thread, and listener methods are called on the main thread.
+ */
+public class CartMutationQueue {
+
+    private static final String TAG = "CartMutationQueue";
+
+    private final Sender sender;
+    private final Listener listener;
+    private final long debounceMillis;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, PendingMutation> pending = new HashMap<>();
+
+    /**
+     * @param cartRepository Repository used to send the final quantities
+     * @param debounceMillis Quiet period before a change is sent
+     * @param listener       Receives the server's answer for each item
+     */
+    public CartMutationQueue(@NonNull CartRepository cartRepository, long debounceMillis,
+            @NonNull Listener listener) {
+        this(cartRepository::updateQuantity, debounceMillis, listener);
+    }
+
+    CartMutationQueue(@NonNull Sender sender, long debounceMillis, @NonNull Listener listener) {
+        this.sender = sender;
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * Queue the new quantity for an item, replacing any change not yet sent
+     *
+     * @param itemId   ID of the item, as expected by CartRepository.updateQuantity
+     * @param quantity Final quantity; 0 removes the item
+     */
+    public void submit(@NonNull String itemId, int quantity) {
+        PendingMutation mutation = pending.get(itemId);
+        if (mutation == null) {
+            mutation = new PendingMutation(itemId);
+            pending.put(itemId, mutation);
+        }
+        mutation.targetQuantity = quantity;
+        handler.removeCallbacks(mutation.sendTask);
+        handler.postDelayed(mutation.sendTask, debounceMillis);
+    }
+
+    /**
+     * @return true if any change has not been confirmed by the server yet
+     */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Send every debounced change now, e.g. when the screen is going away
+     */
+    public void flush() {
+        for (PendingMutation mutation : new ArrayList<>(pending.values())) {
+            handler.removeCallbacks(mutation.sendTask);
+            send(mutation);
+        }
+    }
+
+    private void send(PendingMutation mutation) {
+        if (mutation.inFlight) {
+            // Sent again when the running request completes
+            return;
+        }
+        mutation.inFlight = true;
+        mutation.sentQuantity = mutation.targetQuantity;
+        Log.d(TAG, "Sending quantity " + mutation.sentQuantity + " for item " + mutation.itemId);
+
+        sender.updateQuantity(mutation.itemId, mutation.sentQuantity,
+                new CartRepository.CartItemsCallback() {
+                    @Override
+                    public void onCartItemsLoaded(List<CartItem> cartItems) {
+                        mutation.inFlight = false;
+                        if (mutation.targetQuantity != mutation.sentQuantity) {
+                            if (!handler.hasCallbacks(mutation.sendTask)) {
+                                send(mutation);
+                            }
+                            return;
+                        }
+                        pending.remove(mutation.itemId);
+                        listener.onMutationConfirmed(mutation.itemId, cartItems);
+                    }
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        // Later changes to the item are dropped along with the failed one
+                        mutation.inFlight = false;
+                        handler.removeCallbacks(mutation.sendTask);
+                        pending.remove(mutation.itemId);
+                        listener.onMutationFailed(mutation.itemId, errorMessage);
+                    }
+                });
+    }
+
+    /**
+     * Queued change for one item
+     */
+    private final class PendingMutation {
+        final String itemId;
+        final Runnable sendTask;
+        int targetQuantity;
+        int sentQuantity;
+        boolean inFlight;
+
+        PendingMutation(String itemId) {
+            this.itemId = itemId;
+            this.sendTask = () -> send(this);
+        }
+    }
+
+    /**
+     * Sends a final quantity; CartRepository.updateQuantity outside of tests
+     */
+    interface Sender {
+        void updateQuantity(String itemId, int quantity, @NonNull CartRepository.CartItemsCallback callback);
+    }
+
+    /**
+     * Listener for the server's answer to queued changes
+     */
+    public interface Listener {
+        /**
+         * Called when the final quantity for an item has been accepted
+         *
+         * @param itemId    Item that was updated
+         * @param cartItems Cart returned by the server
+         */
+        void onMutationConfirmed(String itemId, List<CartItem> cartItems);
+
+        /**
+         * Called when the change for an item was rejected; the caller should
+         * restore the item's last confirmed state
+         *
+         * @param itemId       Item that failed
+         * @param errorMessage Error from the repository
+         */
+        void onMutationFailed(String itemId, String errorMessage);
+    }
+}
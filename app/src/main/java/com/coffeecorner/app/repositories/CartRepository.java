@@ -4,15 +4,24 @@ import android.content.Context;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import com.coffeecorner.app.models.CartDelta;
 import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.CartMergeRequest;
+import com.coffeecorner.app.models.CartMergeResult;
 import com.coffeecorner.app.models.Product;
 import com.coffeecorner.app.network.ApiService;
 import com.coffeecorner.app.network.ApiResponse;
 import com.coffeecorner.app.network.RetrofitClient;
+import com.coffeecorner.app.utils.CartStore;
 import com.coffeecorner.app.utils.PreferencesHelper;
 import com.coffeecorner.app.utils.LocalCartManager;
+import com.coffeecorner.app.utils.ProductIdentityMap;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import retrofit2.Call;
@@ -22,19 +31,66 @@ import retrofit2.Response;
 /**
  * CartRepository - Single source of truth for cart data
  * Manages cart operations like adding, removing, updating items by interacting
- * with the backend API.
+ * with the backend API. Every cart it loads or changes, guest or server, is
+ * published to {@link CartStore} for observers.
  */
 public class CartRepository {
     private static final String TAG = "CartRepository";
+    // Matches the backend's version for a cart with no items
+    private static final String EMPTY_CART_VERSION = "0";
+    private static final String CART_VERSION_HEADER = "X-Cart-Version";
     private static volatile CartRepository instance;
     private final ApiService apiService;
     private final PreferencesHelper preferencesHelper;
     private final LocalCartManager localCartManager;
+    private final CartStore cartStore;
+    private final ProductIdentityMap identityMap = ProductIdentityMap.getInstance();
+    private final GuestCartMerge guestCartMerge;
+
+    // Server cart as last published, kept current by merging mutation deltas.
+    // Only touched from Retrofit callbacks and callers on the main thread.
+    private List<CartItem> cachedCart;
+    // Version of cachedCart, or null when unknown
+    private String cartVersion;
 
     private CartRepository(Context context) {
         apiService = RetrofitClient.getApiService();
         preferencesHelper = new PreferencesHelper(context.getApplicationContext());
         localCartManager = new LocalCartManager(context.getApplicationContext());
+        cartStore = CartStore.getInstance();
+        guestCartMerge = new GuestCartMerge(new GuestCartMerge.Server() {
+            @Override
+            public void merge(@NonNull CartMergeRequest request, @NonNull CartSyncCallback callback) {
+                mergeOnServer(request, callback);
+            }
+
+            @Override
+            public void loadCart(@NonNull CartItemsCallback callback) {
+                fetchCart(callback);
+            }
+        }, new GuestCartMerge.GuestCart() {
+            @Override
+            public List<CartItem> getCartItems() {
+                return localCartManager.getCartItems();
+            }
+
+            @Override
+            public void removeSent(Collection<CartItem> sentItems) {
+                localCartManager.removeSent(sentItems);
+            }
+
+            @Override
+            public void clearCart() {
+                localCartManager.clearCart();
+            }
+        });
+        // Anything published before the guest cart loaded showed it empty
+        localCartManager.whenLoaded(() -> {
+            String authToken = preferencesHelper.getAuthToken();
+            if (authToken == null || authToken.isEmpty()) {
+                publishLocalCart();
+            }
+        });
     }
 
     public static CartRepository getInstance(Context context) {
@@ -57,10 +113,40 @@ public class CartRepository {
         String authToken = preferencesHelper.getAuthToken();
         if (authToken == null || authToken.isEmpty()) {
             Log.d(TAG, "getCartItems: User not logged in, using local cart");
-            List<CartItem> localItems = localCartManager.getCartItems();
-            callback.onCartItemsLoaded(localItems);
+            callback.onCartItemsLoaded(publishLocalCart());
+            return;
+        }
+        if (!localCartManager.isLoaded()) {
+            // Whether a guest cart needs merging first isn't known yet
+            localCartManager.whenLoaded(() -> getCartItems(callback));
             return;
-        }        Log.d(TAG, "getCartItems: Fetching cart with JWT authentication");
+        }
+        if (localCartManager.hasItems()) {
+            // First load after signing in: merge the guest cart, which also returns the full cart
+            Log.d(TAG, "getCartItems: Guest cart items pending, merging before load");
+            syncLocalCartWithServer(new CartSyncCallback() {
+                @Override
+                public void onCartSynced(List<CartItem> cartItems, List<CartMergeResult.Failure> rejectedItems) {
+                    callback.onCartItemsLoaded(cartItems);
+                }
+
+                @Override
+                public void onError(String errorMessage) {
+                    callback.onError(errorMessage);
+                }
+            });
+            return;
+        }
+        fetchCart(callback);
+    }
+
+    /**
+     * Fetch the full cart from the backend and cache it with its version.
+     *
+     * @param callback Callback to handle the list of cart items or an error.
+     */
+    private void fetchCart(@NonNull CartItemsCallback callback) {
+        Log.d(TAG, "fetchCart: Fetching cart with JWT authentication");
         apiService.getCart().enqueue(new Callback<>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<List<CartItem>>> call,
@@ -68,7 +154,8 @@ public class CartRepository {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
                     Log.d(TAG, "getCartItems onSuccess: Received "
                             + (response.body().getData() != null ? response.body().getData().size() : 0) + " items.");
-                    callback.onCartItemsLoaded(response.body().getData());
+                    callback.onCartItemsLoaded(
+                            cacheCart(response.body().getData(), response.headers().get(CART_VERSION_HEADER)));
                 } else {
                     String errorMsg = "Failed to load cart items.";
                     if (response.body() != null && response.body().getMessage() != null) {
@@ -101,6 +188,152 @@ public class CartRepository {
         });
     }
 
+    /**
+     * Remember the server cart and the version it was read at, and publish it.
+     * Its products are current, so they also update the shared products.
+     *
+     * @param items   Cart items, or null for an empty cart; not modified afterwards
+     * @param version Version from the server, or null if unknown
+     * @return The published, unmodifiable cart items
+     */
+    private List<CartItem> cacheCart(@Nullable List<CartItem> items, @Nullable String version) {
+        identityMap.mergeCartItems(items);
+        cachedCart = cartStore.publish(items).getItems();
+        cartVersion = version;
+        return cachedCart;
+    }
+
+    /**
+     * Publish the guest cart after reading or changing it
+     *
+     * @return The published, unmodifiable cart items
+     */
+    private List<CartItem> publishLocalCart() {
+        return cartStore.publish(localCartManager.getCartItems()).getItems();
+    }
+
+    /**
+     * Merge a mutation delta into the cached cart
+     *
+     * @param delta   Delta returned by a cart mutation
+     * @param product Product of an added line, or null when not adding
+     * @return true if the cache is now current, false if it must be refetched
+     */
+    private boolean mergeDelta(@Nullable CartDelta delta, @Nullable Product product) {
+        List<CartItem> updated = mergeDelta(cachedCart, cartVersion, delta, product);
+        if (updated == null) {
+            return false;
+        }
+        cacheCart(updated, delta.getVersion());
+        return true;
+    }
+
+    /**
+     * Apply a mutation delta to a cart. The delta only applies when the cart is
+     * at the version the server changed, and the resulting item count must
+     * match the server's.
+     *
+     * @param cart    Cart items, or null if unknown; not modified
+     * @param version Version of cart, or null if unknown
+     * @param delta   Delta returned by a cart mutation
+     * @param product Product of an added line, or null when not adding
+     * @return The updated items, or null if the cart must be refetched
+     */
+    @Nullable
+    static List<CartItem> mergeDelta(@Nullable List<CartItem> cart, @Nullable String version,
+            @Nullable CartDelta delta, @Nullable Product product) {
+        if (delta == null || cart == null || version == null || !version.equals(delta.getBaseVersion())) {
+            return null;
+        }
+
+        List<CartItem> updated = new ArrayList<>(cart);
+        if (delta.getRemovedId() != null) {
+            int index = indexOfLine(updated, delta.getRemovedId());
+            if (index >= 0) {
+                updated.remove(index);
+            }
+        }
+        CartDelta.Line line = delta.getLine();
+        if (line != null) {
+            int index = indexOfLine(updated, line.getId());
+            if (index >= 0) {
+                // Published items are shared with readers, so the line is replaced
+                updated.set(index, updated.get(index).withQuantity(line.getQuantity()));
+            } else if (product != null && product.getId() != null && product.getId().equals(line.getProductId())) {
+                CartItem added = new CartItem(product, line.getQuantity());
+                added.setId(line.getId());
+                updated.add(added);
+            } else {
+                return null;
+            }
+        }
+
+        int itemCount = 0;
+        for (CartItem item : updated) {
+            itemCount += item.getQuantity();
+        }
+        return itemCount == delta.getItemCount() ? updated : null;
+    }
+
+    /**
+     * Merge a mutation delta and return the resulting cart, falling back to a
+     * full fetch when the cached cart has diverged from the server's
+     *
+     * @param delta    Delta returned by a cart mutation
+     * @param product  Product of an added line, or null when not adding
+     * @param callback Callback to handle the updated cart or an error
+     */
+    private void applyDelta(@Nullable CartDelta delta, @Nullable Product product,
+            @NonNull CartItemsCallback callback) {
+        if (mergeDelta(delta, product)) {
+            callback.onCartItemsLoaded(cachedCart);
+        } else {
+            Log.d(TAG, "applyDelta: Cart version diverged, fetching full cart");
+            fetchCart(callback);
+        }
+    }
+
+    private static int indexOfLine(List<CartItem> items, String lineId) {
+        for (int i = 0; i < items.size(); i++) {
+            if (lineId != null && lineId.equals(items.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Map the ID callers pass (the product ID, for the cart screens) to the
+     * server's cart line ID using the cached cart
+     *
+     * @param itemId Cart line ID or product ID
+     * @return Cart line ID, or itemId unchanged if it is not in the cache
+     */
+    private String resolveLineId(String itemId) {
+        return resolveLineId(cachedCart, itemId);
+    }
+
+    /**
+     * @param cart   Cart items, or null if unknown
+     * @param itemId Cart line ID or product ID
+     * @return Cart line ID, or itemId unchanged if it is not in the cart
+     */
+    static String resolveLineId(@Nullable List<CartItem> cart, String itemId) {
+        if (cart != null) {
+            for (CartItem item : cart) {
+                if (itemId.equals(item.getId())) {
+                    return itemId;
+                }
+            }
+            for (CartItem item : cart) {
+                if (itemId.equals(item.getProductId()) && item.getId() != null) {
+                    return item.getId();
+                }
+            }
+        }
+        return itemId;
+    }
+
     /**
      * Add a product to the cart on the backend.
      *
@@ -130,7 +363,7 @@ public class CartRepository {
                 localCartManager.addToCart(product, quantity);
 
                 // Get updated cart and verify the item was added
-                List<CartItem> updatedCart = localCartManager.getCartItems();
+                List<CartItem> updatedCart = publishLocalCart();
                 boolean found = false;
                 for (CartItem item : updatedCart) {
                     if (item != null && item.getProduct() != null &&
@@ -168,12 +401,12 @@ public class CartRepository {
                 product.getId(), quantity);        // Use the JWT-authenticated addToCart endpoint with JSON body
         apiService.addToCart(cartAddRequest).enqueue(new Callback<>() {
             @Override
-            public void onResponse(@NonNull Call<ApiResponse<List<CartItem>>> call,
-                    @NonNull Response<ApiResponse<List<CartItem>>> response) {
+            public void onResponse(@NonNull Call<ApiResponse<CartDelta>> call,
+                    @NonNull Response<ApiResponse<CartDelta>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    Log.d(TAG, "addToCart onSuccess: Item added. New cart size: "
-                            + (response.body().getData() != null ? response.body().getData().size() : 0));
-                    callback.onCartItemsLoaded(response.body().getData());
+                    Log.d(TAG, "addToCart onSuccess: Item added. Cart version: "
+                            + (response.body().getData() != null ? response.body().getData().getVersion() : null));
+                    applyDelta(response.body().getData(), product, callback);
                 } else {
                     String errorMsg = "Failed to add item to cart.";
                     if (response.body() != null && response.body().getMessage() != null) {
@@ -199,7 +432,7 @@ public class CartRepository {
             }
 
             @Override
-            public void onFailure(@NonNull Call<ApiResponse<List<CartItem>>> call, @NonNull Throwable t) {
+            public void onFailure(@NonNull Call<ApiResponse<CartDelta>> call, @NonNull Throwable t) {
                 Log.e(TAG, "addToCart network error", t);
                 callback.onError("Network error while adding to cart: " + t.getMessage());
             }
@@ -224,8 +457,7 @@ public class CartRepository {
             }
 
             localCartManager.removeFromCart(itemId);
-            List<CartItem> updatedCart = localCartManager.getCartItems();
-            callback.onCartItemsLoaded(updatedCart);
+            callback.onCartItemsLoaded(publishLocalCart());
             return;
         }
 
@@ -236,14 +468,13 @@ public class CartRepository {
         }
 
         Log.d(TAG, "removeFromCart: Removing itemId: " + itemId + " with JWT authentication");
-        apiService.removeFromCart(itemId).enqueue(new Callback<>() {
+        apiService.removeFromCart(resolveLineId(itemId)).enqueue(new Callback<>() {
             @Override
-            public void onResponse(@NonNull Call<ApiResponse<List<CartItem>>> call,
-                    @NonNull Response<ApiResponse<List<CartItem>>> response) {
+            public void onResponse(@NonNull Call<ApiResponse<CartDelta>> call,
+                    @NonNull Response<ApiResponse<CartDelta>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    Log.d(TAG, "removeFromCart onSuccess: Item removed. New cart size: "
-                            + (response.body().getData() != null ? response.body().getData().size() : 0));
-                    callback.onCartItemsLoaded(response.body().getData());
+                    Log.d(TAG, "removeFromCart onSuccess: Item removed.");
+                    applyDelta(response.body().getData(), null, callback);
                 } else {
                     String errorMsg = "Failed to remove item from cart.";
                     if (response.body() != null && response.body().getMessage() != null) {
@@ -261,7 +492,7 @@ public class CartRepository {
             }
 
             @Override
-            public void onFailure(@NonNull Call<ApiResponse<List<CartItem>>> call, @NonNull Throwable t) {
+            public void onFailure(@NonNull Call<ApiResponse<CartDelta>> call, @NonNull Throwable t) {
                 Log.e(TAG, "removeFromCart network error", t);
                 callback.onError("Network error while removing from cart: " + t.getMessage());
             }
@@ -293,8 +524,7 @@ public class CartRepository {
             }
 
             localCartManager.updateQuantity(itemId, quantity);
-            List<CartItem> updatedCart = localCartManager.getCartItems();
-            callback.onCartItemsLoaded(updatedCart);
+            callback.onCartItemsLoaded(publishLocalCart());
             return;
         }
 
@@ -310,20 +540,16 @@ public class CartRepository {
             return;
         }
 
-        // Create a CartItem object for the JWT endpoint
-        CartItem cartItem = new CartItem();
-        cartItem.setId(itemId);
-        cartItem.setQuantity(quantity);
         Log.d(TAG, "updateQuantity: Updating itemId: " + itemId + " to quantity: " + quantity
                 + " with JWT authentication");
-        apiService.updateCartItem(cartItem).enqueue(new Callback<>() {
+        apiService.updateCartItem(resolveLineId(itemId), Collections.singletonMap("quantity", quantity))
+                .enqueue(new Callback<>() {
             @Override
-            public void onResponse(@NonNull Call<ApiResponse<List<CartItem>>> call,
-                    @NonNull Response<ApiResponse<List<CartItem>>> response) {
+            public void onResponse(@NonNull Call<ApiResponse<CartDelta>> call,
+                    @NonNull Response<ApiResponse<CartDelta>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    Log.d(TAG, "updateQuantity onSuccess: Item updated. New cart size: "
-                            + (response.body().getData() != null ? response.body().getData().size() : 0));
-                    callback.onCartItemsLoaded(response.body().getData());
+                    Log.d(TAG, "updateQuantity onSuccess: Item updated.");
+                    applyDelta(response.body().getData(), null, callback);
                 } else {
                     String errorMsg = "Failed to update cart item quantity.";
                     if (response.body() != null && response.body().getMessage() != null) {
@@ -341,7 +567,7 @@ public class CartRepository {
             }
 
             @Override
-            public void onFailure(@NonNull Call<ApiResponse<List<CartItem>>> call, @NonNull Throwable t) {
+            public void onFailure(@NonNull Call<ApiResponse<CartDelta>> call, @NonNull Throwable t) {
                 Log.e(TAG, "updateQuantity network error", t);
                 callback.onError("Network error while updating cart quantity: " + t.getMessage());
             }
@@ -368,18 +594,19 @@ public class CartRepository {
             return;
         }
 
-        // Create a CartItem object for the JWT endpoint
-        CartItem cartItem = new CartItem();
-        cartItem.setId(itemId);
-        cartItem.setQuantity(quantity);
         Log.d(TAG, "updateCartItemQuantity: Updating itemId: " + itemId + " quantity: " + quantity
                 + " with JWT authentication");
-        apiService.updateCartItem(cartItem).enqueue(new Callback<>() {
+        apiService.updateCartItem(resolveLineId(itemId), Collections.singletonMap("quantity", quantity))
+                .enqueue(new Callback<>() {
             @Override
-            public void onResponse(@NonNull Call<ApiResponse<List<CartItem>>> call,
-                    @NonNull Response<ApiResponse<List<CartItem>>> response) {
+            public void onResponse(@NonNull Call<ApiResponse<CartDelta>> call,
+                    @NonNull Response<ApiResponse<CartDelta>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
                     Log.d(TAG, "updateCartItemQuantity onSuccess: Item quantity updated");
+                    if (!mergeDelta(response.body().getData(), null)) {
+                        // Next read refetches instead of trusting a diverged cache
+                        cartVersion = null;
+                    }
                     callback.onSuccess("Item quantity updated successfully.");
                 } else {
                     String errorMsg = "Failed to update item quantity.";
@@ -398,7 +625,7 @@ public class CartRepository {
             }
 
             @Override
-            public void onFailure(@NonNull Call<ApiResponse<List<CartItem>>> call, @NonNull Throwable t) {
+            public void onFailure(@NonNull Call<ApiResponse<CartDelta>> call, @NonNull Throwable t) {
                 Log.e(TAG, "updateCartItemQuantity network error", t);
                 callback.onError("Network error while updating item quantity: " + t.getMessage());
             }
@@ -415,6 +642,7 @@ public class CartRepository {
         if (authToken == null || authToken.isEmpty()) {
             Log.d(TAG, "clearCart: User not logged in, clearing local cart");
             localCartManager.clearCart();
+            cartStore.publish(null);
             callback.onSuccess("Cart cleared successfully.");
             return;
         }
@@ -425,6 +653,7 @@ public class CartRepository {
             public void onResponse(@NonNull Call<ApiResponse<Void>> call,
                     @NonNull Response<ApiResponse<Void>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                    cacheCart(null, EMPTY_CART_VERSION);
                     callback.onSuccess(response.body().getMessage()); // Or a generic success message
                 } else {
                     String errorMsg = "Failed to clear cart";
@@ -451,85 +680,98 @@ public class CartRepository {
     }
 
     /**
-     * Sync local cart with server when user logs in
-     * 
+     * Merge the guest (local) cart into the user's server cart after sign-in.
+     * The whole local cart is sent in one request; the callback runs once the
+     * server has answered, with the resulting cart and any items it rejected.
+     * Local items are removed only after the server acknowledges the merge, so
+     * a failed request leaves the guest cart in place for the next attempt.
+     * Calls made while a merge is running wait for that merge instead of
+     * sending the items again.
+     *
      * @param callback Callback to handle result
      */
-    @SuppressWarnings("unused")
-    public void syncLocalCartWithServer(@NonNull CartItemsCallback callback) {
+    public void syncLocalCartWithServer(@NonNull CartSyncCallback callback) {
         String authToken = preferencesHelper.getAuthToken();
         if (authToken == null || authToken.isEmpty()) {
             Log.w(TAG, "syncLocalCartWithServer: User not logged in.");
             callback.onError("User not logged in. Cannot sync cart.");
             return;
         }
-
-        List<CartItem> localItems = localCartManager.getCartItems();
-        if (localItems.isEmpty()) {
-            Log.d(TAG, "syncLocalCartWithServer: No local items to sync");
-            getCartItems(callback);
+        if (!localCartManager.isLoaded()) {
+            localCartManager.whenLoaded(() -> syncLocalCartWithServer(callback));
             return;
         }
-        Log.d(TAG, "syncLocalCartWithServer: Syncing " + localItems.size() + " local items with JWT authentication");
-        for (CartItem item : localItems) {
-            Product product = item.getProduct();
-            int quantity = item.getQuantity();
-
-            // Create CartAddRequest for the JWT-authenticated JSON endpoint
-            com.coffeecorner.app.models.CartAddRequest cartAddRequest = new com.coffeecorner.app.models.CartAddRequest(
-                    product.getId(), quantity);
-
-            apiService.addToCart(cartAddRequest)
-                    .enqueue(new Callback<>() {
-                        @Override
-                        public void onResponse(@NonNull Call<ApiResponse<List<CartItem>>> call,
-                                @NonNull Response<ApiResponse<List<CartItem>>> response) {
-                            if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                                Log.d(TAG, "syncLocalCartWithServer: Item synced successfully");
-                            } else {
-                                Log.w(TAG, "syncLocalCartWithServer: Failed to sync item: " + product.getName());
-                            }
-                        }
 
-                        @Override
-                        public void onFailure(@NonNull Call<ApiResponse<List<CartItem>>> call, @NonNull Throwable t) {
-                            Log.e(TAG, "syncLocalCartWithServer: Network error syncing item", t);
+        guestCartMerge.run(callback);
+    }
+
+    /**
+     * Send a guest cart merge and cache the cart the server returns
+     *
+     * @param request  Guest cart items to merge
+     * @param callback Callback to handle the merged cart or an error
+     */
+    private void mergeOnServer(@NonNull CartMergeRequest request, @NonNull CartSyncCallback callback) {
+        apiService.mergeCart(request).enqueue(new Callback<>() {
+            @Override
+            public void onResponse(@NonNull Call<ApiResponse<CartMergeResult>> call,
+                    @NonNull Response<ApiResponse<CartMergeResult>> response) {
+                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                        && response.body().getData() != null) {
+                    CartMergeResult result = response.body().getData();
+                    List<CartItem> merged = cacheCart(result.getItems(), result.getVersion());
+                    for (CartMergeResult.Failure failure : result.getFailed()) {
+                        Log.w(TAG, "syncLocalCartWithServer: Item rejected: " + failure.getProductId()
+                                + " - " + failure.getReason());
+                    }
+                    Log.d(TAG, "syncLocalCartWithServer onSuccess: Merged " + result.getMerged().size()
+                            + " items, rejected " + result.getFailed().size());
+                    callback.onCartSynced(merged, result.getFailed());
+                } else {
+                    String errorMsg = "Failed to sync cart.";
+                    if (response.body() != null && response.body().getMessage() != null) {
+                        errorMsg = response.body().getMessage();
+                    } else if (response.errorBody() != null) {
+                        try {
+                            errorMsg = response.errorBody().string();
+                        } catch (Exception e) {
+                            Log.e(TAG, "Error parsing error body", e);
                         }
-                    });
-        }
-        localCartManager.clearCart();
+                    }
+                    if (response.code() == 401) {
+                        errorMsg = "Authentication expired. Please sign in again.";
+                    }
+                    Log.e(TAG, "syncLocalCartWithServer failed: " + errorMsg + " Code: " + response.code());
+                    callback.onError(errorMsg);
+                }
+            }
 
-        new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> getCartItems(callback), 2000);
+            @Override
+            public void onFailure(@NonNull Call<ApiResponse<CartMergeResult>> call, @NonNull Throwable t) {
+                Log.e(TAG, "syncLocalCartWithServer network error", t);
+                callback.onError("Network error while syncing cart: " + t.getMessage());
+            }
+        });
     }
 
     /**
      * Get cart item count for badge display
      * 
-     * @return Number of items in cart
+     * @return Number of items in the last published cart
      */
     @SuppressWarnings("unused")
     public int getCartItemCount() {
-        String authToken = preferencesHelper.getAuthToken();
-        if (authToken == null || authToken.isEmpty()) {
-            return localCartManager.getCartItemCount();
-        }
-
-        return 0;
+        return cartStore.getSnapshot().getItemCount();
     }
 
     /**
      * Get cart total for quick display
      * 
-     * @return Total cart value
+     * @return Total of the last published cart
      */
     @SuppressWarnings("unused")
     public double getCartTotal() {
-        String authToken = preferencesHelper.getAuthToken();
-        if (authToken == null || authToken.isEmpty()) {
-            return localCartManager.getCartTotal();
-        }
-
-        return 0.0;
+        return cartStore.getSnapshot().getTotal();
     }
 
     /**
@@ -541,6 +783,19 @@ public class CartRepository {
         void onError(String errorMessage);
     }
 
+    /**
+     * Callback interface for merging the guest cart after sign-in.
+     */
+    public interface CartSyncCallback {
+        /**
+         * @param cartItems     The user's cart after the merge
+         * @param rejectedItems Guest items the server could not add; empty if all merged
+         */
+        void onCartSynced(List<CartItem> cartItems, List<CartMergeResult.Failure> rejectedItems);
+
+        void onError(String errorMessage);
+    }
+
     /**
      * Callback interface for cart modification operations (like clear) that might
      * not return a list.
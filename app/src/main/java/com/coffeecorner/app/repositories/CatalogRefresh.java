@@ -0,0 +1,227 @@
+package com.coffeecorner.app.repositories;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.models.ProductChanges;
+import com.coffeecorner.app.network.ApiResponse;
+import com.coffeecorner.app.utils.Constants;
+import com.coffeecorner.app.utils.ProductIdentityMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * CatalogRefresh - Keeps the stored catalog current in the background.
+ *
+ * A refresh pages through the changes after the stored sync cursor, or
+ * downloads the full catalog if there is no cursor or the server rejects it.
+ * Each page is committed with its cursor, so a sync cut off by the network
+ * resumes from the last whole page. Attempts are rate-limited even when they
+ * fail, so going offline doesn't turn every read into a failed request. Reads
+ * made while a refresh is running are answered again if it changes the
+ * catalog. Call on the main thread; the store is only used on the disk
+ * executor.
+ */
+class CatalogRefresh {
+
+    private static final String TAG = "CatalogRefresh";
+
+    private final Server server;
+    private final Store store;
+    private final ProductIdentityMap identityMap;
+    private final Executor diskThread;
+    private final Executor mainThread;
+    private final long refreshIntervalMs;
+
+    // Main thread only
+    private long lastRefresh;
+    // Readers to answer again if the refresh in flight changes the catalog,
+    // or null when no refresh is running
+    private List<Runnable> listeners;
+
+    CatalogRefresh(@NonNull Server server, @NonNull Store store, @NonNull ProductIdentityMap identityMap,
+            @NonNull Executor diskThread, @NonNull Executor mainThread, long refreshIntervalMs) {
+        this.server = server;
+        this.store = store;
+        this.identityMap = identityMap;
+        this.diskThread = diskThread;
+        this.mainThread = mainThread;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    /**
+     * Bring the catalog up to date if it is older than the refresh interval
+     *
+     * @param onChanged Run on the disk thread if the stored catalog changed, or null
+     */
+    void refreshIfStale(@Nullable Runnable onChanged) {
+        if (listeners != null) {
+            if (onChanged != null) {
+                listeners.add(onChanged);
+            }
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastRefresh < refreshIntervalMs) {
+            return;
+        }
+        lastRefresh = now;
+        listeners = new ArrayList<>();
+        if (onChanged != null) {
+            listeners.add(onChanged);
+        }
+        diskThread.execute(() -> {
+            if (System.currentTimeMillis() - store.getCatalogSyncedAt() < refreshIntervalMs) {
+                finish(false);
+                return;
+            }
+            String cursor = store.getSyncCursor();
+            mainThread.execute(() -> {
+                if (cursor != null) {
+                    syncChanges(cursor, false);
+                } else {
+                    downloadCatalog();
+                }
+            });
+        });
+    }
+
+    /**
+     * Note that the full catalog was just downloaded for a read, so no
+     * refresh is needed for another interval
+     */
+    void onCatalogDownloaded() {
+        lastRefresh = System.currentTimeMillis();
+    }
+
+    /**
+     * Apply the page of changes after a cursor, then the pages after it
+     *
+     * @param cursor  Cursor to read changes after
+     * @param changed Whether earlier pages of this sync changed the catalog
+     */
+    private void syncChanges(String cursor, boolean changed) {
+        server.getChanges(cursor, new Callback<ApiResponse<ProductChanges>>() {
+            @Override
+            public void onResponse(@NonNull Call<ApiResponse<ProductChanges>> call,
+                    @NonNull Response<ApiResponse<ProductChanges>> response) {
+                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                        && response.body().getData() != null) {
+                    ProductChanges page = response.body().getData();
+                    // Products already on screen, in carts or in details are replaced by
+                    // updated copies; ones made unavailable arrive as products and stay in
+                    // the catalog
+                    identityMap.internAll(page.getProducts());
+                    identityMap.markUnavailable(page.getDeleted());
+                    diskThread.execute(() -> {
+                        boolean anyChanged = store.applyChanges(page) || changed;
+                        String next = page.getCursor();
+                        if (page.hasMore() && next != null && !next.equals(cursor)) {
+                            mainThread.execute(() -> syncChanges(next, anyChanged));
+                        } else {
+                            finish(anyChanged);
+                        }
+                    });
+                } else if (response.code() == 400) {
+                    // The server no longer accepts the cursor; start over from a full download
+                    Log.w(TAG, "Catalog cursor rejected, downloading full catalog");
+                    downloadCatalog();
+                } else {
+                    // The stored catalog keeps serving reads
+                    Log.e(TAG, "Catalog sync failed: " + response.code());
+                    finish(changed);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<ApiResponse<ProductChanges>> call, @NonNull Throwable t) {
+                Log.d(TAG, "Catalog sync failed, serving stored catalog: " + t.getMessage());
+                finish(changed);
+            }
+        });
+    }
+
+    private void downloadCatalog() {
+        server.getCatalog(new Callback<ApiResponse<List<Product>>>() {
+            @Override
+            public void onResponse(@NonNull Call<ApiResponse<List<Product>>> call,
+                    @NonNull Response<ApiResponse<List<Product>>> response) {
+                if (response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                        && response.body().getData() != null) {
+                    List<Product> products = response.body().getData();
+                    String cursor = response.headers().get(Constants.HEADER_CATALOG_CURSOR);
+                    identityMap.internAll(products);
+                    diskThread.execute(() -> finish(store.replaceCatalog(products, cursor)));
+                } else {
+                    // The stored catalog keeps serving reads
+                    Log.e(TAG, "Catalog refresh failed: " + response.code());
+                    finish(false);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<ApiResponse<List<Product>>> call, @NonNull Throwable t) {
+                Log.d(TAG, "Catalog refresh failed, serving stored catalog: " + t.getMessage());
+                finish(false);
+            }
+        });
+    }
+
+    /**
+     * End the refresh in flight, answering its readers again if it changed
+     * the catalog
+     *
+     * @param changed Whether the refresh changed the stored catalog
+     */
+    private void finish(boolean changed) {
+        mainThread.execute(() -> {
+            List<Runnable> waiting = listeners;
+            listeners = null;
+            if (changed && waiting != null && !waiting.isEmpty()) {
+                diskThread.execute(() -> {
+                    for (Runnable listener : waiting) {
+                        listener.run();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Catalog requests the refresh makes
+     */
+    interface Server {
+        /**
+         * Request the page of changes after a cursor
+         */
+        void getChanges(@NonNull String cursor, @NonNull Callback<ApiResponse<ProductChanges>> callback);
+
+        /**
+         * Request the full catalog, with the sync cursor in its headers
+         */
+        void getCatalog(@NonNull Callback<ApiResponse<List<Product>>> callback);
+    }
+
+    /**
+     * The stored catalog; only used on the disk executor
+     */
+    interface Store {
+        long getCatalogSyncedAt();
+
+        @Nullable
+        String getSyncCursor();
+
+        boolean applyChanges(@NonNull ProductChanges changes);
+
+        boolean replaceCatalog(@NonNull List<Product> products, @Nullable String cursor);
+    }
+}
@@ -0,0 +1,143 @@
+package com.coffeecorner.app.repositories;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.coffeecorner.app.models.CartAddRequest;
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.CartMergeRequest;
+import com.coffeecorner.app.models.CartMergeResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * GuestCartMerge - Merges the guest cart into the signed-in user's cart in one
+ * request.
+ *
+ * Calls made while a merge is running wait for that merge instead of sending
+ * the items again. Only the lines that were sent are removed from the guest
+ * cart, and only once the server has acknowledged them; if the request fails
+ * the guest cart stays in place for the next attempt.
+ */
+class GuestCartMerge {
+
+    private static final String TAG = "GuestCartMerge";
+
+    private final Server server;
+    private final GuestCart guestCart;
+
+    // Callbacks waiting on the merge in progress, or null when none is running
+    private List<CartRepository.CartSyncCallback> pendingCallbacks;
+
+    GuestCartMerge(@NonNull Server server, @NonNull GuestCart guestCart) {
+        this.server = server;
+        this.guestCart = guestCart;
+    }
+
+    /**
+     * Send the guest cart, or wait for the merge already running
+     *
+     * @param callback Receives the user's cart after the merge, or an error
+     */
+    void run(@NonNull CartRepository.CartSyncCallback callback) {
+        synchronized (this) {
+            if (pendingCallbacks != null) {
+                Log.d(TAG, "run: Merge already running, waiting for it");
+                pendingCallbacks.add(callback);
+                return;
+            }
+            pendingCallbacks = new ArrayList<>();
+            pendingCallbacks.add(callback);
+        }
+
+        List<CartAddRequest> requests = new ArrayList<>();
+        List<CartItem> sentItems = new ArrayList<>();
+        for (CartItem item : guestCart.getCartItems()) {
+            if (item.getProductId() != null && item.getQuantity() > 0) {
+                requests.add(new CartAddRequest(item.getProductId(), item.getQuantity()));
+                sentItems.add(item);
+            }
+        }
+        if (requests.isEmpty()) {
+            Log.d(TAG, "run: No guest items to merge");
+            guestCart.clearCart();
+            server.loadCart(new CartRepository.CartItemsCallback() {
+                @Override
+                public void onCartItemsLoaded(List<CartItem> cartItems) {
+                    finish(cartItems, new ArrayList<>(), null);
+                }
+
+                @Override
+                public void onError(String errorMessage) {
+                    finish(null, null, errorMessage);
+                }
+            });
+            return;
+        }
+
+        Log.d(TAG, "run: Merging " + requests.size() + " guest items in one request");
+        server.merge(new CartMergeRequest(requests), new CartRepository.CartSyncCallback() {
+            @Override
+            public void onCartSynced(List<CartItem> cartItems, List<CartMergeResult.Failure> rejectedItems) {
+                // Rejected items are for products that no longer exist, so they are dropped too.
+                // Only what was sent is removed; items added during the merge stay for the next one.
+                guestCart.removeSent(sentItems);
+                finish(cartItems, rejectedItems, null);
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                finish(null, null, errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Notify every caller waiting on the running merge
+     *
+     * @param cartItems     Cart after the merge, or null on error
+     * @param rejectedItems Items the server rejected, or null on error
+     * @param errorMessage  Error, or null on success
+     */
+    private void finish(List<CartItem> cartItems, List<CartMergeResult.Failure> rejectedItems,
+            String errorMessage) {
+        List<CartRepository.CartSyncCallback> callbacks;
+        synchronized (this) {
+            callbacks = pendingCallbacks;
+            pendingCallbacks = null;
+        }
+        if (callbacks == null) {
+            return;
+        }
+        for (CartRepository.CartSyncCallback waiting : callbacks) {
+            if (errorMessage != null) {
+                waiting.onError(errorMessage);
+            } else {
+                waiting.onCartSynced(cartItems, rejectedItems);
+            }
+        }
+    }
+
+    /**
+     * Server calls the merge makes; the carts they return are already cached
+     */
+    interface Server {
+        void merge(@NonNull CartMergeRequest request, @NonNull CartRepository.CartSyncCallback callback);
+
+        void loadCart(@NonNull CartRepository.CartItemsCallback callback);
+    }
+
+    /**
+     * The guest cart being merged
+     */
+    interface GuestCart {
+        List<CartItem> getCartItems();
+
+        void removeSent(Collection<CartItem> sentItems);
+
+        void clearCart();
+    }
+}
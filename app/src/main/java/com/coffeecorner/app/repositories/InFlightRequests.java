@@ -0,0 +1,193 @@
+package com.coffeecorner.app.repositories;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.coffeecorner.app.network.ApiResponse;
+import com.coffeecorner.app.network.AuthTokenStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Invocation;
+import retrofit2.Response;
+
+/**
+ * InFlightRequests - Shares identical concurrent GET calls between repositories.
+ *
+ * A GET enqueued while the same request (same ApiService method, URL and
+ * signed-in user) is still in flight does not hit the network again; its
+ * callback is attached to the running call and receives the same result.
+ * Each callback gets its own Response: a successful body's data list is
+ * copied per callback, and an error body is read once and handed to each
+ * callback as a fresh body. A callback can be cancelled; the call itself is
+ * cancelled once no callback waits on it. Other methods are enqueued as usual.
+ */
+final class InFlightRequests {
+
+    private static final String TAG = "InFlightRequests";
+
+    // Each running call with the callbacks waiting on it, keyed by request
+    private static final Map<String, Running> pending = new HashMap<>();
+
+    private InFlightRequests() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Enqueue a call, joining an identical GET that is already running
+     *
+     * @param call     Call to enqueue; discarded if an identical one is in flight
+     * @param callback Callback to notify with the shared result
+     * @param <T>      Response body type
+     * @return Cancels this callback, and the call once nothing else waits on it
+     */
+    static <T> Cancellable enqueue(@NonNull Call<T> call, @NonNull Callback<T> callback) {
+        Request request = call.request();
+        if (!"GET".equals(request.method())) {
+            call.enqueue(callback);
+            return call::cancel;
+        }
+
+        String key = keyFor(request);
+        Running running;
+        synchronized (pending) {
+            running = pending.get(key);
+            if (running != null) {
+                Log.d(TAG, "Joining in-flight request " + request.url().encodedPath());
+                running.callbacks.add(callback);
+                Running joined = running;
+                return () -> cancel(key, joined, callback);
+            }
+            running = new Running(call);
+            running.callbacks.add(callback);
+            pending.put(key, running);
+        }
+
+        Running started = running;
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                List<Callback<T>> callbacks = InFlightRequests.<T>take(key, started);
+                if (callbacks.isEmpty()) {
+                    return;
+                }
+                if (callbacks.size() == 1) {
+                    callbacks.get(0).onResponse(call, response);
+                    return;
+                }
+                byte[] errorBytes = response.isSuccessful() ? null : readErrorBody(response);
+                for (Callback<T> waiting : callbacks) {
+                    waiting.onResponse(call, copyOf(response, errorBytes));
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                for (Callback<T> waiting : InFlightRequests.<T>take(key, started)) {
+                    waiting.onFailure(call, t);
+                }
+            }
+        });
+        return () -> cancel(key, started, callback);
+    }
+
+    /**
+     * Stop a callback waiting on a running call, cancelling the call if no
+     * other callback is left on it
+     */
+    private static void cancel(String key, Running running, Callback<?> callback) {
+        synchronized (pending) {
+            if (pending.get(key) != running || !running.callbacks.remove(callback)
+                    || !running.callbacks.isEmpty()) {
+                return;
+            }
+            pending.remove(key);
+        }
+        Log.d(TAG, "Cancelling superseded request " + running.call.request().url().encodedPath());
+        running.call.cancel();
+    }
+
+    /**
+     * Remove and return the callbacks waiting on a call. Calls enqueued after
+     * this start a new request. Empty if every callback was cancelled.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<Callback<T>> take(String key, Running running) {
+        List<Callback<T>> callbacks = new ArrayList<>();
+        synchronized (pending) {
+            if (pending.get(key) != running) {
+                return callbacks;
+            }
+            pending.remove(key);
+        }
+        for (Callback<?> callback : running.callbacks) {
+            callbacks.add((Callback<T>) callback);
+        }
+        return callbacks;
+    }
+
+    /**
+     * A Response of its own for one callback. Success bodies whose data is a
+     * list get a new list, so one caller sorting or filtering it doesn't change
+     * what the others see; error bodies are recreated from the bytes read once.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Response<T> copyOf(Response<T> response, byte[] errorBytes) {
+        if (!response.isSuccessful()) {
+            ResponseBody errorBody = response.errorBody();
+            MediaType contentType = errorBody != null ? errorBody.contentType() : null;
+            return Response.error(ResponseBody.create(errorBytes, contentType), response.raw());
+        }
+        T body = response.body();
+        if (body instanceof ApiResponse && ((ApiResponse<?>) body).getData() instanceof List) {
+            ApiResponse<?> apiResponse = (ApiResponse<?>) body;
+            body = (T) new ApiResponse<Object>(apiResponse.isSuccess(), apiResponse.getMessage(),
+                    new ArrayList<>((List<?>) apiResponse.getData()));
+        }
+        return Response.success(body, response.raw());
+    }
+
+    private static byte[] readErrorBody(Response<?> response) {
+        try (ResponseBody errorBody = response.errorBody()) {
+            return errorBody != null ? errorBody.bytes() : new byte[0];
+        } catch (IOException e) {
+            Log.w(TAG, "Could not read error body: " + e.getMessage());
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Build the registry key for a request. The ApiService method is included so
+     * calls sharing a URL but decoding to different types never share a response,
+     * and the token so a response is never handed to a different user.
+     */
+    private static String keyFor(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        String method = invocation != null ? invocation.method().getName() : request.method();
+        String token = AuthTokenStore.getInstance().getToken();
+        return method + " " + request.url() + " " + (token != null ? token.hashCode() : 0);
+    }
+
+    /**
+     * A call in flight and the callbacks waiting on it
+     */
+    private static final class Running {
+        final Call<?> call;
+        // Guarded by pending
+        final List<Callback<?>> callbacks = new ArrayList<>();
+
+        Running(Call<?> call) {
+            this.call = call;
+        }
+    }
+}
@@ -59,7 +59,7 @@ public class MenuRepository {
     public LiveData<List<MenuItem>> getMenuItems() {
         MutableLiveData<List<MenuItem>> data = new MutableLiveData<>();
 
-        apiService.getProducts().enqueue(new Callback<ApiResponse<List<Product>>>() {
+        InFlightRequests.enqueue(apiService.getProducts(), new Callback<ApiResponse<List<Product>>>() {
             @Override
             public void onResponse(Call<ApiResponse<List<Product>>> call,
                     Response<ApiResponse<List<Product>>> response) {
@@ -104,7 +104,7 @@ public class MenuRepository {
      * @param callback Callback to handle result
      */
     public void getCategories(@NonNull CategoriesCallback callback) {
-        apiService.getCategories().enqueue(new Callback<ApiResponse<List<String>>>() {
+        InFlightRequests.enqueue(apiService.getCategories(), new Callback<ApiResponse<List<String>>>() {
             @Override
             public void onResponse(Call<ApiResponse<List<String>>> call, Response<ApiResponse<List<String>>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
@@ -133,7 +133,7 @@ public class MenuRepository {
      */
     public void getProductsByCategory(String category, @NonNull ProductsCallback callback) {
         // Make API call with the category filter
-        apiService.getProductsByCategory(category).enqueue(new Callback<ApiResponse<List<Product>>>() {
+        InFlightRequests.enqueue(apiService.getProductsByCategory(category), new Callback<ApiResponse<List<Product>>>() {
             @Override
             public void onResponse(Call<ApiResponse<List<Product>>> call,
                     Response<ApiResponse<List<Product>>> response) {
@@ -161,7 +161,7 @@ public class MenuRepository {
      * @param callback Callback to handle results
      */
     public void getAllProducts(@NonNull ProductsCallback callback) {
-        apiService.getProducts().enqueue(new Callback<ApiResponse<List<Product>>>() {
+        InFlightRequests.enqueue(apiService.getProducts(), new Callback<ApiResponse<List<Product>>>() {
             @Override
             public void onResponse(Call<ApiResponse<List<Product>>> call,
                     Response<ApiResponse<List<Product>>> response) {
@@ -190,7 +190,7 @@ public class MenuRepository {
      * @param callback Callback to handle results
      */
     public void searchProducts(String query, @NonNull ProductsCallback callback) {
-        apiService.searchProducts(query).enqueue(new Callback<ApiResponse<List<Product>>>() {
+        InFlightRequests.enqueue(apiService.searchProducts(query), new Callback<ApiResponse<List<Product>>>() {
             @Override
             public void onResponse(Call<ApiResponse<List<Product>>> call,
                     Response<ApiResponse<List<Product>>> response) {
@@ -12,7 +12,9 @@ import com.coffeecorner.app.models.Order;
 import com.coffeecorner.app.network.ApiResponse;
 import com.coffeecorner.app.network.ApiService;
 import com.coffeecorner.app.network.RetrofitClient;
+import com.coffeecorner.app.network.StreamingListReader;
 import com.coffeecorner.app.utils.PreferencesHelper;
+import com.coffeecorner.app.utils.ProductIdentityMap;
 
 import java.util.List;
 import java.util.Date;
@@ -31,6 +33,8 @@ public class OrderRepository {
     private static volatile OrderRepository instance;
     private final PreferencesHelper preferencesHelper;
     private final ApiService apiService; // Added ApiService
+    // Order lines of the same product and price share one Product
+    private final ProductIdentityMap identityMap = ProductIdentityMap.getInstance();
 
     private OrderRepository(Context context) {
         preferencesHelper = new PreferencesHelper(context);
@@ -170,11 +174,12 @@ public class OrderRepository {
             return;
         }
 
-        apiService.getOrders().enqueue(new Callback<ApiResponse<List<Order>>>() {
+        InFlightRequests.enqueue(apiService.getOrders(), new Callback<ApiResponse<List<Order>>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<List<Order>>> call,
                     @NonNull Response<ApiResponse<List<Order>>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                    identityMap.shareOrderProducts(response.body().getData());
                     callback.onOrdersLoaded(response.body().getData());
                 } else {
                     String errorMsg = "Failed to load orders.";
@@ -194,6 +199,41 @@ public class OrderRepository {
         });
     }
 
+    /**
+     * Get orders for the current user, delivering them in chunks as they are
+     * decoded from the response
+     *
+     * @param callback Callback receiving chunks, then the full list
+     */
+    public void streamUserOrders(@NonNull OrdersStreamCallback callback) {
+        String authToken = preferencesHelper.getAuthToken();
+        if (authToken == null || authToken.isEmpty()) {
+            callback.onError("User not logged in");
+            return;
+        }
+
+        StreamingListReader.enqueue(apiService.streamUserOrders(), RetrofitClient.getGson(), Order.class,
+                new StreamingListReader.ChunkCallback<Order>() {
+                    @Override
+                    public void onChunk(List<Order> chunk) {
+                        // The complete list holds these same orders, so sharing per chunk covers it
+                        identityMap.shareOrderProducts(chunk);
+                        callback.onOrdersChunk(chunk);
+                    }
+
+                    @Override
+                    public void onComplete(List<Order> all) {
+                        callback.onOrdersLoaded(all);
+                    }
+
+                    @Override
+                    public void onError(String errorMessage) {
+                        Log.e("OrderRepository", "Stream user orders failed: " + errorMessage);
+                        callback.onError(errorMessage);
+                    }
+                });
+    }
+
     /**
      * Get user's order history
      * 
@@ -210,11 +250,12 @@ public class OrderRepository {
             return orderHistoryLiveData;
         }
 
-        apiService.getOrders().enqueue(new Callback<ApiResponse<List<Order>>>() {
+        InFlightRequests.enqueue(apiService.getOrders(), new Callback<ApiResponse<List<Order>>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<List<Order>>> call,
                     @NonNull Response<ApiResponse<List<Order>>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                    identityMap.shareOrderProducts(response.body().getData());
                     orderHistoryLiveData.setValue(response.body().getData());
                 } else {
                     orderHistoryLiveData.setValue(new java.util.ArrayList<>());
@@ -250,7 +291,7 @@ public class OrderRepository {
             return orderLiveData;
         }
 
-        apiService.getOrderById(orderId).enqueue(new Callback<ApiResponse<Order>>() {
+        InFlightRequests.enqueue(apiService.getOrderById(orderId), new Callback<ApiResponse<Order>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<Order>> call,
                     @NonNull Response<ApiResponse<Order>> response) {
@@ -288,7 +329,7 @@ public class OrderRepository {
             return statusLiveData;
         }
 
-        apiService.trackOrder(orderId).enqueue(new Callback<ApiResponse<String>>() {
+        InFlightRequests.enqueue(apiService.trackOrder(orderId), new Callback<ApiResponse<String>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<String>> call,
                     @NonNull Response<ApiResponse<String>> response) {
@@ -367,6 +408,11 @@ public class OrderRepository {
         void onError(String error);
     }
 
+    // Streamed variant: chunks arrive first, then onOrdersLoaded with the full list
+    public interface OrdersStreamCallback extends OrdersCallback {
+        void onOrdersChunk(List<Order> chunk);
+    }
+
     // OrderHistoryCallback for order history
     public interface OrderHistoryCallback {
         void onComplete();
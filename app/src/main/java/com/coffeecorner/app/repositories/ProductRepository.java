@@ -1,16 +1,33 @@
 package com.coffeecorner.app.repositories;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
+import com.coffeecorner.app.CoffeeCornerApplication;
 import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.models.ProductChanges;
+import com.coffeecorner.app.models.ProductPage;
 import com.coffeecorner.app.network.ApiResponse;
 import com.coffeecorner.app.network.ApiService;
 import com.coffeecorner.app.network.RetrofitClient;
+import com.coffeecorner.app.utils.CatalogFacets;
+import com.coffeecorner.app.utils.CatalogStore;
+import com.coffeecorner.app.utils.Constants;
+import com.coffeecorner.app.utils.ProductIdentityMap;
+import com.coffeecorner.app.utils.ProductSearchIndex;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -19,14 +36,86 @@ import retrofit2.Response;
 /**
  * ProductRepository - Single source of truth for product data
  * Manages product listing, details, filtering, and search
+ *
+ * Reads are answered from the on-device {@link CatalogStore} once it holds
+ * the catalog, so the menu opens and searches without a round-trip and keeps
+ * working offline. A stale catalog is refreshed in the background by paging
+ * through the changes after the stored sync cursor, so a refresh downloads
+ * what changed rather than the whole menu; list, category and detail
+ * callbacks are called again if the refresh changed anything.
+ * Until the first catalog is stored, reads go to the network and their
+ * results are stored for next time.
+ *
+ * Every product delivered goes through the {@link ProductIdentityMap}, so
+ * callers share one object per product. When an update replaces shared
+ * products, the catalog indexes are rebuilt with the new objects.
  */
 public class ProductRepository {
 
+    private static final String TAG = "ProductRepository";
+    // Marks page cursors that point into the stored catalog rather than the server's
+    private static final String STORE_CURSOR_PREFIX = "store:";
+
     private static volatile ProductRepository instance;
     private final ApiService apiService; // Added ApiService
+    private final CatalogStore catalogStore;
+    private final ProductIdentityMap identityMap = ProductIdentityMap.getInstance();
+    // Catalog reads and writes, in order, off the main thread
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Builds the catalog indexes, so a large catalog doesn't hold up disk reads
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Search and facet indexes of the whole catalog, shared by every listing
+    private final MutableLiveData<CatalogIndexes> catalogIndexes = new MutableLiveData<>();
+    private final CatalogRefresh catalogRefresh;
+    // Main thread only
+    private long lastCategoriesRefresh;
+    private boolean catalogIndexesRequested;
 
     private ProductRepository() {
         apiService = RetrofitClient.getApiService(); // Initialize ApiService
+        catalogStore = CatalogStore.getInstance(CoffeeCornerApplication.getInstance());
+        catalogRefresh = new CatalogRefresh(new CatalogRefresh.Server() {
+            @Override
+            public void getChanges(@NonNull String cursor, @NonNull Callback<ApiResponse<ProductChanges>> callback) {
+                InFlightRequests.enqueue(apiService.getProductChanges(cursor, Constants.CATALOG_SYNC_PAGE_SIZE),
+                        callback);
+            }
+
+            @Override
+            public void getCatalog(@NonNull Callback<ApiResponse<List<Product>>> callback) {
+                InFlightRequests.enqueue(apiService.getProducts(), callback);
+            }
+        }, new CatalogRefresh.Store() {
+            @Override
+            public long getCatalogSyncedAt() {
+                return catalogStore.getCatalogSyncedAt();
+            }
+
+            @Override
+            public String getSyncCursor() {
+                return catalogStore.getSyncCursor();
+            }
+
+            @Override
+            public boolean applyChanges(@NonNull ProductChanges changes) {
+                return catalogStore.applyChanges(changes);
+            }
+
+            @Override
+            public boolean replaceCatalog(@NonNull List<Product> products, @Nullable String cursor) {
+                return catalogStore.replaceCatalog(products, cursor);
+            }
+        }, identityMap, diskExecutor, mainHandler::post, Constants.CATALOG_REFRESH_INTERVAL_MS);
+        identityMap.addListener(this::rebuildCatalogIndexes);
     }
 
     public static ProductRepository getInstance() {
@@ -46,13 +135,17 @@ public class ProductRepository {
      * @param callback Callback to handle result
      */
     public void getProducts(@NonNull ProductsCallback callback) {
-        apiService.getProducts().enqueue(new Callback<ApiResponse<List<Product>>>() {
+        readCatalog(CatalogStore::getProducts, callback, () -> fetchProducts(callback));
+    }
+
+    private void fetchProducts(@NonNull ProductsCallback callback) {
+        InFlightRequests.enqueue(apiService.getProducts(), new Callback<ApiResponse<List<Product>>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<List<Product>>> call,
                     @NonNull Response<ApiResponse<List<Product>>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
                     List<Product> products = response.body().getData();
-                    Log.d("ProductRepository", "Successfully loaded " + products.size() + " products");
+                    Log.d(TAG, "Successfully loaded " + products.size() + " products");
 
                     // Enhanced debug logging to verify image URLs
                     int nonNullImageCount = 0;
@@ -61,30 +154,31 @@ public class ProductRepository {
                             nonNullImageCount++;
                         }
                     }
-                    Log.d("ProductRepository",
+                    Log.d(TAG,
                             "Products with non-null imageUrl: " + nonNullImageCount + " out of " + products.size());
 
                     // Debug first few products to check image URLs
                     for (int i = 0; i < Math.min(products.size(), 5); i++) {
                         Product product = products.get(i);
-                        Log.d("ProductRepository", "Product[" + i + "]: " + product.getName() +
+                        Log.d(TAG, "Product[" + i + "]: " + product.getName() +
                                 ", ImageURL: " + product.getImageUrl());
                     }
 
-                    callback.onProductsLoaded(products);
+                    callback.onProductsLoaded(identityMap.internAll(products));
+                    storeCatalog(products, response.headers().get(Constants.HEADER_CATALOG_CURSOR));
                 } else {
                     String errorMsg = "Failed to load products.";
                     if (response.body() != null && response.body().getMessage() != null) {
                         errorMsg = response.body().getMessage();
                     }
-                    Log.e("ProductRepository", "Get products failed: " + response.code() + " - " + errorMsg);
+                    Log.e(TAG, "Get products failed: " + response.code() + " - " + errorMsg);
                     callback.onError(errorMsg);
                 }
             }
 
             @Override
             public void onFailure(@NonNull Call<ApiResponse<List<Product>>> call, @NonNull Throwable t) {
-                Log.e("ProductRepository", "Get products network error", t);
+                Log.e(TAG, "Get products network error", t);
                 callback.onError("Network error. Please try again. " + t.getMessage());
             }
         });
@@ -102,18 +196,24 @@ public class ProductRepository {
             return;
         }
 
-        apiService.getProductsByCategory(category).enqueue(new Callback<ApiResponse<List<Product>>>() {
+        readCatalog(store -> store.getProductsByCategory(category), callback,
+                () -> fetchProductsByCategory(category, callback));
+    }
+
+    private void fetchProductsByCategory(String category, @NonNull ProductsCallback callback) {
+        InFlightRequests.enqueue(apiService.getProductsByCategory(category), new Callback<ApiResponse<List<Product>>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<List<Product>>> call,
                     @NonNull Response<ApiResponse<List<Product>>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    callback.onProductsLoaded(response.body().getData());
+                    callback.onProductsLoaded(identityMap.internAll(response.body().getData()));
+                    storeProducts(response.body().getData());
                 } else {
                     String errorMsg = "Failed to load products for category: " + category;
                     if (response.body() != null && response.body().getMessage() != null) {
                         errorMsg = response.body().getMessage();
                     }
-                    Log.e("ProductRepository",
+                    Log.e(TAG,
                             "Get products by category failed: " + response.code() + " - " + errorMsg);
                     callback.onError(errorMsg);
                 }
@@ -121,12 +221,91 @@ public class ProductRepository {
 
             @Override
             public void onFailure(@NonNull Call<ApiResponse<List<Product>>> call, @NonNull Throwable t) {
-                Log.e("ProductRepository", "Get products by category network error", t);
+                Log.e(TAG, "Get products by category network error", t);
                 callback.onError("Network error. Please try again. " + t.getMessage());
             }
         });
     }
 
+    /**
+     * Get one page of products. Pages come from the stored catalog once there
+     * is one, otherwise from GET products/page; a cursor always continues in
+     * the source that issued it. The first page is delivered again if a
+     * background refresh changes the catalog.
+     *
+     * @param category Category to filter by; null, empty or "All" for every product
+     * @param cursor   Next cursor of the previous page, or null for the first page
+     * @param pageSize Products per page
+     * @param callback Callback to handle result
+     */
+    public void getProductPage(@Nullable String category, @Nullable String cursor, int pageSize,
+            @NonNull ProductPageCallback callback) {
+        String filter = category == null || category.isEmpty() || "All".equalsIgnoreCase(category) ? null : category;
+        if (cursor != null && !cursor.startsWith(STORE_CURSOR_PREFIX)) {
+            fetchProductPage(filter, cursor, pageSize, callback);
+            return;
+        }
+
+        diskExecutor.execute(() -> {
+            if (cursor == null && !catalogStore.hasCatalog()) {
+                mainHandler.post(() -> fetchProductPage(filter, null, pageSize, callback));
+                return;
+            }
+            String after = cursor != null ? cursor.substring(STORE_CURSOR_PREFIX.length()) : null;
+            ProductPage page = storePage(filter, after, pageSize);
+            mainHandler.post(() -> {
+                callback.onPageLoaded(internPage(page));
+                if (cursor == null) {
+                    catalogRefresh.refreshIfStale(() -> {
+                        ProductPage refreshed = storePage(filter, null, pageSize);
+                        mainHandler.post(() -> callback.onPageLoaded(internPage(refreshed)));
+                    });
+                }
+            });
+        });
+    }
+
+    // Must run on the disk thread
+    private ProductPage storePage(@Nullable String category, @Nullable String afterId, int pageSize) {
+        ProductPage page = catalogStore.getProductPage(category, afterId, pageSize);
+        return new ProductPage(page.getProducts(),
+                page.hasMore() ? STORE_CURSOR_PREFIX + page.getNextCursor() : null);
+    }
+
+    private ProductPage internPage(ProductPage page) {
+        return new ProductPage(identityMap.internAll(page.getProducts()), page.getNextCursor());
+    }
+
+    private void fetchProductPage(@Nullable String category, @Nullable String cursor, int pageSize,
+            @NonNull ProductPageCallback callback) {
+        InFlightRequests.enqueue(apiService.getProductPage(category, cursor, pageSize),
+                new Callback<ApiResponse<ProductPage>>() {
+                    @Override
+                    public void onResponse(@NonNull Call<ApiResponse<ProductPage>> call,
+                            @NonNull Response<ApiResponse<ProductPage>> response) {
+                        if (response.isSuccessful() && response.body() != null && response.body().isSuccess()
+                                && response.body().getData() != null) {
+                            ProductPage page = response.body().getData();
+                            callback.onPageLoaded(internPage(page));
+                            storeProducts(page.getProducts());
+                        } else {
+                            String errorMsg = "Failed to load products.";
+                            if (response.body() != null && response.body().getMessage() != null) {
+                                errorMsg = response.body().getMessage();
+                            }
+                            Log.e(TAG, "Get product page failed: " + response.code() + " - " + errorMsg);
+                            callback.onError(errorMsg);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull Call<ApiResponse<ProductPage>> call, @NonNull Throwable t) {
+                        Log.e(TAG, "Get product page network error", t);
+                        callback.onError("Network error. Please try again. " + t.getMessage());
+                    }
+                });
+    }
+
     /**
      * Get product details by ID
      *
@@ -138,61 +317,94 @@ public class ProductRepository {
             callback.onProductError("Invalid product ID");
             return;
         }
-        apiService.getProductById(productId).enqueue(new Callback<ApiResponse<Product>>() {
+        readProduct(productId, callback, () -> fetchProductDetails(productId, callback));
+    }
+
+    private void fetchProductDetails(String productId, @NonNull ProductDetailCallback callback) {
+        InFlightRequests.enqueue(apiService.getProductById(productId), new Callback<ApiResponse<Product>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<Product>> call,
                     @NonNull Response<ApiResponse<Product>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    callback.onProductLoaded(response.body().getData());
+                    callback.onProductLoaded(identityMap.intern(response.body().getData()));
+                    storeProduct(response.body().getData());
                 } else {
                     String errorMsg = "Failed to load product details.";
                     if (response.body() != null && response.body().getMessage() != null) {
                         errorMsg = response.body().getMessage();
                     }
-                    Log.e("ProductRepository", "Get product details failed: " + response.code() + " - " + errorMsg);
+                    Log.e(TAG, "Get product details failed: " + response.code() + " - " + errorMsg);
                     callback.onProductError(errorMsg);
                 }
             }
 
             @Override
             public void onFailure(@NonNull Call<ApiResponse<Product>> call, @NonNull Throwable t) {
-                Log.e("ProductRepository", "Get product details network error", t);
+                Log.e(TAG, "Get product details network error", t);
                 callback.onProductError("Network error. Please try again. " + t.getMessage());
             }
         });
     }
 
     /**
-     * Search products by query
+     * Search products by query. Once the catalog is stored locally, this is a
+     * full-text search on the device; results are not re-delivered after a
+     * background refresh, as the user has usually typed on by then. Call on
+     * the main thread.
      *
      * @param query    Search query
      * @param callback Callback to handle result
+     * @return Cancels the search once the user has typed on; a network search
+     *         no other caller shares is cancelled too
      */
-    public void searchProducts(String query, @NonNull ProductsCallback callback) {
+    public Cancellable searchProducts(String query, @NonNull ProductsCallback callback) {
         if (query == null || query.isEmpty()) {
             getProducts(callback); // Load all products if query is null or empty
-            return;
+            return () -> { };
         }
 
-        apiService.searchProducts(query).enqueue(new Callback<ApiResponse<List<Product>>>() {
+        PendingSearch search = new PendingSearch();
+        diskExecutor.execute(() -> {
+            if (!catalogStore.hasCatalog()) {
+                mainHandler.post(() -> {
+                    if (!search.cancelled) {
+                        search.call = fetchSearchResults(query, callback);
+                    }
+                });
+                return;
+            }
+            List<Product> results = catalogStore.search(query);
+            mainHandler.post(() -> {
+                if (!search.cancelled) {
+                    callback.onProductsLoaded(identityMap.internAll(results));
+                }
+                catalogRefresh.refreshIfStale(null);
+            });
+        });
+        return search;
+    }
+
+    private Cancellable fetchSearchResults(String query, @NonNull ProductsCallback callback) {
+        return InFlightRequests.enqueue(apiService.searchProducts(query), new Callback<ApiResponse<List<Product>>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<List<Product>>> call,
                     @NonNull Response<ApiResponse<List<Product>>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    callback.onProductsLoaded(response.body().getData());
+                    callback.onProductsLoaded(identityMap.internAll(response.body().getData()));
+                    storeProducts(response.body().getData());
                 } else {
                     String errorMsg = "Failed to search products for query: " + query;
                     if (response.body() != null && response.body().getMessage() != null) {
                         errorMsg = response.body().getMessage();
                     }
-                    Log.e("ProductRepository", "Search products failed: " + response.code() + " - " + errorMsg);
+                    Log.e(TAG, "Search products failed: " + response.code() + " - " + errorMsg);
                     callback.onError(errorMsg);
                 }
             }
 
             @Override
             public void onFailure(@NonNull Call<ApiResponse<List<Product>>> call, @NonNull Throwable t) {
-                Log.e("ProductRepository", "Search products network error", t);
+                Log.e(TAG, "Search products network error", t);
                 callback.onError("Network error. Please try again. " + t.getMessage());
             }
         });
@@ -209,25 +421,30 @@ public class ProductRepository {
             callback.onProductError("Product ID cannot be null or empty.");
             return;
         }
-        apiService.getProductDetails(productId).enqueue(new Callback<ApiResponse<Product>>() {
+        readProduct(productId, callback, () -> fetchProductById(productId, callback));
+    }
+
+    private void fetchProductById(String productId, @NonNull ProductDetailCallback callback) {
+        InFlightRequests.enqueue(apiService.getProductDetails(productId), new Callback<ApiResponse<Product>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<Product>> call,
                     @NonNull Response<ApiResponse<Product>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    callback.onProductLoaded(response.body().getData());
+                    callback.onProductLoaded(identityMap.intern(response.body().getData()));
+                    storeProduct(response.body().getData());
                 } else {
                     String errorMsg = "Failed to load product details for ID: " + productId;
                     if (response.body() != null && response.body().getMessage() != null) {
                         errorMsg = response.body().getMessage();
                     }
-                    Log.e("ProductRepository", "Get product by ID failed: " + response.code() + " - " + errorMsg);
+                    Log.e(TAG, "Get product by ID failed: " + response.code() + " - " + errorMsg);
                     callback.onProductError(errorMsg);
                 }
             }
 
             @Override
             public void onFailure(@NonNull Call<ApiResponse<Product>> call, @NonNull Throwable t) {
-                Log.e("ProductRepository", "Get product by ID network error", t);
+                Log.e(TAG, "Get product by ID network error", t);
                 callback.onProductError("Network error. Please try again. " + t.getMessage());
             }
         });
@@ -239,39 +456,268 @@ public class ProductRepository {
      * @param callback Callback to handle result
      */
     public void getCategories(@NonNull CategoriesCallback callback) {
-        apiService.getCategories().enqueue(new Callback<ApiResponse<List<String>>>() {
+        diskExecutor.execute(() -> {
+            if (catalogStore.getCategoriesSyncedAt() == 0) {
+                mainHandler.post(() -> fetchCategories(callback));
+                return;
+            }
+            List<String> categories = catalogStore.getCategories();
+            mainHandler.post(() -> {
+                callback.onCategoriesLoaded(withAllCategory(categories));
+                refreshCategoriesIfStale();
+            });
+        });
+    }
+
+    private void fetchCategories(@NonNull CategoriesCallback callback) {
+        InFlightRequests.enqueue(apiService.getCategories(), new Callback<ApiResponse<List<String>>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<List<String>>> call,
                     @NonNull Response<ApiResponse<List<String>>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
-                    List<String> categoriesWithAll = new ArrayList<>();
-                    categoriesWithAll.add("All"); // Add "All" category at the beginning
-                    categoriesWithAll.addAll(response.body().getData());
-                    callback.onCategoriesLoaded(categoriesWithAll);
+                    callback.onCategoriesLoaded(withAllCategory(response.body().getData()));
+                    storeCategories(response.body().getData());
                 } else {
                     String errorMsg = "Failed to load categories.";
                     if (response.body() != null && response.body().getMessage() != null) {
                         errorMsg = response.body().getMessage();
                     }
-                    Log.e("ProductRepository", "Get categories failed: " + response.code() + " - " + errorMsg);
+                    Log.e(TAG, "Get categories failed: " + response.code() + " - " + errorMsg);
                     // Provide a default list with "All" if API call fails
-                    List<String> defaultCategories = new ArrayList<>();
-                    defaultCategories.add("All");
-                    callback.onCategoriesLoaded(defaultCategories);
+                    callback.onCategoriesLoaded(withAllCategory(Collections.emptyList()));
                 }
             }
 
             @Override
             public void onFailure(@NonNull Call<ApiResponse<List<String>>> call, @NonNull Throwable t) {
-                Log.e("ProductRepository", "Get categories network error", t);
+                Log.e(TAG, "Get categories network error", t);
                 // Provide a default list with "All" if API call fails
-                List<String> defaultCategories = new ArrayList<>();
-                defaultCategories.add("All");
-                callback.onCategoriesLoaded(defaultCategories);
+                callback.onCategoriesLoaded(withAllCategory(Collections.emptyList()));
             }
         });
     }
 
+    /**
+     * Search and facet indexes of the whole catalog. Nothing is built until
+     * {@link #loadCatalogIndexes()} is first called; after that a value is
+     * published once they are built, and again whenever a refresh changes the
+     * stored catalog.
+     *
+     * @return LiveData of the current indexes, null until built
+     */
+    @NonNull
+    public LiveData<CatalogIndexes> getCatalogIndexes() {
+        return catalogIndexes;
+    }
+
+    /**
+     * Build the catalog indexes, unless they are built or being built. Call it
+     * when a search or filter first needs them, not for plain browsing: the
+     * catalog is read in full, on the disk thread, and indexed in the
+     * background. Must be called on the main thread.
+     */
+    public void loadCatalogIndexes() {
+        if (catalogIndexesRequested) {
+            return;
+        }
+        catalogIndexesRequested = true;
+        getProducts(new ProductsCallback() {
+            @Override
+            public void onProductsLoaded(List<Product> products) {
+                // Called again with the new catalog if a refresh changed it
+                List<Product> catalog = Collections.unmodifiableList(new ArrayList<>(products));
+                indexExecutor.execute(() -> catalogIndexes.postValue(new CatalogIndexes(catalog)));
+            }
+
+            @Override
+            public void onError(String errorMessage) {
+                // Searches keep going to the network; the next use tries again
+                Log.e(TAG, "Could not index the catalog: " + errorMessage);
+                catalogIndexesRequested = false;
+            }
+        });
+    }
+
+    /**
+     * Rebuild the catalog indexes, if built, with the current shared products.
+     * The indexes' old products are left as they were, so searches still
+     * running on them are unaffected.
+     */
+    private void rebuildCatalogIndexes() {
+        indexExecutor.execute(() -> {
+            CatalogIndexes indexes = catalogIndexes.getValue();
+            if (indexes == null) {
+                return;
+            }
+            List<Product> current = identityMap.currentAll(indexes.getCatalog());
+            if (current != indexes.getCatalog()) {
+                catalogIndexes.postValue(new CatalogIndexes(Collections.unmodifiableList(current)));
+            }
+        });
+    }
+
+    private static List<String> withAllCategory(List<String> categories) {
+        List<String> categoriesWithAll = new ArrayList<>();
+        categoriesWithAll.add("All"); // Add "All" category at the beginning
+        categoriesWithAll.addAll(categories);
+        return categoriesWithAll;
+    }
+
+    /**
+     * Answer a list read from the stored catalog, or from the network if none
+     * is stored yet. If the catalog is stale it is refreshed afterwards, and
+     * the query is answered again if the refresh changed anything.
+     *
+     * @param query    Read against the stored catalog, run on the disk thread
+     * @param callback Callback to handle result
+     * @param fetch    Network read, run on the main thread if nothing is stored
+     */
+    private void readCatalog(Function<CatalogStore, List<Product>> query, @NonNull ProductsCallback callback,
+            Runnable fetch) {
+        diskExecutor.execute(() -> {
+            if (!catalogStore.hasCatalog()) {
+                mainHandler.post(fetch);
+                return;
+            }
+            List<Product> products = query.apply(catalogStore);
+            mainHandler.post(() -> {
+                callback.onProductsLoaded(identityMap.internAll(products));
+                catalogRefresh.refreshIfStale(() -> {
+                    List<Product> refreshed = query.apply(catalogStore);
+                    mainHandler.post(() -> callback.onProductsLoaded(identityMap.internAll(refreshed)));
+                });
+            });
+        });
+    }
+
+    /**
+     * Answer a product read from the stored catalog, or from the network if it
+     * is not stored
+     */
+    private void readProduct(String productId, @NonNull ProductDetailCallback callback, Runnable fetch) {
+        diskExecutor.execute(() -> {
+            Product product = catalogStore.getProduct(productId);
+            if (product == null) {
+                mainHandler.post(fetch);
+                return;
+            }
+            mainHandler.post(() -> {
+                callback.onProductLoaded(identityMap.intern(product));
+                catalogRefresh.refreshIfStale(() -> {
+                    Product refreshed = catalogStore.getProduct(productId);
+                    if (refreshed != null) {
+                        mainHandler.post(() -> callback.onProductLoaded(identityMap.intern(refreshed)));
+                    }
+                });
+            });
+        });
+    }
+
+    private void refreshCategoriesIfStale() {
+        long now = System.currentTimeMillis();
+        if (now - lastCategoriesRefresh < Constants.CATALOG_REFRESH_INTERVAL_MS) {
+            return;
+        }
+        lastCategoriesRefresh = now;
+        diskExecutor.execute(() -> {
+            if (System.currentTimeMillis() - catalogStore.getCategoriesSyncedAt()
+                    < Constants.CATALOG_REFRESH_INTERVAL_MS) {
+                return;
+            }
+            mainHandler.post(() -> InFlightRequests.enqueue(apiService.getCategories(),
+                    new Callback<ApiResponse<List<String>>>() {
+                        @Override
+                        public void onResponse(@NonNull Call<ApiResponse<List<String>>> call,
+                                @NonNull Response<ApiResponse<List<String>>> response) {
+                            if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
+                                storeCategories(response.body().getData());
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(@NonNull Call<ApiResponse<List<String>>> call, @NonNull Throwable t) {
+                            Log.d(TAG, "Categories refresh failed, serving stored list: " + t.getMessage());
+                        }
+                    }));
+        });
+    }
+
+    private void storeCatalog(@Nullable List<Product> products, @Nullable String cursor) {
+        if (products != null) {
+            catalogRefresh.onCatalogDownloaded();
+            diskExecutor.execute(() -> catalogStore.replaceCatalog(products, cursor));
+        }
+    }
+
+    private void storeProducts(@Nullable List<Product> products) {
+        if (products != null) {
+            diskExecutor.execute(() -> catalogStore.upsertProducts(products));
+        }
+    }
+
+    private void storeProduct(@Nullable Product product) {
+        if (product != null) {
+            storeProducts(Collections.singletonList(product));
+        }
+    }
+
+    private void storeCategories(@Nullable List<String> categories) {
+        if (categories != null) {
+            diskExecutor.execute(() -> catalogStore.replaceCategories(categories));
+        }
+    }
+
+    /**
+     * Search and facet indexes built from one version of the catalog
+     */
+    public static final class CatalogIndexes {
+        private final List<Product> catalog;
+        private final ProductSearchIndex searchIndex;
+        private final CatalogFacets facets;
+
+        CatalogIndexes(@NonNull List<Product> catalog) {
+            this.catalog = catalog;
+            searchIndex = new ProductSearchIndex(catalog);
+            facets = new CatalogFacets(catalog);
+        }
+
+        /**
+         * @return Products indexed, unmodifiable
+         */
+        @NonNull
+        public List<Product> getCatalog() {
+            return catalog;
+        }
+
+        @NonNull
+        public ProductSearchIndex getSearchIndex() {
+            return searchIndex;
+        }
+
+        @NonNull
+        public CatalogFacets getFacets() {
+            return facets;
+        }
+    }
+
+    /**
+     * A search that may still be reading the store or waiting on the network.
+     * Main thread only.
+     */
+    private static final class PendingSearch implements Cancellable {
+        boolean cancelled;
+        // The network search, once one is started
+        Cancellable call;
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+    }
+
     /**
      * Interface for products callback
      */
@@ -281,6 +727,15 @@ public class ProductRepository {
         void onError(String errorMessage);
     }
 
+    /**
+     * Interface for paged products callback
+     */
+    public interface ProductPageCallback {
+        void onPageLoaded(ProductPage page);
+
+        void onError(String errorMessage);
+    }
+
     /**
      * Interface for single product callback
      */
@@ -258,7 +258,7 @@ public class UserRepository {
             callback.onError("User ID cannot be null or empty.");
             return;
         }
-        apiService.getUserById(userId).enqueue(new Callback<ApiResponse<User>>() {
+        InFlightRequests.enqueue(apiService.getUserById(userId), new Callback<ApiResponse<User>>() {
             @Override
             public void onResponse(@NonNull Call<ApiResponse<User>> call,
                     @NonNull Response<ApiResponse<User>> response) {
@@ -499,6 +499,9 @@ public class UserRepository {
      * Save user data to SharedPreferences
      */
     private void saveUserToPreferences(User user) {
+        if (user == null) {
+            return;
+        }
         if (user.getId() != null) {
             preferencesHelper.saveUserId(user.getId());
         }
@@ -550,7 +553,7 @@ public class UserRepository {
             return;
         }
         
-        apiService.getCurrentUserProfile().enqueue(new Callback<ApiResponse<User>>() {
+        InFlightRequests.enqueue(apiService.getCurrentUserProfile(), new Callback<ApiResponse<User>>() {
             @Override
             public void onResponse(Call<ApiResponse<User>> call, Response<ApiResponse<User>> response) {
                 if (response.isSuccessful() && response.body() != null && response.body().isSuccess()) {
@@ -9,7 +9,6 @@ import android.widget.ImageView;
 import android.widget.Toast;
 
 import com.coffeecorner.app.R;
-import com.coffeecorner.app.models.CartItem;
 import com.coffeecorner.app.models.Order;
 import com.coffeecorner.app.models.Product;
 
@@ -45,17 +44,7 @@ public class AppUtils {
      * @return Total price including all fees and discounts
      */
     public static double calculateOrderTotal(Order order) {
-        if (order == null || order.getItems() == null) {
-            return 0.0;
-        }
-
-        double itemsTotal = 0.0;
-        for (CartItem item : order.getItems()) {
-            double itemPrice = item.getProduct().getPrice() + item.getExtraCharge();
-            itemsTotal += (itemPrice * item.getQuantity());
-        }
-
-        return itemsTotal + order.getDeliveryFee() + order.getTax() - order.getDiscount();
+        return CartPricing.toAmount(CartPricing.orderTotalCents(order));
     }
 
     /**
@@ -3,18 +3,20 @@ package com.coffeecorner.app.utils;
 import com.coffeecorner.app.models.CartItem;
 import com.coffeecorner.app.models.Product;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Singleton class to manage the shopping cart operations.
+ * The cart itself lives in {@link CartStore}, so these methods are safe to call
+ * from any thread and every change reaches the store's observers.
  */
 public class CartManager {
     private static CartManager instance;
-    private List<CartItem> cartItems;
+    private final CartStore cartStore;
 
     private CartManager() {
-        cartItems = new ArrayList<>();
+        cartStore = CartStore.getInstance();
     }
 
     public static synchronized CartManager getInstance() {
@@ -52,43 +54,33 @@ public class CartManager {
             return null;
         }
 
-        // Check if the product with the same options already exists in the cart
-        for (CartItem item : cartItems) {
-            if (item != null && item.getProduct() != null &&
-                    item.getProduct().getId() != null &&
-                    item.getProduct().getId().equals(product.getId()) &&
-                    ((size == null && item.getSize() == null) ||
-                            (size != null && size.equals(item.getSize())))
-                    &&
-                    ((temperature == null && item.getTemperature() == null) ||
-                            (temperature != null && temperature.equals(item.getTemperature())))
-                    &&
-                    ((customizations == null && item.getCustomizations() == null) ||
-                            (customizations != null && customizations.equals(item.getCustomizations())))) {
-
+        List<CartItem> items = cartStore.update(editor -> {
+            // Check if the product with the same options already exists in the cart
+            int index = indexOfLine(editor.getItems(), product.getId(), size, temperature, customizations);
+            if (index >= 0) {
                 // Product with same options exists, increment quantity
-                item.setQuantity(item.getQuantity() + quantity);
-                return item;
+                CartItem existing = editor.getItems().get(index);
+                editor.set(index, existing.withQuantity(existing.getQuantity() + quantity));
+                return;
             }
-        }
 
-        // Create a new cart item
-        CartItem newItem = new CartItem(product, quantity);
-        newItem.setSize(size);
-        newItem.setTemperature(temperature);
-        newItem.setCustomizations(customizations);
-
-        cartItems.add(newItem);
-        return newItem;
+            // Create a new cart item
+            CartItem newItem = new CartItem(product, quantity);
+            newItem.setSize(size);
+            newItem.setTemperature(temperature);
+            newItem.setCustomizations(customizations);
+            editor.add(newItem);
+        }).getItems();
+        return items.get(indexOfLine(items, product.getId(), size, temperature, customizations));
     }
 
     /**
      * Get all cart items.
      * 
-     * @return List of cart items
+     * @return Unmodifiable list of cart items, shared with other readers
      */
     public List<CartItem> getCartItems() {
-        return new ArrayList<>(cartItems); // Return a copy to prevent external modification
+        return cartStore.getSnapshot().getItems();
     }
 
     /**
@@ -97,11 +89,7 @@ public class CartManager {
      * @return Total item count
      */
     public int getItemCount() {
-        int count = 0;
-        for (CartItem item : cartItems) {
-            count += item.getQuantity();
-        }
-        return count;
+        return cartStore.getSnapshot().getItemCount();
     }
 
     /**
@@ -110,13 +98,7 @@ public class CartManager {
      * @return Total cart value
      */
     public double getCartTotal() {
-        double total = 0;
-        for (CartItem item : cartItems) {
-            if (item != null && item.getProduct() != null) {
-                total += item.getProduct().getPrice() * item.getQuantity();
-            }
-        }
-        return total;
+        return cartStore.getSnapshot().getTotal();
     }
 
     /**
@@ -126,7 +108,12 @@ public class CartManager {
      */
     public void removeFromCart(CartItem cartItem) {
         if (cartItem != null) {
-            cartItems.remove(cartItem);
+            cartStore.update(editor -> {
+                int index = indexOfLine(editor.getItems(), cartItem);
+                if (index >= 0) {
+                    editor.remove(index);
+                }
+            });
         }
     }
 
@@ -147,18 +134,42 @@ public class CartManager {
             return;
         }
 
-        for (CartItem item : cartItems) {
-            if (item != null && item.equals(cartItem)) {
-                item.setQuantity(newQuantity);
-                break;
+        cartStore.update(editor -> {
+            int index = indexOfLine(editor.getItems(), cartItem);
+            if (index >= 0) {
+                editor.set(index, editor.getItems().get(index).withQuantity(newQuantity));
             }
-        }
+        });
     }
 
     /**
      * Clear all items from the cart.
      */
     public void clearCart() {
-        cartItems.clear();
+        cartStore.publish(null);
+    }
+
+    private static int indexOfLine(List<CartItem> items, CartItem cartItem) {
+        return indexOfLine(items, cartItem.getProductId(), cartItem.getSize(), cartItem.getTemperature(),
+                cartItem.getCustomizations());
+    }
+
+    /**
+     * Find the line for a product with the given options
+     *
+     * @return Index of the line, or -1 if the cart has none
+     */
+    private static int indexOfLine(List<CartItem> items, String productId, String size,
+            String temperature, String customizations) {
+        for (int i = 0; i < items.size(); i++) {
+            CartItem item = items.get(i);
+            if (item != null && productId != null && productId.equals(item.getProductId())
+                    && Objects.equals(size, item.getSize())
+                    && Objects.equals(temperature, item.getTemperature())
+                    && Objects.equals(customizations, item.getCustomizations())) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
@@ -0,0 +1,281 @@
+package com.coffeecorner.app.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.Order;
+
+import java.util.Locale;
+
+/**
+ * CartPricing - The app's one set of pricing rules, in whole cents.
+ *
+ * {@link Totals} keeps a cart's running item count and line sums, updated per
+ * line added or removed rather than by re-walking the cart. {@link #quote}
+ * turns those sums into subtotal, tax, delivery fee, discount and total with a
+ * fixed amount of long arithmetic. Amounts are only converted to double for
+ * display.
+ */
+public final class CartPricing {
+
+    public static final long DELIVERY_FEE_CENTS = 200;
+    // 9%, in hundredths of a percent
+    public static final long TAX_RATE_BASIS_POINTS = 900;
+    public static final int LOYALTY_POINTS_PER_REWARD = 100;
+    public static final long LOYALTY_REWARD_CENTS = 500;
+
+    private static final long BASIS_POINTS = 10_000;
+
+    private CartPricing() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @param amount Dollar amount
+     * @return The amount in cents, rounded to the nearest cent
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * @param cents Amount in cents
+     * @return The amount in dollars, for display
+     */
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * @return The line's base product price times quantity, in cents
+     */
+    public static long itemCents(@NonNull CartItem item) {
+        return toCents(item.getPrice()) * item.getQuantity();
+    }
+
+    /**
+     * @return The line's option surcharges times quantity, in cents
+     */
+    public static long extrasCents(@NonNull CartItem item) {
+        return toCents(item.getExtraCharge()) * item.getQuantity();
+    }
+
+    /**
+     * @return The line's full price, in cents
+     */
+    public static long lineCents(@NonNull CartItem item) {
+        return itemCents(item) + extrasCents(item);
+    }
+
+    /**
+     * Total of a placed order from its stored items, fees, tax and discount
+     *
+     * @param order Order to total
+     * @return Order total in cents, or 0 if the order has no items
+     */
+    public static long orderTotalCents(@Nullable Order order) {
+        if (order == null || order.getItems() == null) {
+            return 0;
+        }
+        long subtotal = 0;
+        for (CartItem item : order.getItems()) {
+            if (item != null) {
+                subtotal += lineCents(item);
+            }
+        }
+        return subtotal + toCents(order.getDeliveryFee()) + toCents(order.getTax())
+                - toCents(order.getDiscount());
+    }
+
+    /**
+     * Price a cart from its running totals
+     *
+     * @param totals      Running totals of the cart
+     * @param adjustments Promo code and loyalty points to apply
+     * @return Priced cart
+     */
+    @NonNull
+    public static Quote quote(@NonNull Totals totals, @NonNull Adjustments adjustments) {
+        if (totals.itemCount == 0) {
+            return Quote.EMPTY;
+        }
+        long subtotal = totals.itemsCents + totals.extrasCents;
+        // Round half up to the cent
+        long tax = (subtotal * TAX_RATE_BASIS_POINTS + BASIS_POINTS / 2) / BASIS_POINTS;
+        long discount = Math.min(adjustments.discountCents(subtotal), subtotal);
+        long total = subtotal + tax + DELIVERY_FEE_CENTS - discount;
+        return new Quote(totals.itemCount, totals.itemsCents, totals.extrasCents, tax,
+                DELIVERY_FEE_CENTS, discount, total);
+    }
+
+    /**
+     * Running item count and line sums of a cart. Not thread-safe; each owner
+     * keeps its own, or copies one before changing it.
+     */
+    public static final class Totals {
+        private int itemCount;
+        private long itemsCents;
+        private long extrasCents;
+
+        public Totals() {
+        }
+
+        public Totals(@NonNull Totals other) {
+            set(other);
+        }
+
+        public void set(@NonNull Totals other) {
+            itemCount = other.itemCount;
+            itemsCents = other.itemsCents;
+            extrasCents = other.extrasCents;
+        }
+
+        public void add(@Nullable CartItem item) {
+            if (item != null) {
+                itemCount += item.getQuantity();
+                itemsCents += itemCents(item);
+                extrasCents += extrasCents(item);
+            }
+        }
+
+        public void remove(@Nullable CartItem item) {
+            if (item != null) {
+                itemCount -= item.getQuantity();
+                itemsCents -= itemCents(item);
+                extrasCents -= extrasCents(item);
+            }
+        }
+
+        public void clear() {
+            itemCount = 0;
+            itemsCents = 0;
+            extrasCents = 0;
+        }
+
+        public int getItemCount() {
+            return itemCount;
+        }
+
+        /**
+         * @return Line totals including option surcharges, in cents
+         */
+        public long getSubtotalCents() {
+            return itemsCents + extrasCents;
+        }
+    }
+
+    /**
+     * Immutable price breakdown of a cart, in cents
+     */
+    public static final class Quote {
+        public static final Quote EMPTY = new Quote(0, 0, 0, 0, 0, 0, 0);
+
+        private final int itemCount;
+        private final long itemsCents;
+        private final long extrasCents;
+        private final long taxCents;
+        private final long deliveryFeeCents;
+        private final long discountCents;
+        private final long totalCents;
+
+        private Quote(int itemCount, long itemsCents, long extrasCents, long taxCents,
+                long deliveryFeeCents, long discountCents, long totalCents) {
+            this.itemCount = itemCount;
+            this.itemsCents = itemsCents;
+            this.extrasCents = extrasCents;
+            this.taxCents = taxCents;
+            this.deliveryFeeCents = deliveryFeeCents;
+            this.discountCents = discountCents;
+            this.totalCents = totalCents;
+        }
+
+        public int getItemCount() {
+            return itemCount;
+        }
+
+        public long getItemsCents() {
+            return itemsCents;
+        }
+
+        public long getExtrasCents() {
+            return extrasCents;
+        }
+
+        public long getSubtotalCents() {
+            return itemsCents + extrasCents;
+        }
+
+        public long getTaxCents() {
+            return taxCents;
+        }
+
+        public long getDeliveryFeeCents() {
+            return deliveryFeeCents;
+        }
+
+        public long getDiscountCents() {
+            return discountCents;
+        }
+
+        public long getTotalCents() {
+            return totalCents;
+        }
+    }
+
+    /**
+     * Promo code and loyalty points, read once and applied to every quote
+     */
+    public static final class Adjustments {
+        public static final Adjustments NONE = new Adjustments(null, 0);
+
+        private final String promoCode;
+        private final int loyaltyPoints;
+
+        /**
+         * @param promoCode     Promo code, or null for none
+         * @param loyaltyPoints User's loyalty points
+         */
+        public Adjustments(@Nullable String promoCode, int loyaltyPoints) {
+            this.promoCode = promoCode != null ? promoCode.toUpperCase(Locale.US) : null;
+            this.loyaltyPoints = loyaltyPoints;
+        }
+
+        /**
+         * @param preferencesHelper Preferences holding the saved promo code and points
+         * @return Adjustments for the signed-in user
+         */
+        @NonNull
+        public static Adjustments from(@NonNull PreferencesHelper preferencesHelper) {
+            return new Adjustments(preferencesHelper.getPromoCode(), preferencesHelper.getLoyaltyPoints());
+        }
+
+        /**
+         * @param subtotalCents Cart subtotal, in cents
+         * @return Discount before capping at the subtotal, in cents
+         */
+        long discountCents(long subtotalCents) {
+            long discount = 0;
+            if (loyaltyPoints >= LOYALTY_POINTS_PER_REWARD) {
+                // 100 points = $5 discount
+                discount += (loyaltyPoints / LOYALTY_POINTS_PER_REWARD) * LOYALTY_REWARD_CENTS;
+            }
+            if (promoCode != null) {
+                switch (promoCode) {
+                    case "WELCOME10":
+                        discount += subtotalCents / 10; // 10% discount
+                        break;
+                    case "SAVE5":
+                        discount += 500; // $5 off
+                        break;
+                    case "FIRST20":
+                        discount += subtotalCents / 5; // 20% discount for first-time users
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return discount;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.coffeecorner.app.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.coffeecorner.app.models.CartItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * CartStore - The app's single in-memory view of the cart, guest or signed in.
+ *
+ * The cart is held as an immutable {@link Snapshot}; each change publishes a
+ * new snapshot with the next version. Readers on any thread get the current
+ * snapshot without locking or copying, and the UI observes every change
+ * through one LiveData stream. CartRepository publishes what it loads or
+ * changes, so screens subscribe here instead of fetching the cart themselves.
+ * Each snapshot carries its {@link CartPricing.Quote}; edits made through
+ * {@link #update(Consumer)} reprice the cart per changed line.
+ *
+ * Items in a snapshot are shared by every reader and must not be modified;
+ * use {@link CartItem#withQuantity(int)} to derive changed items.
+ */
+public final class CartStore {
+
+    private static volatile CartStore instance;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+    private final MutableLiveData<Snapshot> snapshots = new MutableLiveData<>(Snapshot.EMPTY);
+    // Runs dispatches on the main thread: at once when called there, otherwise posted
+    private final Executor mainThread;
+    // Set while a main-thread dispatch for background publishes is queued
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    private final Runnable dispatchTask = () -> {
+        dispatchPending.set(false);
+        dispatch();
+    };
+
+    private CartStore() {
+        this(mainThreadExecutor());
+    }
+
+    CartStore(@NonNull Executor mainThread) {
+        this.mainThread = mainThread;
+    }
+
+    private static Executor mainThreadExecutor() {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        return task -> {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                task.run();
+            } else {
+                mainHandler.post(task);
+            }
+        };
+    }
+
+    public static CartStore getInstance() {
+        if (instance == null) {
+            synchronized (CartStore.class) {
+                if (instance == null) {
+                    instance = new CartStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return The current cart; safe to call from any thread
+     */
+    @NonNull
+    public Snapshot getSnapshot() {
+        return current.get();
+    }
+
+    /**
+     * Stream of cart snapshots. Observers get the latest snapshot; snapshots
+     * replaced before the main thread runs are skipped.
+     *
+     * @return LiveData of the current cart
+     */
+    @NonNull
+    public LiveData<Snapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Replace the cart
+     *
+     * @param items New cart items, or null for an empty cart. The items are
+     *              taken over by the store and must not be modified afterwards.
+     * @return The published snapshot
+     */
+    @NonNull
+    public Snapshot publish(@Nullable List<CartItem> items) {
+        List<CartItem> owned = new ArrayList<>();
+        CartPricing.Totals totals = new CartPricing.Totals();
+        if (items != null) {
+            for (CartItem item : items) {
+                if (item != null) {
+                    owned.add(item);
+                    totals.add(item);
+                }
+            }
+        }
+        Snapshot previous;
+        Snapshot next;
+        do {
+            previous = current.get();
+            next = new Snapshot(previous.version + 1, Collections.unmodifiableList(owned), totals,
+                    previous.adjustments);
+        } while (!current.compareAndSet(previous, next));
+        scheduleDispatch();
+        return next;
+    }
+
+    /**
+     * Change the cart based on its current contents. The mutation may run more
+     * than once if another change is published concurrently, so it must only
+     * act through the editor it is given.
+     *
+     * @param mutation Edits the current items through an {@link Editor}
+     * @return The published snapshot
+     */
+    @NonNull
+    public Snapshot update(@NonNull Consumer<Editor> mutation) {
+        Snapshot previous;
+        Snapshot next;
+        do {
+            previous = current.get();
+            Editor editor = new Editor(previous);
+            mutation.accept(editor);
+            next = new Snapshot(previous.version + 1, Collections.unmodifiableList(editor.items),
+                    editor.totals, previous.adjustments);
+        } while (!current.compareAndSet(previous, next));
+        scheduleDispatch();
+        return next;
+    }
+
+    /**
+     * Reprice the cart with a new promo code or loyalty balance
+     *
+     * @param adjustments Adjustments for every later quote
+     * @return The published snapshot
+     */
+    @NonNull
+    public Snapshot setAdjustments(@NonNull CartPricing.Adjustments adjustments) {
+        Snapshot previous;
+        Snapshot next;
+        do {
+            previous = current.get();
+            next = new Snapshot(previous.version + 1, previous.items, previous.totals, adjustments);
+        } while (!current.compareAndSet(previous, next));
+        scheduleDispatch();
+        return next;
+    }
+
+    private void scheduleDispatch() {
+        if (dispatchPending.compareAndSet(false, true)) {
+            mainThread.execute(dispatchTask);
+        }
+    }
+
+    /**
+     * Emit the newest snapshot, never one older than what observers have seen
+     */
+    private void dispatch() {
+        Snapshot latest = current.get();
+        Snapshot shown = snapshots.getValue();
+        if (shown == null || shown.version < latest.version) {
+            snapshots.setValue(latest);
+        }
+    }
+
+    /**
+     * Working copy of the cart for {@link #update(Consumer)}. Each edit
+     * adjusts the running totals by the lines it replaces.
+     */
+    public static final class Editor {
+        private final List<CartItem> items;
+        private final List<CartItem> readOnlyItems;
+        private final CartPricing.Totals totals;
+
+        private Editor(Snapshot base) {
+            items = new ArrayList<>(base.items);
+            readOnlyItems = Collections.unmodifiableList(items);
+            totals = new CartPricing.Totals(base.totals);
+        }
+
+        /**
+         * @return Read-only view of the items as edited so far
+         */
+        @NonNull
+        public List<CartItem> getItems() {
+            return readOnlyItems;
+        }
+
+        public void add(@NonNull CartItem item) {
+            items.add(item);
+            totals.add(item);
+        }
+
+        public void set(int index, @NonNull CartItem item) {
+            totals.remove(items.set(index, item));
+            totals.add(item);
+        }
+
+        public void remove(int index) {
+            totals.remove(items.remove(index));
+        }
+    }
+
+    /**
+     * Immutable state of the cart at one version
+     */
+    public static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, Collections.emptyList(), new CartPricing.Totals(),
+                CartPricing.Adjustments.NONE);
+
+        private final long version;
+        private final List<CartItem> items;
+        // Never modified once the snapshot is built
+        private final CartPricing.Totals totals;
+        private final CartPricing.Adjustments adjustments;
+        private final CartPricing.Quote quote;
+
+        // items must already be unmodifiable
+        private Snapshot(long version, List<CartItem> items, CartPricing.Totals totals,
+                CartPricing.Adjustments adjustments) {
+            this.version = version;
+            this.items = items;
+            this.totals = totals;
+            this.adjustments = adjustments;
+            this.quote = CartPricing.quote(totals, adjustments);
+        }
+
+        /**
+         * @return Increasing number identifying this state within the app session
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return Unmodifiable cart items; the items themselves must not be modified
+         */
+        @NonNull
+        public List<CartItem> getItems() {
+            return items;
+        }
+
+        public int getItemCount() {
+            return quote.getItemCount();
+        }
+
+        /**
+         * @return Line totals including option surcharges, in dollars
+         */
+        public double getTotal() {
+            return CartPricing.toAmount(quote.getSubtotalCents());
+        }
+
+        /**
+         * @return Full price breakdown of this cart
+         */
+        @NonNull
+        public CartPricing.Quote getQuote() {
+            return quote;
+        }
+
+        /**
+         * @return Promo code and loyalty points this cart is priced with
+         */
+        @NonNull
+        public CartPricing.Adjustments getAdjustments() {
+            return adjustments;
+        }
+
+        /**
+         * Copy this cart's running totals, e.g. to reprice local changes from
+         *
+         * @param target Totals to overwrite
+         */
+        public void copyTotalsTo(@NonNull CartPricing.Totals target) {
+            target.set(totals);
+        }
+
+        public boolean isEmpty() {
+            return items.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.coffeecorner.app.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.coffeecorner.app.models.Product;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * CatalogFacets - Bitset index of a catalog for combined filtering.
+ *
+ * Built once per catalog, it keeps one bitset per category, for available and
+ * for featured products, per price band and per minimum rating, with bit i
+ * standing for the i-th product. Any combination of filters is answered by
+ * ANDing those bitsets (ORing the selected bands within a facet), and the
+ * result is a view over the catalog by index; no Product is copied.
+ *
+ * Price bands split the catalog's prices into quartiles, so they fit whatever
+ * the menu costs. Rating buckets are cumulative: the "4.0+" set holds every
+ * product rated 4.0 or higher.
+ *
+ * Each sort order is also precomputed as a permutation of catalog positions.
+ * A sorted, filtered list is then one walk down the permutation keeping the
+ * positions whose bit is set, with no comparisons.
+ *
+ * Build it off the main thread. An index is immutable and safe to share.
+ */
+public final class CatalogFacets {
+
+    // Minimum ratings offered as filters
+    public static final float[] RATING_THRESHOLDS = { 3.0f, 3.5f, 4.0f, 4.5f };
+
+    private static final int PRICE_BAND_COUNT = 4;
+
+    private final List<Product> products;
+    private final BitSet all;
+    // Keyed by lower-cased category name
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final BitSet available = new BitSet();
+    private final BitSet featured = new BitSet();
+    // Band i holds prices from priceEdges[i] (inclusive) to priceEdges[i + 1]
+    private final double[] priceEdges;
+    private final BitSet[] byPriceBand;
+    private final BitSet[] byMinRating = new BitSet[RATING_THRESHOLDS.length];
+    // Catalog positions in each order, indexed by Sort.ordinal()
+    private final int[][] sortOrders = new int[Sort.values().length][];
+
+    /**
+     * @param products Catalog to index; the list must not be modified afterwards
+     */
+    public CatalogFacets(@NonNull List<Product> products) {
+        this.products = products;
+        int count = products.size();
+        all = new BitSet(count);
+        all.set(0, count);
+        for (int r = 0; r < byMinRating.length; r++) {
+            byMinRating[r] = new BitSet(count);
+        }
+
+        priceEdges = priceEdgesOf(products);
+        byPriceBand = new BitSet[priceEdges.length - 1];
+        for (int b = 0; b < byPriceBand.length; b++) {
+            byPriceBand[b] = new BitSet(count);
+        }
+
+        for (int i = 0; i < count; i++) {
+            Product product = products.get(i);
+            if (product.getCategory() != null) {
+                String key = product.getCategory().toLowerCase(Locale.ROOT);
+                BitSet category = byCategory.get(key);
+                if (category == null) {
+                    category = new BitSet(count);
+                    byCategory.put(key, category);
+                }
+                category.set(i);
+            }
+            if (product.isAvailable()) {
+                available.set(i);
+            }
+            if (product.isFeatured()) {
+                featured.set(i);
+            }
+            int band = priceBandOf(product.getPrice());
+            if (band >= 0) {
+                byPriceBand[band].set(i);
+            }
+            for (int r = 0; r < RATING_THRESHOLDS.length; r++) {
+                if (product.getRating() >= RATING_THRESHOLDS[r]) {
+                    byMinRating[r].set(i);
+                }
+            }
+        }
+
+        for (Sort sort : Sort.values()) {
+            sortOrders[sort.ordinal()] = sortOrderOf(products, sort);
+        }
+    }
+
+    /**
+     * Catalog positions ordered by a sort key. The sort is stable, so equal
+     * keys keep catalog order.
+     */
+    private static int[] sortOrderOf(List<Product> products, Sort sort) {
+        Integer[] order = new Integer[products.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Comparator<Integer> comparator;
+        switch (sort) {
+            case PRICE_ASCENDING:
+                comparator = (a, b) -> Double.compare(products.get(a).getPrice(), products.get(b).getPrice());
+                break;
+            case PRICE_DESCENDING:
+                comparator = (a, b) -> Double.compare(products.get(b).getPrice(), products.get(a).getPrice());
+                break;
+            case POPULARITY:
+            case RATING:
+                // Rating stands in for popularity; there is no order count
+                comparator = (a, b) -> Float.compare(products.get(b).getRating(), products.get(a).getRating());
+                break;
+            case NEWEST:
+                // Newer products are assumed to have higher IDs
+                comparator = (a, b) -> compareIds(products.get(b).getId(), products.get(a).getId());
+                break;
+            default:
+                comparator = null;
+                break;
+        }
+        if (comparator != null) {
+            Arrays.sort(order, comparator);
+        }
+        int[] permutation = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            permutation[i] = order[i];
+        }
+        return permutation;
+    }
+
+    private static int compareIds(String a, String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    /**
+     * Quartile boundaries of the catalog's prices, without repeats
+     */
+    private static double[] priceEdgesOf(List<Product> products) {
+        if (products.isEmpty()) {
+            return new double[] { 0 };
+        }
+        double[] prices = new double[products.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = products.get(i).getPrice();
+        }
+        Arrays.sort(prices);
+        double[] edges = new double[PRICE_BAND_COUNT + 1];
+        int n = 0;
+        for (int q = 0; q <= PRICE_BAND_COUNT; q++) {
+            double edge = prices[Math.min(prices.length - 1, q * prices.length / PRICE_BAND_COUNT)];
+            if (q == PRICE_BAND_COUNT) {
+                edge = prices[prices.length - 1];
+            }
+            if (n == 0 || edge > edges[n - 1]) {
+                edges[n++] = edge;
+            }
+        }
+        if (n == 1) {
+            // Every product costs the same; one band holding them all
+            return new double[] { edges[0], edges[0] };
+        }
+        return Arrays.copyOf(edges, n);
+    }
+
+    private int priceBandOf(double price) {
+        for (int b = 0; b < byPriceBand.length; b++) {
+            boolean last = b == byPriceBand.length - 1;
+            if (price >= priceEdges[b] && (price < priceEdges[b + 1] || (last && price <= priceEdges[b + 1]))) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Number of products in the index
+     */
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * @return Number of price bands offered by this catalog
+     */
+    public int getPriceBandCount() {
+        return byPriceBand.length;
+    }
+
+    /**
+     * @param band Price band index
+     * @return Lowest price in the band
+     */
+    public double getPriceBandMin(int band) {
+        return priceEdges[band];
+    }
+
+    /**
+     * @param band Price band index
+     * @return Price the band runs up to; inclusive for the last band only
+     */
+    public double getPriceBandMax(int band) {
+        return priceEdges[band + 1];
+    }
+
+    /**
+     * Products matching every part of a filter
+     *
+     * @param filter Facets to combine
+     * @return Matching positions in the catalog
+     */
+    @NonNull
+    public BitSet match(@NonNull Filter filter) {
+        BitSet result = (BitSet) all.clone();
+        if (filter.category != null) {
+            BitSet category = byCategory.get(filter.category.toLowerCase(Locale.ROOT));
+            if (category == null) {
+                return new BitSet();
+            }
+            result.and(category);
+        }
+        if (filter.availableOnly) {
+            result.and(available);
+        }
+        if (filter.featuredOnly) {
+            result.and(featured);
+        }
+        if (filter.priceBands != 0) {
+            BitSet bands = new BitSet(products.size());
+            for (int b = 0; b < byPriceBand.length; b++) {
+                if ((filter.priceBands & (1 << b)) != 0) {
+                    bands.or(byPriceBand[b]);
+                }
+            }
+            result.and(bands);
+        }
+        if (filter.minRating >= 0 && filter.minRating < byMinRating.length) {
+            result.and(byMinRating[filter.minRating]);
+        }
+        return result;
+    }
+
+    /**
+     * Products matching a filter, in the filter's sort order
+     *
+     * @param filter Facets to combine, and the order to list them in
+     * @return Read-only view of the matching products
+     */
+    @NonNull
+    public List<Product> filter(@NonNull Filter filter) {
+        BitSet matches = match(filter);
+        int[] indices = new int[matches.cardinality()];
+        int n = 0;
+        if (filter.sort == Sort.CATALOG) {
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                indices[n++] = i;
+            }
+        } else {
+            for (int position : sortOrders[filter.sort.ordinal()]) {
+                if (matches.get(position)) {
+                    indices[n++] = position;
+                }
+            }
+        }
+        return new IndexView(products, indices);
+    }
+
+    /**
+     * Orders a filtered list can be shown in
+     */
+    public enum Sort {
+        CATALOG,
+        PRICE_ASCENDING,
+        PRICE_DESCENDING,
+        POPULARITY,
+        NEWEST,
+        RATING
+    }
+
+    /**
+     * Read-only list of catalog products at the given positions
+     */
+    public static final class IndexView extends AbstractList<Product> implements RandomAccess {
+        private final List<Product> catalog;
+        private final int[] indices;
+
+        IndexView(List<Product> catalog, int[] indices) {
+            this.catalog = catalog;
+            this.indices = indices;
+        }
+
+        @Override
+        public Product get(int position) {
+            return catalog.get(indices[position]);
+        }
+
+        @Override
+        public int size() {
+            return indices.length;
+        }
+    }
+
+    /**
+     * Combination of facets to filter by. Immutable; the with* methods return
+     * changed copies.
+     */
+    public static final class Filter {
+        public static final Filter NONE = new Filter(null, false, false, 0, -1, Sort.CATALOG);
+
+        private final String category;
+        private final boolean availableOnly;
+        private final boolean featuredOnly;
+        // Bit b set: price band b is selected; none set: any price
+        private final int priceBands;
+        // Index into RATING_THRESHOLDS, or -1 for any rating
+        private final int minRating;
+        private final Sort sort;
+
+        private Filter(@Nullable String category, boolean availableOnly, boolean featuredOnly, int priceBands,
+                int minRating, @NonNull Sort sort) {
+            this.category = category;
+            this.availableOnly = availableOnly;
+            this.featuredOnly = featuredOnly;
+            this.priceBands = priceBands;
+            this.minRating = minRating;
+            this.sort = sort;
+        }
+
+        /**
+         * @param category Category name, or null or "All" for every category
+         */
+        @NonNull
+        public Filter withCategory(@Nullable String category) {
+            String value = category == null || "All".equalsIgnoreCase(category) ? null : category;
+            return new Filter(value, availableOnly, featuredOnly, priceBands, minRating, sort);
+        }
+
+        @NonNull
+        public Filter withAvailableOnly(boolean availableOnly) {
+            return new Filter(category, availableOnly, featuredOnly, priceBands, minRating, sort);
+        }
+
+        @NonNull
+        public Filter withFeaturedOnly(boolean featuredOnly) {
+            return new Filter(category, availableOnly, featuredOnly, priceBands, minRating, sort);
+        }
+
+        /**
+         * @param band     Price band index
+         * @param selected Whether products in the band are included
+         */
+        @NonNull
+        public Filter withPriceBand(int band, boolean selected) {
+            int bands = selected ? priceBands | (1 << band) : priceBands & ~(1 << band);
+            return new Filter(category, availableOnly, featuredOnly, bands, minRating, sort);
+        }
+
+        /**
+         * @param minRating Index into {@link #RATING_THRESHOLDS}, or -1 for any rating
+         */
+        @NonNull
+        public Filter withMinRating(int minRating) {
+            return new Filter(category, availableOnly, featuredOnly, priceBands, minRating, sort);
+        }
+
+        @NonNull
+        public Filter withSort(@NonNull Sort sort) {
+            return new Filter(category, availableOnly, featuredOnly, priceBands, minRating, sort);
+        }
+
+        @Nullable
+        public String getCategory() {
+            return category;
+        }
+
+        public boolean isAvailableOnly() {
+            return availableOnly;
+        }
+
+        public boolean isFeaturedOnly() {
+            return featuredOnly;
+        }
+
+        public boolean isPriceBandSelected(int band) {
+            return (priceBands & (1 << band)) != 0;
+        }
+
+        public int getMinRating() {
+            return minRating;
+        }
+
+        @NonNull
+        public Sort getSort() {
+            return sort;
+        }
+
+        /**
+         * @return true if anything other than the category narrows the list
+         */
+        public boolean hasFacets() {
+            return availableOnly || featuredOnly || priceBands != 0 || minRating >= 0;
+        }
+    }
+}
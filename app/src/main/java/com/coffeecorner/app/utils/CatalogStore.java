@@ -0,0 +1,570 @@
+package com.coffeecorner.app.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.models.ProductChanges;
+import com.coffeecorner.app.models.ProductPage;
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CatalogStore - On-device copy of the product catalog in SQLite.
+ *
+ * Products, their sizes and add-ons, and the category list are kept in plain
+ * tables, with an FTS4 index over product name, description and category for
+ * search. The store survives process death, so the menu can be shown and
+ * searched without a network round-trip. ProductRepository keeps it current,
+ * applying pages of changes after the stored sync cursor once it has one.
+ *
+ * Products are read in ID order, the order the backend pages in, so the
+ * paged grid, the facet index and search results list them alike.
+ *
+ * Every method does disk I/O and must be called off the main thread.
+ */
+public final class CatalogStore {
+
+    private static final String TAG = "CatalogStore";
+    private static final String DATABASE_NAME = "catalog.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String META_CATALOG_SYNCED_AT = "catalog_synced_at";
+    private static final String META_CATALOG_SIGNATURE = "catalog_signature";
+    private static final String META_CATEGORIES_SYNCED_AT = "categories_synced_at";
+    private static final String META_SYNC_CURSOR = "sync_cursor";
+
+    private static final String PRODUCT_COLUMNS = "id, name, description, price, category, image_url, "
+            + "is_featured, is_available, rating, calories";
+
+    // Keeps a product's position, and so its rowid and index entry, when it is updated
+    private static final String UPSERT_PRODUCT = "INSERT INTO products (" + PRODUCT_COLUMNS + ", position) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, (SELECT IFNULL(MAX(position), -1) + 1 FROM products)) "
+            + "ON CONFLICT(id) DO UPDATE SET name = excluded.name, description = excluded.description, "
+            + "price = excluded.price, category = excluded.category, image_url = excluded.image_url, "
+            + "is_featured = excluded.is_featured, is_available = excluded.is_available, "
+            + "rating = excluded.rating, calories = excluded.calories";
+
+    private static volatile CatalogStore instance;
+
+    private final Helper helper;
+    private final Gson gson = new Gson();
+
+    private CatalogStore(Context context) {
+        helper = new Helper(context);
+    }
+
+    public static CatalogStore getInstance(@NonNull Context context) {
+        if (instance == null) {
+            synchronized (CatalogStore.class) {
+                if (instance == null) {
+                    instance = new CatalogStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return true once the full catalog has been stored at least once
+     */
+    public boolean hasCatalog() {
+        return getCatalogSyncedAt() > 0;
+    }
+
+    /**
+     * @return When the full catalog was last stored, in epoch millis, or 0 if never
+     */
+    public long getCatalogSyncedAt() {
+        return getMetaLong(META_CATALOG_SYNCED_AT);
+    }
+
+    /**
+     * @return Cursor after the last change applied, or null to download the
+     *         full catalog instead of syncing changes
+     */
+    @Nullable
+    public String getSyncCursor() {
+        return getMeta(META_SYNC_CURSOR);
+    }
+
+    /**
+     * @return When the category list was last stored, in epoch millis, or 0 if never
+     */
+    public long getCategoriesSyncedAt() {
+        return getMetaLong(META_CATEGORIES_SYNCED_AT);
+    }
+
+    /**
+     * @return Every stored product, in ID order
+     */
+    @NonNull
+    public List<Product> getProducts() {
+        return readProducts(null, null);
+    }
+
+    /**
+     * @param category Category name, matched case-insensitively
+     * @return Stored products in the category, in ID order
+     */
+    @NonNull
+    public List<Product> getProductsByCategory(@NonNull String category) {
+        return readProducts("category = ? COLLATE NOCASE", new String[] { category });
+    }
+
+    /**
+     * @param productId Product ID
+     * @return The stored product, or null if it is not stored
+     */
+    @Nullable
+    public Product getProduct(@NonNull String productId) {
+        List<Product> products = readProducts("id = ?", new String[] { productId });
+        return products.isEmpty() ? null : products.get(0);
+    }
+
+    /**
+     * Read one page of the catalog in ID order, the order the backend pages in,
+     * so pages read here and pages fetched from the server line up
+     *
+     * @param category Category name, matched case-insensitively, or null for all
+     * @param afterId  ID of the last product already read, or null for the first page
+     * @param limit    Page size
+     * @return The page; its cursor is the ID of its last product
+     */
+    @NonNull
+    public ProductPage getProductPage(@Nullable String category, @Nullable String afterId, int limit) {
+        String where = "id > ?" + (category != null ? " AND category = ? COLLATE NOCASE" : "");
+        String after = afterId != null ? afterId : "";
+        String[] args = category != null ? new String[] { after, category } : new String[] { after };
+        // One extra row tells whether another page follows
+        List<Product> products = readProducts(where, args, limit + 1);
+        if (products.size() <= limit) {
+            return new ProductPage(products, null);
+        }
+        products = new ArrayList<>(products.subList(0, limit));
+        return new ProductPage(products, products.get(limit - 1).getId());
+    }
+
+    /**
+     * Full-text search over name, description and category. Every word in the
+     * query must match the start of a word in the product.
+     *
+     * @param query Text typed by the user
+     * @return Matching products, in ID order
+     */
+    @NonNull
+    public List<Product> search(@NonNull String query) {
+        String match = toMatchExpression(query);
+        if (match.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return readProducts("rowid IN (SELECT docid FROM products_fts WHERE products_fts MATCH ?)",
+                new String[] { match });
+    }
+
+    /**
+     * @return Stored category names, in server order
+     */
+    @NonNull
+    public List<String> getCategories() {
+        List<String> categories = new ArrayList<>();
+        try (Cursor cursor = helper.getReadableDatabase()
+                .rawQuery("SELECT name FROM categories ORDER BY position", null)) {
+            while (cursor.moveToNext()) {
+                categories.add(cursor.getString(0));
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Replace the stored catalog with the full product list from the server
+     *
+     * @param products Every product
+     * @param cursor   Sync cursor the server sent with the catalog, or null to
+     *                 keep the stored one
+     * @return true if the catalog differs from what was stored before
+     */
+    public boolean replaceCatalog(@NonNull List<Product> products, @Nullable String cursor) {
+        String signature = signatureOf(products);
+        boolean changed = !signature.equals(getMeta(META_CATALOG_SIGNATURE));
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (changed) {
+                db.execSQL("DELETE FROM products");
+                db.execSQL("DELETE FROM product_sizes");
+                db.execSQL("DELETE FROM product_addons");
+                db.execSQL("DELETE FROM products_fts");
+                writeProducts(db, products);
+                putMeta(db, META_CATALOG_SIGNATURE, signature);
+            }
+            if (cursor != null) {
+                putMeta(db, META_SYNC_CURSOR, cursor);
+            }
+            putMeta(db, META_CATALOG_SYNCED_AT, String.valueOf(System.currentTimeMillis()));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "Stored catalog of " + products.size() + " products, changed: " + changed);
+        return changed;
+    }
+
+    /**
+     * Apply one page of catalog changes and advance the sync cursor, in one
+     * transaction, so an interrupted sync resumes after the last whole page.
+     * Unavailable products are stored with is_available = 0 like any other
+     * change; only deleted ones are removed.
+     *
+     * @param changes Page from GET products?updated_since=
+     * @return true if any product was stored or removed
+     */
+    public boolean applyChanges(@NonNull ProductChanges changes) {
+        List<Product> products = changes.getProducts();
+        List<String> deleted = changes.getDeleted();
+        boolean changed = !products.isEmpty() || !deleted.isEmpty();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (changed) {
+                writeProducts(db, products);
+                deleteProducts(db, deleted);
+                // The stored catalog no longer matches any full response
+                db.delete("meta", "key = ?", new String[] { META_CATALOG_SIGNATURE });
+            }
+            if (changes.getCursor() != null) {
+                putMeta(db, META_SYNC_CURSOR, changes.getCursor());
+            }
+            putMeta(db, META_CATALOG_SYNCED_AT, String.valueOf(System.currentTimeMillis()));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "Applied " + products.size() + " changed and " + deleted.size() + " removed products");
+        return changed;
+    }
+
+    /**
+     * Store or update some products, e.g. from a category or detail response,
+     * leaving the rest of the catalog as it is
+     *
+     * @param products Products to store
+     */
+    public void upsertProducts(@NonNull List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            writeProducts(db, products);
+            // The stored catalog no longer matches any full response
+            db.delete("meta", "key = ?", new String[] { META_CATALOG_SIGNATURE });
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Replace the stored category list
+     *
+     * @param categories Category names, in server order
+     */
+    public void replaceCategories(@NonNull List<String> categories) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM categories");
+            SQLiteStatement insert = db.compileStatement("INSERT OR IGNORE INTO categories (name, position) VALUES (?, ?)");
+            for (int i = 0; i < categories.size(); i++) {
+                if (categories.get(i) == null) {
+                    continue;
+                }
+                insert.bindString(1, categories.get(i));
+                insert.bindLong(2, i);
+                insert.executeInsert();
+            }
+            putMeta(db, META_CATEGORIES_SYNCED_AT, String.valueOf(System.currentTimeMillis()));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Must be inside a transaction
+    private void writeProducts(SQLiteDatabase db, List<Product> products) {
+        SQLiteStatement upsert = db.compileStatement(UPSERT_PRODUCT);
+        SQLiteStatement rowId = db.compileStatement("SELECT rowid FROM products WHERE id = ?");
+        SQLiteStatement deleteSizes = db.compileStatement("DELETE FROM product_sizes WHERE product_id = ?");
+        SQLiteStatement deleteAddons = db.compileStatement("DELETE FROM product_addons WHERE product_id = ?");
+        SQLiteStatement insertSize = db.compileStatement(
+                "INSERT INTO product_sizes (product_id, position, size) VALUES (?, ?, ?)");
+        SQLiteStatement insertAddon = db.compileStatement(
+                "INSERT INTO product_addons (product_id, position, addon) VALUES (?, ?, ?)");
+        SQLiteStatement deleteIndex = db.compileStatement("DELETE FROM products_fts WHERE docid = ?");
+        SQLiteStatement insertIndex = db.compileStatement(
+                "INSERT INTO products_fts (docid, name, description, category) VALUES (?, ?, ?, ?)");
+
+        for (Product product : products) {
+            if (product == null || product.getId() == null) {
+                continue;
+            }
+            String id = product.getId();
+            upsert.clearBindings();
+            upsert.bindString(1, id);
+            bindNullable(upsert, 2, product.getName());
+            bindNullable(upsert, 3, product.getDescription());
+            upsert.bindDouble(4, product.getPrice());
+            bindNullable(upsert, 5, product.getCategory());
+            bindNullable(upsert, 6, product.getImageUrl());
+            upsert.bindLong(7, product.isFeatured() ? 1 : 0);
+            upsert.bindLong(8, product.isAvailable() ? 1 : 0);
+            upsert.bindDouble(9, product.getRating());
+            upsert.bindLong(10, product.getCalories());
+            upsert.executeInsert();
+
+            deleteSizes.bindString(1, id);
+            deleteSizes.executeUpdateDelete();
+            writeValues(insertSize, id, product.getAvailableSizes());
+            deleteAddons.bindString(1, id);
+            deleteAddons.executeUpdateDelete();
+            writeValues(insertAddon, id, product.getAvailableAddons());
+
+            rowId.bindString(1, id);
+            long docId = rowId.simpleQueryForLong();
+            deleteIndex.bindLong(1, docId);
+            deleteIndex.executeUpdateDelete();
+            insertIndex.clearBindings();
+            insertIndex.bindLong(1, docId);
+            bindNullable(insertIndex, 2, product.getName());
+            bindNullable(insertIndex, 3, product.getDescription());
+            bindNullable(insertIndex, 4, product.getCategory());
+            insertIndex.executeInsert();
+        }
+    }
+
+    // Must be inside a transaction
+    private static void deleteProducts(SQLiteDatabase db, List<String> productIds) {
+        SQLiteStatement deleteIndex = db.compileStatement(
+                "DELETE FROM products_fts WHERE docid = (SELECT rowid FROM products WHERE id = ?)");
+        SQLiteStatement deleteProduct = db.compileStatement("DELETE FROM products WHERE id = ?");
+        SQLiteStatement deleteSizes = db.compileStatement("DELETE FROM product_sizes WHERE product_id = ?");
+        SQLiteStatement deleteAddons = db.compileStatement("DELETE FROM product_addons WHERE product_id = ?");
+        for (String productId : productIds) {
+            if (productId == null) {
+                continue;
+            }
+            // The index entry first, while its rowid can still be looked up
+            for (SQLiteStatement statement : new SQLiteStatement[] { deleteIndex, deleteProduct, deleteSizes,
+                    deleteAddons }) {
+                statement.bindString(1, productId);
+                statement.executeUpdateDelete();
+            }
+        }
+    }
+
+    private static void writeValues(SQLiteStatement insert, String productId, @Nullable List<String> values) {
+        if (values == null) {
+            return;
+        }
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i) == null) {
+                continue;
+            }
+            insert.bindString(1, productId);
+            insert.bindLong(2, i);
+            insert.bindString(3, values.get(i));
+            insert.executeInsert();
+        }
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, @Nullable String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        } else {
+            statement.bindNull(index);
+        }
+    }
+
+    private List<Product> readProducts(@Nullable String where, @Nullable String[] args) {
+        return readProducts(where, args, 0);
+    }
+
+    /**
+     * Read products matching a condition on the products table, with their
+     * sizes and add-ons loaded in one query each
+     *
+     * @param limit Most products to read, or 0 for all
+     */
+    private List<Product> readProducts(@Nullable String where, @Nullable String[] args, int limit) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        String filter = (where != null ? " WHERE " + where : "") + " ORDER BY id"
+                + (limit > 0 ? " LIMIT " + limit : "");
+        String owned = where != null || limit > 0
+                ? " WHERE product_id IN (SELECT id FROM products" + filter + ")"
+                : "";
+
+        Map<String, List<String>> sizes = readValues(db,
+                "SELECT product_id, size FROM product_sizes" + owned + " ORDER BY product_id, position", args);
+        Map<String, List<String>> addons = readValues(db,
+                "SELECT product_id, addon FROM product_addons" + owned + " ORDER BY product_id, position", args);
+
+        List<Product> products = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT " + PRODUCT_COLUMNS + " FROM products" + filter, args)) {
+            while (cursor.moveToNext()) {
+                String id = cursor.getString(0);
+                List<String> productSizes = sizes.get(id);
+                List<String> productAddons = addons.get(id);
+                Product product = new Product(id, cursor.getString(1), cursor.getString(2), cursor.getDouble(3),
+                        cursor.getString(4), cursor.getString(5), cursor.getInt(6) != 0, cursor.getInt(7) != 0,
+                        productSizes != null ? productSizes : new ArrayList<>(),
+                        productAddons != null ? productAddons : new ArrayList<>());
+                product.setRating(cursor.getFloat(8));
+                product.setCalories(cursor.getInt(9));
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    private static Map<String, List<String>> readValues(SQLiteDatabase db, String sql, @Nullable String[] args) {
+        Map<String, List<String>> values = new HashMap<>();
+        try (Cursor cursor = db.rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                String productId = cursor.getString(0);
+                List<String> list = values.get(productId);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    values.put(productId, list);
+                }
+                list.add(cursor.getString(1));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Turn user input into an FTS query: each word becomes a prefix term, and
+     * all of them must match. Punctuation and FTS operators are dropped.
+     */
+    static String toMatchExpression(String query) {
+        StringBuilder match = new StringBuilder();
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(word).append('*');
+        }
+        return match.toString();
+    }
+
+    /**
+     * Hash of a catalog response, to tell whether a refresh changed anything
+     */
+    private String signatureOf(List<Product> products) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(gson.toJson(products).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android runtime has SHA-1; treat the catalog as changed if not
+            return String.valueOf(System.nanoTime());
+        }
+    }
+
+    private long getMetaLong(String key) {
+        String value = getMeta(key);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Nullable
+    private String getMeta(String key) {
+        try (Cursor cursor = helper.getReadableDatabase()
+                .rawQuery("SELECT value FROM meta WHERE key = ?", new String[] { key })) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    private static void putMeta(SQLiteDatabase db, String key, String value) {
+        db.execSQL("INSERT OR REPLACE INTO meta (key, value) VALUES (?, ?)", new Object[] { key, value });
+    }
+
+    /**
+     * Creates the catalog schema. The catalog is a cache of the server's, so
+     * an upgrade simply drops it and the next refresh fills it again.
+     */
+    private static final class Helper extends SQLiteOpenHelper {
+
+        Helper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onConfigure(SQLiteDatabase db) {
+            // Readers don't block the background refresh
+            db.enableWriteAheadLogging();
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE products (id TEXT PRIMARY KEY, name TEXT, description TEXT, "
+                    + "price REAL NOT NULL, category TEXT, image_url TEXT, is_featured INTEGER NOT NULL, "
+                    + "is_available INTEGER NOT NULL, rating REAL NOT NULL, calories INTEGER NOT NULL, "
+                    + "position INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX products_category ON products (category COLLATE NOCASE, position)");
+            db.execSQL("CREATE INDEX products_position ON products (position)");
+            // Category pages, read in ID order
+            db.execSQL("CREATE INDEX products_category_id ON products (category COLLATE NOCASE, id)");
+            db.execSQL("CREATE TABLE product_sizes (product_id TEXT NOT NULL, position INTEGER NOT NULL, "
+                    + "size TEXT NOT NULL, PRIMARY KEY (product_id, position))");
+            db.execSQL("CREATE TABLE product_addons (product_id TEXT NOT NULL, position INTEGER NOT NULL, "
+                    + "addon TEXT NOT NULL, PRIMARY KEY (product_id, position))");
+            db.execSQL("CREATE TABLE categories (name TEXT PRIMARY KEY, position INTEGER NOT NULL)");
+            db.execSQL("CREATE TABLE meta (key TEXT PRIMARY KEY, value TEXT)");
+            // docid is the products rowid
+            db.execSQL("CREATE VIRTUAL TABLE products_fts USING fts4(name, description, category, "
+                    + "tokenize=unicode61)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS products");
+            db.execSQL("DROP TABLE IF EXISTS product_sizes");
+            db.execSQL("DROP TABLE IF EXISTS product_addons");
+            db.execSQL("DROP TABLE IF EXISTS categories");
+            db.execSQL("DROP TABLE IF EXISTS meta");
+            db.execSQL("DROP TABLE IF EXISTS products_fts");
+            onCreate(db);
+        }
+    }
+}
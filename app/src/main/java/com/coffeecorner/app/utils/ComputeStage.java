@@ -0,0 +1,155 @@
+package com.coffeecorner.app.utils;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * ComputeStage - Runs a ViewModel's list transformations off the main thread.
+ *
+ * Work is submitted under a key, such as the LiveData it feeds. Submitting
+ * again under the same key cancels the earlier computation, and its result is
+ * never published, so only the latest one reaches the screen. Results are
+ * published from the worker thread, so publishers use LiveData.postValue.
+ *
+ * Code that also updates the same LiveData directly should call
+ * {@link #cancel(String)} first and use postValue too: a value set with
+ * setValue would be overwritten by a post already pending.
+ *
+ * All stages share a small pool of background-priority threads.
+ */
+public final class ComputeStage {
+
+    private static final String TAG = "ComputeStage";
+    private static final int POOL_SIZE = 2;
+
+    private static volatile ThreadPoolExecutor sharedExecutor;
+
+    // Guarded by this
+    private final Map<String, Task<?>> running = new HashMap<>();
+    private boolean closed;
+
+    private static ThreadPoolExecutor executor() {
+        if (sharedExecutor == null) {
+            synchronized (ComputeStage.class) {
+                if (sharedExecutor == null) {
+                    AtomicInteger count = new AtomicInteger();
+                    sharedExecutor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 30, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(), runnable -> {
+                                Thread thread = new Thread(() -> {
+                                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                    runnable.run();
+                                }, TAG + "-" + count.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                    sharedExecutor.allowCoreThreadTimeOut(true);
+                }
+            }
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Compute a result in the background and publish it, superseding any
+     * earlier work under the same key
+     *
+     * @param key     Identifies what the result replaces, e.g. the LiveData it feeds
+     * @param work    Computation; must not touch main-thread state
+     * @param publish Called on the worker thread with the result, unless superseded
+     */
+    public <T> void run(@NonNull String key, @NonNull Callable<T> work, @NonNull Consumer<T> publish) {
+        Task<T> task;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            cancelLocked(key);
+            task = new Task<>(key, work, publish);
+            running.put(key, task);
+        }
+        executor().execute(task);
+    }
+
+    /**
+     * Drop the computation running under a key, if any, without publishing it
+     */
+    public synchronized void cancel(@NonNull String key) {
+        cancelLocked(key);
+    }
+
+    /**
+     * Drop every computation and refuse new ones; call from ViewModel.onCleared()
+     */
+    public synchronized void close() {
+        closed = true;
+        for (Task<?> task : running.values()) {
+            task.cancel(true);
+            executor().remove(task);
+        }
+        running.clear();
+    }
+
+    private void cancelLocked(String key) {
+        Task<?> previous = running.remove(key);
+        if (previous != null) {
+            previous.cancel(true);
+            // Superseded work still queued never runs
+            executor().remove(previous);
+        }
+    }
+
+    /**
+     * Publish a finished result if it is still the latest for its key. Holding
+     * the lock while posting means a superseded result can't be posted after
+     * the work that replaced it.
+     */
+    private synchronized <T> void complete(Task<T> task, T result) {
+        if (running.get(task.key) != task) {
+            return;
+        }
+        running.remove(task.key);
+        task.publish.accept(result);
+    }
+
+    private synchronized void fail(Task<?> task, Throwable error) {
+        if (running.get(task.key) == task) {
+            running.remove(task.key);
+        }
+        Log.e(TAG, "Computation for " + task.key + " failed", error);
+    }
+
+    private final class Task<T> extends FutureTask<T> {
+        private final String key;
+        private final Consumer<T> publish;
+
+        Task(String key, Callable<T> work, Consumer<T> publish) {
+            super(work);
+            this.key = key;
+            this.publish = publish;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                complete(this, get());
+            } catch (Exception e) {
+                fail(this, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+    }
+}
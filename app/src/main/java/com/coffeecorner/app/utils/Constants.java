@@ -115,6 +115,51 @@ public class Constants {
     public static final long CACHE_DURATION_MENU = 24 * 60 * 60 * 1000; // 24 hours
     public static final long CACHE_DURATION_PROFILE = 60 * 60 * 1000; // 1 hour
 
+    // HTTP response cache for catalog (products/*) routes
+    public static final String HTTP_CACHE_DIR = "http_cache";
+    public static final long HTTP_CACHE_SIZE_BYTES = 10L * 1024 * 1024; // 10 MB
+    public static final int HTTP_CACHE_MAX_AGE_PRODUCTS = 5 * 60; // 5 minutes
+    public static final int HTTP_CACHE_MAX_AGE_PRODUCT_DETAIL = 10 * 60; // 10 minutes
+    public static final int HTTP_CACHE_MAX_AGE_CATEGORIES = 60 * 60; // 1 hour
+    public static final int HTTP_CACHE_MAX_AGE_SEARCH = 60; // 1 minute
+    public static final int HTTP_CACHE_STALE_IF_ERROR_SECONDS = 7 * 24 * 60 * 60; // 7 days
+
+    // JWT refresh timing (in seconds)
+    public static final long TOKEN_REFRESH_LEAD_SECONDS = 2 * 60; // refresh 2 minutes before expiry
+    public static final long TOKEN_CLOCK_SKEW_SECONDS = 30;
+    // Wait after a failed refresh, doubled after each further failure up to the maximum
+    public static final long TOKEN_REFRESH_BACKOFF_SECONDS = 5;
+    public static final long TOKEN_REFRESH_MAX_BACKOFF_SECONDS = 5 * 60;
+
+    // Quiet period before a burst of cart quantity taps is sent as one update
+    public static final long CART_MUTATION_DEBOUNCE_MS = 400;
+
+    // Age after which the on-device catalog is refreshed in the background
+    public static final long CATALOG_REFRESH_INTERVAL_MS = 5 * 60 * 1000; // 5 minutes
+
+    // Catalog delta sync (GET products?updated_since=<cursor>)
+    public static final String HEADER_CATALOG_CURSOR = "X-Catalog-Cursor";
+    public static final String QUERY_UPDATED_SINCE = "updated_since";
+    public static final int CATALOG_SYNC_PAGE_SIZE = 100;
+
+    // Product grids load a page at a time, and the next page once the user
+    // scrolls within PRODUCT_PREFETCH_DISTANCE items of the end
+    public static final int PRODUCT_PAGE_SIZE = 20;
+    public static final int PRODUCT_PREFETCH_DISTANCE = 6;
+
+    // Product lists held by ProductViewModel, per category and per search query.
+    // Fresh for the TTL, then shown at once while they revalidate, until MAX_STALE.
+    public static final int PRODUCT_LIST_CACHE_SIZE = 24;
+    public static final long PRODUCT_LIST_CACHE_TTL_MS = 5 * 60 * 1000; // 5 minutes
+    public static final long PRODUCT_LIST_CACHE_MAX_STALE_MS = 60 * 60 * 1000; // 1 hour
+
+    // Shared Product objects are held softly (kept until memory runs low) or,
+    // if false, weakly (dropped as soon as nothing shows them)
+    public static final boolean PRODUCT_IDENTITY_SOFT_RETENTION = true;
+
+    // Pause in typing before a search goes to the network (local index searches are immediate)
+    public static final long SEARCH_DEBOUNCE_MS = 250;
+
     // Contact information
     public static final String SUPPORT_PHONE = "1-800-COFFEE";
     public static final String SUPPORT_EMAIL = "support@coffeecorner.app";
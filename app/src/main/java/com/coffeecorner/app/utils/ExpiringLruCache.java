@@ -0,0 +1,194 @@
+package com.coffeecorner.app.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ExpiringLruCache - Bounded in-memory cache whose entries age one by one.
+ *
+ * An entry is fresh for the time-to-live after it was stored, then stale
+ * until the maximum stale age, then gone. Stale entries are still returned so
+ * the caller can show them at once and revalidate in the background. When the
+ * cache is full, the least recently used entry is evicted.
+ *
+ * Lookups are counted as fresh hits, stale hits and misses; {@link #stats()}
+ * takes a snapshot of the counts.
+ */
+public final class ExpiringLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final long maxStaleMs;
+
+    // Guarded by this; in access order, least recently used first
+    private final LinkedHashMap<K, Lookup<V>> entries;
+
+    private long hitCount;
+    private long staleHitCount;
+    private long missCount;
+
+    /**
+     * @param maxEntries Entries kept before the least recently used is evicted
+     * @param ttlMs      Age up to which an entry is fresh
+     * @param maxStaleMs Age after which a stale entry is dropped instead of returned
+     */
+    public ExpiringLruCache(int maxEntries, long ttlMs, long maxStaleMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.maxStaleMs = maxStaleMs;
+        this.entries = new LinkedHashMap<K, Lookup<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Lookup<V>> eldest) {
+                return size() > ExpiringLruCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param key Cache key
+     * @return The entry, fresh or stale, or null if there is none or it is too old
+     */
+    @Nullable
+    public synchronized Lookup<V> get(@NonNull K key) {
+        Lookup<V> entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry == null || now - entry.storedAt >= maxStaleMs) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            missCount++;
+            return null;
+        }
+        if (entry.isFresh(now)) {
+            hitCount++;
+        } else {
+            staleHitCount++;
+        }
+        return entry;
+    }
+
+    /**
+     * Store a value, fresh from now
+     */
+    public synchronized void put(@NonNull K key, @NonNull V value) {
+        entries.put(key, new Lookup<>(value, System.currentTimeMillis(), ttlMs));
+    }
+
+    /**
+     * Mark every entry stale, keeping the values to show while they revalidate
+     */
+    public synchronized void invalidateAll() {
+        for (Map.Entry<K, Lookup<V>> entry : entries.entrySet()) {
+            Lookup<V> lookup = entry.getValue();
+            entry.setValue(new Lookup<>(lookup.value, lookup.storedAt, 0));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return Size and lookup counts as of now
+     */
+    @NonNull
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), maxEntries, hitCount, staleHitCount, missCount);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ExpiringLruCache" + stats();
+    }
+
+    /**
+     * Snapshot of a cache's size and lookup counts
+     */
+    public static final class Stats {
+        private final int size;
+        private final int maxEntries;
+        private final long hitCount;
+        private final long staleHitCount;
+        private final long missCount;
+
+        Stats(int size, int maxEntries, long hitCount, long staleHitCount, long missCount) {
+            this.size = size;
+            this.maxEntries = maxEntries;
+            this.hitCount = hitCount;
+            this.staleHitCount = staleHitCount;
+            this.missCount = missCount;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getStaleHitCount() {
+            return staleHitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * @return Share of lookups answered, fresh or stale, from 0 to 1
+         */
+        public double getHitRate() {
+            long lookups = hitCount + staleHitCount + missCount;
+            return lookups == 0 ? 0 : (double) (hitCount + staleHitCount) / lookups;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "[size=%d/%d, hits=%d, stale=%d, misses=%d, hitRate=%d%%]",
+                    size, maxEntries, hitCount, staleHitCount, missCount, Math.round(100 * getHitRate()));
+        }
+    }
+
+    /**
+     * A cached value and whether it is still fresh
+     */
+    public static final class Lookup<V> {
+        private final V value;
+        private final long storedAt;
+        private final long ttlMs;
+
+        Lookup(V value, long storedAt, long ttlMs) {
+            this.value = value;
+            this.storedAt = storedAt;
+            this.ttlMs = ttlMs;
+        }
+
+        @NonNull
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * @return true if the value is within its time-to-live; false means
+         *         show it but fetch a new one
+         */
+        public boolean isFresh() {
+            return isFresh(System.currentTimeMillis());
+        }
+
+        boolean isFresh(long now) {
+            return now - storedAt < ttlMs;
+        }
+    }
+}
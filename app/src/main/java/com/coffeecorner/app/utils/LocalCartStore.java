@@ -0,0 +1,608 @@
+package com.coffeecorner.app.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.coffeecorner.app.models.CartItem;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * LocalCartStore - Process-wide guest cart, kept in memory and persisted to an
+ * append-only journal.
+ *
+ * Lines are indexed by line key (product, size and milk option) and by product
+ * ID, and the item count and total (in cents) are updated with each change,
+ * so reads never parse or scan storage. Each change appends one small record to the
+ * journal on a background thread (batched when changes come in bursts), and
+ * the journal is rewritten as a snapshot once it grows well past the number of
+ * lines. The journal is loaded once, off the main thread, on first use.
+ *
+ * Nothing waits for the load: until it finishes, reads see an empty cart and
+ * changes are queued and applied right after it. Use {@link #whenLoaded} to
+ * read the cart once it is complete.
+ */
+public final class LocalCartStore {
+
+    private static final String TAG = "LocalCartStore";
+    private static final String JOURNAL_FILE = "local_cart.journal";
+    private static final int COMPACT_MIN_RECORDS = 32;
+
+    // SharedPreferences location of the cart before the journal existed
+    private static final String LEGACY_PREFS = "LocalCartPrefs";
+    private static final String LEGACY_KEY_CART_ITEMS = "cart_items";
+
+    private static final String OP_PUT = "put";
+    private static final String OP_REMOVE = "remove";
+    private static final String OP_CLEAR = "clear";
+
+    private static volatile LocalCartStore instance;
+
+    private final Context context;
+    private final File journalFile;
+    private final Gson gson = new GsonBuilder().create();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, TAG);
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Set once the journal has been replayed; changes made before are queued
+    private volatile boolean loaded = false;
+    // Guarded by itself: changes and listeners waiting for the load
+    private final List<Runnable> deferredChanges = new ArrayList<>();
+    private final List<Runnable> loadListeners = new ArrayList<>();
+
+    // Guarded by this
+    private final LinkedHashMap<String, CartItem> lines = new LinkedHashMap<>();
+    private final Map<String, LinkedHashSet<String>> linesByProduct = new HashMap<>();
+    private final CartPricing.Totals totals = new CartPricing.Totals();
+    private List<String> pendingRecords = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private int journalRecords = 0;
+
+    private LocalCartStore(Context context) {
+        this(context, new File(context.getFilesDir(), JOURNAL_FILE));
+    }
+
+    LocalCartStore(Context context, File journalFile) {
+        this.context = context;
+        this.journalFile = journalFile;
+        writer.execute(this::load);
+    }
+
+    /**
+     * Get singleton instance of LocalCartStore, starting the journal load on
+     * first use
+     *
+     * @param context Any context
+     * @return LocalCartStore instance
+     */
+    public static LocalCartStore getInstance(@NonNull Context context) {
+        if (instance == null) {
+            synchronized (LocalCartStore.class) {
+                if (instance == null) {
+                    instance = new LocalCartStore(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return true once the journal has been read and reads show the whole cart
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Run code on the main thread once the cart has loaded, or now if it has
+     *
+     * @param listener Code to run
+     */
+    public void whenLoaded(@NonNull Runnable listener) {
+        synchronized (deferredChanges) {
+            if (!loaded) {
+                loadListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * @return Copies of every line, in the order they were added; empty until loaded
+     */
+    @NonNull
+    public List<CartItem> getItems() {
+        if (!loaded) {
+            return new ArrayList<>();
+        }
+        synchronized (this) {
+            List<CartItem> items = new ArrayList<>(lines.size());
+            for (CartItem item : lines.values()) {
+                items.add(copyOf(item, item.getQuantity()));
+            }
+            return items;
+        }
+    }
+
+    public int getItemCount() {
+        if (!loaded) {
+            return 0;
+        }
+        synchronized (this) {
+            return totals.getItemCount();
+        }
+    }
+
+    public double getTotal() {
+        if (!loaded) {
+            return 0;
+        }
+        synchronized (this) {
+            return CartPricing.toAmount(totals.getSubtotalCents());
+        }
+    }
+
+    public boolean isEmpty() {
+        if (!loaded) {
+            return true;
+        }
+        synchronized (this) {
+            return lines.isEmpty();
+        }
+    }
+
+    /**
+     * Add a line, or add to the quantity of the line with the same product and options
+     *
+     * @param item Line to add; not retained
+     */
+    public void add(@NonNull CartItem item) {
+        CartItem queued = copyOf(item, item.getQuantity());
+        if (deferUntilLoaded(() -> add(queued))) {
+            return;
+        }
+        String key = keyFor(item);
+        synchronized (this) {
+            CartItem existing = lines.get(key);
+            int quantity = item.getQuantity() + (existing != null ? existing.getQuantity() : 0);
+            put(key, copyOf(existing != null ? existing : item, quantity));
+        }
+    }
+
+    /**
+     * Set the quantity of the first line for a product; 0 or less removes all its lines
+     *
+     * @param productId Product ID
+     * @param quantity  New quantity
+     * @return false if the product is not in the cart; true if the cart is
+     *         still loading and the change was queued
+     */
+    public boolean setQuantity(@NonNull String productId, int quantity) {
+        if (deferUntilLoaded(() -> setQuantity(productId, quantity))) {
+            return true;
+        }
+        synchronized (this) {
+            Set<String> keys = linesByProduct.get(productId);
+            if (keys == null || keys.isEmpty()) {
+                return false;
+            }
+            if (quantity <= 0) {
+                removeProduct(productId);
+                return true;
+            }
+            String key = keys.iterator().next();
+            put(key, copyOf(lines.get(key), quantity));
+            return true;
+        }
+    }
+
+    /**
+     * Remove every line for the given products
+     *
+     * @param productIds Products to remove
+     */
+    public void removeProducts(@NonNull Collection<String> productIds) {
+        List<String> queued = new ArrayList<>(productIds);
+        if (deferUntilLoaded(() -> removeProducts(queued))) {
+            return;
+        }
+        synchronized (this) {
+            for (String productId : productIds) {
+                removeProduct(productId);
+            }
+        }
+    }
+
+    /**
+     * Take the given lines' quantities out of the cart, e.g. once they have been
+     * merged into the server cart. Lines added or increased since the items were
+     * read keep the difference.
+     *
+     * @param items Lines as read from {@link #getItems()}
+     */
+    public void subtract(@NonNull Collection<CartItem> items) {
+        List<CartItem> queued = new ArrayList<>(items);
+        if (deferUntilLoaded(() -> subtract(queued))) {
+            return;
+        }
+        synchronized (this) {
+            for (CartItem item : items) {
+                String key = keyFor(item);
+                CartItem existing = lines.get(key);
+                if (existing == null) {
+                    continue;
+                }
+                int remaining = existing.getQuantity() - item.getQuantity();
+                if (remaining > 0) {
+                    put(key, copyOf(existing, remaining));
+                } else {
+                    unindex(key);
+                    JsonObject record = new JsonObject();
+                    record.addProperty("op", OP_REMOVE);
+                    record.addProperty("key", key);
+                    journal(record);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        if (deferUntilLoaded(this::clear)) {
+            return;
+        }
+        synchronized (this) {
+            lines.clear();
+            linesByProduct.clear();
+            totals.clear();
+            JsonObject record = new JsonObject();
+            record.addProperty("op", OP_CLEAR);
+            journal(record);
+        }
+    }
+
+    // Must hold this
+    private void put(String key, CartItem item) {
+        index(key, item);
+
+        JsonObject record = new JsonObject();
+        record.addProperty("op", OP_PUT);
+        record.addProperty("key", key);
+        record.add("item", gson.toJsonTree(item));
+        journal(record);
+    }
+
+    // Must hold this. Updates the lines, index and totals without journaling.
+    private void index(String key, CartItem item) {
+        CartItem previous = lines.put(key, item);
+        if (previous != null) {
+            totals.remove(previous);
+        } else {
+            String productId = item.getProductId();
+            LinkedHashSet<String> keys = linesByProduct.get(productId);
+            if (keys == null) {
+                keys = new LinkedHashSet<>();
+                linesByProduct.put(productId, keys);
+            }
+            keys.add(key);
+        }
+        totals.add(item);
+    }
+
+    // Must hold this. Removes a line from the lines, index and totals without journaling.
+    private void unindex(String key) {
+        CartItem removed = lines.remove(key);
+        if (removed == null) {
+            return;
+        }
+        totals.remove(removed);
+        Set<String> keys = linesByProduct.get(removed.getProductId());
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                linesByProduct.remove(removed.getProductId());
+            }
+        }
+    }
+
+    // Must hold this
+    private void removeProduct(String productId) {
+        Set<String> keys = linesByProduct.get(productId);
+        if (keys == null) {
+            return;
+        }
+        for (String key : new ArrayList<>(keys)) {
+            unindex(key);
+            JsonObject record = new JsonObject();
+            record.addProperty("op", OP_REMOVE);
+            record.addProperty("key", key);
+            journal(record);
+        }
+    }
+
+    /**
+     * Queue a change made before the journal has loaded
+     *
+     * @return true if queued; false if loaded, so the caller applies it now
+     */
+    private boolean deferUntilLoaded(Runnable change) {
+        if (loaded) {
+            return false;
+        }
+        synchronized (deferredChanges) {
+            if (loaded) {
+                return false;
+            }
+            deferredChanges.add(change);
+            return true;
+        }
+    }
+
+    /**
+     * Queue a journal record and schedule a write-behind flush. Must hold this.
+     */
+    private void journal(JsonObject record) {
+        pendingRecords.add(record.toString());
+        if (!flushScheduled) {
+            flushScheduled = true;
+            writer.execute(this::flush);
+        }
+    }
+
+    /**
+     * Append queued records, or replace the journal with a snapshot when it has
+     * grown well past the number of lines. Runs on the writer thread.
+     */
+    private void flush() {
+        List<String> records;
+        List<String> snapshot = null;
+        synchronized (this) {
+            records = pendingRecords;
+            pendingRecords = new ArrayList<>();
+            flushScheduled = false;
+            journalRecords += records.size();
+            if (journalRecords > COMPACT_MIN_RECORDS && journalRecords > 2 * lines.size()) {
+                // The snapshot already reflects the queued records
+                snapshot = snapshotRecords();
+                journalRecords = snapshot.size();
+            }
+        }
+        try {
+            if (snapshot != null) {
+                writeSnapshot(snapshot);
+            } else if (!records.isEmpty()) {
+                appendRecords(records);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing cart journal", e);
+        }
+    }
+
+    // Must hold this
+    private List<String> snapshotRecords() {
+        List<String> records = new ArrayList<>(lines.size());
+        for (Map.Entry<String, CartItem> entry : lines.entrySet()) {
+            JsonObject record = new JsonObject();
+            record.addProperty("op", OP_PUT);
+            record.addProperty("key", entry.getKey());
+            record.add("item", gson.toJsonTree(entry.getValue()));
+            records.add(record.toString());
+        }
+        return records;
+    }
+
+    private void appendRecords(List<String> records) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(journalFile, true), StandardCharsets.UTF_8))) {
+            for (String record : records) {
+                out.write(record);
+                out.write('\n');
+            }
+        }
+    }
+
+    private void writeSnapshot(List<String> records) throws IOException {
+        File temp = new File(journalFile.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp);
+                Writer out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+            for (String record : records) {
+                out.write(record);
+                out.write('\n');
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        if (!temp.renameTo(journalFile)) {
+            throw new IOException("Could not replace " + journalFile);
+        }
+        Log.d(TAG, "Compacted cart journal to " + records.size() + " records");
+    }
+
+    /**
+     * Replay the journal, importing the old SharedPreferences cart the first
+     * time. Runs on the writer thread.
+     */
+    private void load() {
+        try {
+            if (journalFile.exists()) {
+                replayJournal();
+                trimTornRecord();
+            } else {
+                importLegacyCart();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading cart journal", e);
+        } finally {
+            finishLoad();
+        }
+    }
+
+    /**
+     * Mark the cart loaded, apply the changes queued meanwhile in order, then
+     * notify the listeners on the main thread
+     */
+    private void finishLoad() {
+        List<Runnable> changes;
+        List<Runnable> listeners;
+        synchronized (this) {
+            synchronized (deferredChanges) {
+                loaded = true;
+                changes = new ArrayList<>(deferredChanges);
+                listeners = new ArrayList<>(loadListeners);
+                deferredChanges.clear();
+                loadListeners.clear();
+            }
+            // Still holding this, so changes made from now on apply after these
+            for (Runnable change : changes) {
+                change.run();
+            }
+        }
+        for (Runnable listener : listeners) {
+            mainHandler.post(listener);
+        }
+    }
+
+    /**
+     * Cut off a last record left without its newline by a crash mid-append, so
+     * the next append starts on a line of its own instead of extending it
+     */
+    private void trimTornRecord() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+            long end = file.length();
+            long position = end;
+            while (position > 0) {
+                file.seek(position - 1);
+                if (file.read() == '\n') {
+                    break;
+                }
+                position--;
+            }
+            if (position < end) {
+                Log.w(TAG, "Dropping torn journal record of " + (end - position) + " bytes");
+                file.setLength(position);
+            }
+        }
+    }
+
+    private void replayJournal() throws IOException {
+        int records = 0;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+            String line;
+            synchronized (this) {
+                while ((line = in.readLine()) != null) {
+                    records++;
+                    try {
+                        applyRecord(JsonParser.parseString(line).getAsJsonObject());
+                    } catch (RuntimeException e) {
+                        // A record cut short by a crash mid-write; later records still apply
+                        Log.w(TAG, "Skipping unreadable journal record");
+                    }
+                }
+                journalRecords = records;
+            }
+        }
+        Log.d(TAG, "Loaded " + lines.size() + " cart lines from " + records + " journal records");
+    }
+
+    // Must hold this. Applies a record without journaling it again.
+    private void applyRecord(JsonObject record) {
+        String op = record.get("op").getAsString();
+        if (OP_CLEAR.equals(op)) {
+            lines.clear();
+            linesByProduct.clear();
+            totals.clear();
+        } else if (OP_PUT.equals(op)) {
+            CartItem item = gson.fromJson(record.get("item"), CartItem.class);
+            if (item != null && item.getProductId() != null) {
+                index(record.get("key").getAsString(), item);
+            }
+        } else if (OP_REMOVE.equals(op)) {
+            unindex(record.get("key").getAsString());
+        }
+    }
+
+    private void importLegacyCart() throws IOException {
+        SharedPreferences prefs = context.getSharedPreferences(LEGACY_PREFS, Context.MODE_PRIVATE);
+        String cartJson = prefs.getString(LEGACY_KEY_CART_ITEMS, null);
+        List<String> snapshot;
+        synchronized (this) {
+            if (cartJson != null && !cartJson.isEmpty()) {
+                try {
+                    Type type = new TypeToken<List<CartItem>>() {
+                    }.getType();
+                    List<CartItem> items = gson.fromJson(cartJson, type);
+                    if (items != null) {
+                        for (CartItem item : items) {
+                            if (item != null && item.getProductId() != null) {
+                                CartItem existing = lines.get(keyFor(item));
+                                int quantity = item.getQuantity() + (existing != null ? existing.getQuantity() : 0);
+                                index(keyFor(item), copyOf(item, quantity));
+                            }
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Error importing legacy cart", e);
+                }
+            }
+            snapshot = snapshotRecords();
+            journalRecords = snapshot.size();
+        }
+        writeSnapshot(snapshot);
+        prefs.edit().remove(LEGACY_KEY_CART_ITEMS).apply();
+        Log.d(TAG, "Imported " + snapshot.size() + " cart lines from SharedPreferences");
+    }
+
+    /**
+     * Key of the line an item belongs to: the same product with the same options
+     */
+    private static String keyFor(CartItem item) {
+        String size = item.getSize() != null ? item.getSize() : "Medium";
+        String milk = item.getMilkOption() != null ? item.getMilkOption() : "Whole Milk";
+        return item.getProductId() + "|" + size + "|" + milk;
+    }
+
+    private static CartItem copyOf(CartItem item, int quantity) {
+        CartItem copy = new CartItem(item.getProduct(), quantity, item.getSize(), item.getMilkOption(),
+                item.getExtraCharge());
+        copy.setId(item.getId());
+        copy.setTemperature(item.getTemperature());
+        copy.setCustomizations(item.getCustomizations());
+        return copy;
+    }
+}
@@ -3,6 +3,8 @@ package com.coffeecorner.app.utils;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import com.coffeecorner.app.network.AuthTokenStore;
+
 /**
  * Helper class to manage app preferences
  */
@@ -55,6 +57,7 @@ public class PreferencesHelper {
         editor.putString(KEY_AUTH_TOKEN, authToken);
         editor.putBoolean(KEY_IS_LOGGED_IN, true);
         editor.apply();
+        AuthTokenStore.getInstance().setToken(authToken);
     }
 
     /**
@@ -68,6 +71,7 @@ public class PreferencesHelper {
         editor.remove(KEY_AUTH_TOKEN);
         editor.putBoolean(KEY_IS_LOGGED_IN, false);
         editor.apply();
+        AuthTokenStore.getInstance().setToken(null);
     }
 
     /**
@@ -102,6 +106,7 @@ public class PreferencesHelper {
      */
     public void saveAuthToken(String token) {
         sharedPreferences.edit().putString(KEY_AUTH_TOKEN, token).apply();
+        AuthTokenStore.getInstance().setToken(token);
     }
 
     /**
@@ -393,6 +398,7 @@ public class PreferencesHelper {
      */
     public void clearAll() {
         sharedPreferences.edit().clear().apply();
+        AuthTokenStore.getInstance().setToken(null);
     }
 
     /**
@@ -414,6 +420,7 @@ public class PreferencesHelper {
         editor.remove(KEY_IS_LOGGED_IN);
         editor.remove(KEY_AUTH_TOKEN);
         editor.apply();
+        AuthTokenStore.getInstance().setToken(null);
     }
 
     /**
@@ -450,6 +457,7 @@ public class PreferencesHelper {
      */
     public void saveLoyaltyPoints(int points) {
         sharedPreferences.edit().putInt(KEY_LOYALTY_POINTS, points).apply();
+        CartStore.getInstance().setAdjustments(CartPricing.Adjustments.from(this));
     }
 
     /**
@@ -468,5 +476,7 @@ public class PreferencesHelper {
      */
     public void savePromoCode(String promoCode) {
         sharedPreferences.edit().putString(KEY_PROMO_CODE, promoCode).apply();
+        // Reprice the cart with the new code
+        CartStore.getInstance().setAdjustments(CartPricing.Adjustments.from(this));
     }
 }
@@ -0,0 +1,45 @@
+package com.coffeecorner.app.utils;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * PrefetchScrollListener - Asks for the next page of a list while the user is
+ * still a few items away from its end, so the page usually arrives before the
+ * last card scrolls into view.
+ *
+ * Works with LinearLayoutManager and its subclasses, including GridLayoutManager.
+ * The callback may be called repeatedly while scrolling near the end; the
+ * receiver ignores calls while a page is already loading.
+ */
+public class PrefetchScrollListener extends RecyclerView.OnScrollListener {
+
+    private final int prefetchDistance;
+    private final Runnable loadNextPage;
+
+    /**
+     * @param prefetchDistance Items from the end at which to load the next page
+     * @param loadNextPage     Loads the next page, if any
+     */
+    public PrefetchScrollListener(int prefetchDistance, @NonNull Runnable loadNextPage) {
+        this.prefetchDistance = prefetchDistance;
+        this.loadNextPage = loadNextPage;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0) {
+            return;
+        }
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+        int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        int itemCount = layoutManager.getItemCount();
+        if (lastVisible != RecyclerView.NO_POSITION && lastVisible >= itemCount - 1 - prefetchDistance) {
+            loadNextPage.run();
+        }
+    }
+}
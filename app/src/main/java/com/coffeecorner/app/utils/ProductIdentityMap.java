@@ -0,0 +1,371 @@
+package com.coffeecorner.app.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.Order;
+import com.coffeecorner.app.models.Product;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ProductIdentityMap - One shared Product object per product ID.
+ *
+ * Repositories pass every product they decode or read through here. The
+ * first sighting of an ID becomes the shared object, and later sightings
+ * that carry nothing new return it instead. Lists, pages, search results and
+ * details therefore hold the same objects.
+ *
+ * Shared objects are never changed, since search and facet indexes read them
+ * on background threads. A sighting with a new price, availability or other
+ * field is merged into a copy, which replaces the shared object from then
+ * on. Listeners are told, so lists and indexes holding the old object can
+ * swap in the current ones with {@link #currentAll(List)}.
+ *
+ * Shared objects are held softly (or weakly, see
+ * {@link Constants#PRODUCT_IDENTITY_SOFT_RETENTION}), so products nothing
+ * shows any more can be collected; the next sighting starts a new one.
+ *
+ * Cart lines and orders are priced records, so they never take the shared
+ * object: a server cart's products are merged into it, and order lines are
+ * only deduplicated among themselves by ID, name and price.
+ *
+ * Intern and merge on the main thread; lookups are safe from any thread.
+ */
+public final class ProductIdentityMap {
+
+    private static volatile ProductIdentityMap instance;
+
+    private final boolean softRetention;
+    private final ReferenceQueue<Product> queue = new ReferenceQueue<>();
+    // Guarded by this
+    private final Map<String, Reference<Product>> products = new HashMap<>();
+    private final Map<String, Reference<Product>> orderSnapshots = new HashMap<>();
+    private final CopyOnWriteArrayList<ReplacementListener> listeners = new CopyOnWriteArrayList<>();
+
+    ProductIdentityMap(boolean softRetention) {
+        this.softRetention = softRetention;
+    }
+
+    public static ProductIdentityMap getInstance() {
+        if (instance == null) {
+            synchronized (ProductIdentityMap.class) {
+                if (instance == null) {
+                    instance = new ProductIdentityMap(Constants.PRODUCT_IDENTITY_SOFT_RETENTION);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Shared object for a complete product record, updated from it
+     *
+     * @param product Product as decoded or read from the catalog
+     * @return The shared object, or product itself if it has no ID
+     */
+    @Nullable
+    public Product intern(@Nullable Product product) {
+        Product shared;
+        boolean replaced;
+        synchronized (this) {
+            purge();
+            Product previous = product != null && product.getId() != null ? get(products, product.getId()) : null;
+            shared = internLocked(product);
+            replaced = previous != null && previous != shared;
+        }
+        if (replaced) {
+            notifyReplaced();
+        }
+        return shared;
+    }
+
+    /**
+     * Shared objects for a list of complete product records
+     *
+     * @param products Products as decoded or read from the catalog
+     * @return New list of the shared objects, in the same order
+     */
+    @NonNull
+    public List<Product> internAll(@Nullable List<Product> products) {
+        if (products == null) {
+            return new ArrayList<>();
+        }
+        List<Product> shared = new ArrayList<>(products.size());
+        boolean replaced = false;
+        synchronized (this) {
+            purge();
+            for (Product product : products) {
+                Product previous = product != null && product.getId() != null
+                        ? get(this.products, product.getId())
+                        : null;
+                Product current = internLocked(product);
+                replaced |= previous != null && previous != current;
+                shared.add(current);
+            }
+        }
+        if (replaced) {
+            notifyReplaced();
+        }
+        return shared;
+    }
+
+    private Product internLocked(Product product) {
+        if (product == null || product.getId() == null) {
+            return product;
+        }
+        Product shared = get(products, product.getId());
+        if (shared == null) {
+            products.put(product.getId(), newReference(product.getId(), product, products));
+            return product;
+        }
+        if (shared == product) {
+            return shared;
+        }
+        return replaceLocked(shared, shared.mergedWith(product, true));
+    }
+
+    /**
+     * Merge the products embedded in server cart lines into the shared
+     * objects, if held. The lines keep their own objects, since the cart's
+     * totals are priced from them.
+     */
+    public void mergeCartItems(@Nullable List<CartItem> items) {
+        if (items == null) {
+            return;
+        }
+        boolean replaced = false;
+        synchronized (this) {
+            purge();
+            for (CartItem item : items) {
+                Product product = item != null ? item.getProduct() : null;
+                if (product == null || product.getId() == null) {
+                    continue;
+                }
+                Product shared = get(products, product.getId());
+                if (shared != null && shared != product) {
+                    replaced |= replaceLocked(shared, shared.mergedWith(product, false)) != shared;
+                }
+            }
+        }
+        if (replaced) {
+            notifyReplaced();
+        }
+    }
+
+    /**
+     * Deduplicate the products in order lines: lines of the same product at
+     * the same name and price share one object. Orders keep the price they
+     * were placed at, so they are not joined to the live product.
+     */
+    public synchronized void shareOrderProducts(@Nullable List<Order> orders) {
+        if (orders == null) {
+            return;
+        }
+        purge();
+        for (Order order : orders) {
+            List<CartItem> items = order != null ? order.getItems() : null;
+            if (items == null) {
+                continue;
+            }
+            for (CartItem item : items) {
+                Product product = item != null ? item.getProduct() : null;
+                if (product == null || product.getId() == null) {
+                    continue;
+                }
+                String key = product.getId() + '|' + product.getPrice() + '|' + product.getName();
+                Product shared = get(orderSnapshots, key);
+                if (shared == null) {
+                    orderSnapshots.put(key, newReference(key, product, orderSnapshots));
+                } else if (shared != product) {
+                    item.setProduct(shared);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark shared products as no longer available, e.g. when the catalog sync
+     * reports them deleted
+     */
+    public void markUnavailable(@Nullable Collection<String> productIds) {
+        if (productIds == null) {
+            return;
+        }
+        boolean replaced = false;
+        synchronized (this) {
+            for (String productId : productIds) {
+                Product shared = get(products, productId);
+                if (shared != null && shared.isAvailable()) {
+                    Product unavailable = shared.clone();
+                    unavailable.setAvailable(false);
+                    replaceLocked(shared, unavailable);
+                    replaced = true;
+                }
+            }
+        }
+        if (replaced) {
+            notifyReplaced();
+        }
+    }
+
+    /**
+     * @return Shared object for a product ID, or null if none is held
+     */
+    @Nullable
+    public synchronized Product get(@NonNull String productId) {
+        return get(products, productId);
+    }
+
+    /**
+     * The current shared objects for a list of products, for lists built
+     * before some of their products were replaced. Products not held, or
+     * without an ID, are kept as they are.
+     *
+     * @param products Products as shown or indexed
+     * @return The same list if every product is current, otherwise a new list
+     */
+    @NonNull
+    public synchronized List<Product> currentAll(@NonNull List<Product> products) {
+        List<Product> current = null;
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            Product shared = product != null && product.getId() != null ? get(this.products, product.getId()) : null;
+            if (shared != null && shared != product) {
+                if (current == null) {
+                    current = new ArrayList<>(products);
+                }
+                current.set(i, shared);
+            }
+        }
+        return current != null ? current : products;
+    }
+
+    /**
+     * Register a listener for replaced shared products
+     */
+    public void addListener(@NonNull ReplacementListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(@NonNull ReplacementListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return Number of products held, including ones about to be collected
+     */
+    public synchronized int size() {
+        purge();
+        return products.size();
+    }
+
+    /**
+     * Make a new object the shared one for its ID
+     *
+     * @return replacement
+     */
+    private Product replaceLocked(Product shared, Product replacement) {
+        if (replacement != shared) {
+            products.put(shared.getId(), newReference(shared.getId(), replacement, products));
+        }
+        return replacement;
+    }
+
+    private void notifyReplaced() {
+        for (ReplacementListener listener : listeners) {
+            listener.onProductsReplaced();
+        }
+    }
+
+    private static Product get(Map<String, Reference<Product>> map, String key) {
+        Reference<Product> reference = map.get(key);
+        return reference != null ? reference.get() : null;
+    }
+
+    private Reference<Product> newReference(String key, Product product, Map<String, Reference<Product>> owner) {
+        return softRetention
+                ? new SoftEntry(key, product, queue, owner)
+                : new WeakEntry(key, product, queue, owner);
+    }
+
+    /**
+     * Drop the entries of products that have been collected
+     */
+    private void purge() {
+        Reference<? extends Product> reference;
+        while ((reference = queue.poll()) != null) {
+            Entry entry = (Entry) reference;
+            // Only if it wasn't replaced by a newer sighting meanwhile
+            if (entry.owner().get(entry.key()) == reference) {
+                entry.owner().remove(entry.key());
+            }
+        }
+    }
+
+    /**
+     * Listener for shared products replaced by updated copies. Called on the
+     * thread that made the change, normally the main thread, once per batch.
+     */
+    public interface ReplacementListener {
+        void onProductsReplaced();
+    }
+
+    private interface Entry {
+        String key();
+
+        Map<String, Reference<Product>> owner();
+    }
+
+    private static final class SoftEntry extends SoftReference<Product> implements Entry {
+        private final String key;
+        private final Map<String, Reference<Product>> owner;
+
+        SoftEntry(String key, Product product, ReferenceQueue<Product> queue, Map<String, Reference<Product>> owner) {
+            super(product, queue);
+            this.key = key;
+            this.owner = owner;
+        }
+
+        @Override
+        public String key() {
+            return key;
+        }
+
+        @Override
+        public Map<String, Reference<Product>> owner() {
+            return owner;
+        }
+    }
+
+    private static final class WeakEntry extends WeakReference<Product> implements Entry {
+        private final String key;
+        private final Map<String, Reference<Product>> owner;
+
+        WeakEntry(String key, Product product, ReferenceQueue<Product> queue, Map<String, Reference<Product>> owner) {
+            super(product, queue);
+            this.key = key;
+            this.owner = owner;
+        }
+
+        @Override
+        public String key() {
+            return key;
+        }
+
+        @Override
+        public Map<String, Reference<Product>> owner() {
+            return owner;
+        }
+    }
+}
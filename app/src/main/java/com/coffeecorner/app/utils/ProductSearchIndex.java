@@ -0,0 +1,370 @@
+package com.coffeecorner.app.utils;
+
+import androidx.annotation.NonNull;
+
+import com.coffeecorner.app.models.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ProductSearchIndex - In-memory typeahead index over a catalog.
+ *
+ * Words from product names and categories go into a prefix trie, so a
+ * partly typed word finds every word it starts. Each word is also listed
+ * under its trigrams. When a typed word has no prefix match, the trigrams
+ * narrow the candidates, and a small edit-distance check accepts those within
+ * a typo or two. Every typed word must match. Results rank exact words above
+ * prefixes above typos, and name matches above category matches, then
+ * higher-rated products first.
+ *
+ * Build it off the main thread; queries are cheap enough to run per keystroke.
+ * An index is immutable and safe to share between threads.
+ */
+public final class ProductSearchIndex {
+
+    private static final int FIELD_NAME = 1;
+    private static final int FIELD_CATEGORY = 2;
+
+    private static final int SCORE_EXACT = 4;
+    private static final int SCORE_PREFIX = 3;
+    private static final int SCORE_TYPO = 1;
+
+    // Typed words shorter than this only match by prefix
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private final List<Product> products;
+    private final String[] words;
+    // For each word, the products containing it and the fields it is in
+    private final int[][] wordProducts;
+    private final int[][] wordFields;
+    private final TrieNode trie = new TrieNode();
+    private final Map<String, int[]> trigramWords = new HashMap<>();
+
+    /**
+     * @param products Catalog to index; the list must not be modified afterwards
+     */
+    public ProductSearchIndex(@NonNull List<Product> products) {
+        this.products = products;
+
+        Map<String, Integer> wordIds = new HashMap<>();
+        List<String> wordList = new ArrayList<>();
+        List<Map<Integer, Integer>> postings = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            addWords(product.getName(), FIELD_NAME, i, wordIds, wordList, postings);
+            addWords(product.getCategory(), FIELD_CATEGORY, i, wordIds, wordList, postings);
+        }
+
+        words = wordList.toArray(new String[0]);
+        wordProducts = new int[words.length][];
+        wordFields = new int[words.length][];
+        Map<String, List<Integer>> trigrams = new HashMap<>();
+        for (int w = 0; w < words.length; w++) {
+            Map<Integer, Integer> posting = postings.get(w);
+            int[] productIds = new int[posting.size()];
+            int[] fields = new int[posting.size()];
+            int n = 0;
+            for (Map.Entry<Integer, Integer> entry : posting.entrySet()) {
+                productIds[n] = entry.getKey();
+                fields[n] = entry.getValue();
+                n++;
+            }
+            wordProducts[w] = productIds;
+            wordFields[w] = fields;
+            trie.insert(words[w], w);
+            for (String trigram : trigramsOf(words[w])) {
+                List<Integer> list = trigrams.get(trigram);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    trigrams.put(trigram, list);
+                }
+                list.add(w);
+            }
+        }
+        for (Map.Entry<String, List<Integer>> entry : trigrams.entrySet()) {
+            List<Integer> list = entry.getValue();
+            int[] ids = new int[list.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = list.get(i);
+            }
+            trigramWords.put(entry.getKey(), ids);
+        }
+    }
+
+    private static void addWords(String text, int field, int productIndex, Map<String, Integer> wordIds,
+            List<String> wordList, List<Map<Integer, Integer>> postings) {
+        for (String word : tokenize(text)) {
+            Integer id = wordIds.get(word);
+            if (id == null) {
+                id = wordList.size();
+                wordIds.put(word, id);
+                wordList.add(word);
+                postings.add(new HashMap<>());
+            }
+            Map<Integer, Integer> posting = postings.get(id);
+            Integer fields = posting.get(productIndex);
+            posting.put(productIndex, (fields != null ? fields : 0) | field);
+        }
+    }
+
+    /**
+     * @return Number of products in the index
+     */
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * Find products matching every word of a query, best match first
+     *
+     * @param query Text typed by the user
+     * @return Matching products; empty if the query has no words
+     */
+    @NonNull
+    public List<Product> search(@NonNull String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || products.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int[] scores = null;
+        for (String term : terms) {
+            int[] termScores = scoreTerm(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                for (int i = 0; i < scores.length; i++) {
+                    // A product missing any word drops out
+                    scores[i] = scores[i] > 0 && termScores[i] > 0 ? scores[i] + termScores[i] : 0;
+                }
+            }
+        }
+
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > 0) {
+                matches.add(i);
+            }
+        }
+        final int[] finalScores = scores;
+        Collections.sort(matches, (a, b) -> {
+            if (finalScores[a] != finalScores[b]) {
+                return Integer.compare(finalScores[b], finalScores[a]);
+            }
+            int byRating = Float.compare(products.get(b).getRating(), products.get(a).getRating());
+            return byRating != 0 ? byRating : Integer.compare(a, b);
+        });
+
+        List<Product> results = new ArrayList<>(matches.size());
+        for (int index : matches) {
+            results.add(products.get(index));
+        }
+        return results;
+    }
+
+    /**
+     * Best score of one typed word against each product, 0 if it doesn't match
+     */
+    private int[] scoreTerm(String term) {
+        int[] scores = new int[products.size()];
+        List<Integer> prefixWords = new ArrayList<>();
+        trie.collect(term, prefixWords);
+        for (int w : prefixWords) {
+            applyWord(w, words[w].equals(term) ? SCORE_EXACT : SCORE_PREFIX, scores);
+        }
+        if (prefixWords.isEmpty() && term.length() >= MIN_FUZZY_LENGTH) {
+            for (int w : typoCandidates(term)) {
+                applyWord(w, SCORE_TYPO, scores);
+            }
+        }
+        return scores;
+    }
+
+    private void applyWord(int word, int score, int[] scores) {
+        int[] productIds = wordProducts[word];
+        int[] fields = wordFields[word];
+        for (int i = 0; i < productIds.length; i++) {
+            // Name matches count double
+            int weighted = (fields[i] & FIELD_NAME) != 0 ? score * 2 : score;
+            if (weighted > scores[productIds[i]]) {
+                scores[productIds[i]] = weighted;
+            }
+        }
+    }
+
+    /**
+     * Words sharing a trigram with the typed word and within a small edit
+     * distance of it, comparing against the same-length start of each word so
+     * partly typed words with a typo still match
+     */
+    private List<Integer> typoCandidates(String term) {
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> matches = new ArrayList<>();
+        int maxEdits = term.length() >= 6 ? 2 : 1;
+        for (String trigram : trigramsOf(term)) {
+            int[] ids = trigramWords.get(trigram);
+            if (ids == null) {
+                continue;
+            }
+            for (int w : ids) {
+                if (!seen.add(w)) {
+                    continue;
+                }
+                if (typoDistance(term, words[w], maxEdits) <= maxEdits) {
+                    matches.add(w);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Fewest edits turning the typed word into the whole word or into a start
+     * of it within one letter of the typed length
+     */
+    private static int typoDistance(String term, String word, int max) {
+        int best = editDistance(term, word, max);
+        for (int length = term.length() - 1; length <= term.length() + 1 && best > 0; length++) {
+            if (length > 0 && length < word.length()) {
+                best = Math.min(best, editDistance(term, word.substring(0, length), max));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Optimal string alignment distance (edits, including swapped neighbours),
+     * giving up once it exceeds max
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Trigrams of a word padded with a start marker, so the first letters
+     * carry weight
+     */
+    private static List<String> trigramsOf(String word) {
+        String padded = "$" + word;
+        List<String> trigrams = new ArrayList<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Lower-cased letters-and-digits words of a text
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Trie node; words ending here are listed by ID
+     */
+    private static final class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private int[] wordIds = new int[0];
+
+        void insert(String word, int wordId) {
+            TrieNode node = this;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.childFor(word.charAt(i));
+            }
+            node.wordIds = Arrays.copyOf(node.wordIds, node.wordIds.length + 1);
+            node.wordIds[node.wordIds.length - 1] = wordId;
+        }
+
+        private TrieNode childFor(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = key;
+            children[children.length - 1] = new TrieNode();
+            return children[children.length - 1];
+        }
+
+        /**
+         * Add the IDs of every word starting with prefix
+         */
+        void collect(String prefix, List<Integer> out) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.find(prefix.charAt(i));
+            }
+            if (node != null) {
+                node.collectAll(out);
+            }
+        }
+
+        private TrieNode find(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void collectAll(List<Integer> out) {
+            for (int wordId : wordIds) {
+                out.add(wordId);
+            }
+            for (TrieNode child : children) {
+                child.collectAll(out);
+            }
+        }
+    }
+}
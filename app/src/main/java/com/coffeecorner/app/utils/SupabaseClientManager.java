@@ -4,26 +4,42 @@ import android.content.Context;
 import android.content.res.Resources;
 import android.util.Log;
 
-import org.json.JSONObject;
+import androidx.annotation.NonNull;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Properties;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.function.Consumer;
 
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
 /**
- * A simplified client manager for Supabase that uses Java HttpURLConnection.
- * This implementation avoids using the Kotlin-based Supabase library.
+ * A simplified client manager for Supabase's REST API.
+ * This implementation avoids using the Kotlin-based Supabase library and
+ * sends every operation through one shared, connection-pooled OkHttp client.
  */
 public class SupabaseClientManager {
 
@@ -32,7 +48,14 @@ public class SupabaseClientManager {
     private static String SUPABASE_ANON_KEY = "YOUR_SUPABASE_ANON_KEY";
     private static final String TAG = "SupabaseClientManager";
 
-    private static final Executor executor = Executors.newCachedThreadPool();
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    // Bursts of profile/checkout operations share connections (HTTP/2 where
+    // available) and at most MAX_REQUESTS threads instead of one per call
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+    static final OkHttpClient httpClient = createHttpClient();
+
     private static SupabaseClientManager instance;
 
     private SupabaseClientManager() {
@@ -74,6 +97,22 @@ public class SupabaseClientManager {
         }
     }
 
+    private static OkHttpClient createHttpClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .callTimeout(60, TimeUnit.SECONDS)
+                .build();
+    }
+
     public static synchronized SupabaseClientManager getInstance() {
         if (instance == null) {
             instance = new SupabaseClientManager();
@@ -149,6 +188,16 @@ public class SupabaseClientManager {
             return new OperationResult(null, tableName, "GET");
         }
 
+        /**
+         * Select only the given columns from the table
+         *
+         * @param columns Comma-separated column list, e.g. "id,name,price"
+         * @return An OperationResult for chaining
+         */
+        public OperationResult select(String columns) {
+            return new OperationResult(null, tableName, "GET").columns(columns);
+        }
+
         /**
          * Insert an object into the specified table
          * 
@@ -159,6 +208,33 @@ public class SupabaseClientManager {
             return new OperationResult(object, tableName, "POST");
         }
 
+        /**
+         * Insert several rows in one request, sent as a single JSON array
+         *
+         * @param rows The rows to insert
+         * @return An OperationResult for chaining
+         */
+        public OperationResult insert(List<?> rows) {
+            return new OperationResult(rows, tableName, "POST");
+        }
+
+        /**
+         * Insert or update several rows in one request. Rows whose
+         * {@code onConflict} columns match an existing row are merged into it.
+         *
+         * @param rows       The rows to upsert
+         * @param onConflict Comma-separated unique columns, e.g. "user_id,product_id"
+         * @return An OperationResult for chaining
+         */
+        public OperationResult upsert(List<?> rows, String onConflict) {
+            OperationResult result = new OperationResult(rows, tableName, "POST");
+            result.mergeDuplicates = true;
+            if (onConflict != null && !onConflict.isEmpty()) {
+                result.addParameter("on_conflict", onConflict);
+            }
+            return result;
+        }
+
         /**
          * Update records in the specified table
          * 
@@ -255,8 +331,13 @@ public class SupabaseClientManager {
         private final Object data;
         private final String tableName;
         private final String method;
-        private final Map<String, String> filters = new HashMap<>();
+        // Filter column and PostgREST expression, e.g. {"id", "in.(1,2,3)"}
+        private final List<String[]> filters = new ArrayList<>();
         private final Map<String, String> parameters = new HashMap<>();
+        private boolean mergeDuplicates = false;
+        private String returning = "minimal";
+        private String rangeHeader;
+        private boolean countExact = false;
 
         public OperationResult(Object data, String tableName, String method) {
             this.data = data;
@@ -272,7 +353,113 @@ public class SupabaseClientManager {
          * @return This instance for chaining
          */
         public OperationResult eq(String field, String value) {
-            filters.put(field, value);
+            filters.add(new String[] { field, "eq." + value });
+            return this;
+        }
+
+        /**
+         * Add a filter where field is one of the given values, so a whole set of
+         * rows can be fetched in one request
+         *
+         * @param field  The field to filter on
+         * @param values The values to match
+         * @return This instance for chaining
+         */
+        public OperationResult in(String field, Collection<String> values) {
+            StringBuilder expression = new StringBuilder("in.(");
+            boolean first = true;
+            for (String value : values) {
+                if (!first) {
+                    expression.append(',');
+                }
+                appendListValue(expression, value);
+                first = false;
+            }
+            filters.add(new String[] { field, expression.append(')').toString() });
+            return this;
+        }
+
+        /**
+         * Return only the given columns instead of whole rows
+         *
+         * @param columns Comma-separated column list, e.g. "id,name,price"
+         * @return This instance for chaining
+         */
+        public OperationResult columns(String columns) {
+            parameters.put("select", columns);
+            return this;
+        }
+
+        /**
+         * Return only rows {@code from} to {@code to} (inclusive, zero-based)
+         *
+         * @param from First row index
+         * @param to   Last row index
+         * @return This instance for chaining
+         */
+        public OperationResult range(int from, int to) {
+            rangeHeader = from + "-" + to;
+            return this;
+        }
+
+        /**
+         * Return at most {@code limit} rows starting at {@code offset}
+         *
+         * @param offset Number of rows to skip
+         * @param limit  Maximum number of rows
+         * @return This instance for chaining
+         */
+        public OperationResult page(int offset, int limit) {
+            parameters.put("offset", String.valueOf(offset));
+            parameters.put("limit", String.valueOf(limit));
+            return this;
+        }
+
+        /**
+         * Ask for the exact number of matching rows, available from
+         * {@link SupabaseResponse#getTotalCount()}
+         *
+         * @return This instance for chaining
+         */
+        public OperationResult countExact() {
+            countExact = true;
+            return this;
+        }
+
+        /**
+         * Append a value to an in.(...) list, quoting it if it contains
+         * characters PostgREST reserves in lists
+         */
+        private void appendListValue(StringBuilder out, String value) {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '(' || c == ')' || c == '"' || c == '\\' || c == ' ';
+            }
+            if (!quote) {
+                out.append(value);
+                return;
+            }
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.append('\\');
+                }
+                out.append(c);
+            }
+            out.append('"');
+        }
+
+        /**
+         * Choose what a write returns: "minimal" (nothing, the default) or
+         * "representation" (the written rows)
+         *
+         * @param returning "minimal" or "representation"
+         * @return This instance for chaining
+         */
+        public OperationResult returning(String returning) {
+            this.returning = returning;
             return this;
         }
 
@@ -298,96 +485,178 @@ public class SupabaseClientManager {
             return this;
         }
 
+        /**
+         * Build the REST request for this operation
+         *
+         * @return Request to send
+         */
+        Request buildRequest() {
+            HttpUrl baseUrl = HttpUrl.parse(SUPABASE_URL + "/rest/v1/" + tableName);
+            if (baseUrl == null) {
+                throw new IllegalStateException("Invalid Supabase URL: " + SUPABASE_URL);
+            }
+            HttpUrl.Builder urlBuilder = baseUrl.newBuilder();
+
+            // Add filters as query parameters if present
+            for (String[] filter : filters) {
+                urlBuilder.addQueryParameter(filter[0], filter[1]);
+            }
+
+            // Add other parameters
+            for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                urlBuilder.addQueryParameter(entry.getKey(), entry.getValue());
+            }
+
+            RequestBody body = data != null ? createJsonBody(data) : null;
+            if (body == null && ("POST".equals(method) || "PATCH".equals(method))) {
+                body = RequestBody.create(new byte[0], JSON);
+            }
+
+            Request.Builder request = new Request.Builder()
+                    .url(urlBuilder.build())
+                    .header("apikey", SUPABASE_ANON_KEY)
+                    .header("Authorization", "Bearer " + SUPABASE_ANON_KEY)
+                    .header("Prefer", buildPreferHeader())
+                    .method(method, body);
+            if (rangeHeader != null) {
+                request.header("Range-Unit", "items").header("Range", rangeHeader);
+            }
+            return request.build();
+        }
+
+        private String buildPreferHeader() {
+            StringBuilder prefer = new StringBuilder("return=").append(returning);
+            if (mergeDuplicates) {
+                prefer.append(",resolution=merge-duplicates");
+            }
+            if (countExact) {
+                prefer.append(",count=exact");
+            }
+            return prefer.toString();
+        }
+
+        /**
+         * Body for the operation's data. Raw JSON (String, org.json) is sent as is;
+         * models and lists of models are serialized while the request is written,
+         * without building the JSON string first.
+         */
+        private RequestBody createJsonBody(final Object payload) {
+            if (payload instanceof String || payload instanceof org.json.JSONObject
+                    || payload instanceof org.json.JSONArray) {
+                return RequestBody.create(payload.toString(), JSON);
+            }
+            return new RequestBody() {
+                @Override
+                public MediaType contentType() {
+                    return JSON;
+                }
+
+                @Override
+                public void writeTo(@NonNull BufferedSink sink) throws IOException {
+                    Writer writer = new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8);
+                    SupabaseJson.write(writer, payload);
+                    writer.flush();
+                }
+            };
+        }
+
         /**
          * Execute the operation asynchronously
          * 
          * @param callback Callback to handle the response
+         * @return The in-flight call, which can be cancelled. A cancelled call
+         *         does not invoke the callback.
          */
-        public void executeAsync(final SupabaseCallback callback) {
-            executor.execute(() -> {
-                try {
-                    StringBuilder urlBuilder = new StringBuilder(SUPABASE_URL + "/rest/v1/" + tableName);
-
-                    // Add filters as query parameters if present
-                    if (!filters.isEmpty()) {
-                        urlBuilder.append("?");
-
-                        boolean first = true;
-                        for (Map.Entry<String, String> entry : filters.entrySet()) {
-                            if (!first) {
-                                urlBuilder.append("&");
-                            }
-                            urlBuilder.append(entry.getKey()).append("=eq.").append(entry.getValue());
-                            first = false;
-                        }
-                    }
+        public Call executeAsync(final SupabaseCallback callback) {
+            Call call;
+            try {
+                call = httpClient.newCall(buildRequest());
+            } catch (Exception e) {
+                Log.e(TAG, "Error building Supabase operation", e);
+                callback.onSuccess(new SupabaseResponse(null, new SupabaseError(e.getMessage())));
+                return null;
+            }
 
-                    // Add other parameters
-                    if (!parameters.isEmpty()) {
-                        if (filters.isEmpty()) {
-                            urlBuilder.append("?");
+            call.enqueue(new Callback() {
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) {
+                    try (ResponseBody body = response.body()) {
+                        String content = body != null ? body.string() : "";
+                        if (response.isSuccessful()) {
+                            callback.onSuccess(new SupabaseResponse(content, null,
+                                    parseTotalCount(response.header("Content-Range"))));
                         } else {
-                            urlBuilder.append("&");
-                        }
-
-                        boolean first = filters.isEmpty();
-                        for (Map.Entry<String, String> entry : parameters.entrySet()) {
-                            if (!first) {
-                                urlBuilder.append("&");
-                            }
-                            urlBuilder.append(entry.getKey()).append("=").append(entry.getValue());
-                            first = false;
+                            callback.onSuccess(new SupabaseResponse(null, new SupabaseError(content)));
                         }
+                    } catch (IOException e) {
+                        onFailure(call, e);
                     }
+                }
 
-                    URL url = new URL(urlBuilder.toString());
-                    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                    connection.setRequestMethod(method);
-                    connection.setRequestProperty("apikey", SUPABASE_ANON_KEY);
-                    connection.setRequestProperty("Authorization", "Bearer " + SUPABASE_ANON_KEY);
-                    connection.setRequestProperty("Content-Type", "application/json");
-                    connection.setRequestProperty("Prefer", "return=minimal");
-
-                    if (data != null) {
-                        connection.setDoOutput(true);
-                        try (OutputStream os = connection.getOutputStream()) {
-                            // Simple JSON conversion - in a real app, use a proper JSON library
-                            String jsonData = data.toString();
-                            byte[] input = jsonData.getBytes(StandardCharsets.UTF_8);
-                            os.write(input, 0, input.length);
-                        }
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    if (call.isCanceled()) {
+                        Log.d(TAG, "Supabase operation cancelled: " + tableName);
+                        return;
                     }
+                    Log.e(TAG, "Error executing Supabase operation", e);
+                    callback.onSuccess(new SupabaseResponse(null, new SupabaseError(e.getMessage())));
+                }
+            });
+            return call;
+        }
 
-                    int responseCode = connection.getResponseCode();
-
-                    if (responseCode >= 200 && responseCode < 300) {
-                        StringBuilder response = new StringBuilder();
-                        try (BufferedReader br = new BufferedReader(
-                                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-                            String responseLine;
-                            while ((responseLine = br.readLine()) != null) {
-                                response.append(responseLine.trim());
-                            }
-                        }
+        /**
+         * Execute the operation and decode the rows straight from the response
+         * stream into model instances, without buffering the body as a string.
+         * Handlers run on the network thread.
+         *
+         * @param clazz     Model class for each row
+         * @param onSuccess Handler for the decoded rows
+         * @param onError   Handler for error responses
+         * @param <T>       Model type
+         * @return The in-flight call, which can be cancelled
+         */
+        public <T> Call executeForList(Class<T> clazz, Consumer<java.util.List<T>> onSuccess,
+                Consumer<Throwable> onError) {
+            Call call;
+            try {
+                call = httpClient.newCall(buildRequest());
+            } catch (Exception e) {
+                onError.accept(e);
+                return null;
+            }
 
-                        callback.onSuccess(new SupabaseResponse(response.toString(), null));
-                    } else {
-                        StringBuilder errorResponse = new StringBuilder();
-                        try (BufferedReader br = new BufferedReader(
-                                new InputStreamReader(connection.getErrorStream(), StandardCharsets.UTF_8))) {
-                            String responseLine;
-                            while ((responseLine = br.readLine()) != null) {
-                                errorResponse.append(responseLine.trim());
-                            }
+            call.enqueue(new Callback() {
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) {
+                    java.util.List<T> rows;
+                    try (ResponseBody body = response.body()) {
+                        if (!response.isSuccessful()) {
+                            String message = body != null ? body.string() : "HTTP " + response.code();
+                            onError.accept(new Exception(message));
+                            return;
                         }
+                        rows = body != null
+                                ? SupabaseJson.readList(body.charStream(), clazz)
+                                : new java.util.ArrayList<>();
+                    } catch (Exception e) {
+                        onFailure(call, e instanceof IOException ? (IOException) e : new IOException(e));
+                        return;
+                    }
+                    onSuccess.accept(rows);
+                }
 
-                        callback.onSuccess(new SupabaseResponse(null, new SupabaseError(errorResponse.toString())));
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    if (call.isCanceled()) {
+                        return;
                     }
-                } catch (Exception e) {
                     Log.e(TAG, "Error executing Supabase operation", e);
-                    callback.onSuccess(new SupabaseResponse(null, new SupabaseError(e.getMessage())));
+                    onError.accept(e);
                 }
             });
+            return call;
         }
 
         /**
@@ -428,6 +697,27 @@ public class SupabaseClientManager {
         }
     }
 
+    /**
+     * Read the total from a Content-Range header such as "0-24/3573"
+     *
+     * @param contentRange Header value, may be null
+     * @return Total row count, or -1 if unknown
+     */
+    static int parseTotalCount(String contentRange) {
+        if (contentRange == null) {
+            return -1;
+        }
+        int slash = contentRange.lastIndexOf('/');
+        if (slash < 0 || slash == contentRange.length() - 1) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(contentRange.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            return -1; // "*" when the count was not requested
+        }
+    }
+
     /**
      * Interface for Supabase callbacks
      */
@@ -441,65 +731,37 @@ public class SupabaseClientManager {
      */
     public static class SupabaseResponse {
         /**
-         * Parse JSON data to a list of class instances using simple deserialization.
-         * In a real app, use a proper JSON library like Gson or Jackson.
+         * Parse JSON data to a list of class instances using the cached row
+         * mapping plan for the class.
          *
          * @param <T>   The type to deserialize to
          * @param clazz The class to instantiate
          * @return A list of class instances
          */
         public <T> java.util.List<T> getDataList(Class<T> clazz) {
-            java.util.List<T> list = new java.util.ArrayList<>();
+            if (data == null) {
+                return new java.util.ArrayList<>();
+            }
             try {
-                if (data == null) {
-                    return list;
-                }
-                String jsonString = data.trim();
-                if (jsonString.startsWith("[")) {
-                    org.json.JSONArray arr = new org.json.JSONArray(jsonString);
-                    for (int i = 0; i < arr.length(); i++) {
-                        JSONObject json = arr.getJSONObject(i);
-                        T instance = clazz.getDeclaredConstructor().newInstance();
-                        for (java.lang.reflect.Field field : clazz.getDeclaredFields()) {
-                            field.setAccessible(true);
-                            String fieldName = field.getName();
-                            if (json.has(fieldName)) {
-                                Object value = json.get(fieldName);
-                                if (value != null && !value.equals(JSONObject.NULL)) {
-                                    field.set(instance, value);
-                                }
-                            }
-                        }
-                        list.add(instance);
-                    }
-                } else {
-                    // Single object, not an array
-                    JSONObject json = new JSONObject(jsonString);
-                    T instance = clazz.getDeclaredConstructor().newInstance();
-                    for (java.lang.reflect.Field field : clazz.getDeclaredFields()) {
-                        field.setAccessible(true);
-                        String fieldName = field.getName();
-                        if (json.has(fieldName)) {
-                            Object value = json.get(fieldName);
-                            if (value != null && !value.equals(JSONObject.NULL)) {
-                                field.set(instance, value);
-                            }
-                        }
-                    }
-                    list.add(instance);
-                }
+                return SupabaseJson.readList(new StringReader(data), clazz);
             } catch (Exception e) {
                 Log.e(TAG, "Error deserializing JSON to class list: " + e.getMessage());
+                return new java.util.ArrayList<>();
             }
-            return list;
         }
 
         private final String data;
         private final SupabaseError error;
+        private final int totalCount;
 
         public SupabaseResponse(String data, SupabaseError error) {
+            this(data, error, -1);
+        }
+
+        public SupabaseResponse(String data, SupabaseError error, int totalCount) {
             this.data = data;
             this.error = error;
+            this.totalCount = totalCount;
         }
 
         public String getData() {
@@ -507,39 +769,19 @@ public class SupabaseClientManager {
         }
 
         /**
-         * Parse JSON data to a class instance using simple deserialization.
-         * In a real app, use a proper JSON library like Gson or Jackson.
+         * Parse JSON data to a class instance using the cached row mapping plan
+         * for the class. If the data is an array, the first row is used.
          *
          * @param <T>   The type to deserialize to
          * @param clazz The class to instantiate
          * @return An instance of the class populated with data
          */
         public <T> T getData(Class<T> clazz) {
+            if (data == null) {
+                return null;
+            }
             try {
-                if (data == null) {
-                    return null;
-                }
-                // If the data is a JSON array, get the first object
-                String jsonString = data.trim();
-                if (jsonString.startsWith("[")) {
-                    org.json.JSONArray arr = new org.json.JSONArray(jsonString);
-                    if (arr.length() == 0)
-                        return null;
-                    jsonString = arr.getJSONObject(0).toString();
-                }
-                JSONObject json = new JSONObject(jsonString);
-                T instance = clazz.getDeclaredConstructor().newInstance();
-                for (java.lang.reflect.Field field : clazz.getDeclaredFields()) {
-                    field.setAccessible(true);
-                    String fieldName = field.getName();
-                    if (json.has(fieldName)) {
-                        Object value = json.get(fieldName);
-                        if (value != null && !value.equals(JSONObject.NULL)) {
-                            field.set(instance, value);
-                        }
-                    }
-                }
-                return instance;
+                return SupabaseJson.readFirst(new StringReader(data), clazz);
             } catch (Exception e) {
                 Log.e(TAG, "Error deserializing JSON to class: " + e.getMessage());
                 return null;
@@ -550,6 +792,15 @@ public class SupabaseClientManager {
             return error;
         }
 
+        /**
+         * Total number of matching rows, when requested with countExact()
+         *
+         * @return Row count, or -1 if unknown
+         */
+        public int getTotalCount() {
+            return totalCount;
+        }
+
         // Removed invalid executeWithResponseHandlers from SupabaseResponse. This
         // method belongs only in OperationResult.
     }
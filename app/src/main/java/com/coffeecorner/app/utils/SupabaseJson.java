@@ -0,0 +1,177 @@
+package com.coffeecorner.app.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Reads Supabase REST rows into model classes (User, Product, Order, ...), and
+ * writes model instances as rows.
+ *
+ * User, Product, CartItem and Order rows are bound by the hand-written adapters
+ * in {@link SupabaseRowAdapters}, without reflection. Other classes fall back to
+ * Gson's reflective adapters with snake_case column names. Bodies are decoded
+ * straight from a streaming reader, without an intermediate JSON tree.
+ * Dates are read and written as ISO-8601 timestamps in UTC, matching Postgres'
+ * timestamptz, whatever the device locale.
+ */
+public final class SupabaseJson {
+
+    // Supabase columns are snake_case, matching the model field naming elsewhere
+    private static final Gson gson = createGson();
+
+    private SupabaseJson() {
+        // Private constructor to prevent instantiation
+    }
+
+    private static Gson createGson() {
+        TypeAdapter<Date> dates = new IsoDateAdapter().nullSafe();
+        GsonBuilder builder = new GsonBuilder()
+                .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+                .registerTypeAdapter(Date.class, dates);
+        return SupabaseRowAdapters.register(builder, dates).create();
+    }
+
+    /**
+     * Decode every row in a response body. A single object body yields one row.
+     *
+     * @param reader Response body reader; not closed by this method
+     * @param clazz  Model class
+     * @param <T>    Model type
+     * @return Decoded rows
+     * @throws IOException If the body is not valid JSON for the model
+     */
+    @NonNull
+    public static <T> List<T> readList(@NonNull Reader reader, @NonNull Class<T> clazz) throws IOException {
+        TypeAdapter<T> plan = gson.getAdapter(clazz);
+        JsonReader json = new JsonReader(reader);
+        List<T> rows = new ArrayList<>();
+        JsonToken token = peekOrEnd(json);
+        if (token == JsonToken.BEGIN_ARRAY) {
+            json.beginArray();
+            while (json.hasNext()) {
+                T row = plan.read(json);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            json.endArray();
+        } else if (token == JsonToken.BEGIN_OBJECT) {
+            T row = plan.read(json);
+            if (row != null) {
+                rows.add(row);
+            }
+        } else if (token != JsonToken.END_DOCUMENT) {
+            json.skipValue();
+        }
+        return rows;
+    }
+
+    /**
+     * Decode the first row of a response body, skipping the rest
+     *
+     * @param reader Response body reader; not closed by this method
+     * @param clazz  Model class
+     * @param <T>    Model type
+     * @return First row, or null if there is none
+     * @throws IOException If the body is not valid JSON for the model
+     */
+    @Nullable
+    public static <T> T readFirst(@NonNull Reader reader, @NonNull Class<T> clazz) throws IOException {
+        TypeAdapter<T> plan = gson.getAdapter(clazz);
+        JsonReader json = new JsonReader(reader);
+        JsonToken token = peekOrEnd(json);
+        if (token == JsonToken.BEGIN_OBJECT) {
+            return plan.read(json);
+        }
+        if (token != JsonToken.BEGIN_ARRAY) {
+            if (token != JsonToken.END_DOCUMENT) {
+                json.skipValue();
+            }
+            return null;
+        }
+        json.beginArray();
+        T first = json.hasNext() ? plan.read(json) : null;
+        while (json.hasNext()) {
+            json.skipValue();
+        }
+        json.endArray();
+        return first;
+    }
+
+    /**
+     * Serialize a model, or a list of models, as JSON rows
+     *
+     * @param writer Destination; flushed but not closed by this method
+     * @param value  Row or list of rows
+     * @throws IOException If writing fails
+     */
+    public static void write(@NonNull Writer writer, @NonNull Object value) throws IOException {
+        JsonWriter json = new JsonWriter(writer);
+        gson.toJson(value, value.getClass(), json);
+        json.flush();
+    }
+
+    /**
+     * Peek the first token, treating an empty body (e.g. return=minimal) as no rows
+     */
+    private static JsonToken peekOrEnd(JsonReader json) throws IOException {
+        try {
+            return json.peek();
+        } catch (EOFException e) {
+            return JsonToken.END_DOCUMENT;
+        }
+    }
+
+    /**
+     * Dates as ISO-8601 in UTC. Reads timestamptz ("2024-05-01T09:30:00.123456+00:00"),
+     * timestamp without zone (taken as UTC) and date columns.
+     */
+    static final class IsoDateAdapter extends TypeAdapter<Date> {
+
+        @Override
+        public void write(JsonWriter out, Date value) throws IOException {
+            out.value(value.toInstant().toString());
+        }
+
+        @Override
+        public Date read(JsonReader in) throws IOException {
+            String text = in.nextString();
+            try {
+                return Date.from(OffsetDateTime.parse(text).toInstant());
+            } catch (DateTimeParseException ignored) {
+                // No offset, or a plain date
+            }
+            try {
+                return Date.from(LocalDateTime.parse(text).toInstant(ZoneOffset.UTC));
+            } catch (DateTimeParseException ignored) {
+                // A plain date
+            }
+            try {
+                return Date.from(LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant());
+            } catch (DateTimeParseException e) {
+                throw new IOException("Not an ISO-8601 date: " + text + " at " + in.getPath(), e);
+            }
+        }
+    }
+}
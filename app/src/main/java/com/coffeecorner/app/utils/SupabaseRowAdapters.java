@@ -0,0 +1,442 @@
+package com.coffeecorner.app.utils;
+
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.Order;
+import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.models.User;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Hand-written row adapters for the models read from and written to Supabase.
+ *
+ * Each adapter binds its snake_case columns through the model's constructor and
+ * setters, so no field is looked up or made accessible by reflection. Unknown
+ * columns are skipped and JSON nulls leave the model's default in place.
+ */
+final class SupabaseRowAdapters {
+
+    private SupabaseRowAdapters() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * Register the adapters for User, Product, CartItem and Order
+     *
+     * @param builder Gson builder to register with
+     * @param dates   Adapter for date columns
+     * @return The builder, for chaining
+     */
+    static GsonBuilder register(GsonBuilder builder, TypeAdapter<Date> dates) {
+        ProductAdapter products = new ProductAdapter();
+        CartItemAdapter cartItems = new CartItemAdapter(products);
+        return builder
+                .registerTypeAdapter(User.class, new UserAdapter().nullSafe())
+                .registerTypeAdapter(Product.class, products.nullSafe())
+                .registerTypeAdapter(CartItem.class, cartItems.nullSafe())
+                .registerTypeAdapter(Order.class, new OrderAdapter(cartItems, dates).nullSafe());
+    }
+
+    /**
+     * Columns of the profiles table, plus the loyalty fields the backend adds
+     */
+    static final class UserAdapter extends TypeAdapter<User> {
+
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            out.beginObject();
+            out.name("id").value(user.getId());
+            out.name("full_name").value(user.getFullName());
+            out.name("email").value(user.getEmail());
+            out.name("phone").value(user.getPhone());
+            out.name("gender").value(user.getGender());
+            out.name("profile_image_url").value(user.getPhotoUrl());
+            out.name("date_of_birth").value(user.getDateOfBirth());
+            out.name("loyalty_points").value(user.getLoyaltyPoints());
+            out.name("total_orders").value(user.getTotalOrders());
+            out.name("member_since").value(user.getMemberSince());
+            out.endObject();
+        }
+
+        @Override
+        public User read(JsonReader in) throws IOException {
+            User user = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                String column = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (column) {
+                    case "id":
+                        user.setId(in.nextString());
+                        break;
+                    case "full_name":
+                        user.setFullName(in.nextString());
+                        break;
+                    case "email":
+                        user.setEmail(in.nextString());
+                        break;
+                    case "phone":
+                        user.setPhone(in.nextString());
+                        break;
+                    case "gender":
+                        user.setGender(in.nextString());
+                        break;
+                    case "profile_image_url":
+                        user.setPhotoUrl(in.nextString());
+                        break;
+                    case "date_of_birth":
+                        user.setDateOfBirth(in.nextString());
+                        break;
+                    case "loyalty_points":
+                        user.setLoyaltyPoints(in.nextInt());
+                        break;
+                    case "total_orders":
+                        user.setTotalOrders(in.nextInt());
+                        break;
+                    case "member_since":
+                        user.setMemberSince(in.nextString());
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    }
+
+    /**
+     * Columns of the products table
+     */
+    static final class ProductAdapter extends TypeAdapter<Product> {
+
+        @Override
+        public void write(JsonWriter out, Product product) throws IOException {
+            out.beginObject();
+            out.name("id").value(product.getId());
+            out.name("name").value(product.getName());
+            out.name("description").value(product.getDescription());
+            out.name("price").value(product.getPrice());
+            out.name("category").value(product.getCategory());
+            out.name("image_url").value(product.getImageUrl());
+            out.name("is_featured").value(product.isFeatured());
+            out.name("is_available").value(product.isAvailable());
+            writeStrings(out.name("available_sizes"), product.getAvailableSizes());
+            writeStrings(out.name("available_addons"), product.getAvailableAddons());
+            out.name("rating").value((Number) product.getRating());
+            out.name("calories").value(product.getCalories());
+            out.endObject();
+        }
+
+        @Override
+        public Product read(JsonReader in) throws IOException {
+            Product product = new Product();
+            in.beginObject();
+            while (in.hasNext()) {
+                String column = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (column) {
+                    case "id":
+                        product.setId(in.nextString());
+                        break;
+                    case "name":
+                        product.setName(in.nextString());
+                        break;
+                    case "description":
+                        product.setDescription(in.nextString());
+                        break;
+                    case "price":
+                        product.setPrice(in.nextDouble());
+                        break;
+                    case "category":
+                        product.setCategory(in.nextString());
+                        break;
+                    case "image_url":
+                        product.setImageUrl(in.nextString());
+                        break;
+                    case "is_featured":
+                        product.setFeatured(in.nextBoolean());
+                        break;
+                    case "is_available":
+                        product.setAvailable(in.nextBoolean());
+                        break;
+                    case "available_sizes":
+                        product.setAvailableSizes(readStrings(in));
+                        break;
+                    case "available_addons":
+                        product.setAvailableAddons(readStrings(in));
+                        break;
+                    case "rating":
+                        product.setRating((float) in.nextDouble());
+                        break;
+                    case "calories":
+                        product.setCalories(in.nextInt());
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return product;
+        }
+    }
+
+    /**
+     * Cart lines, with the product nested under "product"
+     */
+    static final class CartItemAdapter extends TypeAdapter<CartItem> {
+
+        private final ProductAdapter products;
+
+        CartItemAdapter(ProductAdapter products) {
+            this.products = products;
+        }
+
+        @Override
+        public void write(JsonWriter out, CartItem item) throws IOException {
+            out.beginObject();
+            out.name("id").value(item.getId());
+            out.name("product");
+            if (item.getProduct() != null) {
+                products.write(out, item.getProduct());
+            } else {
+                out.nullValue();
+            }
+            out.name("quantity").value(item.getQuantity());
+            out.name("size").value(item.getSize());
+            out.name("milk_option").value(item.getMilkOption());
+            out.name("extra_charge").value(item.getExtraCharge());
+            out.name("temperature").value(item.getTemperature());
+            out.name("customizations").value(item.getCustomizations());
+            out.endObject();
+        }
+
+        @Override
+        public CartItem read(JsonReader in) throws IOException {
+            CartItem item = new CartItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                String column = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (column) {
+                    case "id":
+                        item.setId(in.nextString());
+                        break;
+                    case "product":
+                        item.setProduct(products.read(in));
+                        break;
+                    case "quantity":
+                        item.setQuantity(in.nextInt());
+                        break;
+                    case "size":
+                        item.setSize(in.nextString());
+                        break;
+                    case "milk_option":
+                        item.setMilkOption(in.nextString());
+                        break;
+                    case "extra_charge":
+                        item.setExtraCharge(in.nextDouble());
+                        break;
+                    case "temperature":
+                        item.setTemperature(in.nextString());
+                        break;
+                    case "customizations":
+                        item.setCustomizations(in.nextString());
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return item;
+        }
+    }
+
+    /**
+     * Orders with their lines. Also reads the orders table's own names for the
+     * ID, total and creation time (id, total_amount, created_at).
+     */
+    static final class OrderAdapter extends TypeAdapter<Order> {
+
+        private final CartItemAdapter cartItems;
+        private final TypeAdapter<Date> dates;
+
+        OrderAdapter(CartItemAdapter cartItems, TypeAdapter<Date> dates) {
+            this.cartItems = cartItems;
+            this.dates = dates;
+        }
+
+        @Override
+        public void write(JsonWriter out, Order order) throws IOException {
+            out.beginObject();
+            out.name("order_id").value(order.getOrderId());
+            out.name("status").value(order.getStatus());
+            out.name("order_date");
+            if (order.getOrderDate() != null) {
+                dates.write(out, order.getOrderDate());
+            } else {
+                out.nullValue();
+            }
+            out.name("estimated_delivery_time_minutes").value(order.getEstimatedDeliveryTime());
+            out.name("items");
+            if (order.getItems() != null) {
+                out.beginArray();
+                for (CartItem item : order.getItems()) {
+                    cartItems.write(out, item);
+                }
+                out.endArray();
+            } else {
+                out.nullValue();
+            }
+            out.name("subtotal").value(order.getSubtotal());
+            out.name("delivery_fee").value(order.getDeliveryFee());
+            out.name("tax").value(order.getTax());
+            out.name("discount").value(order.getDiscount());
+            out.name("total").value(order.getTotal());
+            out.name("delivery_address").value(order.getDeliveryAddress());
+            out.name("payment_method").value(order.getPaymentMethod());
+            out.name("delivery_person_name").value(order.getDeliveryPersonName());
+            out.name("delivery_person_phone").value(order.getDeliveryPersonPhone());
+            out.name("delivery_person_photo").value(order.getDeliveryPersonPhoto());
+            out.endObject();
+        }
+
+        @Override
+        public Order read(JsonReader in) throws IOException {
+            Order order = new Order();
+            // The setters for the lines and charges recompute the totals, so the
+            // stored totals are applied last
+            Double subtotal = null;
+            Double total = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String column = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (column) {
+                    case "order_id":
+                    case "id":
+                        order.setOrderId(in.nextString());
+                        break;
+                    case "status":
+                        order.setStatus(in.nextString());
+                        break;
+                    case "order_date":
+                    case "created_at":
+                        order.setOrderDate(dates.read(in));
+                        break;
+                    case "estimated_delivery_time_minutes":
+                        order.setEstimatedDeliveryTime(in.nextInt());
+                        break;
+                    case "items":
+                        order.setItems(readItems(in));
+                        break;
+                    case "subtotal":
+                        subtotal = in.nextDouble();
+                        break;
+                    case "delivery_fee":
+                        order.setDeliveryFee(in.nextDouble());
+                        break;
+                    case "tax":
+                        order.setTax(in.nextDouble());
+                        break;
+                    case "discount":
+                        order.setDiscount(in.nextDouble());
+                        break;
+                    case "total":
+                    case "total_amount":
+                        total = in.nextDouble();
+                        break;
+                    case "delivery_address":
+                        order.setDeliveryAddress(in.nextString());
+                        break;
+                    case "payment_method":
+                        order.setPaymentMethod(in.nextString());
+                        break;
+                    case "delivery_person_name":
+                        order.setDeliveryPersonName(in.nextString());
+                        break;
+                    case "delivery_person_phone":
+                        order.setDeliveryPersonPhone(in.nextString());
+                        break;
+                    case "delivery_person_photo":
+                        order.setDeliveryPersonPhoto(in.nextString());
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            if (subtotal != null) {
+                order.setSubtotal(subtotal);
+            }
+            if (total != null) {
+                order.setTotal(total);
+            }
+            return order;
+        }
+
+        private List<CartItem> readItems(JsonReader in) throws IOException {
+            List<CartItem> items = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                } else {
+                    items.add(cartItems.read(in));
+                }
+            }
+            in.endArray();
+            return items;
+        }
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else {
+                values.add(in.nextString());
+            }
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static void writeStrings(JsonWriter out, List<String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+}
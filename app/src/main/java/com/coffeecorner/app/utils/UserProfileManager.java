@@ -26,11 +26,12 @@ public class UserProfileManager {
             return;
         }
         
-        userRepository.getUserById(userId, new UserRepository.UserCallback() {
+        // Same request as UserRepository.fetchUserProfileFromServer, so concurrent
+        // syncs and profile refreshes share one call; the repository saves the result
+        userRepository.fetchUserProfileFromServer(new UserRepository.ProfileCallback() {
             @Override
-            public void onUserLoaded(User user) {
+            public void onSuccess(User user) {
                 if (user != null) {
-                    updateLocalUserData(user);
                     Log.d(TAG, "User data synchronized successfully");
                 } else {
                     Log.w(TAG, "User data not found on server");
@@ -44,34 +45,6 @@ public class UserProfileManager {
         });
     }
     
-    private void updateLocalUserData(User user) {
-        saveUserToPreferences(user);
-    }
-    
-    private void saveUserToPreferences(User user) {
-        if (user == null) return;
-        
-        if (user.getId() != null) {
-            preferencesHelper.saveUserId(user.getId());
-        }
-        if (user.getFullName() != null && user.getEmail() != null) {
-            preferencesHelper.saveUserLogin(user.getId(), user.getFullName(), user.getEmail(),
-                    preferencesHelper.getAuthToken());
-        }
-        if (user.getPhone() != null) {
-            preferencesHelper.saveUserPhone(user.getPhone());
-        }
-        if (user.getPhotoUrl() != null) {
-            preferencesHelper.saveUserProfilePic(user.getPhotoUrl());
-        }
-        if (user.getGender() != null) {
-            preferencesHelper.saveUserGender(user.getGender());
-        }
-        if (user.getDateOfBirth() != null) {
-            preferencesHelper.saveUserDateOfBirth(user.getDateOfBirth());
-        }
-    }
-    
     public User getCurrentUser() {
         return loadUserFromPreferences();
     }
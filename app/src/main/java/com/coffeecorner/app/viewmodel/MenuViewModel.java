@@ -6,10 +6,13 @@ import androidx.lifecycle.ViewModel;
 
 import com.coffeecorner.app.models.Product;
 import com.coffeecorner.app.repositories.MenuRepository;
+import com.coffeecorner.app.utils.ComputeStage;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -18,12 +21,20 @@ import java.util.Set;
  */
 public class MenuViewModel extends ViewModel {
 
+    private static final String KEY_MENU_ITEMS = "menu_items";
+
     private final MenuRepository menuRepository;
     private final MutableLiveData<List<String>> categories = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>();
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
     private final MutableLiveData<List<Product>> filteredProducts = new MutableLiveData<>();
     private final MutableLiveData<String> currentCategory = new MutableLiveData<>();
+    private final MutableLiveData<List<Object>> menuItems = new MutableLiveData<>(new ArrayList<>());
+
+    // Latest inputs of the menu list, as delivered by the repository
+    private volatile List<String> latestCategories = new ArrayList<>();
+    private volatile List<Product> latestProducts = new ArrayList<>();
+    private final ComputeStage computeStage = new ComputeStage();
 
     public MenuViewModel(MenuRepository menuRepository) {
         this.menuRepository = menuRepository;
@@ -47,6 +58,8 @@ public class MenuViewModel extends ViewModel {
             @Override
             public void onCategoriesLoaded(List<String> categoryList) {
                 categories.postValue(categoryList);
+                latestCategories = categoryList != null ? categoryList : new ArrayList<>();
+                rebuildMenuItems();
                 isLoading.postValue(false);
             }
 
@@ -70,7 +83,7 @@ public class MenuViewModel extends ViewModel {
             menuRepository.getAllProducts(new MenuRepository.ProductsCallback() {
                 @Override
                 public void onSuccess(List<Product> productList) {
-                    filteredProducts.postValue(productList);
+                    onProductsLoaded(productList);
                     isLoading.postValue(false);
                 }
 
@@ -84,7 +97,7 @@ public class MenuViewModel extends ViewModel {
             menuRepository.getProductsByCategory(category, new MenuRepository.ProductsCallback() {
                 @Override
                 public void onSuccess(List<Product> productList) {
-                    filteredProducts.postValue(productList);
+                    onProductsLoaded(productList);
                     isLoading.postValue(false);
                 }
 
@@ -97,6 +110,54 @@ public class MenuViewModel extends ViewModel {
         }
     }
 
+    private void onProductsLoaded(List<Product> productList) {
+        filteredProducts.postValue(productList);
+        latestProducts = productList != null ? productList : new ArrayList<>();
+        rebuildMenuItems();
+    }
+
+    /**
+     * Rebuild the menu list from the latest categories and products on the
+     * compute stage, superseding any rebuild still running
+     */
+    private void rebuildMenuItems() {
+        final List<String> categoryList = latestCategories;
+        final List<Product> productList = latestProducts;
+        computeStage.run(KEY_MENU_ITEMS, () -> buildMenuItems(categoryList, productList), menuItems::postValue);
+    }
+
+    /**
+     * Each category as a header followed by its products, in category order.
+     * Products of a category missing from the list come last under their own
+     * header; categories without products are left out.
+     */
+    private static List<Object> buildMenuItems(List<String> categoryList, List<Product> productList) {
+        Map<String, List<Product>> byCategory = new LinkedHashMap<>();
+        for (String category : categoryList) {
+            if (!"All".equalsIgnoreCase(category)) {
+                byCategory.put(category, new ArrayList<>());
+            }
+        }
+        for (Product product : productList) {
+            String category = product.getCategory() != null ? product.getCategory() : "Other";
+            List<Product> group = byCategory.get(category);
+            if (group == null) {
+                group = new ArrayList<>();
+                byCategory.put(category, group);
+            }
+            group.add(product);
+        }
+
+        List<Object> items = new ArrayList<>(byCategory.size() + productList.size());
+        for (Map.Entry<String, List<Product>> entry : byCategory.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                items.add(entry.getKey());
+                items.addAll(entry.getValue());
+            }
+        }
+        return items;
+    }
+
     /**
      * Search products by query
      * 
@@ -107,7 +168,7 @@ public class MenuViewModel extends ViewModel {
         menuRepository.searchProducts(query, new MenuRepository.ProductsCallback() {
             @Override
             public void onSuccess(List<Product> productList) {
-                filteredProducts.postValue(productList);
+                onProductsLoaded(productList);
                 isLoading.postValue(false);
             }
 
@@ -164,24 +225,20 @@ public class MenuViewModel extends ViewModel {
         return errorMessage;
     }
 
-    public LiveData<Object> getFilteredMenuItems() {
-        MutableLiveData<Object> filteredMenuItems = new MutableLiveData<>();
-        List<Object> items = new ArrayList<>();
-
-        // Add categories to the list
-        List<String> categoryList = categories.getValue();
-        if (categoryList != null && !categoryList.isEmpty()) {
-            items.addAll(categoryList);
-        }
-
-        // Add products to the list
-        List<Product> productList = filteredProducts.getValue();
-        if (productList != null && !productList.isEmpty()) {
-            items.addAll(productList);
-        }
+    /**
+     * Get the menu list: category headers (String) each followed by its
+     * products (Product). Rebuilt off the main thread as data arrives.
+     *
+     * @return LiveData containing the header-interleaved menu list
+     */
+    public LiveData<List<Object>> getFilteredMenuItems() {
+        return menuItems;
+    }
 
-        filteredMenuItems.setValue(items);
-        return filteredMenuItems;
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        computeStage.close();
     }
 
 }
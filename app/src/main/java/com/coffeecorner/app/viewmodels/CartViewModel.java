@@ -7,10 +7,15 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 
 import com.coffeecorner.app.models.CartItem;
 import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.repositories.CartMutationQueue;
 import com.coffeecorner.app.repositories.CartRepository;
+import com.coffeecorner.app.utils.CartPricing;
+import com.coffeecorner.app.utils.CartStore;
+import com.coffeecorner.app.utils.Constants;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -18,14 +23,24 @@ import java.util.List;
 /**
  * CartViewModel - Manages and provides cart data to the UI
  * Handles adding, removing, updating cart items by interacting with
- * CartRepository.
+ * CartRepository. The displayed cart follows {@link CartStore}, which the
+ * repository publishes to, with this screen's unconfirmed changes on top.
  */
 public class CartViewModel extends AndroidViewModel {
 
     private static final String TAG = "CartViewModel";
 
     private final CartRepository cartRepository;
+    private final CartStore cartStore;
+    private final CartMutationQueue mutationQueue;
+    // Last cart state published by the store, restored when a queued change fails
+    private List<CartItem> confirmedItems;
+    private final Observer<CartStore.Snapshot> snapshotObserver = this::onSnapshot;
+    // Running totals and pricing of the displayed cart, adjusted per optimistic change
+    private final CartPricing.Totals displayedTotals = new CartPricing.Totals();
+    private CartPricing.Adjustments adjustments = CartPricing.Adjustments.NONE;
     private final MutableLiveData<List<CartItem>> cartItems = new MutableLiveData<>(new ArrayList<>());
+    private final MutableLiveData<CartPricing.Quote> quote = new MutableLiveData<>(CartPricing.Quote.EMPTY);
     private final MutableLiveData<Double> cartTotal = new MutableLiveData<>(0.0);
     private final MutableLiveData<Integer> cartItemCount = new MutableLiveData<>(0);
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
@@ -36,6 +51,29 @@ public class CartViewModel extends AndroidViewModel {
     public CartViewModel(@NonNull Application application) {
         super(application);
         cartRepository = CartRepository.getInstance(application.getApplicationContext());
+        cartStore = CartStore.getInstance();
+        confirmedItems = cartStore.getSnapshot().getItems();
+        mutationQueue = new CartMutationQueue(cartRepository, Constants.CART_MUTATION_DEBOUNCE_MS,
+                new CartMutationQueue.Listener() {
+                    @Override
+                    public void onMutationConfirmed(String itemId, List<CartItem> items) {
+                        // The store already has the server's cart; show it once no other
+                        // optimistic change is outstanding
+                        if (!mutationQueue.hasPending()) {
+                            showSnapshot(cartStore.getSnapshot());
+                        }
+                        Log.d(TAG, "Cart change confirmed for itemId: " + itemId);
+                    }
+
+                    @Override
+                    public void onMutationFailed(String itemId, String errorMsg) {
+                        cartItems.setValue(restoreConfirmed(itemId));
+                        publishQuote(CartPricing.quote(displayedTotals, adjustments));
+                        errorMessage.setValue("Failed to update cart: " + errorMsg);
+                        Log.e(TAG, "Cart change failed for itemId: " + itemId + " - " + errorMsg);
+                    }
+                });
+        cartStore.getSnapshots().observeForever(snapshotObserver);
         // Load initial cart data - suppress this-escape warning as this is safe
         // initialization
         @SuppressWarnings("this-escape")
@@ -52,7 +90,34 @@ public class CartViewModel extends AndroidViewModel {
     }
 
     /**
-     * Load cart items from the repository (which fetches from backend).
+     * Track a cart published to the store, showing it unless this screen has
+     * changes the server has not confirmed yet
+     *
+     * @param snapshot Published cart
+     */
+    private void onSnapshot(CartStore.Snapshot snapshot) {
+        confirmedItems = snapshot.getItems();
+        if (!mutationQueue.hasPending()) {
+            showSnapshot(snapshot);
+        }
+    }
+
+    private void showSnapshot(CartStore.Snapshot snapshot) {
+        snapshot.copyTotalsTo(displayedTotals);
+        adjustments = snapshot.getAdjustments();
+        cartItems.setValue(snapshot.getItems());
+        publishQuote(snapshot.getQuote());
+    }
+
+    private void publishQuote(CartPricing.Quote priced) {
+        quote.setValue(priced);
+        cartTotal.setValue(CartPricing.toAmount(priced.getSubtotalCents()));
+        cartItemCount.setValue(priced.getItemCount());
+    }
+
+    /**
+     * Load cart items from the repository (which fetches from backend). The
+     * result reaches cartItems through the store.
      */
     public void loadCartItems() {
         isLoading.setValue(true);
@@ -60,8 +125,6 @@ public class CartViewModel extends AndroidViewModel {
         cartRepository.getCartItems(new CartRepository.CartItemsCallback() {
             @Override
             public void onCartItemsLoaded(List<CartItem> items) {
-                cartItems.setValue(items != null ? items : new ArrayList<>());
-                updateCartSummary(items);
                 isLoading.setValue(false);
                 errorMessage.setValue(null); // Clear previous errors
                 Log.d(TAG, "loadCartItems onSuccess: Loaded " + (items != null ? items.size() : 0) + " items.");
@@ -69,8 +132,7 @@ public class CartViewModel extends AndroidViewModel {
 
             @Override
             public void onError(String errorMsg) {
-                cartItems.setValue(new ArrayList<>()); // Clear cart on error
-                updateCartSummary(new ArrayList<>());
+                // The last cart published to the store stays on screen
                 errorMessage.setValue("Failed to load cart: " + errorMsg);
                 isLoading.setValue(false);
                 Log.e(TAG, "loadCartItems onError: " + errorMsg);
@@ -95,8 +157,6 @@ public class CartViewModel extends AndroidViewModel {
         cartRepository.addToCart(product, quantity, new CartRepository.CartItemsCallback() {
             @Override
             public void onCartItemsLoaded(List<CartItem> items) {
-                cartItems.setValue(items != null ? items : new ArrayList<>());
-                updateCartSummary(items);
                 isLoading.setValue(false);
                 successMessage.setValue(product.getName() + " added to cart.");
                 errorMessage.setValue(null);
@@ -115,7 +175,9 @@ public class CartViewModel extends AndroidViewModel {
     }
 
     /**
-     * Remove an item from the cart via the repository.
+     * Remove an item from the cart. The item disappears at once and the
+     * removal is sent through the mutation queue, replacing any quantity
+     * change for the item that has not been sent yet.
      *
      * @param cartItem Item to remove (used for its ID).
      */
@@ -125,34 +187,21 @@ public class CartViewModel extends AndroidViewModel {
             Log.w(TAG, "removeFromCart: Invalid cart item or product ID.");
             return;
         }
-        isLoading.setValue(true);
         // Assuming cartItem.getProductId() is the `itemId` the repository expects.
         // If your CartItem has a unique `id` field distinct from `productId`, use that.
         String itemIdToRemove = cartItem.getProductId();
         Log.d(TAG, "removeFromCart: Removing itemId: " + itemIdToRemove);
 
-        cartRepository.removeFromCart(itemIdToRemove, new CartRepository.CartItemsCallback() {
-            @Override
-            public void onCartItemsLoaded(List<CartItem> items) {
-                cartItems.setValue(items != null ? items : new ArrayList<>());
-                updateCartSummary(items);
-                isLoading.setValue(false);
-                successMessage.setValue("Item removed from cart.");
-                errorMessage.setValue(null);
-                Log.d(TAG, "removeFromCart onSuccess. Cart size: " + (items != null ? items.size() : 0));
-            }
-
-            @Override
-            public void onError(String errorMsg) {
-                errorMessage.setValue("Failed to remove from cart: " + errorMsg);
-                isLoading.setValue(false);
-                Log.e(TAG, "removeFromCart onError: " + errorMsg);
-            }
-        });
+        applyOptimistic(itemIdToRemove, 0);
+        mutationQueue.submit(itemIdToRemove, 0);
+        successMessage.setValue("Item removed from cart.");
+        errorMessage.setValue(null);
     }
 
     /**
-     * Update the quantity of an item in the cart via the repository.
+     * Update the quantity of an item in the cart. The new quantity is shown at
+     * once; rapid changes to the same item are coalesced and only the final
+     * quantity is sent. If the server rejects it, the item is rolled back.
      *
      * @param cartItem    Item to update (used for its ID).
      * @param newQuantity New quantity.
@@ -163,29 +212,76 @@ public class CartViewModel extends AndroidViewModel {
             Log.w(TAG, "updateCartItemQuantity: Invalid cart item, product ID, or new quantity.");
             return;
         }
-        isLoading.setValue(true);
         // Assuming cartItem.getProductId() is the `itemId`.
         String itemIdToUpdate = cartItem.getProductId();
         Log.d(TAG, "updateCartItemQuantity: Updating itemId: " + itemIdToUpdate + " to quantity: " + newQuantity);
 
-        cartRepository.updateQuantity(itemIdToUpdate, newQuantity, new CartRepository.CartItemsCallback() {
-            @Override
-            public void onCartItemsLoaded(List<CartItem> items) {
-                cartItems.setValue(items != null ? items : new ArrayList<>());
-                updateCartSummary(items);
-                isLoading.setValue(false);
-                successMessage.setValue("Cart updated.");
-                errorMessage.setValue(null);
-                Log.d(TAG, "updateCartItemQuantity onSuccess. Cart size: " + (items != null ? items.size() : 0));
+        applyOptimistic(itemIdToUpdate, newQuantity);
+        mutationQueue.submit(itemIdToUpdate, newQuantity);
+    }
+
+    /**
+     * Show a quantity change immediately, before the server confirms it
+     *
+     * @param itemId   Product ID of the item
+     * @param quantity New quantity; 0 removes the item
+     */
+    private void applyOptimistic(String itemId, int quantity) {
+        List<CartItem> current = cartItems.getValue();
+        List<CartItem> updated = new ArrayList<>();
+        if (current != null) {
+            for (CartItem item : current) {
+                if (!itemId.equals(item.getProductId())) {
+                    updated.add(item);
+                    continue;
+                }
+                displayedTotals.remove(item);
+                if (quantity > 0) {
+                    CartItem changed = item.withQuantity(quantity);
+                    displayedTotals.add(changed);
+                    updated.add(changed);
+                }
             }
+        }
+        cartItems.setValue(updated);
+        publishQuote(CartPricing.quote(displayedTotals, adjustments));
+    }
 
-            @Override
-            public void onError(String errorMsg) {
-                errorMessage.setValue("Failed to update cart: " + errorMsg);
-                isLoading.setValue(false);
-                Log.e(TAG, "updateCartItemQuantity onError: " + errorMsg);
+    /**
+     * Build the current cart with one item put back to its last confirmed
+     * state, keeping other items' pending changes
+     *
+     * @param itemId Product ID of the item to restore
+     * @return Cart with the item restored
+     */
+    private List<CartItem> restoreConfirmed(String itemId) {
+        CartItem confirmed = null;
+        int confirmedIndex = 0;
+        for (int i = 0; i < confirmedItems.size(); i++) {
+            if (itemId.equals(confirmedItems.get(i).getProductId())) {
+                confirmed = confirmedItems.get(i);
+                confirmedIndex = i;
+                break;
             }
-        });
+        }
+
+        List<CartItem> restored = new ArrayList<>();
+        List<CartItem> current = cartItems.getValue();
+        if (current != null) {
+            for (CartItem item : current) {
+                if (!itemId.equals(item.getProductId())) {
+                    restored.add(item);
+                } else {
+                    displayedTotals.remove(item);
+                }
+            }
+        }
+        if (confirmed != null) {
+            // Published items are never modified, so the confirmed item is reused as is
+            restored.add(Math.min(confirmedIndex, restored.size()), confirmed);
+            displayedTotals.add(confirmed);
+        }
+        return restored;
     }
 
     /**
@@ -197,8 +293,6 @@ public class CartViewModel extends AndroidViewModel {
         cartRepository.clearCart(new CartRepository.CartOperationCallback() {
             @Override
             public void onSuccess(String message) {
-                cartItems.setValue(new ArrayList<>()); // Clear local list
-                updateCartSummary(new ArrayList<>());
                 isLoading.setValue(false);
                 successMessage.setValue(message != null ? message : "Cart cleared successfully.");
                 errorMessage.setValue(null);
@@ -214,35 +308,18 @@ public class CartViewModel extends AndroidViewModel {
         });
     }
 
-    /**
-     * Calculate and update the cart total and item count based on current
-     * cartItems.
-     * 
-     * @param currentItems The list of cart items to summarize.
-     */
-    private void updateCartSummary(List<CartItem> currentItems) {
-        if (currentItems == null) {
-            cartTotal.setValue(0.0);
-            cartItemCount.setValue(0);
-            return;
-        }
-
-        double total = 0;
-        int count = 0;
-        for (CartItem item : currentItems) {
-            total += item.getPrice() * item.getQuantity();
-            count += item.getQuantity();
-        }
-        cartTotal.setValue(total);
-        cartItemCount.setValue(count);
-        Log.d(TAG, "updateCartSummary: Total = " + total + ", Count = " + count);
-    }
-
     // Getters for LiveData
     public LiveData<List<CartItem>> getCartItems() {
         return cartItems;
     }
 
+    /**
+     * @return Price breakdown of the displayed cart, including unconfirmed changes
+     */
+    public LiveData<CartPricing.Quote> getQuote() {
+        return quote;
+    }
+
     public LiveData<Double> getCartTotal() {
         return cartTotal;
     }
@@ -265,6 +342,9 @@ public class CartViewModel extends AndroidViewModel {
 
     @Override
     protected void onCleared() {
+        // Send changes still waiting out the debounce rather than dropping them
+        mutationQueue.flush();
+        cartStore.getSnapshots().removeObserver(snapshotObserver);
         super.onCleared();
         Log.d(TAG, "onCleared: CartViewModel is cleared");
     }
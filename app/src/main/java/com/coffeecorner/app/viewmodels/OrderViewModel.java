@@ -13,6 +13,7 @@ import com.coffeecorner.app.models.Order;
 import com.coffeecorner.app.network.ApiCallback;
 import com.coffeecorner.app.network.ApiResponse;
 import com.coffeecorner.app.repositories.OrderRepository;
+import com.coffeecorner.app.utils.ComputeStage;
 import com.coffeecorner.app.utils.PreferencesHelper;
 
 import java.util.ArrayList;
@@ -25,9 +26,19 @@ import java.util.List;
 public class OrderViewModel extends AndroidViewModel {
 
     private static final String TAG = "OrderViewModel";
+    private static final String KEY_ORDERS = "orders";
 
     private final OrderRepository orderRepository;
     private final PreferencesHelper preferencesHelper;
+    // Status partitioning of order history runs here, off the main thread
+    private final ComputeStage computeStage = new ComputeStage();
+    // Orders of the current load already split by status, and the ones that
+    // arrived since, waiting to be split and appended; guarded by partitionLock
+    private final Object partitionLock = new Object();
+    private PartitionedOrders partitioned = new PartitionedOrders();
+    private List<Order> unpartitioned = new ArrayList<>();
+    // Main thread only; answers for an earlier load are dropped
+    private int loadGeneration;
 
     private final MutableLiveData<List<Order>> activeOrders = new MutableLiveData<>(new ArrayList<>());
     private final MutableLiveData<List<Order>> completedOrders = new MutableLiveData<>(new ArrayList<>());
@@ -89,58 +100,50 @@ public class OrderViewModel extends AndroidViewModel {
         isLoading.setValue(true);
         Log.d(TAG, "loadOrders: Fetching orders with JWT authentication");
 
-        orderRepository.getUserOrders(new OrderRepository.OrdersCallback() {
+        final int generation = ++loadGeneration;
+        resetPartitioned();
+        final int[] streamedCount = { 0 };
+        orderRepository.streamUserOrders(new OrderRepository.OrdersStreamCallback() {
+            @Override
+            public void onOrdersChunk(List<Order> chunk) {
+                if (generation != loadGeneration) {
+                    return;
+                }
+                // Show the newest orders while older history is still downloading.
+                // Only the new chunk is split; it is appended to what is shown.
+                isLoading.setValue(false);
+                streamedCount[0] += chunk.size();
+                publishPartitioned(chunk);
+            }
+
             @Override
             public void onOrdersLoaded(List<Order> orders) {
+                if (generation != loadGeneration) {
+                    return;
+                }
                 isLoading.setValue(false);
                 if (orders != null) {
                     Log.d(TAG, "loadOrders onOrdersLoaded: Received " + orders.size() + " orders.");
-                    List<Order> active = new ArrayList<>();
-                    List<Order> completed = new ArrayList<>();
-                    List<Order> cancelled = new ArrayList<>();
-                    for (Order order : orders) {
-                        if (order.getStatus() == null) {
-                            Log.w(TAG, "Order with ID " + order.getId() + " has null status. Skipping.");
-                            continue;
-                        }
-                        switch (order.getStatus()) {
-                            case Order.STATUS_PENDING:
-                            case Order.STATUS_CONFIRMED:
-                            case Order.STATUS_PREPARING:
-                            case Order.STATUS_DELIVERING:
-                                active.add(order);
-                                break;
-                            case Order.STATUS_DELIVERED:
-                            case Order.STATUS_COMPLETED:
-                                completed.add(order);
-                                break;
-                            case Order.STATUS_CANCELLED:
-                            case Order.STATUS_REFUNDED:
-                                cancelled.add(order);
-                                break;
-                            default:
-                                Log.w(TAG, "Order with ID " + order.getId() + " has unhandled status: "
-                                        + order.getStatus() + ". Adding to active list for now.");
-                                active.add(order);
-                                break;
-                        }
+                    if (orders.size() != streamedCount[0]) {
+                        // Not delivered in chunks; split the whole list
+                        resetPartitioned();
+                        publishPartitioned(orders);
                     }
-                    activeOrders.setValue(active);
-                    completedOrders.setValue(completed);
-                    cancelledOrders.setValue(cancelled);
-                    Log.d(TAG, "loadOrders: Filtered into Active=" + active.size() + ", Completed=" + completed.size()
-                            + ", Cancelled=" + cancelled.size());
                 } else {
                     Log.e(TAG, "loadOrders onOrdersLoaded: Received null orders list.");
-                    activeOrders.setValue(new ArrayList<>());
-                    completedOrders.setValue(new ArrayList<>());
-                    cancelledOrders.setValue(new ArrayList<>());
+                    computeStage.cancel(KEY_ORDERS);
+                    activeOrders.postValue(new ArrayList<>());
+                    completedOrders.postValue(new ArrayList<>());
+                    cancelledOrders.postValue(new ArrayList<>());
                     errorMessage.setValue("Failed to load orders. Please try again.");
                 }
             }
 
             @Override
             public void onError(String error) {
+                if (generation != loadGeneration) {
+                    return;
+                }
                 isLoading.setValue(false);
                 errorMessage.setValue("Error loading orders: " + error);
                 Log.e(TAG, "loadOrders onError: " + error);
@@ -148,6 +151,76 @@ public class OrderViewModel extends AndroidViewModel {
         });
     }
 
+    /**
+     * Start splitting a new load from nothing
+     */
+    private void resetPartitioned() {
+        synchronized (partitionLock) {
+            partitioned = new PartitionedOrders();
+            unpartitioned = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Split newly arrived orders by status on the compute stage, append them
+     * to the lists split so far and post the three lists. A computation
+     * superseded before it runs leaves its orders for the next one.
+     */
+    private void publishPartitioned(List<Order> orders) {
+        synchronized (partitionLock) {
+            unpartitioned.addAll(orders);
+        }
+        computeStage.run(KEY_ORDERS, () -> {
+            synchronized (partitionLock) {
+                PartitionedOrders next = new PartitionedOrders(partitioned);
+                partitionOrders(unpartitioned, next.active, next.completed, next.cancelled);
+                unpartitioned = new ArrayList<>();
+                partitioned = next;
+                return next;
+            }
+        }, result -> {
+            activeOrders.postValue(result.active);
+            completedOrders.postValue(result.completed);
+            cancelledOrders.postValue(result.cancelled);
+            Log.d(TAG, "loadOrders: Filtered into Active=" + result.active.size() + ", Completed="
+                    + result.completed.size() + ", Cancelled=" + result.cancelled.size());
+        });
+    }
+
+    /**
+     * Split orders by status into active, completed and cancelled lists
+     */
+    private void partitionOrders(List<Order> orders, List<Order> active, List<Order> completed,
+            List<Order> cancelled) {
+        for (Order order : orders) {
+            if (order.getStatus() == null) {
+                Log.w(TAG, "Order with ID " + order.getId() + " has null status. Skipping.");
+                continue;
+            }
+            switch (order.getStatus()) {
+                case Order.STATUS_PENDING:
+                case Order.STATUS_CONFIRMED:
+                case Order.STATUS_PREPARING:
+                case Order.STATUS_DELIVERING:
+                    active.add(order);
+                    break;
+                case Order.STATUS_DELIVERED:
+                case Order.STATUS_COMPLETED:
+                    completed.add(order);
+                    break;
+                case Order.STATUS_CANCELLED:
+                case Order.STATUS_REFUNDED:
+                    cancelled.add(order);
+                    break;
+                default:
+                    Log.w(TAG, "Order with ID " + order.getId() + " has unhandled status: "
+                            + order.getStatus() + ". Adding to active list for now.");
+                    active.add(order);
+                    break;
+            }
+        }
+    }
+
     public void createOrder(List<CartItem> cartItems, double total, String deliveryAddress, String paymentMethod,
             String paymentId, String notes) {
         String authToken = preferencesHelper.getAuthToken();
@@ -288,7 +361,30 @@ public class OrderViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        computeStage.close();
         Log.d(TAG, "onCleared: OrderViewModel is cleared");
         // Release resources here if necessary, e.g., unregister listeners
     }
+
+    /**
+     * Orders split by status, as computed off the main thread. Never changed
+     * once posted; appending copies the lists.
+     */
+    private static final class PartitionedOrders {
+        final List<Order> active;
+        final List<Order> completed;
+        final List<Order> cancelled;
+
+        PartitionedOrders() {
+            active = new ArrayList<>();
+            completed = new ArrayList<>();
+            cancelled = new ArrayList<>();
+        }
+
+        PartitionedOrders(PartitionedOrders previous) {
+            active = new ArrayList<>(previous.active);
+            completed = new ArrayList<>(previous.completed);
+            cancelled = new ArrayList<>(previous.cancelled);
+        }
+    }
 }
@@ -1,29 +1,49 @@
 package com.coffeecorner.app.viewmodels;
 
 import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 
 import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.models.ProductPage;
+import com.coffeecorner.app.repositories.Cancellable;
 import com.coffeecorner.app.repositories.ProductRepository;
+import com.coffeecorner.app.utils.CatalogFacets;
+import com.coffeecorner.app.utils.ComputeStage;
+import com.coffeecorner.app.utils.Constants;
+import com.coffeecorner.app.utils.ExpiringLruCache;
+import com.coffeecorner.app.utils.ProductIdentityMap;
+import com.coffeecorner.app.utils.ProductSearchIndex;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
 
 /**
  * ProductViewModel - Manages and provides product data to the UI
  * Handles product listing, filtering, and details
+ * Category listings are loaded a page at a time
  */
 public class ProductViewModel extends AndroidViewModel {
 
+    private static final String TAG = "ProductViewModel";
+    private static final String KEY_PRODUCTS = "products";
+
     private final ProductRepository productRepository;
+    private final ProductIdentityMap identityMap = ProductIdentityMap.getInstance();
     private final MutableLiveData<List<Product>> products = new MutableLiveData<>(new ArrayList<>());
     private final MutableLiveData<List<String>> categories = new MutableLiveData<>(new ArrayList<>());
     private final MutableLiveData<String> selectedCategory = new MutableLiveData<>("All");
@@ -31,10 +51,37 @@ public class ProductViewModel extends AndroidViewModel {
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
     private final MutableLiveData<Product> selectedProduct = new MutableLiveData<>(); // For product details
 
-    // Add cache maps
-    private final Map<String, List<Product>> categoryProductCache = new HashMap<>();
-    private long lastCacheTime = 0;
-    private static final long CACHE_DURATION = 5 * 60 * 1000; // 5 minutes cache
+    // Lists shown per category and per search query; stale ones are shown
+    // while they revalidate
+    private final ExpiringLruCache<String, PagedProducts> productListCache = new ExpiringLruCache<>(
+            Constants.PRODUCT_LIST_CACHE_SIZE, Constants.PRODUCT_LIST_CACHE_TTL_MS,
+            Constants.PRODUCT_LIST_CACHE_MAX_STALE_MS);
+
+    // Category being paged into products, with the cursor of its next page
+    // (null once every page is loaded). pagingGeneration changes with each
+    // new listing so answers for an earlier one are dropped.
+    private String pagingCategory;
+    private String nextCursor;
+    private boolean pageLoading;
+    private int pagingGeneration;
+    private boolean showingSearch;
+
+    // Typeahead and facet indexes over the whole catalog, shared through the
+    // repository and only built once a search or filter first needs them
+    private ProductSearchIndex searchIndex;
+    private CatalogFacets facets;
+    private final MutableLiveData<CatalogFacets> facetIndex = new MutableLiveData<>();
+    private final Observer<ProductRepository.CatalogIndexes> indexesObserver = this::onCatalogIndexed;
+    private CatalogFacets.Filter activeFilter = CatalogFacets.Filter.NONE;
+    // Sorting, filtering and search ranking run here, off the main thread
+    private final ComputeStage computeStage = new ComputeStage();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Shows the updated copies of products replaced after their list was built
+    private final ProductIdentityMap.ReplacementListener replacementListener =
+            () -> mainHandler.post(this::showCurrentProducts);
+    private Runnable pendingSearch;
+    // Repository search still running for the results shown
+    private Cancellable searchRequest;
 
     // Store original list for filtering/sorting
     private List<Product> originalProducts = new ArrayList<>();
@@ -42,6 +89,9 @@ public class ProductViewModel extends AndroidViewModel {
     public ProductViewModel(@NonNull Application application) {
         super(application);
         productRepository = ProductRepository.getInstance(); // Get repository instance
+        // Already built if another screen searched or filtered
+        productRepository.getCatalogIndexes().observeForever(indexesObserver);
+        identityMap.addListener(replacementListener);
 
         // Load initial data
         loadCategories();
@@ -49,109 +99,393 @@ public class ProductViewModel extends AndroidViewModel {
     }
 
     /**
-     * Load all products from cache or data source
+     * Load products for the selected category from cache or data source
      */
     public void loadProducts() {
         String categoryToLoad = selectedCategory.getValue();
-        if (categoryToLoad == null || "All".equalsIgnoreCase(categoryToLoad)) {
-            // Check cache first
-            if (isCacheValid() && categoryProductCache.containsKey("All")) {
-                products.setValue(categoryProductCache.get("All"));
-                return;
-            }
-
-            isLoading.setValue(true);
-            productRepository.getProducts(new ProductRepository.ProductsCallback() {
-                @Override
-                public void onProductsLoaded(List<Product> productList) {
-                    products.setValue(productList);
-                    // Cache the results
-                    categoryProductCache.put("All", productList);
-                    lastCacheTime = System.currentTimeMillis();
-                    isLoading.setValue(false);
-                    errorMessage.setValue(null);
-                }
-
-                @Override
-                public void onError(String errorMsg) {
-                    products.setValue(new ArrayList<>()); // Set to empty list on error
-                    errorMessage.setValue(errorMsg);
-                    isLoading.setValue(false);
-                }
-            });
-        } else {
-            // This case is handled by filterByCategory, which calls the repository
-            // If called directly, it implies loading products for the currently selected
-            // category
-            filterByCategory(categoryToLoad);
-        }
+        filterByCategory(categoryToLoad != null ? categoryToLoad : "All");
     }
 
+    /**
+     * Show a category, starting from its first page. Further pages are loaded
+     * with {@link #loadNextPage()} as the grid scrolls.
+     *
+     * @param categoryParam Category to show; null for "All"
+     */
     public void filterByCategory(String categoryParam) {
         String finalCategory = categoryParam;
         if (finalCategory == null) {
             finalCategory = "All";
         }
+        activeFilter = activeFilter.withCategory(finalCategory);
+
+        if (facets != null) {
+            // The whole catalog is indexed; no need to page through the repository
+            selectedCategory.setValue(finalCategory);
+            showFacetResults();
+            return;
+        }
 
-        // Check cache first
-        if (isCacheValid() && categoryProductCache.containsKey(finalCategory)) {
-            products.setValue(categoryProductCache.get(finalCategory));
+        // Check cache first; a stale list is shown at once and revalidated
+        ExpiringLruCache.Lookup<PagedProducts> cached = productListCache.get(categoryKey(finalCategory));
+        if (cached != null) {
+            startPaging(finalCategory, cached.getValue().nextCursor);
+            showProducts(cached.getValue().products);
             selectedCategory.setValue(finalCategory);
+            isLoading.setValue(false);
+            if (!cached.isFresh()) {
+                requestPage(null, true);
+            }
             return;
         }
 
         isLoading.setValue(true);
         selectedCategory.setValue(finalCategory); // Update selected category
+        startPaging(finalCategory, null);
+        requestPage(null, false);
+    }
 
-        final String categoryToFetch = finalCategory; // Effectively final for use in inner class
-        productRepository.getProductsByCategory(categoryToFetch, new ProductRepository.ProductsCallback() {
-            @Override
-            public void onProductsLoaded(List<Product> productList) {
-                products.setValue(productList);
-                // Cache the results
-                categoryProductCache.put(categoryToFetch, productList);
-                lastCacheTime = System.currentTimeMillis();
-                isLoading.setValue(false);
-                errorMessage.setValue(null);
-            }
+    /**
+     * Load the page after the ones shown, if there is one and it isn't
+     * already loading. Called by the grid as it nears the end of the list.
+     */
+    public void loadNextPage() {
+        if (pagingCategory == null || nextCursor == null || pageLoading) {
+            return;
+        }
+        requestPage(nextCursor, false);
+    }
 
-            @Override
-            public void onError(String errorMsg) {
-                products.setValue(new ArrayList<>()); // Set to empty list on error
-                errorMessage.setValue(errorMsg);
-                isLoading.setValue(false);
+    /**
+     * Start a new paging session; answers for earlier sessions are ignored
+     */
+    private void startPaging(String category, String cursor) {
+        cancelSearchRequest();
+        pagingGeneration++;
+        pagingCategory = category;
+        nextCursor = cursor;
+        pageLoading = false;
+        showingSearch = false;
+    }
+
+    /**
+     * @param cursor       Page to load, or null for the first
+     * @param revalidating true to refresh the first page of a cached list,
+     *                     keeping the pages after it that were already loaded
+     */
+    private void requestPage(String cursor, boolean revalidating) {
+        final int generation = pagingGeneration;
+        final String category = pagingCategory;
+        pageLoading = true;
+        productRepository.getProductPage(category, cursor, Constants.PRODUCT_PAGE_SIZE,
+                new ProductRepository.ProductPageCallback() {
+                    // Set once this request has shown its first page; the repository
+                    // delivers the first page again if a refresh changes the catalog
+                    private boolean delivered;
+
+                    @Override
+                    public void onPageLoaded(ProductPage page) {
+                        if (generation != pagingGeneration) {
+                            // The user has moved on to another category or a search
+                            return;
+                        }
+                        List<Product> current = products.getValue();
+                        List<Product> shown;
+                        if (cursor == null && (revalidating || delivered) && current != null
+                                && current.size() > Constants.PRODUCT_PAGE_SIZE) {
+                            // Refreshed first page of a list scrolled further; the later
+                            // pages stay, and paging carries on after them
+                            shown = withFirstPage(page.getProducts(), current);
+                        } else if (cursor == null) {
+                            // First page, or the first page again after the catalog changed
+                            shown = page.getProducts();
+                            nextCursor = page.getNextCursor();
+                        } else {
+                            shown = new ArrayList<>(current != null ? current : new ArrayList<>());
+                            shown.addAll(page.getProducts());
+                            nextCursor = page.getNextCursor();
+                        }
+                        delivered = true;
+                        pageLoading = false;
+                        showProducts(shown);
+                        // Cache the results
+                        productListCache.put(categoryKey(category), new PagedProducts(shown, nextCursor));
+                        isLoading.setValue(false);
+                        errorMessage.setValue(null);
+                    }
+
+                    @Override
+                    public void onError(String errorMsg) {
+                        if (generation != pagingGeneration) {
+                            return;
+                        }
+                        pageLoading = false;
+                        List<Product> current = products.getValue();
+                        if (cursor == null && (current == null || current.isEmpty())) {
+                            showProducts(new ArrayList<>()); // Set to empty list on error
+                        }
+                        // A failed later page, or revalidation of a cached list,
+                        // keeps what is shown; scrolling or the next visit retries
+                        errorMessage.setValue(errorMsg);
+                        isLoading.setValue(false);
+                    }
+                });
+    }
+
+    /**
+     * Search as the user types. The first search starts indexing the catalog;
+     * once the index is built, every keystroke is answered from it at once.
+     * Until then the query goes to the repository after a short pause in
+     * typing. Clearing the query shows the category again.
+     *
+     * @param query Text in the search box
+     */
+    public void onSearchQueryChanged(String query) {
+        cancelPendingSearch();
+        String trimmed = query != null ? query.trim() : "";
+        if (trimmed.isEmpty()) {
+            if (showingSearch) {
+                filterByCategory(selectedCategory.getValue());
             }
-        });
+            return;
+        }
+        productRepository.loadCatalogIndexes();
+        if (searchIndex != null) {
+            showIndexResults(trimmed);
+            return;
+        }
+        pendingSearch = () -> searchProducts(trimmed);
+        mainHandler.postDelayed(pendingSearch, Constants.SEARCH_DEBOUNCE_MS);
     }
 
     /**
      * Search products by query string
-     * 
+     *
      * @param query Search query
      */
     public void searchProducts(String query) {
-        isLoading.setValue(true);
+        cancelPendingSearch();
+        if (searchIndex != null && query != null) {
+            showIndexResults(query);
+            return;
+        }
         selectedCategory.setValue("All"); // Reset category when searching
-        productRepository.searchProducts(query, new ProductRepository.ProductsCallback() {
+        // Search results are not paged; answers to earlier queries are dropped
+        startPaging(null, null);
+        showingSearch = true;
+        final int generation = pagingGeneration;
+        final String cacheKey = searchKey(query);
+        ExpiringLruCache.Lookup<PagedProducts> cached = productListCache.get(cacheKey);
+        if (cached != null) {
+            showProducts(cached.getValue().products);
+            isLoading.setValue(false);
+            errorMessage.setValue(null);
+            if (cached.isFresh()) {
+                return;
+            }
+        } else {
+            isLoading.setValue(true);
+        }
+        final boolean revalidating = cached != null;
+        searchRequest = productRepository.searchProducts(query, new ProductRepository.ProductsCallback() {
             @Override
             public void onProductsLoaded(List<Product> productList) {
-                products.setValue(productList);
+                if (generation != pagingGeneration) {
+                    return;
+                }
+                searchRequest = null;
+                productListCache.put(cacheKey, new PagedProducts(productList, null));
+                showProducts(productList);
                 isLoading.setValue(false);
                 errorMessage.setValue(null);
             }
 
             @Override
             public void onError(String errorMsg) {
-                products.setValue(new ArrayList<>()); // Set to empty list on error
+                if (generation != pagingGeneration) {
+                    return;
+                }
+                searchRequest = null;
+                if (revalidating) {
+                    // Keep showing the cached results
+                    return;
+                }
+                showProducts(new ArrayList<>()); // Set to empty list on error
                 errorMessage.setValue(errorMsg);
                 isLoading.setValue(false);
             }
         });
     }
 
+    /**
+     * Replace the first page of a list, keeping the products loaded after it
+     * that the new first page doesn't already hold
+     */
+    private static List<Product> withFirstPage(List<Product> firstPage, List<Product> current) {
+        List<Product> merged = new ArrayList<>(firstPage);
+        Set<String> ids = new HashSet<>();
+        for (Product product : firstPage) {
+            ids.add(product.getId());
+        }
+        for (int i = Constants.PRODUCT_PAGE_SIZE; i < current.size(); i++) {
+            Product product = current.get(i);
+            if (ids.add(product.getId())) {
+                merged.add(product);
+            }
+        }
+        return merged;
+    }
+
+    private static String categoryKey(String category) {
+        return "category:" + (category != null ? category : "All");
+    }
+
+    private static String searchKey(String query) {
+        return "search:" + (query != null ? query.trim().toLowerCase(Locale.ROOT) : "");
+    }
+
+    private void showIndexResults(String query) {
+        selectedCategory.setValue("All"); // Reset category when searching
+        startPaging(null, null);
+        showingSearch = true;
+        final ProductSearchIndex index = searchIndex;
+        computeProducts(() -> index.search(query));
+        isLoading.setValue(false);
+        errorMessage.setValue(null);
+    }
+
+    /**
+     * Show a list now, superseding any transformation still computing. Posted
+     * rather than set, so a result the compute stage already posted can't
+     * replace it.
+     */
+    private void showProducts(List<Product> list) {
+        computeStage.cancel(KEY_PRODUCTS);
+        products.postValue(list);
+    }
+
+    /**
+     * Build the list to show on the compute stage, superseding any earlier one.
+     * Products replaced while it computed are swapped for their new copies.
+     */
+    private void computeProducts(Callable<List<Product>> work) {
+        computeStage.run(KEY_PRODUCTS, work, list -> products.postValue(identityMap.currentAll(list)));
+    }
+
+    /**
+     * Swap replaced products in what is shown for their new copies. Posted to
+     * the main thread, so it runs after any list already posted.
+     */
+    private void showCurrentProducts() {
+        List<Product> shown = products.getValue();
+        if (shown != null) {
+            List<Product> current = identityMap.currentAll(shown);
+            if (current != shown) {
+                products.setValue(current);
+            }
+        }
+        Product selected = selectedProduct.getValue();
+        Product currentSelected = selected != null && selected.getId() != null
+                ? identityMap.get(selected.getId())
+                : null;
+        if (currentSelected != null && currentSelected != selected) {
+            selectedProduct.setValue(currentSelected);
+        }
+    }
+
+    private void cancelPendingSearch() {
+        if (pendingSearch != null) {
+            mainHandler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+    }
+
+    /**
+     * Stop the repository search for an earlier query or listing, so its
+     * network call doesn't run on after it has been superseded
+     */
+    private void cancelSearchRequest() {
+        if (searchRequest != null) {
+            searchRequest.cancel();
+            searchRequest = null;
+        }
+    }
+
+    /**
+     * Index the catalog for filtering, if that hasn't started yet. The filter
+     * screen calls this when opened and waits on {@link #getFacetIndex()}.
+     */
+    public void loadFacets() {
+        productRepository.loadCatalogIndexes();
+    }
+
+    private void onCatalogIndexed(ProductRepository.CatalogIndexes indexes) {
+        if (indexes == null) {
+            return;
+        }
+        boolean firstBuild = facets == null;
+        searchIndex = indexes.getSearchIndex();
+        facets = indexes.getFacets();
+        facetIndex.setValue(facets);
+        // Show filters chosen while the catalog was loading, or the new catalog's matches
+        if (!showingSearch && (activeFilter.hasFacets() || !firstBuild)) {
+            showFacetResults();
+        }
+    }
+
+    /**
+     * Filter the list by category, availability, featured, price bands and
+     * minimum rating together. Answered from the facet index without any
+     * network call once the catalog is indexed; the first filter starts
+     * indexing, and applies as soon as the index is built.
+     *
+     * @param filter Facets to apply; its category is replaced by the selected one
+     */
+    public void applyFilter(@NonNull CatalogFacets.Filter filter) {
+        activeFilter = filter.withCategory(selectedCategory.getValue());
+        if (facets != null) {
+            showFacetResults();
+            return;
+        }
+        isLoading.setValue(true);
+        productRepository.loadCatalogIndexes();
+    }
+
+    /**
+     * @return Filter currently applied, including the selected category
+     */
+    @NonNull
+    public CatalogFacets.Filter getActiveFilter() {
+        return activeFilter;
+    }
+
+    /**
+     * @return Facet index of the catalog, or null until it is built
+     */
+    public CatalogFacets getFacets() {
+        return facets;
+    }
+
+    /**
+     * @return LiveData of the facet index, set once it is built; see {@link #loadFacets()}
+     */
+    public LiveData<CatalogFacets> getFacetIndex() {
+        return facetIndex;
+    }
+
+    private void showFacetResults() {
+        // Everything is already in memory; drop any pages still loading
+        startPaging(selectedCategory.getValue(), null);
+        final CatalogFacets catalogFacets = facets;
+        final CatalogFacets.Filter filter = activeFilter;
+        computeProducts(() -> catalogFacets.filter(filter));
+        isLoading.setValue(false);
+        errorMessage.setValue(null);
+    }
+
     /**
      * Get a specific product by ID and update LiveData for details screen
-     * 
+     *
      * @param productId Product ID
      */
     public void loadProductById(String productId) {
@@ -187,7 +521,7 @@ public class ProductViewModel extends AndroidViewModel {
                 if (categoryList != null && !categoryList.isEmpty()) {
                     filterByCategory(selectedCategory.getValue() != null ? selectedCategory.getValue() : "All");
                 } else {
-                    products.setValue(new ArrayList<>()); // No categories, so no products
+                    showProducts(new ArrayList<>()); // No categories, so no products
                     isLoading.setValue(false); // Stop loading if categories fail
                 }
                 // isLoading.setValue(false); // Loading of products will set this
@@ -197,7 +531,7 @@ public class ProductViewModel extends AndroidViewModel {
             @Override
             public void onError(String errorMsg) {
                 categories.setValue(new ArrayList<>()); // Set to empty list on error
-                products.setValue(new ArrayList<>()); // Also clear products
+                showProducts(new ArrayList<>()); // Also clear products
                 errorMessage.setValue(errorMsg);
                 isLoading.setValue(false);
             }
@@ -205,18 +539,11 @@ public class ProductViewModel extends AndroidViewModel {
     }
 
     /**
-     * Check if the cache is still valid
-     */
-    private boolean isCacheValid() {
-        return System.currentTimeMillis() - lastCacheTime < CACHE_DURATION;
-    }
-
-    /**
-     * Clear the cache (call this when needed, e.g., pull-to-refresh)
+     * Refresh cached lists (call this when needed, e.g., pull-to-refresh).
+     * What is shown stays on screen while the current category reloads.
      */
     public void clearCache() {
-        categoryProductCache.clear();
-        lastCacheTime = 0;
+        productListCache.invalidateAll();
         loadProducts(); // Reload from network
     }
 
@@ -224,8 +551,10 @@ public class ProductViewModel extends AndroidViewModel {
      * Sort products by price ascending
      */
     public void sortByPriceAscending() {
-        List<Product> currentProducts = products.getValue();
-        if (currentProducts != null && !currentProducts.isEmpty()) {
+        if (sortWithFacets(CatalogFacets.Sort.PRICE_ASCENDING)) {
+            return;
+        }
+        transformAllProducts(currentProducts -> {
             List<Product> sortedProducts = new ArrayList<>(currentProducts);
             Collections.sort(sortedProducts, new Comparator<Product>() {
                 @Override
@@ -233,16 +562,18 @@ public class ProductViewModel extends AndroidViewModel {
                     return Double.compare(p1.getPrice(), p2.getPrice());
                 }
             });
-            products.setValue(sortedProducts);
-        }
+            return sortedProducts;
+        });
     }
 
     /**
      * Sort products by price descending
      */
     public void sortByPriceDescending() {
-        List<Product> currentProducts = products.getValue();
-        if (currentProducts != null && !currentProducts.isEmpty()) {
+        if (sortWithFacets(CatalogFacets.Sort.PRICE_DESCENDING)) {
+            return;
+        }
+        transformAllProducts(currentProducts -> {
             List<Product> sortedProducts = new ArrayList<>(currentProducts);
             Collections.sort(sortedProducts, new Comparator<Product>() {
                 @Override
@@ -250,14 +581,18 @@ public class ProductViewModel extends AndroidViewModel {
                     return Double.compare(p2.getPrice(), p1.getPrice());
                 }
             });
-            products.setValue(sortedProducts);
-        }
-    }    /**
+            return sortedProducts;
+        });
+    }
+
+    /**
      * Sort products by popularity (rating descending as proxy for popularity)
      */
     public void sortByPopularity() {
-        List<Product> currentProducts = products.getValue();
-        if (currentProducts != null && !currentProducts.isEmpty()) {
+        if (sortWithFacets(CatalogFacets.Sort.POPULARITY)) {
+            return;
+        }
+        transformAllProducts(currentProducts -> {
             List<Product> sortedProducts = new ArrayList<>(currentProducts);
             Collections.sort(sortedProducts, new Comparator<Product>() {
                 @Override
@@ -266,16 +601,18 @@ public class ProductViewModel extends AndroidViewModel {
                     return Float.compare(p2.getRating(), p1.getRating());
                 }
             });
-            products.setValue(sortedProducts);
-        }
+            return sortedProducts;
+        });
     }
 
     /**
      * Sort products by newest (creation date descending)
      */
     public void sortByNewest() {
-        List<Product> currentProducts = products.getValue();
-        if (currentProducts != null && !currentProducts.isEmpty()) {
+        if (sortWithFacets(CatalogFacets.Sort.NEWEST)) {
+            return;
+        }
+        transformAllProducts(currentProducts -> {
             List<Product> sortedProducts = new ArrayList<>(currentProducts);
             Collections.sort(sortedProducts, new Comparator<Product>() {
                 @Override
@@ -284,16 +621,18 @@ public class ProductViewModel extends AndroidViewModel {
                     return p2.getId().compareTo(p1.getId());
                 }
             });
-            products.setValue(sortedProducts);
-        }
+            return sortedProducts;
+        });
     }
 
     /**
      * Sort products by rating descending
      */
     public void sortByRating() {
-        List<Product> currentProducts = products.getValue();
-        if (currentProducts != null && !currentProducts.isEmpty()) {
+        if (sortWithFacets(CatalogFacets.Sort.RATING)) {
+            return;
+        }
+        transformAllProducts(currentProducts -> {
             List<Product> sortedProducts = new ArrayList<>(currentProducts);
             Collections.sort(sortedProducts, new Comparator<Product>() {
                 @Override
@@ -301,26 +640,106 @@ public class ProductViewModel extends AndroidViewModel {
                     return Double.compare(p2.getRating(), p1.getRating());
                 }
             });
-            products.setValue(sortedProducts);
-        }
+            return sortedProducts;
+        });
     }
 
     /**
      * Filter to show only available products
      */
     public void filterAvailableOnly() {
+        applyFilter(activeFilter.withAvailableOnly(true));
+    }
+
+    /**
+     * Re-walk the precomputed order for the active filter, if the catalog is
+     * indexed and a category (not a search) is shown
+     *
+     * @return false if the list has to be sorted with a comparator instead
+     */
+    private boolean sortWithFacets(CatalogFacets.Sort sort) {
+        if (facets == null || showingSearch) {
+            return false;
+        }
+        applyFilter(activeFilter.withSort(sort));
+        return true;
+    }
+
+    /**
+     * Sort the whole category, not just the pages loaded so far.
+     * If more pages remain, the category is loaded in full first, and paging
+     * stops until the category is shown again.
+     *
+     * @param transform Builds the list to show from every product in the category
+     */
+    private void transformAllProducts(Function<List<Product>, List<Product>> transform) {
         List<Product> currentProducts = products.getValue();
-        if (currentProducts != null && !currentProducts.isEmpty()) {
-            List<Product> availableProducts = new ArrayList<>();
-            for (Product product : currentProducts) {
-                if (product.isAvailable()) {
-                    availableProducts.add(product);
+        if (pagingCategory == null || nextCursor == null) {
+            if (currentProducts != null && !currentProducts.isEmpty()) {
+                computeProducts(() -> transform.apply(currentProducts));
+            }
+            return;
+        }
+
+        String category = pagingCategory;
+        startPaging(category, null);
+        final int generation = pagingGeneration;
+        isLoading.setValue(true);
+        productRepository.getProductsByCategory(category, new ProductRepository.ProductsCallback() {
+            @Override
+            public void onProductsLoaded(List<Product> productList) {
+                if (generation != pagingGeneration) {
+                    return;
+                }
+                computeProducts(() -> transform.apply(productList));
+                isLoading.setValue(false);
+                errorMessage.setValue(null);
+            }
+
+            @Override
+            public void onError(String errorMsg) {
+                if (generation != pagingGeneration) {
+                    return;
                 }
+                errorMessage.setValue(errorMsg);
+                isLoading.setValue(false);
             }
-            products.setValue(availableProducts);
+        });
+    }
+
+    /**
+     * @return Size and hit, stale-hit and miss counts of the cache of lists
+     *         shown per category and search
+     */
+    @NonNull
+    public ExpiringLruCache.Stats getListCacheStats() {
+        return productListCache.stats();
+    }
+
+    /**
+     * Pages of a category loaded so far, and the cursor of the next one
+     */
+    private static final class PagedProducts {
+        final List<Product> products;
+        final String nextCursor;
+
+        PagedProducts(List<Product> products, String nextCursor) {
+            this.products = products;
+            this.nextCursor = nextCursor;
         }
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cancelPendingSearch();
+        cancelSearchRequest();
+        productRepository.getCatalogIndexes().removeObserver(indexesObserver);
+        identityMap.removeListener(replacementListener);
+        computeStage.close();
+        Log.d(TAG, "Product list cache: " + productListCache);
+    }
+
     // Getters for LiveData
     public LiveData<List<Product>> getProducts() {
         return products;
@@ -0,0 +1,83 @@
+package com.coffeecorner.app.models;
+
+import com.coffeecorner.app.utils.SupabaseJson;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class OrderRowTest {
+
+    private static final String ORDER_ID = "7d3c1b9e-0f7a-4c1e-9a51-3b2f6c1d8e40";
+
+    @Test
+    public void orderRow_hasTheOrdersColumns() throws IOException {
+        OrderRow row = OrderRow.from(order(new CartItem(latte(), 2)), "u1");
+
+        JsonObject json = write(row);
+
+        assertEquals(ORDER_ID, json.get("id").getAsString());
+        assertEquals("u1", json.get("user_id").getAsString());
+        assertEquals(11.50, json.get("total_amount").getAsDouble(), 0);
+        assertEquals(Order.STATUS_CONFIRMED, json.get("status").getAsString());
+        assertEquals("Main St 1", json.get("delivery_address").getAsString());
+        assertEquals(5, json.size());
+    }
+
+    @Test
+    public void itemRows_carryTheUnitPriceWithSurcharges() throws IOException {
+        CartItem oatLatte = new CartItem(latte(), 2, "Large", "Oat Milk", 1.25);
+
+        List<OrderItemRow> rows = OrderItemRow.from(order(oatLatte));
+
+        assertEquals(1, rows.size());
+        JsonObject json = write(rows.get(0));
+        assertEquals(ORDER_ID, json.get("order_id").getAsString());
+        assertEquals("p1", json.get("product_id").getAsString());
+        assertEquals(2, json.get("quantity").getAsInt());
+        assertEquals(5.75, json.get("price").getAsDouble(), 0);
+        assertEquals(5, json.size());
+    }
+
+    @Test
+    public void itemRows_haveStableDistinctIds() {
+        Order order = order(new CartItem(latte(), 1), new CartItem(null, 1), new CartItem(latte(), 3));
+
+        List<OrderItemRow> rows = OrderItemRow.from(order);
+        List<OrderItemRow> again = OrderItemRow.from(order);
+
+        // The line without a product is skipped
+        assertEquals(2, rows.size());
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ids.add(rows.get(i).getId());
+            assertEquals(rows.get(i).getId(), again.get(i).getId());
+        }
+        assertEquals(2, ids.size());
+    }
+
+    private static JsonObject write(Object row) throws IOException {
+        StringWriter json = new StringWriter();
+        SupabaseJson.write(json, row);
+        return new Gson().fromJson(json.toString(), JsonObject.class);
+    }
+
+    private static Order order(CartItem... items) {
+        return new Order(ORDER_ID, new Date(), Arrays.asList(items), "Main St 1", "Cash on Delivery",
+                2.00, 0.50, 0, Order.STATUS_CONFIRMED, 30);
+    }
+
+    private static Product latte() {
+        return new Product("p1", "Latte", "", 4.50, "Coffee", null);
+    }
+}
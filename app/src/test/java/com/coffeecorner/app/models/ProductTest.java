@@ -0,0 +1,47 @@
+package com.coffeecorner.app.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ProductTest {
+
+    @Test
+    public void mergedWith_returnsThisWhenNothingChanges() {
+        Product latte = new Product("p1", "Latte", "Milky", 4.50, "Coffee", null);
+
+        assertSame(latte, latte.mergedWith(new Product("p1", "Latte", "Milky", 4.50, "Coffee", null), true));
+        assertSame(latte, latte.mergedWith(new Product(), false));
+    }
+
+    @Test
+    public void mergedWith_copiesAndLeavesThisUnchanged() {
+        Product latte = new Product("p1", "Latte", "Milky", 4.50, "Coffee", null);
+
+        Product merged = latte.mergedWith(new Product("p1", "Latte", "Milky", 4.75, "Coffee", null), true);
+
+        assertNotSame(latte, merged);
+        assertEquals(4.75, merged.getPrice(), 0);
+        assertEquals("Latte", merged.getName());
+        assertEquals(4.50, latte.getPrice(), 0);
+    }
+
+    @Test
+    public void partialSighting_onlyOverwritesWhatItCarries() {
+        Product latte = new Product("p1", "Latte", "Milky", 4.50, "Coffee", null);
+        latte.setAvailableSizes(Arrays.asList("Small", "Large"));
+        Product embedded = new Product();
+        embedded.setName("Caffe Latte");
+
+        assertTrue(latte.mergeFrom(embedded, false));
+
+        assertEquals("Caffe Latte", latte.getName());
+        assertEquals("Milky", latte.getDescription());
+        assertEquals(4.50, latte.getPrice(), 0);
+        assertTrue(latte.isAvailable());
+        assertEquals(Arrays.asList("Small", "Large"), latte.getAvailableSizes());
+        assertFalse(latte.mergeFrom(embedded, false));
+    }
+}
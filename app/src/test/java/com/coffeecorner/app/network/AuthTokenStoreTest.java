@@ -0,0 +1,67 @@
+package com.coffeecorner.app.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AuthTokenStoreTest {
+
+    private final AuthTokenStore store = new AuthTokenStore();
+    private final List<String> changes = new ArrayList<>();
+
+    @Test
+    public void setToken_prebuildsTheAuthorizationHeader() {
+        store.setToken("abc");
+
+        assertEquals("abc", store.getToken());
+        assertEquals("Bearer abc", store.getAuthorizationHeader());
+    }
+
+    @Test
+    public void clearedToken_hasNoHeader() {
+        store.setToken("abc");
+        store.setToken("");
+
+        assertNull(store.getToken());
+        assertNull(store.getAuthorizationHeader());
+    }
+
+    @Test
+    public void addListener_reportsTheCurrentTokenAsStored() {
+        store.setToken("abc");
+
+        store.addListener((token, issued) -> changes.add(token + "/" + issued));
+
+        assertEquals(1, changes.size());
+        assertEquals("abc/false", changes.get(0));
+    }
+
+    @Test
+    public void listeners_hearOnlyChanges() {
+        store.addListener((token, issued) -> changes.add(token + "/" + issued));
+
+        store.setToken("abc");
+        store.setToken("abc");
+        store.setToken(null);
+        store.setToken(null);
+
+        // The first entry is the call made on registering
+        assertEquals(3, changes.size());
+        assertEquals("abc/true", changes.get(1));
+        assertEquals("null/false", changes.get(2));
+    }
+
+    @Test
+    public void removedListener_hearsNothing() {
+        AuthTokenStore.TokenListener listener = (token, issued) -> changes.add(token);
+        store.addListener(listener);
+        store.removeListener(listener);
+
+        store.setToken("abc");
+
+        assertEquals(1, changes.size());
+    }
+}
@@ -0,0 +1,197 @@
+package com.coffeecorner.app.network;
+
+import com.coffeecorner.app.utils.Constants;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.*;
+
+public class CatalogCacheInterceptorTest {
+
+    @Test
+    public void maxAgeFor_followsTheCatalogRoute() {
+        assertEquals(Constants.HTTP_CACHE_MAX_AGE_PRODUCTS, CatalogCacheInterceptor.maxAgeFor(get("products")));
+        assertEquals(Constants.HTTP_CACHE_MAX_AGE_PRODUCTS,
+                CatalogCacheInterceptor.maxAgeFor(get("products/page?limit=20")));
+        assertEquals(Constants.HTTP_CACHE_MAX_AGE_PRODUCTS,
+                CatalogCacheInterceptor.maxAgeFor(get("products/category/Coffee")));
+        assertEquals(Constants.HTTP_CACHE_MAX_AGE_CATEGORIES,
+                CatalogCacheInterceptor.maxAgeFor(get("products/categories")));
+        assertEquals(Constants.HTTP_CACHE_MAX_AGE_SEARCH,
+                CatalogCacheInterceptor.maxAgeFor(get("products/search?query=latte")));
+        assertEquals(Constants.HTTP_CACHE_MAX_AGE_PRODUCT_DETAIL,
+                CatalogCacheInterceptor.maxAgeFor(get("products/p1")));
+    }
+
+    @Test
+    public void maxAgeFor_skipsOtherRoutesAndDeltaPages() {
+        assertEquals(-1, CatalogCacheInterceptor.maxAgeFor(get("orders")));
+        assertEquals(-1, CatalogCacheInterceptor.maxAgeFor(get("productsandmore")));
+        assertEquals(-1, CatalogCacheInterceptor.maxAgeFor(get("products?" + Constants.QUERY_UPDATED_SINCE + "=5")));
+    }
+
+    @Test
+    public void networkStage_stampsTheRouteLifetime() throws IOException {
+        FakeChain chain = new FakeChain(get("products/categories"));
+        chain.responses.add(response(chain.request(), 200));
+
+        Response response = CatalogCacheInterceptor.forNetwork().intercept(chain);
+
+        assertEquals("public, max-age=" + Constants.HTTP_CACHE_MAX_AGE_CATEGORIES, response.header("Cache-Control"));
+    }
+
+    @Test
+    public void networkStage_leavesErrorsAlone() throws IOException {
+        FakeChain chain = new FakeChain(get("products"));
+        chain.responses.add(response(chain.request(), 404));
+
+        assertNull(CatalogCacheInterceptor.forNetwork().intercept(chain).header("Cache-Control"));
+    }
+
+    @Test
+    public void applicationStage_servesTheCacheOnServerErrors() throws IOException {
+        FakeChain chain = new FakeChain(get("products"));
+        Response error = response(chain.request(), 503);
+        Response cached = response(chain.request(), 200);
+        chain.responses.add(error);
+        chain.responses.add(cached);
+
+        Response response = CatalogCacheInterceptor.forApplication().intercept(chain);
+
+        assertSame(cached, response);
+        assertTrue(chain.sent.get(1).header("Cache-Control").contains("only-if-cached"));
+    }
+
+    @Test
+    public void applicationStage_returnsTheErrorWhenNothingIsCached() throws IOException {
+        FakeChain chain = new FakeChain(get("products"));
+        chain.responses.add(response(chain.request(), 503));
+        chain.responses.add(response(chain.request(), 504));
+
+        assertEquals(503, CatalogCacheInterceptor.forApplication().intercept(chain).code());
+    }
+
+    @Test
+    public void applicationStage_servesTheCacheWhenOffline() throws IOException {
+        FakeChain chain = new FakeChain(get("products/p1"));
+        Response cached = response(chain.request(), 200);
+        chain.responses.add(null);
+        chain.responses.add(cached);
+
+        assertSame(cached, CatalogCacheInterceptor.forApplication().intercept(chain));
+    }
+
+    @Test(expected = IOException.class)
+    public void applicationStage_rethrowsWhenOfflineAndNothingIsCached() throws IOException {
+        FakeChain chain = new FakeChain(get("products/p1"));
+        chain.responses.add(null);
+        chain.responses.add(response(chain.request(), 504));
+
+        CatalogCacheInterceptor.forApplication().intercept(chain);
+    }
+
+    @Test
+    public void otherRoutes_passThrough() throws IOException {
+        FakeChain chain = new FakeChain(get("orders"));
+        chain.responses.add(response(chain.request(), 503));
+
+        assertEquals(503, CatalogCacheInterceptor.forApplication().intercept(chain).code());
+        assertEquals(1, chain.sent.size());
+    }
+
+    private static Request get(String route) {
+        return new Request.Builder().url(Constants.API_BASE_URL + route).build();
+    }
+
+    private static Response response(Request request, int code) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("HTTP " + code)
+                .body(ResponseBody.create("{}", MediaType.get("application/json")))
+                .build();
+    }
+
+    /**
+     * Chain answering with queued responses; a null entry fails like a dropped connection
+     */
+    private static final class FakeChain implements Interceptor.Chain {
+        final List<Response> responses = new ArrayList<>();
+        final List<Request> sent = new ArrayList<>();
+        private final Request request;
+
+        FakeChain(Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Response proceed(Request request) throws IOException {
+            sent.add(request);
+            Response response = responses.remove(0);
+            if (response == null) {
+                throw new IOException("offline");
+            }
+            return response;
+        }
+
+        @Override
+        public Connection connection() {
+            return null;
+        }
+
+        @Override
+        public Call call() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int connectTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int readTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+
+        @Override
+        public int writeTimeoutMillis() {
+            return 0;
+        }
+
+        @Override
+        public Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) {
+            return this;
+        }
+    }
+}
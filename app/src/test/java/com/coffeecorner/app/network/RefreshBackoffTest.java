@@ -0,0 +1,52 @@
+package com.coffeecorner.app.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RefreshBackoffTest {
+
+    private final RefreshBackoff backoff = new RefreshBackoff(5_000, 60_000);
+
+    @Test
+    public void firstAttempt_isAllowed() {
+        assertTrue(backoff.canAttempt(0));
+        assertEquals(0, backoff.getFailureCount());
+    }
+
+    @Test
+    public void failure_refusesAttemptsUntilTheDelayPasses() {
+        assertEquals(5_000, backoff.onFailure(1_000));
+
+        assertFalse(backoff.canAttempt(1_000));
+        assertFalse(backoff.canAttempt(5_999));
+        assertTrue(backoff.canAttempt(6_000));
+    }
+
+    @Test
+    public void repeatedFailures_doubleTheDelayUpToTheMaximum() {
+        assertEquals(5_000, backoff.onFailure(0));
+        assertEquals(10_000, backoff.onFailure(0));
+        assertEquals(20_000, backoff.onFailure(0));
+        assertEquals(40_000, backoff.onFailure(0));
+        assertEquals(60_000, backoff.onFailure(0));
+        for (int i = 0; i < 100; i++) {
+            backoff.onFailure(0);
+        }
+
+        assertEquals(60_000, backoff.onFailure(0));
+        assertEquals(106, backoff.getFailureCount());
+    }
+
+    @Test
+    public void success_startsOver() {
+        backoff.onFailure(0);
+        backoff.onFailure(0);
+
+        backoff.onSuccess();
+
+        assertTrue(backoff.canAttempt(0));
+        assertEquals(0, backoff.getFailureCount());
+        assertEquals(5_000, backoff.onFailure(0));
+    }
+}
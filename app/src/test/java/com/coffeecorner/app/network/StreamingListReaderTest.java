@@ -0,0 +1,108 @@
+package com.coffeecorner.app.network;
+
+import com.coffeecorner.app.models.Product;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamingListReaderTest {
+
+    private final TypeAdapter<Product> adapter = new Gson().getAdapter(Product.class);
+    private final RecordingCallback callback = new RecordingCallback();
+
+    @Test
+    public void read_deliversASmallFirstChunkThenFullChunks() throws IOException {
+        int count = StreamingListReader.FIRST_CHUNK_SIZE + StreamingListReader.CHUNK_SIZE + 3;
+
+        read(envelope(true, "ok", count));
+
+        assertEquals(3, callback.chunks.size());
+        assertEquals(StreamingListReader.FIRST_CHUNK_SIZE, callback.chunks.get(0).size());
+        assertEquals(StreamingListReader.CHUNK_SIZE, callback.chunks.get(1).size());
+        assertEquals(3, callback.chunks.get(2).size());
+        assertEquals(count, callback.all.size());
+        assertEquals("p0", callback.all.get(0).getId());
+        assertEquals("p" + (count - 1), callback.all.get(count - 1).getId());
+        assertNull(callback.error);
+    }
+
+    @Test
+    public void read_acceptsTheDataBeforeOtherFieldsAndSkipsUnknownOnes() throws IOException {
+        read("{\"data\":[{\"id\":\"p1\"},null,{\"id\":\"p2\"}],\"extra\":{\"a\":[1,2]},\"success\":true}");
+
+        assertEquals(1, callback.chunks.size());
+        assertEquals(2, callback.all.size());
+        assertEquals("p2", callback.all.get(1).getId());
+    }
+
+    @Test
+    public void read_ofAnEmptyListCompletesWithoutChunks() throws IOException {
+        read(envelope(true, null, 0));
+
+        assertTrue(callback.chunks.isEmpty());
+        assertNotNull(callback.all);
+        assertTrue(callback.all.isEmpty());
+    }
+
+    @Test
+    public void read_reportsTheServerMessageOnFailure() throws IOException {
+        read("{\"success\":false,\"message\":\"Catalog unavailable\",\"data\":null}");
+
+        assertEquals("Catalog unavailable", callback.error);
+        assertNull(callback.all);
+    }
+
+    @Test(expected = IOException.class)
+    public void read_failsOnATruncatedBody() throws IOException {
+        read("{\"success\":true,\"data\":[{\"id\":\"p1\"},{\"id\":");
+    }
+
+    private void read(String body) throws IOException {
+        StreamingListReader.read(new StringReader(body), adapter, callback, Runnable::run);
+    }
+
+    private static String envelope(boolean success, String message, int count) {
+        StringBuilder json = new StringBuilder("{\"success\":").append(success);
+        if (message != null) {
+            json.append(",\"message\":\"").append(message).append('"');
+        }
+        json.append(",\"data\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"p").append(i).append("\",\"name\":\"Item ").append(i)
+                    .append("\",\"price\":").append(i + 0.5).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static final class RecordingCallback implements StreamingListReader.ChunkCallback<Product> {
+        final List<List<Product>> chunks = new ArrayList<>();
+        List<Product> all;
+        String error;
+
+        @Override
+        public void onChunk(List<Product> chunk) {
+            chunks.add(chunk);
+        }
+
+        @Override
+        public void onComplete(List<Product> all) {
+            this.all = all;
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            error = errorMessage;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.coffeecorner.app.network;
+
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TokenRefreshSchedulerTest {
+
+    private static final long TIMEOUT_S = 5;
+
+    private final TokenRefreshScheduler scheduler = new TokenRefreshScheduler();
+    private final List<String> refreshed = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void decodeClaims_readsThePayload() {
+        JsonObject claims = TokenRefreshScheduler.decodeClaims(jwt("{\"sub\":\"u1\",\"exp\":1700000000}"));
+
+        assertNotNull(claims);
+        assertEquals(1700000000L, claims.get("exp").getAsLong());
+    }
+
+    @Test
+    public void decodeClaims_ofOtherStringsIsNull() {
+        assertNull(TokenRefreshScheduler.decodeClaims("not-a-jwt"));
+        assertNull(TokenRefreshScheduler.decodeClaims("a.%%%.c"));
+    }
+
+    @Test
+    public void expiredToken_isRefreshedInTheBackgroundWithoutBlockingRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.attach(staleToken -> {
+            refreshed.add(staleToken);
+            started.countDown();
+            await(release);
+            return null;
+        });
+        String expired = tokenExpiringIn(-60);
+
+        // Starts the overdue refresh, which hangs until released
+        scheduler.onTokenChanged(expired, false);
+        assertTrue(started.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            scheduler.refreshIfExpiring();
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+        release.countDown();
+        // The failed refresh starts a cooldown, so requests still start nothing
+        long end = System.currentTimeMillis() + 200;
+        while (System.currentTimeMillis() < end) {
+            scheduler.refreshIfExpiring();
+            Thread.sleep(5);
+        }
+
+        assertEquals(1, refreshed.size());
+        assertEquals(expired, refreshed.get(0));
+    }
+
+    @Test
+    public void attach_refreshesAnOverdueToken() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        String expired = tokenExpiringIn(-60);
+        // Without a refresher, nothing can be scheduled or started yet
+        scheduler.onTokenChanged(expired, false);
+        scheduler.refreshIfExpiring();
+
+        scheduler.attach(staleToken -> {
+            refreshed.add(staleToken);
+            done.countDown();
+            return "new";
+        });
+
+        assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals(expired, refreshed.get(0));
+    }
+
+    @Test
+    public void validToken_isNotRefreshedOnRequest() throws Exception {
+        scheduler.attach(staleToken -> {
+            refreshed.add(staleToken);
+            return "new";
+        });
+        scheduler.onTokenChanged(tokenExpiringIn(60 * 60), false);
+
+        scheduler.refreshIfExpiring();
+        Thread.sleep(50);
+
+        assertTrue(refreshed.isEmpty());
+    }
+
+    @Test
+    public void clearedToken_isNotRefreshed() throws Exception {
+        scheduler.attach(staleToken -> {
+            refreshed.add(staleToken);
+            return "new";
+        });
+        scheduler.onTokenChanged(null, false);
+
+        scheduler.refreshIfExpiring();
+        Thread.sleep(50);
+
+        assertTrue(refreshed.isEmpty());
+    }
+
+    private static String tokenExpiringIn(long seconds) {
+        long exp = System.currentTimeMillis() / 1000 + seconds;
+        return jwt("{\"sub\":\"u1\",\"exp\":" + exp + "}");
+    }
+
+    private static String jwt(String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_S, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
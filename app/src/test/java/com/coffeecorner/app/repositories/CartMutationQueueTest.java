@@ -0,0 +1,123 @@
+package com.coffeecorner.app.repositories;
+
+import com.coffeecorner.app.models.CartItem;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * CartMutationQueue, driven through flush(): the main-thread debounce does not
+ * run in local tests, so each flush stands for the debounce expiring.
+ */
+public class CartMutationQueueTest {
+
+    private final List<Request> requests = new ArrayList<>();
+    private final List<String> confirmed = new ArrayList<>();
+    private final List<String> failed = new ArrayList<>();
+    private CartMutationQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new CartMutationQueue((itemId, quantity, callback) -> requests.add(new Request(itemId, quantity,
+                callback)), 300, new CartMutationQueue.Listener() {
+                    @Override
+                    public void onMutationConfirmed(String itemId, List<CartItem> cartItems) {
+                        confirmed.add(itemId);
+                    }
+
+                    @Override
+                    public void onMutationFailed(String itemId, String errorMessage) {
+                        failed.add(itemId);
+                    }
+                });
+    }
+
+    @Test
+    public void rapidChanges_sendOnlyTheFinalQuantity() {
+        queue.submit("item-1", 2);
+        queue.submit("item-1", 3);
+        queue.submit("item-1", 5);
+        queue.flush();
+
+        assertEquals(1, requests.size());
+        assertEquals("item-1", requests.get(0).itemId);
+        assertEquals(5, requests.get(0).quantity);
+    }
+
+    @Test
+    public void itemsAreSentSeparately() {
+        queue.submit("item-1", 2);
+        queue.submit("item-2", 0);
+        queue.flush();
+
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void confirmation_clearsPendingAndNotifies() {
+        queue.submit("item-1", 2);
+        queue.flush();
+        assertTrue(queue.hasPending());
+
+        requests.get(0).callback.onCartItemsLoaded(new ArrayList<>());
+
+        assertFalse(queue.hasPending());
+        assertEquals(1, confirmed.size());
+        assertEquals("item-1", confirmed.get(0));
+    }
+
+    @Test
+    public void changeWhileInFlight_isSentAfterTheRunningRequest() {
+        queue.submit("item-1", 2);
+        queue.flush();
+        queue.submit("item-1", 4);
+        queue.flush();
+
+        // At most one request per item in flight
+        assertEquals(1, requests.size());
+
+        requests.get(0).callback.onCartItemsLoaded(new ArrayList<>());
+
+        assertEquals(2, requests.size());
+        assertEquals(4, requests.get(1).quantity);
+        assertTrue(confirmed.isEmpty());
+        assertTrue(queue.hasPending());
+
+        requests.get(1).callback.onCartItemsLoaded(new ArrayList<>());
+
+        assertEquals(1, confirmed.size());
+        assertFalse(queue.hasPending());
+    }
+
+    @Test
+    public void failure_dropsTheItemAndNotifies() {
+        queue.submit("item-1", 2);
+        queue.flush();
+        queue.submit("item-1", 6);
+
+        requests.get(0).callback.onError("offline");
+
+        assertEquals(1, failed.size());
+        assertTrue(confirmed.isEmpty());
+        assertFalse(queue.hasPending());
+        queue.flush();
+        assertEquals(1, requests.size());
+    }
+
+    private static final class Request {
+        final String itemId;
+        final int quantity;
+        final CartRepository.CartItemsCallback callback;
+
+        Request(String itemId, int quantity, CartRepository.CartItemsCallback callback) {
+            this.itemId = itemId;
+            this.quantity = quantity;
+            this.callback = callback;
+        }
+    }
+}
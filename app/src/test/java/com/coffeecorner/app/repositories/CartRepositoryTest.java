@@ -0,0 +1,99 @@
+package com.coffeecorner.app.repositories;
+
+import com.coffeecorner.app.models.CartDelta;
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.Product;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CartRepositoryTest {
+
+    private final List<CartItem> cart = Arrays.asList(line("c1", "p1", 2), line("c2", "p2", 1));
+
+    @Test
+    public void mergeDelta_replacesTheChangedLine() {
+        List<CartItem> updated = CartRepository.mergeDelta(cart, "v1",
+                delta("v1", "v2", "{\"id\":\"c1\",\"product_id\":\"p1\",\"quantity\":5}", null, 6), null);
+
+        assertEquals(2, updated.size());
+        assertEquals(5, updated.get(0).getQuantity());
+        assertEquals("c1", updated.get(0).getId());
+        assertNotSame(cart.get(0), updated.get(0));
+        assertEquals(2, cart.get(0).getQuantity());
+    }
+
+    @Test
+    public void mergeDelta_addsANewLineWithItsProduct() {
+        Product mocha = new Product("p3", "Mocha", "", 5.25, "Coffee", null);
+
+        List<CartItem> updated = CartRepository.mergeDelta(cart, "v1",
+                delta("v1", "v2", "{\"id\":\"c3\",\"product_id\":\"p3\",\"quantity\":1}", null, 4), mocha);
+
+        assertEquals(3, updated.size());
+        assertEquals("c3", updated.get(2).getId());
+        assertSame(mocha, updated.get(2).getProduct());
+    }
+
+    @Test
+    public void mergeDelta_removesALine() {
+        List<CartItem> updated = CartRepository.mergeDelta(cart, "v1", delta("v1", "v2", null, "c2", 2), null);
+
+        assertEquals(Collections.singletonList(cart.get(0)), updated);
+    }
+
+    @Test
+    public void mergeDelta_needsTheCartAtTheBaseVersion() {
+        CartDelta delta = delta("v1", "v2", null, "c2", 2);
+
+        assertNull(CartRepository.mergeDelta(cart, "v0", delta, null));
+        assertNull(CartRepository.mergeDelta(cart, null, delta, null));
+        assertNull(CartRepository.mergeDelta(null, "v1", delta, null));
+        assertNull(CartRepository.mergeDelta(cart, "v1", null, null));
+    }
+
+    @Test
+    public void mergeDelta_rejectsAResultTheServerDoesNotAgreeWith() {
+        String newLine = "{\"id\":\"c3\",\"product_id\":\"p3\",\"quantity\":1}";
+
+        assertNull(CartRepository.mergeDelta(cart, "v1", delta("v1", "v2", null, "c2", 3), null));
+        assertNull(CartRepository.mergeDelta(cart, "v1", delta("v1", "v2", newLine, null, 4), null));
+        assertNull(CartRepository.mergeDelta(cart, "v1", delta("v1", "v2", newLine, null, 4),
+                new Product("p9", "Tea", "", 3.00, "Tea", null)));
+    }
+
+    @Test
+    public void resolveLineId_mapsProductIdsToLineIds() {
+        assertEquals("c2", CartRepository.resolveLineId(cart, "c2"));
+        assertEquals("c1", CartRepository.resolveLineId(cart, "p1"));
+        assertEquals("p9", CartRepository.resolveLineId(cart, "p9"));
+        assertEquals("p1", CartRepository.resolveLineId(null, "p1"));
+    }
+
+    @Test
+    public void resolveLineId_prefersALineWithThatId() {
+        List<CartItem> clashing = Arrays.asList(line("x", "p1", 1), line("c9", "x", 1));
+
+        assertEquals("x", CartRepository.resolveLineId(clashing, "x"));
+    }
+
+    private static CartItem line(String id, String productId, int quantity) {
+        CartItem item = new CartItem(new Product(productId, "Item " + productId, "", 4.50, "Coffee", null),
+                quantity);
+        item.setId(id);
+        return item;
+    }
+
+    private static CartDelta delta(String baseVersion, String version, String line, String removedId,
+            int itemCount) {
+        return new Gson().fromJson("{\"base_version\":\"" + baseVersion + "\",\"version\":\"" + version + "\","
+                + "\"line\":" + line + ",\"removed_id\":" + (removedId != null ? "\"" + removedId + "\"" : null)
+                + ",\"item_count\":" + itemCount + "}", CartDelta.class);
+    }
+}
@@ -0,0 +1,195 @@
+package com.coffeecorner.app.repositories;
+
+import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.models.ProductChanges;
+import com.coffeecorner.app.network.ApiResponse;
+import com.coffeecorner.app.utils.Constants;
+import com.coffeecorner.app.utils.ProductIdentityMap;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * CatalogRefresh with both executors running tasks at once and the server
+ * answering when the test says so
+ */
+public class CatalogRefreshTest {
+
+    private static final long INTERVAL_MS = 60_000;
+
+    private final FakeServer server = new FakeServer();
+    private final FakeStore store = new FakeStore();
+    private final CatalogRefresh refresh = new CatalogRefresh(server, store, ProductIdentityMap.getInstance(),
+            Runnable::run, Runnable::run, INTERVAL_MS);
+    private int answered;
+
+    @Test
+    public void refresh_pagesThroughTheChangesAfterTheStoredCursor() {
+        store.cursor = "c0";
+
+        refresh.refreshIfStale(() -> answered++);
+        server.respondChanges(0, changes("[{\"id\":\"p1\",\"name\":\"Latte\"}]", "[]", "c1", true));
+        server.respondChanges(1, changes("[]", "[\"p2\"]", "c2", false));
+
+        assertEquals(Arrays.asList("c0", "c1"), server.changeCursors);
+        assertEquals(2, store.applied.size());
+        assertEquals("c2", store.cursor);
+        assertEquals(1, answered);
+        assertTrue(server.catalogCallbacks.isEmpty());
+    }
+
+    @Test
+    public void refresh_stopsWhenTheCursorDoesNotMove() {
+        store.cursor = "c0";
+
+        refresh.refreshIfStale(null);
+        server.respondChanges(0, changes("[]", "[]", "c0", true));
+
+        assertEquals(1, server.changeCursors.size());
+    }
+
+    @Test
+    public void refresh_withoutACursorDownloadsTheCatalog() {
+        refresh.refreshIfStale(() -> answered++);
+        server.catalogCallbacks.get(0).onResponse(null, Response.success(
+                new ApiResponse<>(true, "ok", Collections.singletonList(new Product("p1", "Latte", "", 4.50,
+                        "Coffee", null))),
+                Headers.of(Constants.HEADER_CATALOG_CURSOR, "c9")));
+
+        assertTrue(server.changeCursors.isEmpty());
+        assertEquals("c9", store.cursor);
+        assertEquals(1, store.replaced.size());
+        assertEquals(1, answered);
+    }
+
+    @Test
+    public void rejectedCursor_fallsBackToAFullDownload() {
+        store.cursor = "stale";
+
+        refresh.refreshIfStale(null);
+        server.changeCallbacks.get(0).onResponse(null, Response.error(400,
+                ResponseBody.create("{\"detail\":\"Invalid cursor\"}", MediaType.get("application/json"))));
+
+        assertEquals(1, server.catalogCallbacks.size());
+    }
+
+    @Test
+    public void readsDuringARefresh_areAllAnsweredAgain() {
+        store.cursor = "c0";
+
+        refresh.refreshIfStale(() -> answered++);
+        refresh.refreshIfStale(() -> answered++);
+        refresh.refreshIfStale(null);
+        server.respondChanges(0, changes("[{\"id\":\"p1\"}]", "[]", "c1", false));
+
+        assertEquals(1, server.changeCursors.size());
+        assertEquals(2, answered);
+    }
+
+    @Test
+    public void unchangedCatalog_answersNobodyAndWaitsAnInterval() {
+        store.cursor = "c0";
+
+        refresh.refreshIfStale(() -> answered++);
+        server.respondChanges(0, changes("[]", "[]", "c0", false));
+        refresh.refreshIfStale(() -> answered++);
+
+        assertEquals(0, answered);
+        assertEquals(1, server.changeCursors.size());
+    }
+
+    @Test
+    public void failureAfterAChangedPage_keepsThatPageAndAnswersReaders() {
+        store.cursor = "c0";
+
+        refresh.refreshIfStale(() -> answered++);
+        server.respondChanges(0, changes("[{\"id\":\"p1\"}]", "[]", "c1", true));
+        server.changeCallbacks.get(1).onFailure(null, new IOException("offline"));
+
+        assertEquals("c1", store.cursor);
+        assertEquals(1, answered);
+    }
+
+    @Test
+    public void freshCatalog_isNotRequested() {
+        store.syncedAt = System.currentTimeMillis();
+        store.cursor = "c0";
+
+        refresh.refreshIfStale(() -> answered++);
+
+        assertTrue(server.changeCursors.isEmpty());
+        assertTrue(server.catalogCallbacks.isEmpty());
+        assertEquals(0, answered);
+    }
+
+    private static ProductChanges changes(String products, String deleted, String cursor, boolean hasMore) {
+        return new Gson().fromJson("{\"products\":" + products + ",\"deleted\":" + deleted + ",\"cursor\":\""
+                + cursor + "\",\"has_more\":" + hasMore + "}", ProductChanges.class);
+    }
+
+    private static final class FakeServer implements CatalogRefresh.Server {
+        final List<String> changeCursors = new ArrayList<>();
+        final List<Callback<ApiResponse<ProductChanges>>> changeCallbacks = new ArrayList<>();
+        final List<Callback<ApiResponse<List<Product>>>> catalogCallbacks = new ArrayList<>();
+
+        void respondChanges(int index, ProductChanges page) {
+            changeCallbacks.get(index).onResponse(null, Response.success(new ApiResponse<>(true, "ok", page)));
+        }
+
+        @Override
+        public void getChanges(String cursor, Callback<ApiResponse<ProductChanges>> callback) {
+            changeCursors.add(cursor);
+            changeCallbacks.add(callback);
+        }
+
+        @Override
+        public void getCatalog(Callback<ApiResponse<List<Product>>> callback) {
+            catalogCallbacks.add(callback);
+        }
+    }
+
+    private static final class FakeStore implements CatalogRefresh.Store {
+        final List<ProductChanges> applied = new ArrayList<>();
+        final List<List<Product>> replaced = new ArrayList<>();
+        long syncedAt;
+        String cursor;
+
+        @Override
+        public long getCatalogSyncedAt() {
+            return syncedAt;
+        }
+
+        @Override
+        public String getSyncCursor() {
+            return cursor;
+        }
+
+        @Override
+        public boolean applyChanges(ProductChanges changes) {
+            applied.add(changes);
+            cursor = changes.getCursor();
+            return !changes.getProducts().isEmpty() || !changes.getDeleted().isEmpty();
+        }
+
+        @Override
+        public boolean replaceCatalog(List<Product> products, String cursor) {
+            replaced.add(products);
+            this.cursor = cursor;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.coffeecorner.app.repositories;
+
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.CartMergeRequest;
+import com.coffeecorner.app.models.CartMergeResult;
+import com.coffeecorner.app.models.Product;
+import com.google.gson.Gson;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GuestCartMergeTest {
+
+    private final FakeServer server = new FakeServer();
+    private final FakeGuestCart guestCart = new FakeGuestCart();
+    private GuestCartMerge merge;
+
+    @Before
+    public void setUp() {
+        merge = new GuestCartMerge(server, guestCart);
+    }
+
+    @Test
+    public void run_sendsTheWholeGuestCartInOneRequest() {
+        guestCart.items.add(item("p1", 2));
+        guestCart.items.add(item("p2", 1));
+        guestCart.items.add(new CartItem());
+
+        merge.run(new Recorder());
+
+        assertEquals(1, server.merges.size());
+        CartMergeRequest request = server.merges.get(0);
+        assertEquals(2, request.getItems().size());
+        assertEquals("p1", request.getItems().get(0).getProductId());
+        assertEquals(2, request.getItems().get(0).getQuantity());
+        assertEquals("p2", request.getItems().get(1).getProductId());
+    }
+
+    @Test
+    public void callsDuringAMerge_waitForIt() {
+        guestCart.items.add(item("p1", 2));
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+
+        merge.run(first);
+        merge.run(second);
+        List<CartItem> cart = Collections.singletonList(item("p1", 3));
+        server.mergeCallbacks.get(0).onCartSynced(cart, Collections.emptyList());
+
+        assertEquals(1, server.merges.size());
+        assertSame(cart, first.cartItems);
+        assertSame(cart, second.cartItems);
+    }
+
+    @Test
+    public void success_removesOnlyTheSentLinesAndReportsRejections() {
+        CartItem sent = item("p1", 2);
+        guestCart.items.add(sent);
+        Recorder recorder = new Recorder();
+
+        merge.run(recorder);
+        guestCart.items.add(item("p2", 1));
+        List<CartMergeResult.Failure> rejected = Collections.singletonList(new Gson().fromJson(
+                "{\"product_id\":\"p1\",\"reason\":\"Product not found\"}", CartMergeResult.Failure.class));
+        server.mergeCallbacks.get(0).onCartSynced(new ArrayList<>(), rejected);
+
+        assertEquals(Collections.singletonList(sent), guestCart.removed);
+        assertEquals("p1", recorder.rejectedItems.get(0).getProductId());
+        assertNull(recorder.error);
+    }
+
+    @Test
+    public void failure_keepsTheGuestCartForTheNextAttempt() {
+        guestCart.items.add(item("p1", 2));
+        Recorder recorder = new Recorder();
+
+        merge.run(recorder);
+        server.mergeCallbacks.get(0).onError("Network error");
+        merge.run(new Recorder());
+
+        assertEquals("Network error", recorder.error);
+        assertNull(guestCart.removed);
+        assertEquals(2, server.merges.size());
+        assertEquals(1, server.merges.get(1).getItems().size());
+    }
+
+    @Test
+    public void emptyGuestCart_loadsTheServerCart() {
+        Recorder recorder = new Recorder();
+
+        merge.run(recorder);
+        List<CartItem> cart = Arrays.asList(item("p1", 1), item("p2", 4));
+        server.loadCallbacks.get(0).onCartItemsLoaded(cart);
+
+        assertTrue(server.merges.isEmpty());
+        assertTrue(guestCart.cleared);
+        assertSame(cart, recorder.cartItems);
+        assertTrue(recorder.rejectedItems.isEmpty());
+    }
+
+    private static CartItem item(String productId, int quantity) {
+        return new CartItem(new Product(productId, "Item " + productId, "", 4.50, "Coffee", null), quantity);
+    }
+
+    private static final class FakeServer implements GuestCartMerge.Server {
+        final List<CartMergeRequest> merges = new ArrayList<>();
+        final List<CartRepository.CartSyncCallback> mergeCallbacks = new ArrayList<>();
+        final List<CartRepository.CartItemsCallback> loadCallbacks = new ArrayList<>();
+
+        @Override
+        public void merge(CartMergeRequest request, CartRepository.CartSyncCallback callback) {
+            merges.add(request);
+            mergeCallbacks.add(callback);
+        }
+
+        @Override
+        public void loadCart(CartRepository.CartItemsCallback callback) {
+            loadCallbacks.add(callback);
+        }
+    }
+
+    private static final class FakeGuestCart implements GuestCartMerge.GuestCart {
+        final List<CartItem> items = new ArrayList<>();
+        List<CartItem> removed;
+        boolean cleared;
+
+        @Override
+        public List<CartItem> getCartItems() {
+            return new ArrayList<>(items);
+        }
+
+        @Override
+        public void removeSent(Collection<CartItem> sentItems) {
+            removed = new ArrayList<>(sentItems);
+        }
+
+        @Override
+        public void clearCart() {
+            cleared = true;
+            items.clear();
+        }
+    }
+
+    private static final class Recorder implements CartRepository.CartSyncCallback {
+        List<CartItem> cartItems;
+        List<CartMergeResult.Failure> rejectedItems;
+        String error;
+
+        @Override
+        public void onCartSynced(List<CartItem> cartItems, List<CartMergeResult.Failure> rejectedItems) {
+            this.cartItems = cartItems;
+            this.rejectedItems = rejectedItems;
+        }
+
+        @Override
+        public void onError(String errorMessage) {
+            error = errorMessage;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.coffeecorner.app.repositories;
+
+import com.coffeecorner.app.network.ApiResponse;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+public class InFlightRequestsTest {
+
+    private static final String URL = "https://api.example.com/products";
+
+    @Test
+    public void joinedCallbacks_getTheirOwnDataLists() {
+        FakeCall<ApiResponse<List<String>>> first = new FakeCall<>(get(URL + "?joined=list"));
+        FakeCall<ApiResponse<List<String>>> second = new FakeCall<>(get(URL + "?joined=list"));
+        Recorder<ApiResponse<List<String>>> a = new Recorder<>();
+        Recorder<ApiResponse<List<String>>> b = new Recorder<>();
+
+        InFlightRequests.enqueue(first, a);
+        InFlightRequests.enqueue(second, b);
+        List<String> data = new ArrayList<>(Arrays.asList("latte", "mocha"));
+        first.respond(Response.success(new ApiResponse<>(true, "ok", data), raw(first.request(), 200)));
+
+        assertFalse(second.enqueued);
+        List<String> seenByA = a.response.body().getData();
+        List<String> seenByB = b.response.body().getData();
+        assertEquals(data, seenByA);
+        assertEquals(data, seenByB);
+        assertNotSame(seenByA, seenByB);
+        seenByA.clear();
+        assertEquals(2, seenByB.size());
+        assertEquals("ok", b.response.body().getMessage());
+    }
+
+    @Test
+    public void joinedCallbacks_canEachReadTheErrorBody() throws IOException {
+        FakeCall<ApiResponse<List<String>>> first = new FakeCall<>(get(URL + "?joined=error"));
+        FakeCall<ApiResponse<List<String>>> second = new FakeCall<>(get(URL + "?joined=error"));
+        Recorder<ApiResponse<List<String>>> a = new Recorder<>();
+        Recorder<ApiResponse<List<String>>> b = new Recorder<>();
+
+        InFlightRequests.enqueue(first, a);
+        InFlightRequests.enqueue(second, b);
+        first.respond(Response.error(ResponseBody.create("{\"detail\":\"down\"}",
+                MediaType.get("application/json")), raw(first.request(), 503)));
+
+        assertEquals("{\"detail\":\"down\"}", a.response.errorBody().string());
+        assertEquals("{\"detail\":\"down\"}", b.response.errorBody().string());
+        assertEquals(503, b.response.code());
+    }
+
+    @Test
+    public void laterCalls_startANewRequest() {
+        FakeCall<ApiResponse<List<String>>> first = new FakeCall<>(get(URL + "?joined=later"));
+        FakeCall<ApiResponse<List<String>>> later = new FakeCall<>(get(URL + "?joined=later"));
+        Recorder<ApiResponse<List<String>>> a = new Recorder<>();
+
+        InFlightRequests.enqueue(first, a);
+        first.fail(new IOException("offline"));
+        InFlightRequests.enqueue(later, new Recorder<>());
+
+        assertNotNull(a.failure);
+        assertTrue(later.enqueued);
+    }
+
+    @Test
+    public void cancellingTheOnlyCallback_cancelsTheCall() {
+        FakeCall<ApiResponse<List<String>>> first = new FakeCall<>(get(URL + "?joined=cancel"));
+        FakeCall<ApiResponse<List<String>>> later = new FakeCall<>(get(URL + "?joined=cancel"));
+        Recorder<ApiResponse<List<String>>> a = new Recorder<>();
+        Recorder<ApiResponse<List<String>>> b = new Recorder<>();
+
+        InFlightRequests.enqueue(first, a).cancel();
+        InFlightRequests.enqueue(later, b);
+        first.fail(new IOException("Canceled"));
+
+        assertTrue(first.canceled);
+        assertNull(a.failure);
+        assertTrue(later.enqueued);
+        later.respond(Response.success(new ApiResponse<>(true, "ok", new ArrayList<>()), raw(later.request(), 200)));
+        assertNotNull(b.response);
+    }
+
+    @Test
+    public void cancellingAJoinedCallback_leavesTheCallToTheOthers() {
+        FakeCall<ApiResponse<List<String>>> first = new FakeCall<>(get(URL + "?joined=partial"));
+        FakeCall<ApiResponse<List<String>>> second = new FakeCall<>(get(URL + "?joined=partial"));
+        Recorder<ApiResponse<List<String>>> a = new Recorder<>();
+        Recorder<ApiResponse<List<String>>> b = new Recorder<>();
+
+        InFlightRequests.enqueue(first, a);
+        InFlightRequests.enqueue(second, b).cancel();
+        first.respond(Response.success(new ApiResponse<>(true, "ok", new ArrayList<>()), raw(first.request(), 200)));
+
+        assertFalse(first.canceled);
+        assertNotNull(a.response);
+        assertNull(b.response);
+    }
+
+    @Test
+    public void cancellingAfterTheAnswer_doesNothing() {
+        FakeCall<ApiResponse<List<String>>> first = new FakeCall<>(get(URL + "?joined=answered"));
+        Recorder<ApiResponse<List<String>>> a = new Recorder<>();
+
+        Cancellable request = InFlightRequests.enqueue(first, a);
+        first.respond(Response.success(new ApiResponse<>(true, "ok", new ArrayList<>()), raw(first.request(), 200)));
+        request.cancel();
+
+        assertFalse(first.canceled);
+        assertNotNull(a.response);
+    }
+
+    @Test
+    public void otherMethods_areNeverJoined() {
+        Request post = new Request.Builder().url(URL).post(RequestBody.create(new byte[0], null)).build();
+        FakeCall<ApiResponse<List<String>>> first = new FakeCall<>(post);
+        FakeCall<ApiResponse<List<String>>> second = new FakeCall<>(post);
+
+        InFlightRequests.enqueue(first, new Recorder<>());
+        InFlightRequests.enqueue(second, new Recorder<>());
+
+        assertTrue(first.enqueued);
+        assertTrue(second.enqueued);
+    }
+
+    private static Request get(String url) {
+        return new Request.Builder().url(url).build();
+    }
+
+    private static okhttp3.Response raw(Request request, int code) {
+        return new okhttp3.Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("HTTP " + code)
+                .build();
+    }
+
+    private static final class Recorder<T> implements Callback<T> {
+        Response<T> response;
+        Throwable failure;
+
+        @Override
+        public void onResponse(Call<T> call, Response<T> response) {
+            this.response = response;
+        }
+
+        @Override
+        public void onFailure(Call<T> call, Throwable t) {
+            failure = t;
+        }
+    }
+
+    /**
+     * Call that completes when the test says so
+     */
+    private static final class FakeCall<T> implements Call<T> {
+        private final Request request;
+        private Callback<T> callback;
+        boolean enqueued;
+        boolean canceled;
+
+        FakeCall(Request request) {
+            this.request = request;
+        }
+
+        void respond(Response<T> response) {
+            callback.onResponse(this, response);
+        }
+
+        void fail(Throwable t) {
+            callback.onFailure(this, t);
+        }
+
+        @Override
+        public Response<T> execute() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void enqueue(Callback<T> callback) {
+            this.callback = callback;
+            enqueued = true;
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return enqueued;
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new FakeCall<>(request);
+        }
+
+        @Override
+        public Request request() {
+            return request;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.coffeecorner.app.utils;
+
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.Order;
+import com.coffeecorner.app.models.Product;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CartPricingTest {
+
+    private final Product latte = new Product("p1", "Latte", "", 4.50, "Coffee", null);
+    private final Product cookie = new Product("p2", "Cookie", "", 0.50, "Food", null);
+
+    @Test
+    public void toCents_roundsToTheNearestCent() {
+        assertEquals(1999, CartPricing.toCents(19.99));
+        assertEquals(30, CartPricing.toCents(0.1 + 0.2));
+        assertEquals(0.3, CartPricing.toAmount(30), 0);
+    }
+
+    @Test
+    public void lineCents_includesExtrasPerUnit() {
+        CartItem item = new CartItem(latte, 3, "Large", "Oat Milk", 0.75);
+
+        assertEquals(1350, CartPricing.itemCents(item));
+        assertEquals(225, CartPricing.extrasCents(item));
+        assertEquals(1575, CartPricing.lineCents(item));
+    }
+
+    @Test
+    public void quote_addsTaxAndDeliveryFee() {
+        CartPricing.Totals totals = new CartPricing.Totals();
+        totals.add(new CartItem(latte, 3, "Large", "Oat Milk", 0.75));
+
+        CartPricing.Quote quote = CartPricing.quote(totals, CartPricing.Adjustments.NONE);
+
+        assertEquals(3, quote.getItemCount());
+        assertEquals(1575, quote.getSubtotalCents());
+        // 9% of 15.75 is 1.4175
+        assertEquals(142, quote.getTaxCents());
+        assertEquals(CartPricing.DELIVERY_FEE_CENTS, quote.getDeliveryFeeCents());
+        assertEquals(0, quote.getDiscountCents());
+        assertEquals(1575 + 142 + 200, quote.getTotalCents());
+    }
+
+    @Test
+    public void quote_roundsTaxHalfUp() {
+        CartPricing.Totals totals = new CartPricing.Totals();
+        totals.add(new CartItem(cookie, 1, "Medium", "Whole Milk", 0));
+
+        // 9% of 0.50 is 0.045
+        assertEquals(5, CartPricing.quote(totals, CartPricing.Adjustments.NONE).getTaxCents());
+    }
+
+    @Test
+    public void quote_ofAnEmptyCartIsEmpty() {
+        CartPricing.Totals totals = new CartPricing.Totals();
+        CartItem item = new CartItem(latte, 2);
+        totals.add(item);
+        totals.remove(item);
+
+        assertSame(CartPricing.Quote.EMPTY, CartPricing.quote(totals, new CartPricing.Adjustments("SAVE5", 500)));
+    }
+
+    @Test
+    public void adjustments_combinePromoCodeAndLoyaltyPoints() {
+        CartPricing.Totals totals = new CartPricing.Totals();
+        totals.add(new CartItem(latte, 3, "Large", "Oat Milk", 0.75));
+
+        // Codes are case-insensitive; 250 points are two $5 rewards
+        CartPricing.Quote quote = CartPricing.quote(totals, new CartPricing.Adjustments("welcome10", 250));
+
+        assertEquals(157 + 1000, quote.getDiscountCents());
+        assertEquals(1575 + 142 + 200 - 1157, quote.getTotalCents());
+    }
+
+    @Test
+    public void discount_isCappedAtTheSubtotal() {
+        CartPricing.Totals totals = new CartPricing.Totals();
+        totals.add(new CartItem(latte, 3, "Large", "Oat Milk", 0.75));
+
+        CartPricing.Quote quote = CartPricing.quote(totals, new CartPricing.Adjustments(null, 1000));
+
+        assertEquals(1575, quote.getDiscountCents());
+        assertEquals(142 + 200, quote.getTotalCents());
+    }
+
+    @Test
+    public void totals_copyIsIndependent() {
+        CartPricing.Totals totals = new CartPricing.Totals();
+        totals.add(new CartItem(latte, 1));
+        CartPricing.Totals copy = new CartPricing.Totals(totals);
+        copy.add(new CartItem(cookie, 2));
+
+        assertEquals(1, totals.getItemCount());
+        assertEquals(450, totals.getSubtotalCents());
+        assertEquals(3, copy.getItemCount());
+        assertEquals(550, copy.getSubtotalCents());
+    }
+
+    @Test
+    public void orderTotalCents_usesTheStoredFeesTaxAndDiscount() {
+        Order order = new Order();
+        order.setItems(Arrays.asList(new CartItem(latte, 2), new CartItem(cookie, 1)));
+        order.setDeliveryFee(2.00);
+        order.setTax(0.86);
+        order.setDiscount(0.50);
+
+        assertEquals(950 + 200 + 86 - 50, CartPricing.orderTotalCents(order));
+        assertEquals(0, CartPricing.orderTotalCents(null));
+    }
+}
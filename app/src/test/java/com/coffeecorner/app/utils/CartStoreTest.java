@@ -0,0 +1,97 @@
+package com.coffeecorner.app.utils;
+
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.Product;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * CartStore with dispatches queued instead of run: LiveData needs a main
+ * Looper, which local tests do not have.
+ */
+public class CartStoreTest {
+
+    private final Product latte = new Product("p1", "Latte", "", 4.50, "Coffee", null);
+    private final Product cookie = new Product("p2", "Cookie", "", 0.50, "Food", null);
+    private final List<Runnable> dispatches = new ArrayList<>();
+    private final CartStore store = new CartStore(dispatches::add);
+
+    @Test
+    public void publish_versionsAndPricesTheSnapshot() {
+        CartStore.Snapshot first = store.publish(Arrays.asList(new CartItem(latte, 2), null));
+        CartStore.Snapshot second = store.publish(Arrays.asList(new CartItem(latte, 2),
+                new CartItem(cookie, 3, "Regular", "None", 0.25)));
+
+        assertSame(second, store.getSnapshot());
+        assertEquals(first.getVersion() + 1, second.getVersion());
+        assertEquals(1, first.getItems().size());
+        assertEquals(5, second.getItemCount());
+        assertEquals(11.25, second.getTotal(), 0);
+        assertEquals(1125, second.getQuote().getSubtotalCents());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotItems_cannotBeChanged() {
+        store.publish(new ArrayList<>(Arrays.asList(new CartItem(latte, 1)))).getItems().clear();
+    }
+
+    @Test
+    public void publish_ofNullIsAnEmptyCart() {
+        store.publish(Arrays.asList(new CartItem(latte, 2)));
+
+        CartStore.Snapshot snapshot = store.publish(null);
+
+        assertTrue(snapshot.isEmpty());
+        assertEquals(0, snapshot.getItemCount());
+        assertEquals(CartPricing.Quote.EMPTY, snapshot.getQuote());
+    }
+
+    @Test
+    public void update_repricesOnlyThroughTheEditor() {
+        CartItem cookies = new CartItem(cookie, 4);
+        store.publish(Arrays.asList(new CartItem(latte, 2), cookies));
+
+        CartStore.Snapshot snapshot = store.update(editor -> {
+            editor.set(0, editor.getItems().get(0).withQuantity(1));
+            editor.remove(1);
+            editor.add(new CartItem(cookie, 1));
+        });
+
+        assertEquals(2, snapshot.getItemCount());
+        assertEquals(5.00, snapshot.getTotal(), 0);
+        assertEquals(4, cookies.getQuantity());
+        CartPricing.Totals totals = new CartPricing.Totals();
+        snapshot.copyTotalsTo(totals);
+        assertEquals(500, totals.getSubtotalCents());
+    }
+
+    @Test
+    public void setAdjustments_keepsTheItemsAndReprices() {
+        CartStore.Snapshot before = store.publish(Arrays.asList(new CartItem(latte, 2)));
+
+        CartStore.Snapshot after = store.setAdjustments(new CartPricing.Adjustments(null,
+                CartPricing.LOYALTY_POINTS_PER_REWARD));
+
+        assertSame(before.getItems(), after.getItems());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(CartPricing.LOYALTY_REWARD_CENTS, after.getQuote().getDiscountCents());
+        assertEquals(before.getQuote().getTotalCents() - CartPricing.LOYALTY_REWARD_CENTS,
+                after.getQuote().getTotalCents());
+        assertEquals(after.getAdjustments(), store.publish(null).getAdjustments());
+    }
+
+    @Test
+    public void changesBeforeTheDispatchRuns_shareOneDispatch() {
+        store.publish(Arrays.asList(new CartItem(latte, 1)));
+        store.update(editor -> editor.add(new CartItem(cookie, 1)));
+        store.setAdjustments(CartPricing.Adjustments.NONE);
+
+        assertEquals(1, dispatches.size());
+    }
+}
@@ -0,0 +1,144 @@
+package com.coffeecorner.app.utils;
+
+import com.coffeecorner.app.models.Product;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CatalogFacetsTest {
+
+    // Priced 1.00 to 8.00, so the quartile bands are [1, 3), [3, 5), [5, 7) and [7, 8]
+    private final Product p1 = product("p1", "Coffee", 1.00, 3.0f, true, false);
+    private final Product p2 = product("p2", "Coffee", 2.00, 4.5f, true, true);
+    private final Product p3 = product("p3", "Tea", 3.00, 4.0f, false, false);
+    private final Product p4 = product("p4", "Tea", 4.00, 2.0f, true, false);
+    private final Product p5 = product("p5", "Coffee", 5.00, 5.0f, true, true);
+    private final Product p6 = product("p6", "Desserts", 6.00, 3.5f, true, false);
+    private final Product p7 = product("p7", "Desserts", 7.00, 4.0f, false, true);
+    private final Product p8 = product("p8", "Coffee", 8.00, 4.5f, true, false);
+    private final CatalogFacets facets = new CatalogFacets(Arrays.asList(p1, p2, p3, p4, p5, p6, p7, p8));
+
+    @Test
+    public void priceBands_splitThePricesIntoQuartiles() {
+        assertEquals(4, facets.getPriceBandCount());
+        assertEquals(1.00, facets.getPriceBandMin(0), 0);
+        assertEquals(3.00, facets.getPriceBandMax(0), 0);
+        assertEquals(7.00, facets.getPriceBandMin(3), 0);
+        assertEquals(8.00, facets.getPriceBandMax(3), 0);
+
+        // Band edges belong to the band above, except the top price
+        assertEquals(Arrays.asList(p1, p2), filter(CatalogFacets.Filter.NONE.withPriceBand(0, true)));
+        assertEquals(Arrays.asList(p7, p8), filter(CatalogFacets.Filter.NONE.withPriceBand(3, true)));
+    }
+
+    @Test
+    public void priceBands_ofEqualPricesAreOneBand() {
+        CatalogFacets same = new CatalogFacets(Arrays.asList(
+                product("a", "Tea", 2.50, 0, true, false), product("b", "Tea", 2.50, 0, true, false)));
+
+        assertEquals(1, same.getPriceBandCount());
+        assertEquals(2, same.filter(CatalogFacets.Filter.NONE.withPriceBand(0, true)).size());
+    }
+
+    @Test
+    public void selectedPriceBands_areCombined() {
+        CatalogFacets.Filter filter = CatalogFacets.Filter.NONE.withPriceBand(0, true).withPriceBand(3, true);
+
+        assertEquals(Arrays.asList(p1, p2, p7, p8), filter(filter));
+        assertEquals(Arrays.asList(p7, p8), filter(filter.withPriceBand(0, false)));
+    }
+
+    @Test
+    public void ratingBuckets_areCumulative() {
+        // Thresholds are 3.0, 3.5, 4.0 and 4.5
+        assertEquals(Arrays.asList(p2, p3, p5, p7, p8), filter(CatalogFacets.Filter.NONE.withMinRating(2)));
+        assertEquals(Arrays.asList(p2, p5, p8), filter(CatalogFacets.Filter.NONE.withMinRating(3)));
+        assertEquals(8, filter(CatalogFacets.Filter.NONE.withMinRating(-1)).size());
+    }
+
+    @Test
+    public void facets_areCombinedWithEachOther() {
+        CatalogFacets.Filter filter = CatalogFacets.Filter.NONE
+                .withCategory("coffee")
+                .withAvailableOnly(true)
+                .withMinRating(3);
+
+        assertEquals(Arrays.asList(p2, p5, p8), filter(filter));
+        assertEquals(Arrays.asList(p2, p5), filter(filter.withFeaturedOnly(true)));
+        assertEquals(Collections.singletonList(p5), filter(filter.withPriceBand(2, true)));
+    }
+
+    @Test
+    public void category_matchesIgnoringCase() {
+        assertEquals(Arrays.asList(p6, p7), filter(CatalogFacets.Filter.NONE.withCategory("DESSERTS")));
+        assertTrue(filter(CatalogFacets.Filter.NONE.withCategory("Juice")).isEmpty());
+        assertEquals(8, filter(CatalogFacets.Filter.NONE.withCategory("All")).size());
+    }
+
+    @Test
+    public void filter_hasFacetsOnlyBeyondTheCategory() {
+        assertFalse(CatalogFacets.Filter.NONE.withCategory("Tea").hasFacets());
+        assertTrue(CatalogFacets.Filter.NONE.withPriceBand(1, true).hasFacets());
+        assertFalse(CatalogFacets.Filter.NONE.withPriceBand(1, true).withPriceBand(1, false).hasFacets());
+    }
+
+    @Test
+    public void sortOrders_listTheMatchesInOrder() {
+        CatalogFacets.Filter coffee = CatalogFacets.Filter.NONE.withCategory("Coffee");
+
+        assertEquals(Arrays.asList(p1, p2, p5, p8), filter(coffee));
+        assertEquals(Arrays.asList(p8, p5, p2, p1), filter(coffee.withSort(CatalogFacets.Sort.PRICE_DESCENDING)));
+        assertEquals(Arrays.asList(p1, p2, p5, p8), filter(coffee.withSort(CatalogFacets.Sort.PRICE_ASCENDING)));
+        assertEquals(Arrays.asList(p8, p5, p2, p1), filter(coffee.withSort(CatalogFacets.Sort.NEWEST)));
+    }
+
+    @Test
+    public void ratingSort_keepsCatalogOrderForEqualRatings() {
+        assertEquals(Arrays.asList(p5, p2, p8, p3, p7, p6, p1, p4),
+                filter(CatalogFacets.Filter.NONE.withSort(CatalogFacets.Sort.RATING)));
+        assertEquals(Arrays.asList(p5, p2, p8, p6, p1),
+                filter(CatalogFacets.Filter.NONE.withAvailableOnly(true).withMinRating(0)
+                        .withSort(CatalogFacets.Sort.POPULARITY)));
+    }
+
+    @Test
+    public void sortedView_isReadOnly() {
+        List<Product> view = facets.filter(CatalogFacets.Filter.NONE.withSort(CatalogFacets.Sort.PRICE_DESCENDING));
+
+        assertEquals(p8, view.get(0));
+        try {
+            view.add(p1);
+            fail();
+        } catch (UnsupportedOperationException expected) {
+            // Views are backed by the catalog
+        }
+    }
+
+    @Test
+    public void emptyCatalog_matchesNothing() {
+        CatalogFacets empty = new CatalogFacets(new ArrayList<>());
+
+        assertEquals(0, empty.size());
+        assertEquals(0, empty.getPriceBandCount());
+        assertTrue(empty.filter(CatalogFacets.Filter.NONE.withAvailableOnly(true)).isEmpty());
+    }
+
+    private List<Product> filter(CatalogFacets.Filter filter) {
+        return new ArrayList<>(facets.filter(filter));
+    }
+
+    private static Product product(String id, String category, double price, float rating, boolean available,
+            boolean featured) {
+        Product product = new Product(id, id, "", price, category, null);
+        product.setRating(rating);
+        product.setAvailable(available);
+        product.setFeatured(featured);
+        return product;
+    }
+}
@@ -0,0 +1,35 @@
+package com.coffeecorner.app.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Full-text query building; the SQLite store itself needs a device
+ */
+public class CatalogStoreTest {
+
+    @Test
+    public void toMatchExpression_makesEveryWordAPrefixTerm() {
+        assertEquals("ice* lat*", CatalogStore.toMatchExpression("ice lat"));
+    }
+
+    @Test
+    public void toMatchExpression_dropsPunctuationAndOperators() {
+        assertEquals("caf* au* lait*", CatalogStore.toMatchExpression("  caf, \"au\" (lait)*  "));
+        assertEquals("NOT* mocha*", CatalogStore.toMatchExpression("-NOT mocha^"));
+        assertEquals("oat* milk*", CatalogStore.toMatchExpression("oat:milk"));
+    }
+
+    @Test
+    public void toMatchExpression_keepsLettersAndDigitsOfAnyScript() {
+        assertEquals("caf\u00e9* 12oz*", CatalogStore.toMatchExpression("caf\u00e9 12oz"));
+        assertEquals("\u62b9\u8336*", CatalogStore.toMatchExpression("\u62b9\u8336"));
+    }
+
+    @Test
+    public void toMatchExpression_ofNoWordsIsEmpty() {
+        assertEquals("", CatalogStore.toMatchExpression(""));
+        assertEquals("", CatalogStore.toMatchExpression(" *\"- "));
+    }
+}
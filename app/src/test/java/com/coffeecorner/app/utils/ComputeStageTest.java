@@ -0,0 +1,140 @@
+package com.coffeecorner.app.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ComputeStageTest {
+
+    private static final long TIMEOUT_S = 5;
+
+    private final ComputeStage stage = new ComputeStage();
+    private final List<String> published = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        stage.close();
+    }
+
+    @Test
+    public void run_publishesTheResult() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+
+        stage.run("menu", () -> "result", result -> {
+            published.add(result);
+            done.countDown();
+        });
+
+        assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals("result", published.get(0));
+    }
+
+    @Test
+    public void run_supersedesEarlierWorkUnderTheSameKey() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        stage.run("menu", () -> {
+            started.countDown();
+            try {
+                // Cancelling interrupts the wait; either way the result is dropped
+                release.await(TIMEOUT_S, TimeUnit.SECONDS);
+            } finally {
+                finished.countDown();
+            }
+            return "old";
+        }, published::add);
+        assertTrue(started.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        stage.run("menu", () -> "new", result -> {
+            published.add(result);
+            done.countDown();
+        });
+        release.countDown();
+
+        assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(finished.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals(1, published.size());
+        assertEquals("new", published.get(0));
+    }
+
+    @Test
+    public void run_keepsWorkUnderOtherKeys() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+
+        stage.run("menu", () -> "menu", result -> {
+            published.add(result);
+            done.countDown();
+        });
+        stage.run("orders", () -> "orders", result -> {
+            published.add(result);
+            done.countDown();
+        });
+
+        assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(published.contains("menu"));
+        assertTrue(published.contains("orders"));
+    }
+
+    @Test
+    public void cancel_dropsTheResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        stage.run("menu", () -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await(TIMEOUT_S, TimeUnit.SECONDS);
+            } finally {
+                finished.countDown();
+            }
+            return "cancelled";
+        }, published::add);
+        assertTrue(started.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        stage.cancel("menu");
+
+        assertTrue(finished.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    public void failedWork_publishesNothingAndLeavesTheKeyUsable() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        stage.<String>run("menu", () -> {
+            failed.countDown();
+            throw new IllegalStateException("no menu");
+        }, published::add);
+        assertTrue(failed.await(TIMEOUT_S, TimeUnit.SECONDS));
+
+        stage.run("menu", () -> "retry", result -> {
+            published.add(result);
+            done.countDown();
+        });
+
+        assertTrue(done.await(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals(1, published.size());
+        assertEquals("retry", published.get(0));
+    }
+
+    @Test
+    public void close_refusesNewWork() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+        stage.close();
+
+        stage.run("menu", () -> {
+            ran.countDown();
+            return "late";
+        }, published::add);
+
+        assertFalse(ran.await(100, TimeUnit.MILLISECONDS));
+        assertTrue(published.isEmpty());
+    }
+}
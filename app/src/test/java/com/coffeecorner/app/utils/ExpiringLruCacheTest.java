@@ -0,0 +1,118 @@
+package com.coffeecorner.app.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Ages are chosen at the extremes so no test depends on the clock: an hour is
+ * always within the time-to-live, and zero is always past it.
+ */
+public class ExpiringLruCacheTest {
+
+    private static final long HOUR_MS = 60 * 60 * 1000;
+
+    @Test
+    public void get_returnsFreshEntries() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(4, HOUR_MS, HOUR_MS);
+        cache.put("menu", "v1");
+
+        ExpiringLruCache.Lookup<String> lookup = cache.get("menu");
+
+        assertNotNull(lookup);
+        assertEquals("v1", lookup.getValue());
+        assertTrue(lookup.isFresh());
+        assertEquals(1, cache.stats().getHitCount());
+    }
+
+    @Test
+    public void get_returnsStaleEntriesUntilTheMaximumAge() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(4, 0, HOUR_MS);
+        cache.put("menu", "v1");
+
+        ExpiringLruCache.Lookup<String> lookup = cache.get("menu");
+
+        assertNotNull(lookup);
+        assertFalse(lookup.isFresh());
+        assertEquals(1, cache.stats().getStaleHitCount());
+    }
+
+    @Test
+    public void get_dropsEntriesPastTheMaximumAge() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(4, 0, 0);
+        cache.put("menu", "v1");
+
+        assertNull(cache.get("menu"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().getMissCount());
+    }
+
+    @Test
+    public void put_evictsTheLeastRecentlyUsed() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, HOUR_MS, HOUR_MS);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void put_replacesWithAFreshEntry() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(4, HOUR_MS, HOUR_MS);
+        cache.put("menu", "v1");
+        cache.invalidateAll();
+        cache.put("menu", "v2");
+
+        ExpiringLruCache.Lookup<String> lookup = cache.get("menu");
+
+        assertEquals("v2", lookup.getValue());
+        assertTrue(lookup.isFresh());
+    }
+
+    @Test
+    public void invalidateAll_keepsValuesButMarksThemStale() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(4, HOUR_MS, HOUR_MS);
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        cache.invalidateAll();
+
+        assertEquals(2, cache.size());
+        ExpiringLruCache.Lookup<String> lookup = cache.get("a");
+        assertEquals("1", lookup.getValue());
+        assertFalse(lookup.isFresh());
+    }
+
+    @Test
+    public void stats_snapshotTheCounts() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(3, HOUR_MS, HOUR_MS);
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        cache.invalidateAll();
+        cache.get("a");
+
+        ExpiringLruCache.Stats stats = cache.stats();
+        cache.get("c");
+
+        assertEquals(1, stats.getSize());
+        assertEquals(3, stats.getMaxEntries());
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getStaleHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0.75, stats.getHitRate(), 0);
+        assertEquals("[size=1/3, hits=2, stale=1, misses=1, hitRate=75%]", stats.toString());
+        assertEquals(2, cache.stats().getMissCount());
+    }
+
+    @Test
+    public void stats_ofAnUnusedCacheHaveNoHitRate() {
+        assertEquals(0, new ExpiringLruCache<String, String>(1, 0, 0).stats().getHitRate(), 0);
+    }
+}
@@ -0,0 +1,170 @@
+package com.coffeecorner.app.utils;
+
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.Product;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * LocalCartStore against a journal in a temporary directory
+ */
+public class LocalCartStoreTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private final Product latte = new Product("p1", "Latte", "", 4.50, "Coffee", null);
+    private final Product mocha = new Product("p2", "Mocha", "", 5.25, "Coffee", null);
+    private File directory;
+    private File journal;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("cart").toFile();
+        journal = new File(directory, "local_cart.journal");
+        // An existing journal, so the legacy import (which needs a Context) is skipped
+        assertTrue(journal.createNewFile());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void add_mergesLinesWithTheSameOptions() throws Exception {
+        LocalCartStore store = loadedStore();
+
+        store.add(new CartItem(latte, 1));
+        store.add(new CartItem(latte, 2));
+        store.add(new CartItem(latte, 1, "Large", "Oat Milk", 0.0));
+        store.add(new CartItem(mocha, 1));
+
+        List<CartItem> items = store.getItems();
+        assertEquals(3, items.size());
+        assertEquals(3, items.get(0).getQuantity());
+        assertEquals(5, store.getItemCount());
+        assertEquals(4 * 4.50 + 5.25, store.getTotal(), 0.001);
+    }
+
+    @Test
+    public void setQuantity_changesOrRemovesTheProduct() throws Exception {
+        LocalCartStore store = loadedStore();
+        store.add(new CartItem(latte, 1));
+        store.add(new CartItem(mocha, 1));
+
+        assertTrue(store.setQuantity("p1", 4));
+        assertEquals(5, store.getItemCount());
+        assertTrue(store.setQuantity("p2", 0));
+        assertEquals(1, store.getItems().size());
+        assertFalse(store.setQuantity("unknown", 2));
+    }
+
+    @Test
+    public void subtract_keepsQuantityAddedSinceTheRead() throws Exception {
+        LocalCartStore store = loadedStore();
+        store.add(new CartItem(latte, 2));
+        store.add(new CartItem(mocha, 1));
+        List<CartItem> sent = store.getItems();
+        store.add(new CartItem(latte, 3));
+
+        store.subtract(sent);
+
+        List<CartItem> items = store.getItems();
+        assertEquals(1, items.size());
+        assertEquals("p1", items.get(0).getProductId());
+        assertEquals(3, items.get(0).getQuantity());
+        assertEquals(3, store.getItemCount());
+    }
+
+    @Test
+    public void changes_arePersistedToTheJournal() throws Exception {
+        LocalCartStore store = loadedStore();
+        store.add(new CartItem(latte, 2));
+        store.add(new CartItem(mocha, 1));
+        store.removeProducts(Collections.singletonList("p2"));
+        awaitJournalLines(3);
+
+        LocalCartStore reloaded = loadedStore();
+        List<CartItem> items = reloaded.getItems();
+        assertEquals(1, items.size());
+        assertEquals("p1", items.get(0).getProductId());
+        assertEquals(2, items.get(0).getQuantity());
+        assertEquals(9.00, reloaded.getTotal(), 0.001);
+    }
+
+    @Test
+    public void load_skipsAndTrimsATornLastRecord() throws Exception {
+        String put = "{\"op\":\"put\",\"key\":\"p1|Medium|Whole Milk\",\"item\":"
+                + "{\"product\":{\"id\":\"p1\",\"name\":\"Latte\",\"price\":4.5},\"quantity\":2,"
+                + "\"size\":\"Medium\",\"milk_option\":\"Whole Milk\"}}\n";
+        String torn = "{\"op\":\"put\",\"key\":\"p2|Med";
+        Files.write(journal.toPath(), (put + torn).getBytes(StandardCharsets.UTF_8));
+
+        LocalCartStore store = loadedStore();
+
+        assertEquals(2, store.getItemCount());
+        assertEquals(put, new String(Files.readAllBytes(journal.toPath()), StandardCharsets.UTF_8));
+
+        // The next record starts on a line of its own
+        store.add(new CartItem(mocha, 1));
+        awaitJournalLines(2);
+        assertEquals(3, loadedStore().getItemCount());
+    }
+
+    @Test
+    public void readsBeforeLoad_seeAnEmptyCart() throws Exception {
+        LocalCartStore store = new LocalCartStore(null, journal);
+        if (!store.isLoaded()) {
+            assertTrue(store.isEmpty());
+            assertEquals(0, store.getItemCount());
+        }
+        awaitLoaded(store);
+        assertTrue(store.isEmpty());
+    }
+
+    private LocalCartStore loadedStore() throws InterruptedException {
+        LocalCartStore store = new LocalCartStore(null, journal);
+        awaitLoaded(store);
+        return store;
+    }
+
+    private static void awaitLoaded(LocalCartStore store) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!store.isLoaded()) {
+            assertTrue("Journal did not load", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitJournalLines(int count) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (true) {
+            List<String> lines = Arrays.asList(new String(Files.readAllBytes(journal.toPath()),
+                    StandardCharsets.UTF_8).split("\n", -1));
+            // Complete lines only: the text after the last newline is empty
+            if (lines.size() - 1 >= count && lines.get(lines.size() - 1).isEmpty()) {
+                return;
+            }
+            assertTrue("Journal was not written", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.coffeecorner.app.utils;
+
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.Order;
+import com.coffeecorner.app.models.Product;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProductIdentityMapTest {
+
+    private final ProductIdentityMap map = new ProductIdentityMap(true);
+    private int replacements;
+
+    @Test
+    public void intern_returnsTheFirstSighting() {
+        Product first = latte(4.50);
+
+        assertSame(first, map.intern(first));
+        assertSame(first, map.intern(latte(4.50)));
+        assertSame(first, map.get("p1"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void intern_keepsProductsWithoutAnId() {
+        Product product = new Product(null, "Special", "", 3.00, "Coffee", null);
+
+        assertSame(product, map.intern(product));
+        assertNull(map.intern(null));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void intern_replacesChangedProductsWithoutChangingThem() {
+        Product first = map.intern(latte(4.50));
+        map.addListener(() -> replacements++);
+
+        Product current = map.intern(latte(4.75));
+
+        assertNotSame(first, current);
+        assertEquals(4.50, first.getPrice(), 0);
+        assertEquals(4.75, current.getPrice(), 0);
+        assertSame(current, map.get("p1"));
+        assertEquals(1, replacements);
+    }
+
+    @Test
+    public void internAll_notifiesOncePerBatch() {
+        map.internAll(Arrays.asList(latte(4.50), mocha(5.25)));
+        map.addListener(() -> replacements++);
+
+        List<Product> shared = map.internAll(Arrays.asList(latte(4.75), mocha(5.50), latte(4.75)));
+
+        assertEquals(1, replacements);
+        assertEquals(3, shared.size());
+        assertSame(shared.get(0), shared.get(2));
+
+        map.internAll(Arrays.asList(latte(4.75), mocha(5.50)));
+        assertEquals(1, replacements);
+    }
+
+    @Test
+    public void removedListener_isNotNotified() {
+        map.intern(latte(4.50));
+        ProductIdentityMap.ReplacementListener listener = () -> replacements++;
+        map.addListener(listener);
+        map.removeListener(listener);
+
+        map.intern(latte(4.75));
+
+        assertEquals(0, replacements);
+    }
+
+    @Test
+    public void currentAll_swapsInReplacedProducts() {
+        List<Product> shown = map.internAll(Arrays.asList(latte(4.50), mocha(5.25)));
+        assertSame(shown, map.currentAll(shown));
+
+        Product current = map.intern(latte(4.75));
+        List<Product> updated = map.currentAll(shown);
+
+        assertNotSame(shown, updated);
+        assertSame(current, updated.get(0));
+        assertSame(shown.get(1), updated.get(1));
+        assertEquals(4.50, shown.get(0).getPrice(), 0);
+    }
+
+    @Test
+    public void markUnavailable_replacesTheSharedProduct() {
+        Product first = map.intern(latte(4.50));
+        map.addListener(() -> replacements++);
+
+        map.markUnavailable(Arrays.asList("p1", "unknown"));
+        map.markUnavailable(Collections.singletonList("p1"));
+
+        assertTrue(first.isAvailable());
+        assertFalse(map.get("p1").isAvailable());
+        assertEquals(1, replacements);
+    }
+
+    @Test
+    public void mergeCartItems_mergesOnlyTheFieldsACartLineCarries() {
+        Product rated = latte(4.50);
+        rated.setRating(4.5f);
+        Product first = map.intern(rated);
+        // Cart lines carry a product without a rating
+        Product inCart = latte(4.75);
+        CartItem item = new CartItem(inCart, 1);
+
+        map.mergeCartItems(Collections.singletonList(item));
+
+        Product current = map.get("p1");
+        assertNotSame(first, current);
+        assertEquals(4.75, current.getPrice(), 0);
+        assertEquals(4.5f, current.getRating(), 0);
+        assertSame(inCart, item.getProduct());
+        assertEquals(4.50, first.getPrice(), 0);
+    }
+
+    @Test
+    public void mergeCartItems_ignoresProductsNotHeld() {
+        map.mergeCartItems(Collections.singletonList(new CartItem(latte(4.50), 1)));
+
+        assertNull(map.get("p1"));
+    }
+
+    @Test
+    public void shareOrderProducts_sharesLinesAtTheSamePrice() {
+        Product live = map.intern(latte(4.75));
+        CartItem first = new CartItem(latte(4.50), 1);
+        CartItem again = new CartItem(latte(4.50), 2);
+        CartItem repriced = new CartItem(latte(4.75), 1);
+
+        map.shareOrderProducts(Arrays.asList(order(first), order(again, repriced)));
+
+        assertSame(first.getProduct(), again.getProduct());
+        assertNotSame(first.getProduct(), repriced.getProduct());
+        // Orders keep their own snapshot, not the live product
+        assertNotSame(live, repriced.getProduct());
+    }
+
+    private static Order order(CartItem... items) {
+        Order order = new Order();
+        order.setItems(Arrays.asList(items));
+        return order;
+    }
+
+    private static Product latte(double price) {
+        return new Product("p1", "Latte", "", price, "Coffee", null);
+    }
+
+    private static Product mocha(double price) {
+        return new Product("p2", "Mocha", "", price, "Coffee", null);
+    }
+}
@@ -0,0 +1,91 @@
+package com.coffeecorner.app.utils;
+
+import com.coffeecorner.app.models.Product;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ProductSearchIndexTest {
+
+    private final Product caffeLatte = product("p1", "Caffe Latte", "Coffee", 4.0f);
+    private final Product icedLatte = product("p2", "Iced Latte", "Coffee", 4.5f);
+    private final Product lemonTart = product("p3", "Lemon Tart", "Desserts", 5.0f);
+    private final Product espresso = product("p4", "Espresso", "Coffee", 3.0f);
+    private final Product coffeeCake = product("p5", "Coffee Cake", "Desserts", 1.0f);
+    private final ProductSearchIndex index = new ProductSearchIndex(
+            Arrays.asList(caffeLatte, icedLatte, lemonTart, espresso, coffeeCake));
+
+    @Test
+    public void editDistance_countsEditsAndSwappedNeighbours() {
+        assertEquals(0, ProductSearchIndex.editDistance("latte", "latte", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("mocha", "macha", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("latte", "latet", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("espresso", "expresso", 2));
+        assertEquals(3, ProductSearchIndex.editDistance("kitten", "sitting", 3));
+    }
+
+    @Test
+    public void editDistance_givesUpPastTheMaximum() {
+        assertEquals(2, ProductSearchIndex.editDistance("abc", "abcdef", 1));
+        assertEquals(2, ProductSearchIndex.editDistance("kitten", "sitting", 1));
+    }
+
+    @Test
+    public void search_ranksEqualMatchesByRating() {
+        assertEquals(Arrays.asList(icedLatte, caffeLatte), index.search("latte"));
+    }
+
+    @Test
+    public void search_matchesPartlyTypedWords() {
+        assertEquals(Arrays.asList(icedLatte, caffeLatte), index.search("Lat"));
+    }
+
+    @Test
+    public void search_requiresEveryWord() {
+        assertEquals(Arrays.asList(icedLatte), index.search("iced lat"));
+        assertTrue(index.search("iced tart").isEmpty());
+    }
+
+    @Test
+    public void search_ranksNameMatchesAboveCategoryMatches() {
+        // Coffee Cake is the lowest rated, but the only one named coffee
+        assertEquals(Arrays.asList(coffeeCake, icedLatte, caffeLatte, espresso), index.search("coffee"));
+    }
+
+    @Test
+    public void search_ranksExactWordsAbovePrefixes() {
+        Product tea = product("t1", "Tea", "Tea", 1.0f);
+        Product teacake = product("t2", "Teacake", "Bakery", 5.0f);
+        ProductSearchIndex teas = new ProductSearchIndex(Arrays.asList(teacake, tea));
+
+        assertEquals(Arrays.asList(tea, teacake), teas.search("tea"));
+    }
+
+    @Test
+    public void search_acceptsTypos() {
+        assertEquals(Arrays.asList(espresso), index.search("expresso"));
+        assertEquals(Arrays.asList(lemonTart), index.search("lemno"));
+    }
+
+    @Test
+    public void search_triesTyposOnlyForLongerWords() {
+        assertTrue(index.search("lx").isEmpty());
+    }
+
+    @Test
+    public void search_withoutWordsFindsNothing() {
+        assertTrue(index.search("").isEmpty());
+        assertTrue(index.search(" - ").isEmpty());
+        assertTrue(new ProductSearchIndex(new ArrayList<>()).search("latte").isEmpty());
+    }
+
+    private static Product product(String id, String name, String category, float rating) {
+        Product product = new Product(id, name, "", 3.00, category, null);
+        product.setRating(rating);
+        return product;
+    }
+}
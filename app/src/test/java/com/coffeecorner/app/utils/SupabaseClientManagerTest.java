@@ -0,0 +1,140 @@
+package com.coffeecorner.app.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.coffeecorner.app.models.OrderItemRow;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Call;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+public class SupabaseClientManagerTest {
+
+    private static final String URL = "https://project.supabase.co";
+    private static final String KEY = "anon-key";
+
+    private final SupabaseClientManager client = SupabaseClientManager.getInstance();
+
+    @Before
+    public void setUp() {
+        SupabaseClientManager.initialize(URL, KEY);
+    }
+
+    @Test
+    public void sharedClient_boundsConcurrencyAndTime() {
+        assertEquals(16, SupabaseClientManager.httpClient.dispatcher().getMaxRequests());
+        assertEquals(8, SupabaseClientManager.httpClient.dispatcher().getMaxRequestsPerHost());
+        assertTrue(SupabaseClientManager.httpClient.protocols().contains(Protocol.HTTP_2));
+        assertEquals(60_000, SupabaseClientManager.httpClient.callTimeoutMillis());
+    }
+
+    @Test
+    public void buildRequest_sendsTheKeyAndFilters() {
+        Request request = client.from("profiles").select().eq("id", "u1").buildRequest();
+
+        assertEquals("GET", request.method());
+        assertEquals("/rest/v1/profiles", request.url().encodedPath());
+        assertEquals("eq.u1", request.url().queryParameter("id"));
+        assertEquals(KEY, request.header("apikey"));
+        assertEquals("Bearer " + KEY, request.header("Authorization"));
+        assertEquals("return=minimal", request.header("Prefer"));
+        assertNull(request.body());
+    }
+
+    @Test
+    public void buildRequest_postsAnEmptyBodyWithoutData() {
+        Request request = client.from("orders").insert((Object) null).buildRequest();
+
+        assertEquals("POST", request.method());
+        assertNotNull(request.body());
+    }
+
+    @Test
+    public void executeAsync_reportsAnUnusableUrlThroughTheCallback() {
+        SupabaseClientManager.initialize("not a url", KEY);
+        AtomicReference<SupabaseClientManager.SupabaseResponse> received = new AtomicReference<>();
+
+        Call call = client.from("orders").select().executeAsync(received::set);
+
+        assertNull(call);
+        assertNotNull(received.get().getError());
+    }
+
+    @Test
+    public void in_fetchesASetOfIdsInOneFilter() {
+        Request request = client.from("products").select("id,price")
+                .in("id", Arrays.asList("p1", "p2", "a,b", "say \"hi\""))
+                .buildRequest();
+
+        assertEquals("id,price", request.url().queryParameter("select"));
+        assertEquals("in.(p1,p2,\"a,b\",\"say \\\"hi\\\"\")", request.url().queryParameter("id"));
+    }
+
+    @Test
+    public void rangeAndCount_useHeaders() {
+        Request request = client.from("orders").select("id").range(0, 24).countExact().buildRequest();
+
+        assertEquals("items", request.header("Range-Unit"));
+        assertEquals("0-24", request.header("Range"));
+        assertEquals("return=minimal,count=exact", request.header("Prefer"));
+    }
+
+    @Test
+    public void page_usesOffsetAndLimit() {
+        Request request = client.from("orders").select().page(40, 20).buildRequest();
+
+        assertEquals("40", request.url().queryParameter("offset"));
+        assertEquals("20", request.url().queryParameter("limit"));
+        assertNull(request.header("Range"));
+    }
+
+    @Test
+    public void parseTotalCount_readsTheContentRangeTotal() {
+        assertEquals(3573, SupabaseClientManager.parseTotalCount("0-24/3573"));
+        assertEquals(0, SupabaseClientManager.parseTotalCount("*/0"));
+        assertEquals(-1, SupabaseClientManager.parseTotalCount("0-24/*"));
+        assertEquals(-1, SupabaseClientManager.parseTotalCount("0-24/"));
+        assertEquals(-1, SupabaseClientManager.parseTotalCount(null));
+    }
+
+    @Test
+    public void insertList_sendsOneJsonArray() throws IOException {
+        Request request = client.from("order_items").insert(Arrays.asList(
+                new OrderItemRow("i1", "o1", "p1", 2, 4.50),
+                new OrderItemRow("i2", "o1", "p2", 1, 5.25))).buildRequest();
+
+        JsonArray rows = new Gson().fromJson(body(request), JsonArray.class);
+        assertEquals("POST", request.method());
+        assertEquals(2, rows.size());
+        assertEquals("p2", rows.get(1).getAsJsonObject().get("product_id").getAsString());
+        assertEquals("return=minimal", request.header("Prefer"));
+    }
+
+    @Test
+    public void upsert_mergesDuplicatesOnTheConflictColumns() throws IOException {
+        Request request = client.from("cart_items")
+                .upsert(Arrays.asList(new OrderItemRow("i1", "o1", "p1", 2, 4.50)), "user_id,product_id")
+                .returning("representation")
+                .buildRequest();
+
+        assertEquals("user_id,product_id", request.url().queryParameter("on_conflict"));
+        assertEquals("return=representation,resolution=merge-duplicates", request.header("Prefer"));
+        assertEquals(1, new Gson().fromJson(body(request), JsonArray.class).size());
+    }
+
+    private static String body(Request request) throws IOException {
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        return buffer.readUtf8();
+    }
+}
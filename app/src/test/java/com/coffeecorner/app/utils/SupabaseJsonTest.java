@@ -0,0 +1,123 @@
+package com.coffeecorner.app.utils;
+
+import com.coffeecorner.app.models.CartItem;
+import com.coffeecorner.app.models.Order;
+import com.coffeecorner.app.models.Product;
+import com.coffeecorner.app.models.User;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class SupabaseJsonTest {
+
+    @Test
+    public void readList_bindsProductColumns() throws IOException {
+        List<Product> products = SupabaseJson.readList(new StringReader("[{\"id\":\"p1\",\"name\":\"Latte\","
+                + "\"price\":\"4.50\",\"rating\":4.5,\"is_available\":true,\"image_url\":\"https://img/latte.jpg\","
+                + "\"available_sizes\":[\"Small\",null,\"Large\"],\"created_at\":\"2024-05-01T09:30:00+00:00\"},"
+                + "{\"id\":\"p2\",\"name\":null,\"price\":3,\"category\":\"Tea\"}]"), Product.class);
+
+        assertEquals(2, products.size());
+        Product latte = products.get(0);
+        assertEquals("p1", latte.getId());
+        assertEquals(4.50, latte.getPrice(), 0);
+        assertEquals(4.5f, latte.getRating(), 0);
+        assertTrue(latte.isAvailable());
+        assertEquals("https://img/latte.jpg", latte.getImageUrl());
+        assertEquals(Arrays.asList("Small", "Large"), latte.getAvailableSizes());
+        assertNull(products.get(1).getName());
+        assertEquals("Tea", products.get(1).getCategory());
+    }
+
+    @Test
+    public void readFirst_readsASingleObjectOrTheFirstRow() throws IOException {
+        User user = SupabaseJson.readFirst(new StringReader("[{\"id\":\"u1\",\"full_name\":\"Ana\","
+                + "\"profile_image_url\":\"https://img/ana.jpg\",\"loyalty_points\":120},{\"id\":\"u2\"}]"), User.class);
+
+        assertEquals("u1", user.getId());
+        assertEquals("Ana", user.getFullName());
+        assertEquals("https://img/ana.jpg", user.getPhotoUrl());
+        assertEquals(Integer.valueOf(120), user.getLoyaltyPoints());
+        assertNull(SupabaseJson.readFirst(new StringReader(""), User.class));
+        assertEquals("u3", SupabaseJson.readFirst(new StringReader("{\"id\":\"u3\"}"), User.class).getId());
+    }
+
+    @Test
+    public void readList_readsNestedProductsOfCartLines() throws IOException {
+        List<CartItem> items = SupabaseJson.readList(new StringReader("[{\"id\":\"c1\",\"quantity\":2,"
+                + "\"milk_option\":\"Oat\",\"product\":{\"id\":\"p1\",\"price\":4.5}}]"), CartItem.class);
+
+        CartItem item = items.get(0);
+        assertEquals("c1", item.getId());
+        assertEquals(2, item.getQuantity());
+        assertEquals("Oat", item.getMilkOption());
+        assertEquals("p1", item.getProductId());
+        assertEquals(4.5, item.getPrice(), 0);
+    }
+
+    @Test
+    public void readList_readsOrdersTableRows() throws IOException {
+        List<Order> orders = SupabaseJson.readList(new StringReader("[{\"id\":\"o1\",\"user_id\":\"u1\","
+                + "\"total_amount\":12.75,\"status\":\"pending\",\"created_at\":\"2024-05-01T09:30:00.123456+00:00\"}]"),
+                Order.class);
+
+        Order order = orders.get(0);
+        assertEquals("o1", order.getOrderId());
+        assertEquals(12.75, order.getTotal(), 0);
+        assertEquals("pending", order.getStatus());
+        assertEquals(1714555800123L, order.getOrderDate().getTime());
+    }
+
+    @Test
+    public void write_thenRead_keepsTheOrder() throws IOException {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            Product latte = new Product("p1", "Latte", "", 4.50, "Coffee", "https://img/latte.jpg");
+            Order order = new Order("o1", new Date(1714555800000L),
+                    Collections.singletonList(new CartItem(latte, 2)), "Main St 1", "Cash on Delivery",
+                    2.00, 0.50, 0, Order.STATUS_CONFIRMED, 30);
+            StringWriter json = new StringWriter();
+
+            SupabaseJson.write(json, order);
+
+            JsonObject row = new Gson().fromJson(json.toString(), JsonObject.class);
+            assertEquals("2024-05-01T09:30:00Z", row.get("order_date").getAsString());
+            assertFalse(row.has("delivery_person_name"));
+            Order read = SupabaseJson.readFirst(new StringReader(json.toString()), Order.class);
+            assertEquals("o1", read.getOrderId());
+            assertEquals(order.getOrderDate(), read.getOrderDate());
+            assertEquals(9.00, read.getSubtotal(), 0);
+            assertEquals(11.50, read.getTotal(), 0);
+            assertEquals(2, read.getItems().get(0).getQuantity());
+            assertEquals("Latte", read.getItems().get(0).getProduct().getName());
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    @Test
+    public void write_listsAreOneJsonArray() throws IOException {
+        StringWriter json = new StringWriter();
+
+        SupabaseJson.write(json, Arrays.asList(new Product("p1", "Latte", "", 4.50, "Coffee", null),
+                new Product("p2", "Mocha", "", 5.25, "Coffee", null)));
+
+        List<Product> read = SupabaseJson.readList(new StringReader(json.toString()), Product.class);
+        assertEquals(2, read.size());
+        assertEquals("p2", read.get(1).getId());
+        assertEquals(5.25, read.get(1).getPrice(), 0);
+    }
+}
@@ -0,0 +1,47 @@
+import hashlib
+import logging
+
+from starlette.middleware.base import BaseHTTPMiddleware
+from starlette.requests import Request
+from starlette.responses import Response
+
+logger = logging.getLogger(__name__)
+
+
+class CatalogETagMiddleware(BaseHTTPMiddleware):
+    """Attach strong ETags to catalog GETs and answer If-None-Match with 304.
+
+    The catalog changes rarely, so letting clients revalidate their cached copy
+    avoids re-sending the full product JSON on every cold start.
+    """
+
+    def __init__(self, app, path_prefix: str = "/products"):
+        super().__init__(app)
+        self.path_prefix = path_prefix
+
+    async def dispatch(self, request: Request, call_next):
+        response = await call_next(request)
+
+        if request.method != "GET" or not request.url.path.startswith(self.path_prefix):
+            return response
+        if response.status_code != 200:
+            return response
+
+        body = b"".join([chunk async for chunk in response.body_iterator])
+        etag = '"' + hashlib.sha1(body).hexdigest() + '"'
+
+        headers = dict(response.headers)
+        headers.pop("content-length", None)
+        headers["ETag"] = etag
+
+        if_none_match = request.headers.get("if-none-match")
+        if if_none_match and etag in [tag.strip() for tag in if_none_match.split(",")]:
+            logger.debug(f"Catalog not modified: {request.url.path}")
+            return Response(status_code=304, headers={"ETag": etag})
+
+        return Response(
+            content=body,
+            status_code=response.status_code,
+            headers=headers,
+            media_type=response.media_type,
+        )
@@ -1,6 +1,7 @@
 from fastapi import FastAPI
 from fastapi.middleware.cors import CORSMiddleware
 from app.core.config import settings
+from app.core.etag import CatalogETagMiddleware
 from app.routers import auth, products, cart, orders, favorites, debug, user
 from app.services.product_service import ProductService
 import logging
@@ -25,6 +26,9 @@ app.add_middleware(
     allow_headers=["*"],
 )
 
+# Let clients revalidate cached catalog responses with If-None-Match
+app.add_middleware(CatalogETagMiddleware, path_prefix="/products")
+
 # Include routers
 app.include_router(auth.router)
 app.include_router(products.router)
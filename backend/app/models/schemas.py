@@ -51,6 +51,26 @@ class ProductResponse(BaseModel):
     updated_at: Optional[datetime] = None
 
 
+class ProductChanges(BaseModel):
+    """One page of catalog changes after a cursor. products holds changed
+    products, including ones made unavailable (is_available false); deleted
+    lists products that were removed, which clients drop from their copy.
+    Send cursor back to read the next page."""
+
+    products: List[ProductResponse] = []
+    deleted: List[str] = []
+    cursor: Optional[str] = None
+    has_more: bool = False
+
+
+class ProductPage(BaseModel):
+    """One page of the catalog. Pass next_cursor back to read the page after
+    it; None means this is the last page."""
+
+    products: List[ProductResponse] = []
+    next_cursor: Optional[str] = None
+
+
 class ProductCreate(BaseModel):
     name: str = Field(..., min_length=2, max_length=200)
     description: str = Field(..., min_length=10, max_length=1000)
@@ -79,6 +99,40 @@ class CartItemResponse(BaseModel):
     updated_at: Optional[datetime] = None
 
 
+class CartLine(BaseModel):
+    id: str
+    product_id: str
+    quantity: int
+
+
+class CartDelta(BaseModel):
+    """Result of a cart mutation: the changed line instead of the whole cart.
+    Clients holding base_version can apply it; others should refetch the cart."""
+
+    base_version: str
+    version: str
+    line: Optional[CartLine] = None
+    removed_id: Optional[str] = None
+    item_count: int = 0
+    subtotal: float = 0.0
+
+
+class CartMergeRequest(BaseModel):
+    items: List[CartItemAdd] = Field(..., min_length=1)
+
+
+class CartMergeFailure(BaseModel):
+    product_id: str
+    reason: str
+
+
+class CartMergeResponse(BaseModel):
+    version: Optional[str] = None
+    items: List[CartItemResponse] = []
+    merged: List[str] = []
+    failed: List[CartMergeFailure] = []
+
+
 class OrderCreate(BaseModel):
     items: List[Dict[str, Any]]
     total: float = Field(..., gt=0)
@@ -1,5 +1,10 @@
-from fastapi import APIRouter, Depends, HTTPException, status
-from app.models.schemas import CartItemAdd, CartItemUpdate, ApiResponse
+from fastapi import APIRouter, Depends, HTTPException, Response, status
+from app.models.schemas import (
+    CartItemAdd,
+    CartItemUpdate,
+    CartMergeRequest,
+    ApiResponse,
+)
 from app.services.cart_service import CartService
 from app.routers.auth import (
     get_current_user,
@@ -10,9 +15,13 @@ from app.routers.auth import (
 
 router = APIRouter(prefix="/cart", tags=["Cart"])
 
+# Response header carrying the cart version on full cart reads
+CART_VERSION_HEADER = "X-Cart-Version"
+
 
 @router.get("", response_model=ApiResponse)
 async def get_cart(
+    response: Response,
     current_user: UserResponse = Depends(get_current_user),
     credentials: HTTPAuthorizationCredentials = Depends(security),
 ):
@@ -21,6 +30,9 @@ async def get_cart(
         cart_items = await CartService.get_user_cart(
             current_user.id, access_token=credentials.credentials
         )
+        response.headers[CART_VERSION_HEADER] = CartService.cart_version(
+            item.model_dump() for item in cart_items
+        )
         return ApiResponse(
             success=True, message="Cart retrieved successfully", data=cart_items
         )
@@ -35,14 +47,35 @@ async def add_to_cart(
     current_user: UserResponse = Depends(get_current_user),
     credentials: HTTPAuthorizationCredentials = Depends(security),
 ):
-    """Add item to cart"""
-    # Pass the access token to the cart service
-    item = await CartService.add_to_cart(
-        current_user.id, cart_item, access_token=credentials.credentials
+    """Add item to cart. Returns the changed line as a CartDelta."""
+    delta = await CartService.mutate_cart(
+        current_user.id,
+        "add",
+        product_id=cart_item.product_id,
+        quantity=cart_item.quantity,
+        access_token=credentials.credentials,
     )
     return ApiResponse(
-        success=True, message="Item added to cart successfully", data=item
+        success=True, message="Item added to cart successfully", data=delta
+    )
+
+
+@router.post("/merge", response_model=ApiResponse)
+async def merge_cart(
+    merge_request: CartMergeRequest,
+    current_user: UserResponse = Depends(get_current_user),
+    credentials: HTTPAuthorizationCredentials = Depends(security),
+):
+    """Merge a guest cart into the user's cart in one request"""
+    result = await CartService.merge_cart(
+        current_user.id, merge_request.items, access_token=credentials.credentials
+    )
+    message = (
+        "Cart merged successfully"
+        if not result.failed
+        else f"Cart merged with {len(result.failed)} item(s) rejected"
     )
+    return ApiResponse(success=True, message=message, data=result)
 
 
 @router.put("/update/{item_id}", response_model=ApiResponse)
@@ -52,12 +85,20 @@ async def update_cart_item(
     current_user: UserResponse = Depends(get_current_user),
     credentials: HTTPAuthorizationCredentials = Depends(security),
 ):
-    """Update cart item quantity"""
-    item = await CartService.update_cart_item(
-        current_user.id, item_id, update_data, access_token=credentials.credentials
+    """Update cart item quantity. Returns the changed line as a CartDelta."""
+    delta = await CartService.mutate_cart(
+        current_user.id,
+        "update",
+        item_id=item_id,
+        quantity=update_data.quantity,
+        access_token=credentials.credentials,
     )
+    if delta.line is None:
+        raise HTTPException(
+            status_code=status.HTTP_404_NOT_FOUND, detail="Cart item not found"
+        )
     return ApiResponse(
-        success=True, message="Cart item updated successfully", data=item
+        success=True, message="Cart item updated successfully", data=delta
     )
 
 
@@ -67,16 +108,17 @@ async def remove_from_cart(
     current_user: UserResponse = Depends(get_current_user),
     credentials: HTTPAuthorizationCredentials = Depends(security),
 ):
-    """Remove item from cart"""
-    success = await CartService.remove_from_cart(
-        current_user.id, item_id, access_token=credentials.credentials
+    """Remove item from cart. Returns the removed line ID as a CartDelta."""
+    delta = await CartService.mutate_cart(
+        current_user.id, "remove", item_id=item_id, access_token=credentials.credentials
     )
-    if not success:
+    if delta.removed_id is None:
         raise HTTPException(
             status_code=status.HTTP_404_NOT_FOUND, detail="Cart item not found"
         )
-
-    return ApiResponse(success=True, message="Item removed from cart successfully")
+    return ApiResponse(
+        success=True, message="Item removed from cart successfully", data=delta
+    )
 
 
 @router.delete("/clear", response_model=ApiResponse)
@@ -1,4 +1,4 @@
-from fastapi import APIRouter, Query, HTTPException, Depends
+from fastapi import APIRouter, Query, HTTPException, Depends, Response
 from typing import List, Optional
 from app.models.schemas import ProductResponse, ApiResponse
 from app.services.product_service import ProductService
@@ -25,6 +25,19 @@ async def search_products(q: str = Query(..., description="Search query")):
     )
 
 
+@router.get("/page", response_model=ApiResponse)
+async def get_product_page(
+    category: Optional[str] = Query(None),
+    cursor: Optional[str] = Query(None, description="next_cursor of the previous page"),
+    limit: int = Query(20, ge=1, le=100),
+):
+    """Get one page of products, optionally filtered by category"""
+    page = await ProductService.get_product_page(category, cursor, limit)
+    return ApiResponse(
+        success=True, message="Products retrieved successfully", data=page
+    )
+
+
 @router.get("/category/{category}", response_model=ApiResponse)
 async def get_products_by_category(category: str):
     """Get products by category"""
@@ -44,8 +57,31 @@ async def get_product(product_id: str):
 
 
 @router.get("", response_model=ApiResponse)
-async def get_products(category: Optional[str] = Query(None)):
-    """Get all products, optionally filtered by category"""
+async def get_products(
+    response: Response,
+    category: Optional[str] = Query(None),
+    updated_since: Optional[str] = Query(
+        None, description="Cursor from X-Catalog-Cursor or a previous page"
+    ),
+    limit: int = Query(100, ge=1, le=500),
+):
+    """Get all products, optionally filtered by category.
+
+    With updated_since, returns one page of changes after that cursor instead
+    (see ProductChanges), so clients holding a copy only download what changed.
+    """
+    if updated_since is not None:
+        changes = await ProductService.get_product_changes(updated_since, limit)
+        return ApiResponse(
+            success=True, message="Product changes retrieved successfully", data=changes
+        )
+
+    if category is None:
+        # Read before the products, so changes made in between are synced again
+        cursor = await ProductService.get_catalog_cursor()
+        if cursor:
+            response.headers["X-Catalog-Cursor"] = cursor
+
     products = await ProductService.get_all_products(category)
     return ApiResponse(
         success=True, message="Products retrieved successfully", data=products
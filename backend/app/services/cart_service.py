@@ -1,4 +1,5 @@
-from typing import List
+from typing import List, Optional
+import hashlib
 import uuid
 from fastapi import HTTPException, status
 from app.database.supabase import supabase, create_client
@@ -6,6 +7,9 @@ from app.models.schemas import (
     CartItemAdd,
     CartItemUpdate,
     CartItemResponse,
+    CartMergeFailure,
+    CartMergeResponse,
+    CartDelta,
     ProductResponse,
 )
 import logging
@@ -13,6 +17,9 @@ from app.core.config import settings
 
 logger = logging.getLogger(__name__)
 
+# Version of a cart with no items, so clients can track it after a clear
+EMPTY_CART_VERSION = "0"
+
 
 class CartService:
     @staticmethod
@@ -134,6 +141,68 @@ class CartService:
             logger.error(f"Error ensuring user profile exists: {e}")
             return False
 
+    @staticmethod
+    def cart_version(rows) -> str:
+        """
+        Version of a cart's contents: a short hash of its (id, product, quantity)
+        lines. Any add, update or remove changes it, whichever client made it.
+        Must match the public.cart_version SQL function used by mutate_cart.
+        """
+        lines = sorted(
+            f"{row['id']}:{row['product_id']}:{row['quantity']}" for row in rows
+        )
+        if not lines:
+            return EMPTY_CART_VERSION
+        return hashlib.sha256("|".join(lines).encode("utf-8")).hexdigest()[:16]
+
+    @staticmethod
+    async def mutate_cart(
+        user_id: str,
+        op: str,
+        product_id: Optional[str] = None,
+        item_id: Optional[str] = None,
+        quantity: Optional[int] = None,
+        access_token=None,
+    ) -> CartDelta:
+        """
+        Apply one cart mutation ("add", "update" or "remove") and return it as a
+        CartDelta. The change, the versions before and after, and the totals come
+        from one transaction (the mutate_cart SQL function), so no other change to
+        the cart can fall between them.
+        """
+        try:
+            if op == "add":
+                await CartService.ensure_user_profile_exists(user_id, access_token)
+            client = await CartService.get_authenticated_client(access_token)
+            result = client.rpc(
+                "mutate_cart",
+                {
+                    "p_user_id": user_id,
+                    "p_op": op,
+                    "p_product_id": product_id,
+                    "p_item_id": item_id,
+                    "p_quantity": quantity,
+                },
+            ).execute()
+            return CartDelta(**result.data)
+
+        except Exception as e:
+            logger.error(f"Error applying cart {op} for user {user_id}: {e}")
+            if "row-level security" in str(e).lower():
+                raise HTTPException(
+                    status_code=status.HTTP_403_FORBIDDEN,
+                    detail="Authentication failed - please log in again",
+                )
+            elif "foreign key constraint" in str(e).lower():
+                raise HTTPException(
+                    status_code=status.HTTP_400_BAD_REQUEST,
+                    detail="Product not found",
+                )
+            raise HTTPException(
+                status_code=status.HTTP_500_INTERNAL_SERVER_ERROR,
+                detail=f"Failed to {op} cart item",
+            )
+
     @staticmethod
     async def get_user_cart(user_id: str, access_token=None) -> List[CartItemResponse]:
         """Get all items in user's cart"""
@@ -272,6 +341,97 @@ class CartService:
                     detail=f"Failed to add item to cart: {str(e)}",
                 )
 
+    @staticmethod
+    async def merge_cart(
+        user_id: str, items: List[CartItemAdd], access_token=None
+    ) -> CartMergeResponse:
+        """
+        Merge guest cart items into the user's cart with one read of the
+        existing rows, one product lookup and one upsert, whatever the cart size.
+        Quantities are added to existing rows, like add_to_cart. Items whose
+        product no longer exists are reported in `failed` instead of failing
+        the whole merge.
+        """
+        # Collapse repeated products (e.g. different sizes of the same drink)
+        quantities = {}
+        for item in items:
+            quantities[item.product_id] = (
+                quantities.get(item.product_id, 0) + item.quantity
+            )
+        product_ids = list(quantities.keys())
+
+        try:
+            await CartService.ensure_user_profile_exists(user_id, access_token)
+            client = await CartService.get_authenticated_client(access_token)
+
+            logger.info(
+                f"Merging {len(product_ids)} guest cart products for user: {user_id}"
+            )
+
+            products_result = (
+                client.table("products").select("id").in_("id", product_ids).execute()
+            )
+            known_ids = {row["id"] for row in products_result.data or []}
+
+            existing_result = (
+                client.table("cart_items")
+                .select("*")
+                .eq("user_id", user_id)
+                .in_("product_id", product_ids)
+                .execute()
+            )
+            existing = {row["product_id"]: row for row in existing_result.data or []}
+
+            rows = []
+            merged = []
+            failed = []
+            for product_id, quantity in quantities.items():
+                if product_id not in known_ids:
+                    failed.append(
+                        CartMergeFailure(
+                            product_id=product_id, reason="Product not found"
+                        )
+                    )
+                    continue
+                row = existing.get(product_id)
+                rows.append(
+                    {
+                        "id": row["id"] if row else str(uuid.uuid4()),
+                        "user_id": user_id,
+                        "product_id": product_id,
+                        "quantity": (row["quantity"] if row else 0) + quantity,
+                    }
+                )
+                merged.append(product_id)
+
+            if rows:
+                client.table("cart_items").upsert(rows).execute()
+
+            logger.info(
+                f"✓ Merged {len(merged)} products, rejected {len(failed)} for user: {user_id}"
+            )
+            cart_items = await CartService.get_user_cart(user_id, access_token)
+            return CartMergeResponse(
+                version=CartService.cart_version(item.model_dump() for item in cart_items),
+                items=cart_items,
+                merged=merged,
+                failed=failed,
+            )
+
+        except HTTPException:
+            raise
+        except Exception as e:
+            logger.error(f"Error merging cart: {e}")
+            if "row-level security" in str(e).lower():
+                raise HTTPException(
+                    status_code=status.HTTP_403_FORBIDDEN,
+                    detail="Authentication failed - please log in again",
+                )
+            raise HTTPException(
+                status_code=status.HTTP_500_INTERNAL_SERVER_ERROR,
+                detail=f"Failed to merge cart: {str(e)}",
+            )
+
     @staticmethod
     async def update_cart_item(
         user_id: str, item_id: str, update_data: CartItemUpdate, access_token=None
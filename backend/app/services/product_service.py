@@ -1,7 +1,7 @@
 from typing import List, Optional
 from fastapi import HTTPException, status
 from app.database.supabase import supabase
-from app.models.schemas import ProductResponse, ProductCreate
+from app.models.schemas import ProductResponse, ProductCreate, ProductChanges, ProductPage
 import logging
 import uuid
 
@@ -12,14 +12,15 @@ class ProductService:
 
     @staticmethod
     async def get_all_products(category: Optional[str] = None) -> List[ProductResponse]:
-        """Get all products, optionally filtered by category"""
+        """Get all products in ID order, the order product pages use,
+        optionally filtered by category"""
         try:
             query = supabase.table("products").select("*")
 
             if category:
                 query = query.eq("category", category)
 
-            result = query.execute()
+            result = query.order("id").execute()
 
             # If database returns empty results, return sample data for testing
             if not result.data:
@@ -33,6 +34,133 @@ class ProductService:
             logger.info("Database error, returning sample data for testing")
             return ProductService._get_sample_products(category)
 
+    @staticmethod
+    async def get_product_page(
+        category: Optional[str], cursor: Optional[str], limit: int
+    ) -> ProductPage:
+        """Get one page of products in ID order, optionally filtered by
+        category. The cursor is the ID of the last product already read."""
+        try:
+            query = supabase.table("products").select("*")
+
+            if category:
+                query = query.eq("category", category)
+            if cursor:
+                query = query.gt("id", cursor)
+
+            # One extra row tells whether another page follows
+            result = query.order("id").limit(limit + 1).execute()
+
+            if not result.data and not cursor:
+                logger.info("Database returned empty results, providing sample data")
+                return ProductService._page_of(ProductService._get_sample_products(category), cursor, limit)
+
+            products = [ProductResponse(**product) for product in result.data[:limit]]
+            has_more = len(result.data) > limit
+            return ProductPage(
+                products=products, next_cursor=products[-1].id if has_more else None
+            )
+
+        except Exception as e:
+            logger.error(f"Error fetching product page after {cursor}: {e}")
+            logger.info("Database error, returning sample data for testing")
+            return ProductService._page_of(ProductService._get_sample_products(category), cursor, limit)
+
+    @staticmethod
+    def _page_of(products: List[ProductResponse], cursor: Optional[str], limit: int) -> ProductPage:
+        """Page an in-memory product list the same way as the database"""
+        remaining = sorted(
+            (p for p in products if not cursor or p.id > cursor), key=lambda p: p.id
+        )
+        page = remaining[:limit]
+        return ProductPage(
+            products=page, next_cursor=page[-1].id if len(remaining) > limit else None
+        )
+
+    @staticmethod
+    async def get_catalog_cursor() -> Optional[str]:
+        """Cursor just after the latest catalog change, for clients that
+        download the full catalog and then sync deltas. None if unknown."""
+        try:
+            result = (
+                supabase.table("product_changes")
+                .select("change_txid, change_seq")
+                .order("change_txid", desc=True)
+                .order("change_seq", desc=True)
+                .limit(1)
+                .execute()
+            )
+            if not result.data:
+                return None
+            row = result.data[0]
+            return ProductService._encode_cursor(row["change_txid"], row["change_seq"])
+
+        except Exception as e:
+            logger.error(f"Error reading catalog cursor: {e}")
+            return None
+
+    @staticmethod
+    async def get_product_changes(updated_since: str, limit: int) -> ProductChanges:
+        """Get products changed after a cursor, oldest change first. Changed
+        products, including ones made unavailable, are returned whole; deleted
+        products as IDs in deleted. An empty cursor starts from the beginning
+        of the catalog."""
+        query = supabase.table("product_changes").select("id, change_txid, change_seq, deleted")
+
+        if updated_since:
+            txid, _, seq = updated_since.partition("|")
+            if not txid.isdigit() or not seq.isdigit():
+                raise HTTPException(
+                    status_code=status.HTTP_400_BAD_REQUEST, detail="Invalid cursor"
+                )
+            # Keyset on (change_txid, change_seq), which the view's index serves
+            query = query.or_(
+                f"change_txid.gt.{txid},"
+                f"and(change_txid.eq.{txid},change_seq.gt.{seq})"
+            )
+
+        try:
+            # One extra row tells whether another page follows
+            result = query.order("change_txid").order("change_seq").limit(limit + 1).execute()
+            rows = result.data[:limit]
+
+            # A product deleted and re-created within the page: the later change wins
+            is_deleted = {}
+            for row in rows:
+                is_deleted[row["id"]] = row["deleted"]
+            live_ids = [product_id for product_id, gone in is_deleted.items() if not gone]
+            deleted = [product_id for product_id, gone in is_deleted.items() if gone]
+
+            products = []
+            if live_ids:
+                product_result = (
+                    supabase.table("products").select("*").in_("id", live_ids).execute()
+                )
+                products = [ProductResponse(**product) for product in product_result.data]
+
+            cursor = (
+                ProductService._encode_cursor(rows[-1]["change_txid"], rows[-1]["change_seq"])
+                if rows
+                else updated_since or None
+            )
+            return ProductChanges(
+                products=products,
+                deleted=deleted,
+                cursor=cursor,
+                has_more=len(result.data) > limit,
+            )
+
+        except Exception as e:
+            logger.error(f"Error fetching product changes since {updated_since}: {e}")
+            raise HTTPException(
+                status_code=status.HTTP_500_INTERNAL_SERVER_ERROR,
+                detail="Failed to fetch product changes",
+            )
+
+    @staticmethod
+    def _encode_cursor(change_txid, change_seq) -> str:
+        return f"{change_txid}|{change_seq}"
+
     @staticmethod
     async def get_product_by_id(product_id: str) -> ProductResponse:
         """Get a product by its ID"""
@@ -77,6 +205,7 @@ class ProductService:
                 supabase.table("products")
                 .select("*")
                 .or_(f"name.ilike.%{query}%,description.ilike.%{query}%")
+                .order("id")
                 .execute()
             )
 
@@ -97,6 +226,7 @@ class ProductService:
                 supabase.table("products")
                 .select("*")
                 .eq("category", category)
+                .order("id")
                 .execute()
             )
 
@@ -194,6 +194,149 @@ CREATE TRIGGER handle_cart_items_updated_at BEFORE UPDATE ON public.cart_items
 CREATE TRIGGER handle_orders_updated_at BEFORE UPDATE ON public.orders
     FOR EACH ROW EXECUTE FUNCTION handle_updated_at();
 
+-- Version of a user's cart contents: the first 16 hex digits of the SHA-256 of
+-- its sorted "id:product_id:quantity" lines joined by "|", or '0' when empty.
+-- CartService.cart_version computes the same value in Python.
+CREATE OR REPLACE FUNCTION public.cart_version(p_user_id TEXT)
+RETURNS TEXT AS $$
+    SELECT COALESCE(
+        LEFT(encode(sha256(convert_to(
+            string_agg(id::TEXT || ':' || product_id::TEXT || ':' || quantity::TEXT, '|'
+                ORDER BY id::TEXT || ':' || product_id::TEXT || ':' || quantity::TEXT COLLATE "C"),
+            'UTF8')), 'hex'), 16),
+        '0')
+    FROM public.cart_items
+    WHERE user_id = p_user_id;
+$$ LANGUAGE sql STABLE;
+
+-- Apply one cart mutation ('add', 'update' or 'remove') and describe it as a
+-- delta: the changed line, the versions before and after, and the new totals.
+-- Mutations of one user's cart are serialized, so base_version is exactly the
+-- cart the change was applied to. Runs with the caller's rights, so RLS applies.
+CREATE OR REPLACE FUNCTION public.mutate_cart(
+    p_user_id TEXT,
+    p_op TEXT,
+    p_product_id UUID DEFAULT NULL,
+    p_item_id UUID DEFAULT NULL,
+    p_quantity INTEGER DEFAULT NULL
+)
+RETURNS JSONB AS $$
+DECLARE
+    v_base_version TEXT;
+    v_line JSONB;
+    v_removed_id UUID;
+    v_item_count INTEGER;
+    v_subtotal NUMERIC;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('cart:' || p_user_id));
+    v_base_version := public.cart_version(p_user_id);
+
+    IF p_op = 'add' THEN
+        INSERT INTO public.cart_items (user_id, product_id, quantity)
+        VALUES (p_user_id, p_product_id, p_quantity)
+        ON CONFLICT (user_id, product_id)
+            DO UPDATE SET quantity = public.cart_items.quantity + EXCLUDED.quantity
+        RETURNING jsonb_build_object('id', id, 'product_id', product_id, 'quantity', quantity)
+        INTO v_line;
+    ELSIF p_op = 'update' THEN
+        UPDATE public.cart_items SET quantity = p_quantity
+        WHERE id = p_item_id AND user_id = p_user_id
+        RETURNING jsonb_build_object('id', id, 'product_id', product_id, 'quantity', quantity)
+        INTO v_line;
+    ELSIF p_op = 'remove' THEN
+        DELETE FROM public.cart_items
+        WHERE id = p_item_id AND user_id = p_user_id
+        RETURNING id INTO v_removed_id;
+    ELSE
+        RAISE EXCEPTION 'Unknown cart operation: %', p_op;
+    END IF;
+
+    SELECT COALESCE(SUM(c.quantity), 0), COALESCE(SUM(c.quantity * p.price), 0)
+    INTO v_item_count, v_subtotal
+    FROM public.cart_items c
+    JOIN public.products p ON p.id = c.product_id
+    WHERE c.user_id = p_user_id;
+
+    RETURN jsonb_build_object(
+        'base_version', v_base_version,
+        'version', public.cart_version(p_user_id),
+        'line', v_line,
+        'removed_id', v_removed_id,
+        'item_count', v_item_count,
+        'subtotal', ROUND(v_subtotal, 2)
+    );
+END;
+$$ LANGUAGE plpgsql;
+
+-- Remember deleted products so catalog delta sync can tell clients to drop them
+CREATE TABLE IF NOT EXISTS public.product_tombstones (
+    product_id UUID PRIMARY KEY,
+    deleted_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
+
+CREATE OR REPLACE FUNCTION handle_product_deleted()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO public.product_tombstones (product_id) VALUES (OLD.id)
+    ON CONFLICT (product_id) DO UPDATE SET deleted_at = NOW();
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER handle_products_deleted AFTER DELETE ON public.products
+    FOR EACH ROW EXECUTE FUNCTION handle_product_deleted();
+
+-- Catalog change stamps for delta sync. Timestamps can't order changes: NOW()
+-- is when a transaction started, not when it committed, so a reader could move
+-- its cursor past a change that commits later. Each write instead records its
+-- transaction ID and a sequence number, and product_changes only shows rows
+-- whose transaction ended before the reader's snapshot began. Every change
+-- still in flight gets a transaction ID above anything already shown, so a
+-- (change_txid, change_seq) keyset cursor never skips it.
+CREATE SEQUENCE IF NOT EXISTS public.catalog_change_seq;
+
+ALTER TABLE public.products
+    ADD COLUMN IF NOT EXISTS change_txid XID8,
+    ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+ALTER TABLE public.product_tombstones
+    ADD COLUMN IF NOT EXISTS change_txid XID8,
+    ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+
+CREATE OR REPLACE FUNCTION handle_catalog_change()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.change_txid = pg_current_xact_id();
+    NEW.change_seq = nextval('public.catalog_change_seq');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER handle_products_catalog_change BEFORE INSERT OR UPDATE ON public.products
+    FOR EACH ROW EXECUTE FUNCTION handle_catalog_change();
+
+CREATE TRIGGER handle_product_tombstones_catalog_change BEFORE INSERT OR UPDATE ON public.product_tombstones
+    FOR EACH ROW EXECUTE FUNCTION handle_catalog_change();
+
+-- Stamp rows written before the triggers existed
+UPDATE public.products SET change_seq = NULL WHERE change_seq IS NULL;
+UPDATE public.product_tombstones SET change_seq = NULL WHERE change_seq IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_products_change ON public.products (change_txid, change_seq);
+CREATE INDEX IF NOT EXISTS idx_product_tombstones_change ON public.product_tombstones (change_txid, change_seq);
+
+-- Every committed catalog change as one stream, read in (change_txid,
+-- change_seq) order by GET /products?updated_since=<cursor>. Unavailable
+-- products are ordinary changes; only deleted ones come from tombstones.
+DROP VIEW IF EXISTS public.product_changes;
+CREATE VIEW public.product_changes AS
+    SELECT id::TEXT AS id, change_txid, change_seq, false AS deleted
+    FROM public.products
+    WHERE change_txid < pg_snapshot_xmin(pg_current_snapshot())
+    UNION ALL
+    SELECT product_id::TEXT, change_txid, change_seq, true
+    FROM public.product_tombstones
+    WHERE change_txid < pg_snapshot_xmin(pg_current_snapshot());
+
 -- Create a function to sync up authentication user IDs with profiles
 CREATE OR REPLACE FUNCTION public.handle_new_user() 
 RETURNS TRIGGER AS $$